@@ -109,6 +109,11 @@ public class SecurityHeaderCreator extends WSHandler implements ISecurityHeaderC
 
     private static Logger  log = LogManager.getLogger(SecurityHeaderCreator.class);
 
+    /**
+     * Name of the part property that indicates that the payload is compressed using the AS4 Compression Feature
+     */
+    private static final String COMPRESSION_PROPERTY = "CompressionType";
+
     /**
      * The Security Provider instance
      */
@@ -464,6 +469,22 @@ public class SecurityHeaderCreator extends WSHandler implements ISecurityHeaderC
         // Algorithms to use
         processingParams.put(ConfigurationConstants.SIG_DIGEST_ALGO, signingConfig.getHashFunction());
         processingParams.put(ConfigurationConstants.SIG_ALGO, signingConfig.getSignatureAlgorithm());
+
+        // The payloads in attachments for which the digest stored by the Payload Storage Provider can be used. As the
+        // stored digest is calculated over the original content, compressed payloads cannot be included
+        final Map<String, IPayloadEntity> payloadsWithDigest = new HashMap<>();
+        if (!Utils.isNullOrEmpty(msgUnits))
+            msgUnits.stream().filter(msgUnit -> msgUnit instanceof IUserMessage)
+                    .map(userMsg -> ((IUserMessageEntity) userMsg).getPayloads())
+                    .filter(umPayloads -> !Utils.isNullOrEmpty(umPayloads))
+                    .forEachOrdered(umPayloads -> umPayloads.stream()
+                            .filter(p -> p.getContainment() == IPayload.Containment.ATTACHMENT
+                                         && !Utils.isNullOrEmpty(p.getPayloadURI())
+                                         && (Utils.isNullOrEmpty(p.getProperties())
+                                             || p.getProperties().stream()
+                                                          .noneMatch(pp -> COMPRESSION_PROPERTY.equals(pp.getName()))))
+                            .forEach(p -> payloadsWithDigest.put(p.getPayloadURI(), p)));
+        processingParams.put(SignatureAction.PAYLOADS_WITH_DIGEST, payloadsWithDigest);
     }
 
     /**
@@ -508,7 +529,7 @@ public class SecurityHeaderCreator extends WSHandler implements ISecurityHeaderC
         }
         final WSSConfig wssConfig = reqData.getWssConfig();
         for (HandlerAction actionToDo : actions) {
-            log.debug("Performing Action: " + convertAction(actionToDo));
+            log.debug("Performing Action: {}", convertAction(actionToDo));
             org.apache.wss4j.dom.action.Action doit = null;
             try {
                 doit = wssConfig.getAction(actionToDo.getAction());
@@ -556,6 +577,7 @@ public class SecurityHeaderCreator extends WSHandler implements ISecurityHeaderC
             	return (!Utils.isNullOrEmpty(prefix) ? prefix : "") + HB2B_ID_PREFIX + UUID.randomUUID().toString();
             }
         });
+        wssConfig.setAction(WSConstants.SIGN, SignatureAction.class);
         wssConfig.setAction(WSConstants.ENCR, EncryptionAction.class);
         reqData.setWssConfig(wssConfig);
         reqData.setSignatureProvider(securityProvider.getJceProvider());
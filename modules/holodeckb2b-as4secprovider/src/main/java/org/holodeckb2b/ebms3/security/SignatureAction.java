@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.security.auth.callback.CallbackHandler;
+import javax.xml.crypto.dsig.Reference;
+
+import org.apache.wss4j.common.SecurityActionToken;
+import org.apache.wss4j.common.SignatureActionToken;
+import org.apache.wss4j.common.WSEncryptionPart;
+import org.apache.wss4j.common.ext.WSPasswordCallback;
+import org.apache.wss4j.common.ext.WSSecurityException;
+import org.apache.wss4j.dom.WSConstants;
+import org.apache.wss4j.dom.handler.RequestData;
+import org.apache.wss4j.dom.handler.WSHandler;
+import org.apache.wss4j.dom.util.WSSecurityUtil;
+import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.interfaces.storage.IPayloadEntity;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Extends the {@link org.apache.wss4j.dom.action.SignatureAction} of WSS4J to use {@link WSSecExtendedSignature} for
+ * creating the signature, so the digests of payloads that were already calculated by the <i>Payload Storage
+ * Provider</i> can be used in the signature instead of reading the attachments again.
+ * <p>
+ * When there are no payloads for which the stored digest can be used the signature is created by the WSS4J action.
+ * Otherwise the steps of the WSS4J action are executed using the extended signature, as WSS4J creates the signature
+ * object within the action and does not provide a way to replace it. These steps must therefore be kept in line with
+ * the WSS4J version used.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since  8.2.0
+ * @see WSSecExtendedSignature
+ */
+public class SignatureAction extends org.apache.wss4j.dom.action.SignatureAction {
+	/**
+	 * Name of the option that contains the map of payloads, keyed on their content-id, for which the stored digest can
+	 * be used in the signature.
+	 */
+	public static final String	PAYLOADS_WITH_DIGEST = "hb2bPayloadsWithDigest";
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void execute(WSHandler handler, SecurityActionToken actionToken, RequestData reqData)
+			throws WSSecurityException {
+		final Map<String, IPayloadEntity> payloads = (Map<String, IPayloadEntity>) handler.getOption(PAYLOADS_WITH_DIGEST);
+		if (Utils.isNullOrEmpty(payloads)) {
+			super.execute(handler, actionToken, reqData);
+			return;
+		}
+
+        CallbackHandler callbackHandler = reqData.getCallbackHandler();
+        if (callbackHandler == null)
+            callbackHandler = handler.getPasswordCallbackHandler(reqData);
+
+        SignatureActionToken signatureToken = null;
+        if (actionToken instanceof SignatureActionToken)
+            signatureToken = (SignatureActionToken)actionToken;
+        if (signatureToken == null)
+            signatureToken = reqData.getSignatureToken();
+
+        WSPasswordCallback passwordCallback =
+            handler.getPasswordCB(signatureToken.getUser(), WSPasswordCallback.SIGNATURE, callbackHandler, reqData);
+        WSSecExtendedSignature wsSign = new WSSecExtendedSignature(reqData.getSecHeader());
+        wsSign.setIdAllocator(reqData.getWssConfig().getIdAllocator());
+        wsSign.setAddInclusivePrefixes(reqData.isAddInclusivePrefixes());
+        wsSign.setWsDocInfo(reqData.getWsDocInfo());
+        wsSign.setExpandXopInclude(reqData.isExpandXopInclude());
+        wsSign.setSignatureProvider(reqData.getSignatureProvider());
+        wsSign.setPayloadsWithDigest(payloads);
+
+        if (signatureToken.getKeyIdentifierId() != 0)
+            wsSign.setKeyIdentifierType(signatureToken.getKeyIdentifierId());
+        if (signatureToken.getSignatureAlgorithm() != null)
+            wsSign.setSignatureAlgorithm(signatureToken.getSignatureAlgorithm());
+        if (signatureToken.getDigestAlgorithm() != null)
+            wsSign.setDigestAlgo(signatureToken.getDigestAlgorithm());
+        if (signatureToken.getC14nAlgorithm() != null)
+            wsSign.setSigCanonicalization(signatureToken.getC14nAlgorithm());
+
+        wsSign.setIncludeSignatureToken(signatureToken.isIncludeToken());
+        wsSign.setUserInfo(signatureToken.getUser(), passwordCallback.getPassword());
+        wsSign.setUseSingleCertificate(signatureToken.isUseSingleCert());
+
+        if (passwordCallback.getKey() != null)
+            wsSign.setSecretKey(passwordCallback.getKey());
+        else if (signatureToken.getKey() != null)
+            wsSign.setSecretKey(signatureToken.getKey());
+        else if (signatureToken.getUser() == null)
+            throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE, "noSignatureUser");
+
+        if (signatureToken.getTokenId() != null)
+            wsSign.setCustomTokenId(signatureToken.getTokenId());
+        if (signatureToken.getTokenType() != null)
+            wsSign.setCustomTokenValueType(signatureToken.getTokenType());
+        if (signatureToken.getSha1Value() != null)
+            wsSign.setEncrKeySha1value(signatureToken.getSha1Value());
+        if (signatureToken.getKeyInfoElement() != null)
+            wsSign.setCustomKeyInfoElement(signatureToken.getKeyInfoElement());
+
+        wsSign.setAttachmentCallbackHandler(reqData.getAttachmentCallbackHandler());
+        wsSign.setStoreBytesInAttachment(reqData.isStoreBytesInAttachment());
+
+        try {
+            wsSign.prepare(signatureToken.getCrypto());
+
+            Element siblingElementToPrepend = null;
+            boolean signBST = false;
+            for (WSEncryptionPart part : signatureToken.getParts()) {
+                if ("STRTransform".equals(part.getName()) && part.getId() == null) {
+                    part.setId(wsSign.getSecurityTokenReferenceURI());
+                } else if (reqData.isAppendSignatureAfterTimestamp()
+                        && WSConstants.WSU_NS.equals(part.getNamespace())
+                        && "Timestamp".equals(part.getName())) {
+                    int originalSignatureActionIndex = reqData.getOriginalSignatureActionPosition();
+                    // Need to figure out where to put the signature
+                    if (originalSignatureActionIndex > 0) {
+                        Element secHeader = reqData.getSecHeader().getSecurityHeaderElement();
+                        Node lastChild = secHeader.getLastChild();
+                        int count = 0;
+                        while (lastChild != null && count < originalSignatureActionIndex) {
+                            while (lastChild != null && lastChild.getNodeType() != Node.ELEMENT_NODE)
+                                lastChild = lastChild.getPreviousSibling();
+                            count++;
+                        }
+                        if (lastChild instanceof Element)
+                            siblingElementToPrepend = (Element)lastChild;
+                    }
+                } else if (WSConstants.WSSE_NS.equals(part.getNamespace())
+                    && WSConstants.BINARY_TOKEN_LN.equals(part.getName())) {
+                    signBST = true;
+                } else if ("KeyInfo".equals(part.getName()) && WSConstants.SIG_NS.equals(part.getNamespace())
+                    && part.getElement() == null) {
+                    part.setId(wsSign.getKeyInfoUri());
+                    break;
+                }
+            }
+
+            if (signBST)
+                wsSign.prependBSTElementToHeader();
+
+            List<WSEncryptionPart> parts = signatureToken.getParts();
+            if (parts == null || parts.isEmpty()) {
+                parts = new ArrayList<>(1);
+                parts.add(WSSecurityUtil.getDefaultEncryptionPart(
+                											reqData.getSecHeader().getSecurityHeaderElement()
+                																  .getOwnerDocument()));
+            }
+            List<Reference> referenceList = wsSign.addReferencesToSign(parts);
+
+            if (signBST || reqData.isAppendSignatureAfterTimestamp() && siblingElementToPrepend == null)
+                wsSign.computeSignature(referenceList, false, null);
+            else
+                wsSign.computeSignature(referenceList, true, siblingElementToPrepend);
+
+            if (!signBST)
+                wsSign.prependBSTElementToHeader();
+
+            reqData.getSignatureValues().add(wsSign.getSignatureValue());
+        } catch (WSSecurityException e) {
+            throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE, e, "empty",
+                                          new Object[] {"Error during Signature: "});
+        }
+	}
+}
@@ -364,7 +364,7 @@ public class SignatureProcessor implements Processor {
 			if (log.isDebugEnabled()) {
 				log.debug("XML Signature verification has failed");
 				boolean signatureValidationCheck = xmlSignature.getSignatureValue().validate(context);
-				log.debug("Signature Validation check: " + signatureValidationCheck);
+				log.debug("Signature Validation check: {}", signatureValidationCheck);
 				java.util.Iterator<?> referenceIterator = xmlSignature.getSignedInfo().getReferences().iterator();
 				while (referenceIterator.hasNext()) {
 					Reference reference = (Reference) referenceIterator.next();
@@ -373,7 +373,7 @@ public class SignatureProcessor implements Processor {
 					if (id == null) {
 						id = reference.getURI();
 					}
-					log.debug("Reference " + id + " check: " + referenceValidationCheck);
+					log.debug("Reference {} check: {}", id, referenceValidationCheck);
 				}
 			}
 		} catch (WSSecurityException ex) {
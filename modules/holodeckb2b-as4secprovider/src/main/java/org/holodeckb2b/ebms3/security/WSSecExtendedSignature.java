@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.security;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.crypto.dsig.Reference;
+import javax.xml.crypto.dsig.Transform;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wss4j.common.WSEncryptionPart;
+import org.apache.wss4j.common.ext.Attachment;
+import org.apache.wss4j.common.ext.WSSecurityException;
+import org.apache.wss4j.dom.WSConstants;
+import org.apache.wss4j.dom.message.WSSecHeader;
+import org.apache.wss4j.dom.message.WSSecSignature;
+import org.apache.wss4j.dom.transform.AttachmentTransformParameterSpec;
+import org.apache.xml.security.algorithms.JCEMapper;
+import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.interfaces.storage.IPayloadEntity;
+
+/**
+ * Extends {@link WSSecSignature} to use the digest of the payload content that was already calculated by the <i>Payload
+ * Storage Provider</i> when the payload was stored, so the attachment does not need to be read and digested again
+ * when the message is signed.
+ * <p>
+ * The stored digest can only be used when the content of the attachment is digested as is. Therefore it is only used
+ * for attachments that are not compressed and that have a MIME type that is neither <i>text</i> nor XML, because the
+ * <i>Attachment-Content-Signature-Transform</i> canonicalises these before calculating the digest.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since  8.2.0
+ */
+public class WSSecExtendedSignature extends WSSecSignature {
+	private static final Logger log = LogManager.getLogger(WSSecExtendedSignature.class);
+
+	/**
+	 * The payloads that may be included in the signature using their stored digest, mapped on their content-id
+	 */
+	private Map<String, IPayloadEntity>	payloads;
+
+	public WSSecExtendedSignature(WSSecHeader securityHeader) {
+		super(securityHeader);
+	}
+
+	/**
+	 * Sets the payloads for which the stored digest can be used.
+	 *
+	 * @param payloads	map of payloads, with the content-id of the attachment as key
+	 */
+	public void setPayloadsWithDigest(Map<String, IPayloadEntity> payloads) {
+		this.payloads = payloads;
+	}
+
+	@Override
+	public List<Reference> addReferencesToSign(List<WSEncryptionPart> references) throws WSSecurityException {
+		final List<Reference> refs = super.addReferencesToSign(references);
+		if (Utils.isNullOrEmpty(payloads))
+			return refs;
+
+		final String algorithm = JCEMapper.translateURItoJCEID(getDigestAlgo());
+		if (algorithm == null)
+			return refs;
+
+		final List<Reference> result = new ArrayList<>(refs.size());
+		for (Reference ref : refs) {
+			final byte[] digest = getStoredDigest(ref, algorithm);
+			if (digest == null)
+				result.add(ref);
+			else {
+				log.debug("Using stored digest for attachment {}", ref.getURI());
+				result.add(signatureFactory.newReference(ref.getURI(), ref.getDigestMethod(), ref.getTransforms(),
+														 ref.getType(), ref.getId(), digest));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the stored digest of the payload referenced by the given reference if it can be used in the signature.
+	 *
+	 * @param ref		the reference to check
+	 * @param algorithm	JCA name of the digest algorithm
+	 * @return	the stored digest, or <code>null</code> if not available or it cannot be used
+	 */
+	private byte[] getStoredDigest(Reference ref, String algorithm) {
+		final String uri = ref.getURI();
+		if (uri == null || !uri.startsWith("cid:") || ref.getTransforms().size() != 1)
+			return null;
+		final IPayloadEntity payload = payloads.get(uri.substring(4));
+		final Transform t = ref.getTransforms().get(0);
+		if (payload == null || !WSConstants.SWA_ATTACHMENT_CONTENT_SIG_TRANS.equals(t.getAlgorithm())
+			|| !(t.getParameterSpec() instanceof AttachmentTransformParameterSpec))
+			return null;
+
+		final Attachment attachment = ((AttachmentTransformParameterSpec) t.getParameterSpec()).getAttachment();
+		final String mimeType = attachment != null && attachment.getMimeType() != null ?
+											attachment.getMimeType().toLowerCase() : "";
+		if (mimeType.isEmpty() || mimeType.startsWith("text/") || mimeType.startsWith("application/xml")
+			|| mimeType.contains("+xml"))
+			return null;
+
+		try {
+			return payload.getContentDigest(algorithm);
+		} catch (IOException digestUnavailable) {
+			log.warn("Could not get stored digest of payload {} : {}", payload.getPayloadId(),
+					 digestUnavailable.getMessage());
+			return null;
+		}
+	}
+}
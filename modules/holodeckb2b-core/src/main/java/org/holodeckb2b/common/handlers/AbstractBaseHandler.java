@@ -27,6 +27,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.core.MessageProcessingContext;
+import org.holodeckb2b.core.metrics.LatencyRecorder;
+import org.holodeckb2b.core.metrics.ProcessingMetrics;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 
 /**
@@ -46,6 +48,19 @@ public abstract class AbstractBaseHandler extends AbstractHandler {
      * should be indicated by setting the handler parameter <i>onlyAsResponder</i> to "true". 
      */
     private	boolean 	runOnlyAsResponder;
+    /**
+     * The recorders of the processing times of this handler, one for each flow it can run in and indexed by {@link
+     * #getFlowIndex(MessageContext)}. They are retrieved from {@link ProcessingMetrics} on the first invocation in the
+     * flow.
+     * @since 8.2.0
+     */
+    private final LatencyRecorder[] metrics = new LatencyRecorder[8];
+    /**
+     * The logs used by this handler, one for each flow it can run in and indexed by {@link
+     * #getFlowIndex(MessageContext)}. They are created on the first invocation in the flow.
+     * @since 8.2.0
+     */
+    private final Logger[] logs = new Logger[8];
     
     /**
      * Initializes the handler by checking it is contained in a Holodeck B2B module that is dealing with a specific
@@ -68,7 +83,8 @@ public abstract class AbstractBaseHandler extends AbstractHandler {
 
     /**
      * Prepares the handler for processing of the message. Checks if the handler is run in the correct flow and
-     * creates a correctly named {@link Log}.
+     * creates a correctly named {@link Log}. The processing time of the handler is recorded in the {@link
+     * ProcessingMetrics}.
      * <p>NOTE: To prevent sub classes from overriding this method it is declared final.
      *
      * @param mc            The Axis2 {@link MessageContext}. Will be passed onto the implementation for the actual
@@ -89,15 +105,20 @@ public abstract class AbstractBaseHandler extends AbstractHandler {
     	Logger log = prepareLog(mc);
     	
         // Do actual processing in implementation
+        final long start = System.nanoTime();
+        boolean failed = true;
         try {
             log.trace("Start processing");
             final InvocationResponse result = doProcessing(MessageProcessingContext.getFromMessageContext(mc), log);
             log.trace("End processing");
+            failed = false;
             return result;
         } catch (final Throwable t) {
             // Unhandled exception during processing, should not happen!
             log.error("An unhandled exception occurred while processing the message! Details: " + t.getMessage());
             throw new AxisFault("Internal error", t);
+        } finally {
+        	getRecorder(mc).record(System.nanoTime() - start, failed);
         }
     }
     
@@ -114,12 +135,62 @@ public abstract class AbstractBaseHandler extends AbstractHandler {
     }
     
     /**
-     * Helper method to prepare a corrected named log.
+     * Helper method to prepare a corrected named log. As the name of the log only depends on the flow, the log is
+     * created on the first execution of the handler in a flow and reused for later executions.
      *  
      * @param mc	The message context
      * @return		The log to be used during this execution of the handler
      */
     private Logger prepareLog(final MessageContext mc) {
+    	final int i = getFlowIndex(mc);
+    	Logger log = logs[i];
+    	if (log == null)
+    		// Concurrent initialisation is harmless as the log manager returns the same logger for the name
+    		logs[i] = log = LogManager.getLogger("org.holodeckb2b.msgproc." + 
+    										(!Utils.isNullOrEmpty(handledMsgProtocol) ? handledMsgProtocol + "." : "")
+        									+ getFlowName(mc) + "." + getHandlerDesc().getName());
+    	return log;
+    }
+
+    /**
+     * Helper method to get the recorder of the processing times of this handler in the current flow.
+     *
+     * @param mc	The message context
+     * @return		The recorder to use during this execution of the handler
+     * @since 8.2.0
+     */
+    private LatencyRecorder getRecorder(final MessageContext mc) {
+    	final int i = getFlowIndex(mc);
+    	LatencyRecorder recorder = metrics[i];
+    	if (recorder == null) {
+    		final String name = getHandlerDesc().getName();
+    		// Concurrent initialisation is harmless as the same recorder is returned for the handler and flow
+    		metrics[i] = recorder = ProcessingMetrics.getHandlerRecorder(handledMsgProtocol, getFlowName(mc),
+    														name != null ? name : getClass().getSimpleName());
+    	}
+    	return recorder;
+    }
+
+    /**
+     * Gets the index of the flow the handler currently runs in, combining the Axis2 flow and whether Holodeck B2B is
+     * responding to a received request.
+     *
+     * @param mc	The message context
+     * @return		The index of the current flow, between 0 and 7
+     * @since 8.2.0
+     */
+    private static int getFlowIndex(final MessageContext mc) {
+    	return (mc.isServerSide() ? 4 : 0) + ((mc.getFLOW() - 1) & 3);
+    }
+
+    /**
+     * Gets the name of the flow the handler currently runs in.
+     *
+     * @param mc	The message context
+     * @return		The name of the current flow
+     * @since 8.2.0
+     */
+    private static String getFlowName(final MessageContext mc) {
         // Determine which flow the handler currently runs is
         String 	currentFlowName = mc.isServerSide() ? "RESPONSE_" : "REQUEST_";
         
@@ -133,11 +204,7 @@ public abstract class AbstractBaseHandler extends AbstractHandler {
             case MessageContext.OUT_FAULT_FLOW :
                 currentFlowName += "OUT_FAULT_FLOW"; 
         }
-        
-        // Running in correct flow, create a logger
-        return LogManager.getLogger("org.holodeckb2b.msgproc." + (!Utils.isNullOrEmpty(handledMsgProtocol) ?
-                                                                handledMsgProtocol + "." : "")
-        													+ currentFlowName + "." + getHandlerDesc().getName());
+        return currentFlowName;
     }
     
     /**
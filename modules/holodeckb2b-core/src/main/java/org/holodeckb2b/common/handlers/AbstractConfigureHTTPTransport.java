@@ -75,15 +75,14 @@ public abstract class AbstractConfigureHTTPTransport extends AbstractBaseHandler
                 final StorageManager updManager = HolodeckB2BCore.getStorageManager();
             	final IMessageProcessingEventProcessor eventProcessor = HolodeckB2BCore.getEventProcessor();
             	for(IMessageUnitEntity mu : procCtx.getSendingMessageUnits()) {
-        			log.debug("Updating processing state to FAILURE for message unit [msgId="
-        						+ mu.getMessageId() + "]");
+        			log.debug("Updating processing state to FAILURE for message unit [msgId={}]", mu.getMessageId());
         			updManager.setProcessingState(mu, ProcessingState.FAILURE);
         			eventProcessor.raiseEvent(new MessageTransferFailure(mu,
         														new Exception("Unable to configure HTTP Connection")));
         		}
                 return InvocationResponse.ABORT;
             }
-            log.debug("Destination URL=" + destURL);
+            log.debug("Destination URL={}", destURL);
             procCtx.getParentContext().setProperty(Constants.Configuration.TRANSPORT_URL, destURL);
         }
         prepareHttp(primaryMU, procCtx);
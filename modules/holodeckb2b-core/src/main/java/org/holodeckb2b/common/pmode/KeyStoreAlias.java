@@ -17,6 +17,7 @@
 package org.holodeckb2b.common.pmode;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 import org.holodeckb2b.commons.util.Utils;
 import org.simpleframework.xml.Attribute;
@@ -47,4 +48,9 @@ class KeystoreAlias implements Serializable {
 		KeystoreAlias that = (KeystoreAlias) obj;
     	return Utils.nullSafeEqual(this.name, that.name) && Utils.nullSafeEqual(this.password, that.password);
     }
+
+    @Override
+    public int hashCode() {
+    	return Objects.hash(name, password);
+    }
 }
@@ -63,6 +63,9 @@ public class PMode implements IPMode, Serializable {
     @Attribute (name = "useStrictHeaderValidation", required = false)
     private boolean useStrictHeaderValidation = false;
 
+    @Attribute (name = "priority", required = false)
+    private Priority priority;
+
     static class PModeId implements Serializable {
 		private static final long serialVersionUID = -6518809112297907991L;
 
@@ -117,6 +120,7 @@ public class PMode implements IPMode, Serializable {
         	this.pmodeId.id = srcPMode.getId();
             this.pmodeId.include = srcPMode.includeId();
             this.useStrictHeaderValidation = srcPMode.useStrictHeaderValidation();
+            this.priority = srcPMode.getPriority();
             this.mep = srcPMode.getMep();
             this.mepBinding = srcPMode.getMepBinding();
             this.agreement = srcPMode.getAgreement() != null ? new Agreement(srcPMode.getAgreement()) : null;
@@ -315,6 +319,15 @@ public class PMode implements IPMode, Serializable {
         this.useStrictHeaderValidation = useStrictValidation;
     }
 
+    @Override
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(final Priority priority) {
+        this.priority = priority;
+    }
+
 	@Override
 	public List<IMessageProcessingEventConfiguration> getMessageProcessingEventConfiguration() {
 		return eventHandlers;
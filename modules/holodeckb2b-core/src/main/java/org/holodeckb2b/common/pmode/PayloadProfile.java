@@ -35,6 +35,18 @@ public class PayloadProfile implements IAS4PayloadProfile, Serializable {
     @Element (name = "UseAS4Compression", required = false)
     private Boolean useAS4Compression = Boolean.FALSE;
 
+    @Element (name = "CompressionLevel", required = false)
+    private Integer compressionLevel;
+
+    @Element (name = "AdaptiveCompression", required = false)
+    private Boolean adaptiveCompression;
+
+    @Element (name = "AttachmentMemoryThreshold", required = false)
+    private Long attachmentMemoryThreshold;
+
+    @Element (name = "AttachmentTempDirectory", required = false)
+    private String attachmentTempDirectory;
+
     /**
      * Default constructor creates a new and empty <code>PayloadProfile</code> instance.
      */
@@ -47,9 +59,17 @@ public class PayloadProfile implements IAS4PayloadProfile, Serializable {
      * @param source The source object to copy the parameters from
      */
     public PayloadProfile(final IPayloadProfile source) {
-        if (source != null && source instanceof IAS4PayloadProfile) {
-            this.useAS4Compression = (((IAS4PayloadProfile) source).getCompressionType())
-            											.equalsIgnoreCase(IAS4PayloadProfile.GZIP_CONTENT_TYPE);
+        if (source == null)
+        	return;
+        this.attachmentMemoryThreshold = source.getAttachmentMemoryThreshold() != -1 ?
+        																source.getAttachmentMemoryThreshold() : null;
+        this.attachmentTempDirectory = source.getAttachmentTempDirectory();
+        if (source instanceof IAS4PayloadProfile) {
+        	final IAS4PayloadProfile as4Profile = (IAS4PayloadProfile) source;
+            this.useAS4Compression = IAS4PayloadProfile.GZIP_CONTENT_TYPE.equalsIgnoreCase(
+            																		as4Profile.getCompressionType());
+            this.compressionLevel = as4Profile.getCompressionLevel() != -1 ? as4Profile.getCompressionLevel() : null;
+            this.adaptiveCompression = as4Profile.useAdaptiveCompression() ? Boolean.TRUE : null;
         }
     }
 
@@ -61,4 +81,80 @@ public class PayloadProfile implements IAS4PayloadProfile, Serializable {
     public void setCompressionType(final String compressionType) {
         this.useAS4Compression = compressionType.equalsIgnoreCase(IAS4PayloadProfile.GZIP_CONTENT_TYPE);
     }
+
+    /**
+     * @since 8.2.0
+     */
+    @Override
+    public int getCompressionLevel() {
+    	return compressionLevel != null ? compressionLevel : -1;
+    }
+
+    /**
+     * Sets the compression level to use.
+     *
+     * @param level	the compression level, from 0 to 9 or -1 to use the default level
+     * @since 8.2.0
+     */
+    public void setCompressionLevel(final int level) {
+    	if (level < -1 || level > 9)
+    		throw new IllegalArgumentException("Compression level must be between -1 and 9");
+    	this.compressionLevel = level != -1 ? level : null;
+    }
+
+    /**
+     * @since 8.2.0
+     */
+    @Override
+    public boolean useAdaptiveCompression() {
+    	return adaptiveCompression != null && adaptiveCompression;
+    }
+
+    /**
+     * Sets the indicator whether compression should be adapted to the content of the payloads.
+     *
+     * @param adaptive	<code>true</code> if only payloads that can be compressed should be compressed
+     * @since 8.2.0
+     */
+    public void setAdaptiveCompression(final boolean adaptive) {
+    	this.adaptiveCompression = adaptive ? Boolean.TRUE : null;
+    }
+
+    /**
+     * @since 8.2.0
+     */
+    @Override
+    public long getAttachmentMemoryThreshold() {
+    	return attachmentMemoryThreshold != null ? attachmentMemoryThreshold : -1;
+    }
+
+    /**
+     * Sets the maximum size of an attachment of a received message that is kept in memory.
+     *
+     * @param threshold	the maximum size in bytes, or -1 to use the listener setting
+     * @since 8.2.0
+     */
+    public void setAttachmentMemoryThreshold(final long threshold) {
+    	if (threshold < -1)
+    		throw new IllegalArgumentException("Attachment memory threshold must be 0 or larger, or -1");
+    	this.attachmentMemoryThreshold = threshold != -1 ? threshold : null;
+    }
+
+    /**
+     * @since 8.2.0
+     */
+    @Override
+    public String getAttachmentTempDirectory() {
+    	return attachmentTempDirectory;
+    }
+
+    /**
+     * Sets the directory where attachments of received messages exceeding the memory threshold are temporarily stored.
+     *
+     * @param directory	path of the directory, or <code>null</code> to use the listener setting
+     * @since 8.2.0
+     */
+    public void setAttachmentTempDirectory(final String directory) {
+    	this.attachmentTempDirectory = directory;
+    }
 }
@@ -39,6 +39,12 @@ public class Protocol implements IProtocol, Serializable {
 	@Element (name = "ReadTimeout", required = false)
 	private Integer readTimeout;
 
+	@Element (name = "MaxConnections", required = false)
+	private Integer maxConnections;
+
+	@Element (name = "KeepAliveTimeout", required = false)
+	private Integer keepAliveTimeout;
+
     @Element (name = "TLSConfiguration", required = false)
     private TLSConfiguration tlsConfiguration;
 
@@ -54,6 +60,9 @@ public class Protocol implements IProtocol, Serializable {
     @Element (name = "UseHTTPCompression", required = false)
     private Boolean useHTTPCompression;
 
+    @Element (name = "UseHTTP2", required = false)
+    private Boolean useHTTP2;
+
     /**
      * Default constructor creates a new and empty <code>Protocol</code> instance.
      */
@@ -68,10 +77,13 @@ public class Protocol implements IProtocol, Serializable {
         this.address = source.getAddress();
         this.connectionTimeout = source.getConnectionTimeout();
         this.readTimeout = source.getReadTimeout();
+        this.maxConnections = source.getMaxConnections();
+        this.keepAliveTimeout = source.getKeepAliveTimeout();
         this.tlsConfiguration = source.getTLSConfiguration() != null ? new TLSConfiguration(source.getTLSConfiguration()) : null;
         this.soapVersion = source.getSOAPVersion();
         this.useChunking = source.useChunking();
         this.useHTTPCompression = source.useHTTPCompression();
+        this.useHTTP2 = source.useHTTP2();
         this.addActorAttribute = source.shouldAddActorOrRoleAttribute();
     }
 
@@ -102,6 +114,24 @@ public class Protocol implements IProtocol, Serializable {
 		this.readTimeout = readTimeout;
 	}
 
+	@Override
+	public Integer getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(final Integer maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	@Override
+	public Integer getKeepAliveTimeout() {
+		return keepAliveTimeout;
+	}
+
+	public void setKeepAliveTimeout(final Integer keepAliveTimeout) {
+		this.keepAliveTimeout = keepAliveTimeout;
+	}
+
 	@Override
 	public TLSConfiguration getTLSConfiguration() {
 		return tlsConfiguration;
@@ -138,6 +168,15 @@ public class Protocol implements IProtocol, Serializable {
         this.useHTTPCompression = useHTTPCompression;
     }
 
+    @Override
+    public Boolean useHTTP2() {
+        return useHTTP2;
+    }
+
+    public void setHTTP2(final Boolean useHTTP2) {
+        this.useHTTP2 = useHTTP2;
+    }
+
     @Override
     public boolean shouldAddActorOrRoleAttribute() {
         return addActorAttribute != null ? addActorAttribute.booleanValue() : false;
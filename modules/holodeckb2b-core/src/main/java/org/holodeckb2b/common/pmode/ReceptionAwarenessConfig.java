@@ -52,6 +52,9 @@ public class ReceptionAwarenessConfig implements IReceptionAwareness, Serializab
 	@Element(name = "UseDuplicateElimination", required = false)
 	private Boolean useDupElimination;
 
+	@Element(name = "ResendIdenticalMessage", required = false)
+	private Boolean resendIdentical;
+
 	@Transient
 	private Interval[] intervals = null;
 
@@ -72,6 +75,7 @@ public class ReceptionAwarenessConfig implements IReceptionAwareness, Serializab
 		this.intervals = source.getWaitIntervals();
 		if (intervals == null || intervals.length == 0)
 			this.useDupElimination = Boolean.valueOf(source.useDuplicateDetection());		
+		this.resendIdentical = source.resendIdenticalMessage() ? Boolean.TRUE : null;
 	}
 
 	/**
@@ -130,6 +134,15 @@ public class ReceptionAwarenessConfig implements IReceptionAwareness, Serializab
 		this.useDupElimination = useDupDetection;
 	}
 
+	@Override
+	public boolean resendIdenticalMessage() {
+		return resendIdentical != null && resendIdentical;
+	}
+
+	public void setResendIdenticalMessage(final boolean resendIdentical) {
+		this.resendIdentical = resendIdentical;
+	}
+
 	/**
 	 * Is a helper to construct the array of {@link Interval} objects.
 	 * 
@@ -20,6 +20,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.interfaces.pmode.ITLSConfiguration;
@@ -165,4 +166,13 @@ public class TLSConfiguration implements ITLSConfiguration, Serializable {
 			&& Utils.areEqual(this.allowedCipherSuites, that.allowedCipherSuites)
 			&& Utils.nullSafeEqual(this.clientCertRef, that.clientCertRef);
 	}
+
+	@Override
+	public int hashCode() {
+		// Empty and null lists are considered equal, so both must result in the same hash code
+		int hash = allowedProtocols == null ? 0 : allowedProtocols.stream().mapToInt(String::hashCode).sum();
+		hash = 31 * hash + (allowedCipherSuites == null ? 0 : allowedCipherSuites.stream().mapToInt(String::hashCode)
+																						  .sum());
+		return 31 * hash + Objects.hashCode(clientCertRef);
+	}
 }
@@ -30,6 +30,7 @@ import org.holodeckb2b.common.VersionInfo;
 import org.holodeckb2b.common.events.SyncEventProcessor;
 import org.holodeckb2b.common.workerpool.XMLWorkerPoolConfiguration;
 import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.core.axis2.MessagePackageCache;
 import org.holodeckb2b.core.config.InternalConfiguration;
 import org.holodeckb2b.core.pmode.PModeManager;
 import org.holodeckb2b.core.pmode.PModeUtils;
@@ -212,8 +213,22 @@ public class HolodeckB2BCoreImpl implements IHolodeckB2BCore {
         	log.fatal("Cannot start Holodeck B2B because required Metadata or Payload Storage Provider is not available!");
         	throw new AxisFault("Required Metadata or Payload Storage provider not available!");
         }
+        log.debug("Remove payload content for which no meta-data exists");
+        try {
+        	psProvider.removeOrphanedContent(payloadId -> {
+        		try {
+        			return mdsProvider.hasPayloadMetadata(payloadId);
+        		} catch (StorageException queryFailure) {
+        			log.warn("Could not check meta-data of payload (payloadId={}) : {}", payloadId,
+        					 queryFailure.getMessage());
+        			return true;
+        		}
+        	});
+        } catch (StorageException cleanupFailure) {
+        	log.warn("Could not remove orphaned payload content : {}", cleanupFailure.getMessage());
+        }
 
-        storageManager = new StorageManager(mdsProvider, psProvider);
+        storageManager = createStorageManager(mdsProvider, psProvider);
         queryManager = new QueryManager(mdsProvider, psProvider);
 
         log.trace("Load the certificate manager");
@@ -373,6 +388,22 @@ public class HolodeckB2BCoreImpl implements IHolodeckB2BCore {
         return storageManager;
     }
 
+    /**
+     * Creates the storage manager facade for the given storage providers and registers the Core components that need
+     * to be informed about changes in the processing state of message units.
+     *
+     * @param mdsProvider	the Metadata Storage Provider in use
+     * @param psProvider	the Payload Storage Provider in use
+     * @return	the new storage manager
+     * @since 8.2.0
+     */
+    protected static StorageManager createStorageManager(final IMetadataStorageProvider mdsProvider,
+    													 final IPayloadStorageProvider psProvider) {
+    	final StorageManager manager = new StorageManager(mdsProvider, psProvider);
+    	manager.addProcessingStateListener(MessagePackageCache::processingStateChanged);
+    	return manager;
+    }
+
     /**
      * {@inheritDoc}
      * @since  3.0.0
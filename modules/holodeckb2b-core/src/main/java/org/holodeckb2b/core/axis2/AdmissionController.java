@@ -0,0 +1,369 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Controls the admission of requests received by the HTTP listener so the gateway degrades gracefully when it receives
+ * more requests than it can handle. The number of requests being processed at the same time is limited and when this
+ * limit is reached new requests wait for a limited time in a bounded queue. Requests that cannot be queued or that
+ * waited too long are rejected before their entity body is read, so the client gets a quick <i>503 Service Unavailable
+ * </i> response with a <i>Retry-After</i> header instead of the request waiting without limit.
+ * <p>To prevent that one partner sending a burst of messages takes all capacity, each source IP address only gets a
+ * fair share of the capacity when there is contention, i.e. the total capacity divided by the number of sources with
+ * requests being processed or waiting. When there is no contention a single source can use the full capacity.
+ * <p>Admission control is enabled by setting the <code>maxInFlightRequests</code> parameter on the transport receiver.
+ * The other parameters are <code>maxQueuedRequests</code> (default 0), <code>maxQueueTime</code> (in milliseconds,
+ * default 1000), <code>admissionFairShare</code> (<i>source</i> (default) or <i>none</i>) and <code>retryAfter</code>
+ * (in seconds, default 10).
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+class AdmissionController {
+	private static final Logger log = LogManager.getLogger(AdmissionController.class);
+
+	static final String PARAMETER_MAX_IN_FLIGHT = "maxInFlightRequests";
+	static final String PARAMETER_MAX_QUEUED = "maxQueuedRequests";
+	static final String PARAMETER_MAX_QUEUE_TIME = "maxQueueTime";
+	static final String PARAMETER_FAIR_SHARE = "admissionFairShare";
+	static final String PARAMETER_RETRY_AFTER = "retryAfter";
+
+	/**
+	 * Minimum time in milliseconds between the warnings that requests are rejected
+	 */
+	private static final long WARNING_INTERVAL = 60000;
+
+	/**
+	 * The reasons for rejecting a request
+	 */
+	enum Rejection { QUEUE_FULL, FAIR_SHARE, TIMEOUT }
+
+	/**
+	 * Represents the admission of a request. It must be released when the processing of the request is finished.
+	 */
+	class Permit {
+		private final String source;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Permit(String source) {
+			this.source = source;
+		}
+
+		/**
+		 * Releases the permit so another request can be admitted. Calling this method more than once has no effect.
+		 */
+		void release() {
+			if (released.compareAndSet(false, true))
+				AdmissionController.this.release(source);
+		}
+	}
+
+	private final int		maxInFlight;
+	private final int		maxQueued;
+	private final long		maxQueueTime;
+	private final boolean	fairShare;
+	private final int		retryAfter;
+
+	/**
+	 * The lock guarding the counters. A lock is used instead of the monitor so waiting virtual threads don't pin their
+	 * carrier thread.
+	 */
+	private final ReentrantLock	lock = new ReentrantLock();
+	private final Condition		slotAvailable = lock.newCondition();
+	private int					inFlight;
+	private int					queued;
+	/**
+	 * The number of requests being processed or waiting per source
+	 */
+	private final Map<String, Integer> perSource = new HashMap<>();
+
+	private long	admitted;
+	private long	delayed;
+	private final long[] rejected = new long[Rejection.values().length];
+	private long	lastWarning;
+
+	/**
+	 * Creates a new controller.
+	 *
+	 * @param maxInFlight	the maximum number of requests processed at the same time
+	 * @param maxQueued		the maximum number of requests waiting to be processed
+	 * @param maxQueueTime	the maximum time in milliseconds a request may wait
+	 * @param fairShare		indicates whether the capacity should be shared fairly between sources
+	 * @param retryAfter	the number of seconds the client is asked to wait before retrying a rejected request
+	 */
+	AdmissionController(int maxInFlight, int maxQueued, long maxQueueTime, boolean fairShare, int retryAfter) {
+		this.maxInFlight = maxInFlight;
+		this.maxQueued = maxQueued;
+		this.maxQueueTime = maxQueueTime;
+		this.fairShare = fairShare;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Creates the controller for the given transport configuration.
+	 *
+	 * @param transportIn	the configuration of the transport
+	 * @return	the controller, or <code>null</code> when admission control is not enabled
+	 */
+	static AdmissionController fromConfiguration(final TransportInDescription transportIn) {
+		final int maxInFlight = getIntParam(transportIn, PARAMETER_MAX_IN_FLIGHT, 0);
+		if (maxInFlight <= 0)
+			return null;
+		final Parameter fairShare = transportIn.getParameter(PARAMETER_FAIR_SHARE);
+		final AdmissionController ac = new AdmissionController(maxInFlight,
+									Math.max(0, getIntParam(transportIn, PARAMETER_MAX_QUEUED, 0)),
+									Math.max(0, getIntParam(transportIn, PARAMETER_MAX_QUEUE_TIME, 1000)),
+									fairShare == null || !"none".equalsIgnoreCase(((String) fairShare.getValue()).trim()),
+									Math.max(1, getIntParam(transportIn, PARAMETER_RETRY_AFTER, 10)));
+		log.info("Admission control enabled: max in-flight={}, max queued={}, max queue time={} ms, fair share={}",
+				 ac.maxInFlight, ac.maxQueued, ac.maxQueueTime, ac.fairShare);
+		return ac;
+	}
+
+	/**
+	 * @return the number of seconds the client should wait before retrying a rejected request
+	 */
+	int getRetryAfter() {
+		return retryAfter;
+	}
+
+	/**
+	 * @return the total number of requests that can be processed or waiting at the same time
+	 */
+	int getCapacity() {
+		return maxInFlight + maxQueued;
+	}
+
+	/**
+	 * Requests admission for processing a request from the given source. When the maximum number of requests is being
+	 * processed the calling thread waits until a request finishes, unless the queue is full, the source already uses
+	 * its fair share or the maximum queue time is exceeded.
+	 *
+	 * @param source	the source of the request, i.e. the IP address of the client
+	 * @return	the permit for processing the request, or <code>null</code> if the request is rejected
+	 */
+	Permit admit(final String source) {
+		lock.lock();
+		try {
+			if (inFlight < maxInFlight && queued == 0)
+				return grant(source);
+			if (queued >= maxQueued)
+				return reject(source, Rejection.QUEUE_FULL);
+			if (exceedsFairShare(source))
+				return reject(source, Rejection.FAIR_SHARE);
+
+			queued++;
+			perSource.merge(source, 1, Integer::sum);
+			delayed++;
+			long wait = TimeUnit.MILLISECONDS.toNanos(maxQueueTime);
+			try {
+				while (inFlight >= maxInFlight && wait > 0)
+					wait = slotAvailable.awaitNanos(wait);
+			} catch (InterruptedException interrupted) {
+				Thread.currentThread().interrupt();
+				wait = 0;
+			}
+			queued--;
+			decrement(source);
+			if (inFlight >= maxInFlight)
+				return reject(source, Rejection.TIMEOUT);
+			return grant(source);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Requests admission for processing a request from the given source without waiting. This is used by the
+	 * non-blocking listener where the requests waiting for processing are queued by the worker executor, so both
+	 * the in-flight and queued requests are counted.
+	 *
+	 * @param source	the source of the request, i.e. the IP address of the client
+	 * @return	the permit for processing the request, or <code>null</code> if the request is rejected
+	 */
+	Permit tryAdmit(final String source) {
+		lock.lock();
+		try {
+			if (inFlight >= getCapacity())
+				return reject(source, Rejection.QUEUE_FULL);
+			if (inFlight >= maxInFlight && exceedsFairShare(source))
+				return reject(source, Rejection.FAIR_SHARE);
+			return grant(source);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the current statistics of the admission control
+	 */
+	Statistics getStatistics() {
+		lock.lock();
+		try {
+			return new Statistics(this);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks whether the source already uses its fair share of the capacity. Must be called while holding the lock.
+	 */
+	private boolean exceedsFairShare(final String source) {
+		if (!fairShare)
+			return false;
+		final int current = perSource.getOrDefault(source, 0);
+		final int sources = perSource.size() + (current == 0 ? 1 : 0);
+		return current >= Math.max(1, getCapacity() / sources);
+	}
+
+	private Permit grant(final String source) {
+		inFlight++;
+		perSource.merge(source, 1, Integer::sum);
+		admitted++;
+		return new Permit(source);
+	}
+
+	private Permit reject(final String source, final Rejection reason) {
+		rejected[reason.ordinal()]++;
+		log.debug("Rejected request from {} ({})", source, reason);
+		final long now = System.currentTimeMillis();
+		if (now - lastWarning > WARNING_INTERVAL) {
+			lastWarning = now;
+			log.warn("Rejecting requests because of overload, statistics: {}", new Statistics(this));
+		}
+		return null;
+	}
+
+	private void release(final String source) {
+		lock.lock();
+		try {
+			inFlight--;
+			decrement(source);
+			slotAvailable.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void decrement(final String source) {
+		perSource.computeIfPresent(source, (s, n) -> n > 1 ? n - 1 : null);
+	}
+
+	private static int getIntParam(final TransportInDescription transportIn, final String name, final int def) {
+		final Parameter p = transportIn.getParameter(name);
+		return p != null && p.getValue() != null ? Integer.parseInt(((String) p.getValue()).trim()) : def;
+	}
+
+	/**
+	 * The statistics of the admission control as reported by {@link AdmissionController#getStatistics()}.
+	 */
+	static class Statistics {
+		private final long	admitted;
+		private final long	delayed;
+		private final long	rejectedQueueFull;
+		private final long	rejectedFairShare;
+		private final long	rejectedTimeout;
+		private final int	inFlight;
+		private final int	queued;
+
+		private Statistics(AdmissionController ac) {
+			this.admitted = ac.admitted;
+			this.delayed = ac.delayed;
+			this.rejectedQueueFull = ac.rejected[Rejection.QUEUE_FULL.ordinal()];
+			this.rejectedFairShare = ac.rejected[Rejection.FAIR_SHARE.ordinal()];
+			this.rejectedTimeout = ac.rejected[Rejection.TIMEOUT.ordinal()];
+			this.inFlight = ac.inFlight;
+			this.queued = ac.queued;
+		}
+
+		/**
+		 * @return the number of admitted requests
+		 */
+		long getAdmitted() {
+			return admitted;
+		}
+
+		/**
+		 * @return the number of requests that had to wait for admission
+		 */
+		long getDelayed() {
+			return delayed;
+		}
+
+		/**
+		 * @return the number of requests rejected because the queue was full
+		 */
+		long getRejectedQueueFull() {
+			return rejectedQueueFull;
+		}
+
+		/**
+		 * @return the number of requests rejected because the source already used its fair share
+		 */
+		long getRejectedFairShare() {
+			return rejectedFairShare;
+		}
+
+		/**
+		 * @return the number of requests rejected because they waited too long
+		 */
+		long getRejectedTimeout() {
+			return rejectedTimeout;
+		}
+
+		/**
+		 * @return the total number of rejected requests
+		 */
+		long getRejected() {
+			return rejectedQueueFull + rejectedFairShare + rejectedTimeout;
+		}
+
+		/**
+		 * @return the number of requests currently being processed
+		 */
+		int getInFlight() {
+			return inFlight;
+		}
+
+		/**
+		 * @return the number of requests currently waiting for admission
+		 */
+		int getQueued() {
+			return queued;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("admitted=%d, delayed=%d, rejected=%d (queue full=%d, fair share=%d, timeout=%d), "
+								 + "in-flight=%d, queued=%d", admitted, delayed, getRejected(), rejectedQueueFull,
+								 rejectedFairShare, rejectedTimeout, inFlight, queued);
+		}
+	}
+}
@@ -18,19 +18,33 @@ package org.holodeckb2b.core.axis2;
 
 import static org.apache.axis2.client.ServiceClient.ANON_OUT_IN_OP;
 
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.apache.axiom.om.OMAbstractFactory;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.client.OperationClient;
 import org.apache.axis2.client.Options;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.context.ServiceGroupContext;
 import org.apache.axis2.description.AxisModule;
 import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.AxisServiceGroup;
 import org.apache.axis2.description.OutInAxisOperation;
+import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.engine.Phase;
 import org.apache.axis2.kernel.http.HTTPConstants;
+import org.apache.axis2.transport.http.Request;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.events.impl.GenericSendMessageFailure;
@@ -38,6 +52,7 @@ import org.holodeckb2b.common.util.MessageUnitUtils;
 import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.core.HolodeckB2BCore;
 import org.holodeckb2b.core.MessageProcessingContext;
+import org.holodeckb2b.core.pmode.PModeUtils;
 import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.messagemodel.IErrorMessage;
@@ -60,12 +75,34 @@ import org.holodeckb2b.interfaces.storage.StorageException;
  * "http://holodeck-b2b.org/pmode/mepBinding/"</i> this class will look for a registered service with the name that
  * matches the next path segment of the MEPBinding value. Examples: For "http://holodeck-b2b.org/pmode/mepBinding/as2"
  * the expected Service is "as2" and for "http://holodeck-b2b.org/pmode/mepBinding/ebms2/oneWay" the Service is "ebms2".
+ * <p>To limit the overhead of each send operation, the Axis2 configuration context and for each Service the operation
+ * with the engaged modules are created once and shared by all send operations. Only the message and operation
+ * contexts are created for each message unit.
+ * <p>Next to the blocking {@link #sendMessage(IMessageUnitEntity)} a non-blocking send operation is available in
+ * {@link #sendMessageAsync(IMessageUnitEntity, Executor)} which releases the calling thread while waiting for the
+ * response of the other MSH.
+ * <p>When the HTTP transport sender keeps track of the availability of the destinations using an {@link
+ * EndpointCircuitBreaker}, messages to a destination that is currently not available are not sent but set back to
+ * <i>READY_TO_PUSH</i>, so they are not packaged and signed until the destination is available again.
+ * <p>When a User Message is retransmitted and its P-Mode allows to resend the identical message, the package created
+ * for the first transmission is resent from the {@link MessagePackageCache}. For these retransmissions an operation
+ * without the phases that package, secure and log the message is used.
  *
  * @author Sander Fieten (sander at holodeck-b2b.org)
  */
 public class Axis2Sender {
 	private final static Logger log = LogManager.getLogger(Axis2Sender.class);
 
+	/**
+	 * The client setup shared by all send operations
+	 */
+	private static volatile ClientSetup clientSetup;
+
+	/**
+	 * The phases that are skipped when a cached package is resent
+	 */
+	private static final Set<String> PACKAGING_PHASES = Set.of("ProtocolProcessing", "Security", "Logging");
+
     /**
      * Sends the given message unit to the other MSH.
      *
@@ -73,6 +110,88 @@ public class Axis2Sender {
      * @throws StorageException when the processing state could not be updated
      */
     public static void sendMessage(final IMessageUnitEntity messageUnit) throws StorageException {
+    	final SendOperation send = prepareSend(messageUnit);
+    	if (send == null)
+    		return;
+    	Throwable failure = null;
+        try {
+        	log.debug("Start send process for {} [msgId={}]", MessageUnitUtils.getMessageUnitName(messageUnit),
+        				messageUnit.getMessageId());
+            send.oc.execute(true);
+            log.debug("Finished send process for {} [msgId={}]", MessageUnitUtils.getMessageUnitName(messageUnit),
+            		messageUnit.getMessageId());
+        } catch (final Throwable t) {
+        	failure = t;
+        	handleSendError(send, t);
+        } finally {
+        	recordSendResult(send, failure);
+        	send.cleanup();
+        }
+    }
+
+    /**
+     * Sends the given message unit to the other MSH without blocking the calling thread while waiting for the
+     * response. The calling thread executes the <i>out flow</i> up to the point where the HTTP request has been
+     * started. When the response is received, it is processed using the given executor, i.e. the handlers of the out
+     * flow are notified of the completion of the send operation, so the processing state of the message unit is
+     * updated, and the response is handled by the <i>in flow</i>.
+     * <p>This allows to send many messages concurrently to slow trading partners using only a small number of
+     * threads.
+     *
+     * @param messageUnit   The message unit to send
+     * @param executor		The executor to use for processing the response
+     * @return	a future that completes when the send operation has completed. The future completes exceptionally with
+     * 			a {@link StorageException} when the processing state could not be updated
+     * @since 8.2.0
+     */
+    public static CompletableFuture<Void> sendMessageAsync(final IMessageUnitEntity messageUnit,
+    													   final Executor executor) {
+    	final SendOperation send;
+    	try {
+    		send = prepareSend(messageUnit);
+    	} catch (StorageException dbError) {
+    		return CompletableFuture.failedFuture(dbError);
+    	}
+    	if (send == null)
+    		return CompletableFuture.completedFuture(null);
+
+    	CompletableFuture<Void> exchange;
+    	try {
+    		log.debug("Start asynchronous send process for {} [msgId={}]",
+    				  MessageUnitUtils.getMessageUnitName(messageUnit), messageUnit.getMessageId());
+    		exchange = ((OutOptInAxisOperation.OutOptInAxisOperationClient) send.oc).executeAsync(executor);
+    	} catch (final Throwable t) {
+    		exchange = CompletableFuture.failedFuture(t);
+    	}
+    	return exchange.handle((r, t) -> {
+    		final Throwable failure = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    		try {
+    			if (failure == null)
+    				log.debug("Finished send process for {} [msgId={}]",
+    						  MessageUnitUtils.getMessageUnitName(messageUnit), messageUnit.getMessageId());
+    			else
+    				handleSendError(send, failure);
+    			return null;
+    		} catch (StorageException dbError) {
+    			throw new CompletionException(dbError);
+    		} finally {
+    			recordSendResult(send, failure);
+    			send.cleanup();
+    		}
+    	});
+    }
+
+    /**
+     * Prepares the send operation for the given message unit, i.e. determines the <i>Service</i> to use and creates
+     * the operation client and message contexts. When the send operation cannot be prepared the failure is registered
+     * for the message unit. When the destination of the message unit is currently not available, the message unit is
+     * set back to <i>READY_TO_PUSH</i> so it will be sent when the destination is available again.
+     *
+     * @param messageUnit   The message unit to send
+     * @return	the prepared send operation, or <code>null</code> if it could not be prepared or must be deferred
+     * @throws StorageException when the processing state could not be updated
+     */
+    private static SendOperation prepareSend(final IMessageUnitEntity messageUnit) throws StorageException {
         log.trace("Starting send operation for {} (msgId={})", MessageUnitUtils.getMessageUnitName(messageUnit),
         			messageUnit.getMessageId());
         IPMode pmode = HolodeckB2BCoreInterface.getPModeSet().get(messageUnit.getPModeId());
@@ -81,7 +200,7 @@ public class Axis2Sender {
         				MessageUnitUtils.getMessageUnitName(messageUnit), messageUnit.getMessageId(),
         				messageUnit.getPModeId());
         	registerSendFailure(messageUnit, "P-Mode not available", null);
-        	return;
+        	return null;
         }
         log.trace("Check PMode.MEPBinding which Service should be used");
         // The default protocol is AS4, so we will use the "as4" Service unless P-Mode indicates something else
@@ -95,48 +214,56 @@ public class Axis2Sender {
         		svcName = mepBinding.substring(41, segmentEnd);
         }
 
-        final ConfigurationContext configContext = new ConfigurationContext(HolodeckB2BCore.getConfiguration());
-        final AxisConfiguration axisConfig = configContext.getAxisConfiguration();
-        AxisService service;
+        final ClientSetup setup = getClientSetup();
+        PreparedService prepared;
         try {
-			service = axisConfig.getService(svcName);
-		} catch (AxisFault e) {
-			service = null;
-		}
-        if (service == null) {
+        	prepared = setup.getService(svcName);
+        } catch (AxisFault cfgError) {
+        	log.error("An exception occurred setting up the send operation for {} (msgId={}).Exception stack below:\n",
+        			   MessageUnitUtils.getMessageUnitName(messageUnit), messageUnit.getMessageId(),
+        			   Utils.getExceptionTrace(cfgError, true));
+        	registerSendFailure(messageUnit, "Axis2 initialisation failure", cfgError);
+        	return null;
+        }
+        if (prepared == null) {
         	log.error("Cannot send {} [msgId={}] because required {} Service is not installed!",
     				   MessageUnitUtils.getMessageUnitName(messageUnit), messageUnit.getMessageId(),
     				   svcName);
         	registerSendFailure(messageUnit, "Required messaging service not installed", null);
-        	return;
+        	return null;
         }
         log.debug("Using {} Service to send {} [msgId={}]", svcName, MessageUnitUtils.getMessageUnitName(messageUnit),
         			messageUnit.getMessageId());
 
+        final EndpointCircuitBreaker circuitBreaker = setup.getCircuitBreaker();
+        final String destination = circuitBreaker != null ? PModeUtils.getDestinationURL(messageUnit) : null;
+        if (circuitBreaker != null && !circuitBreaker.allowSend(destination)) {
+        	log.debug("Defer sending {} [msgId={}] as destination {} is not available",
+        				MessageUnitUtils.getMessageUnitName(messageUnit), messageUnit.getMessageId(), destination);
+        	HolodeckB2BCore.getStorageManager().setProcessingState(messageUnit, ProcessingState.READY_TO_PUSH);
+        	return null;
+        }
+
+        final MessagePackageCache.Entry cachedPackage = MessagePackageCache.getInstance().prepare(messageUnit);
+        final boolean resend = cachedPackage != null && cachedPackage.isReplay();
         final MessageContext msgCtx = new MessageContext();
         msgCtx.setFLOW(MessageContext.OUT_FLOW);
         OperationClient oc = null;
 
         try {
-	        AxisServiceGroup axisServiceGroup = service.getAxisServiceGroup();
-	        ServiceGroupContext sgc = configContext.createServiceGroupContext(axisServiceGroup);
-	        ServiceContext svcCtx = sgc.getServiceContext(service);
-
-	        final Options options = new Options();
-	        options.setTransportOut(axisConfig.getTransportOut("http"));
-	        options.setExceptionToBeThrownOnSOAPFault(false);
-	        options.setProperty(HTTPConstants.USER_AGENT, Axis2Utils.HTTP_PRODID_HEADER);
-	        OutInAxisOperation sendOp = new OutOptInAxisOperation(ANON_OUT_IN_OP);
-	        sendOp.setParent(service);
-	        axisConfig.getPhasesInfo().setOperationPhases(sendOp);
-	        // Engage all modules required by the service
-	        for(String moduleName : service.getModules()) {
-	            AxisModule module = axisConfig.getModule(moduleName);
-	            if (module != null)
-	                sendOp.engageModule(module);
-	        }
-	        oc = sendOp.createClient(svcCtx, options);
+        	// The options are copied as they are modified during the send process
+	        oc = (resend ? prepared.resendOp : prepared.sendOp).createClient(prepared.svcCtx,
+	        																	new Options(setup.options));
 	        oc.addMessageContext(msgCtx);
+	        if (cachedPackage != null) {
+	        	msgCtx.setProperty(MessagePackageCache.MC_CACHE_ENTRY, cachedPackage);
+	        	if (resend) {
+	        		log.debug("Resending cached package of {} [msgId={}]",
+	        				  MessageUnitUtils.getMessageUnitName(messageUnit), messageUnit.getMessageId());
+	        		// The envelope is not used as the cached package is sent, but is expected by the transport
+	        		msgCtx.setEnvelope(OMAbstractFactory.getSOAP12Factory().getDefaultEnvelope());
+	        	}
+	        }
 
 	        log.trace("Create an empty IMessageProcessingContext for message with current configuration");
             final IMessageProcessingContext procCtx = MessageProcessingContext.getFromMessageContext(msgCtx);
@@ -152,28 +279,226 @@ public class Axis2Sender {
         	log.error("An exception occurred setting up the send operation for {} (msgId={}).Exception stack below:\n",
         			   MessageUnitUtils.getMessageUnitName(messageUnit), messageUnit.getMessageId(),
         			   Utils.getExceptionTrace(cfgError, true));
+        	if (msgCtx.getMessageID() != null)
+        		setup.configContext.unregisterOperationContext(msgCtx.getMessageID());
+        	if (circuitBreaker != null)
+        		circuitBreaker.release(destination);
         	registerSendFailure(messageUnit, "Axis2 initialisation failure", cfgError);
-        	return;
+        	return null;
         }
+        return new SendOperation(setup, messageUnit, msgCtx, oc, circuitBreaker, destination);
+    }
 
-        try {
-        	log.debug("Start send process for {} [msgId={}]", MessageUnitUtils.getMessageUnitName(messageUnit),
-        				messageUnit.getMessageId());
-            oc.execute(true);
-            log.debug("Finished send process for {} [msgId={}]", MessageUnitUtils.getMessageUnitName(messageUnit),
-            		messageUnit.getMessageId());
-        } catch (final Throwable t) {
-            /* An error occurred while sending the message, it should however be already processed by one of the
-               handlers. In that case the message context will not contain the failure reason. To prevent redundant
-               logging we check if there is a failure reason before we log the error here.
-            */
-        	if (msgCtx.getFailureReason() != null) {
-        		log.error("An unexpected error occurred while sending {} (msgId={}). Exception trace:\n{}",
-        				  MessageUnitUtils.getMessageUnitName(messageUnit), messageUnit.getMessageId(),
-        				  Utils.getExceptionTrace(t, true));
-        		registerSendFailure(messageUnit, "Unexpected error sending message", msgCtx.getFailureReason());
-        	}
-        }
+    /**
+     * Handles an error that occurred while executing the send operation.
+     *
+     * @param send	the send operation
+     * @param t		the error that occurred
+     * @throws StorageException when the processing state could not be updated
+     */
+    private static void handleSendError(final SendOperation send, final Throwable t) throws StorageException {
+        /* An error occurred while sending the message, it should however be already processed by one of the
+           handlers. In that case the message context will not contain the failure reason. To prevent redundant
+           logging we check if there is a failure reason before we log the error here.
+        */
+    	if (send.msgCtx.getFailureReason() != null) {
+    		log.error("An unexpected error occurred while sending {} (msgId={}). Exception trace:\n{}",
+    				  MessageUnitUtils.getMessageUnitName(send.messageUnit), send.messageUnit.getMessageId(),
+    				  Utils.getExceptionTrace(t, true));
+    		registerSendFailure(send.messageUnit, "Unexpected error sending message", send.msgCtx.getFailureReason());
+    	}
+    }
+
+    /**
+     * Records the result of the send operation in the circuit breaker. A transport problem or a response indicating
+     * that the destination is temporarily not available is registered as failure and any other response as success.
+     * When no request was executed, for example because the message could not be packaged, the result does not say
+     * anything about the availability of the destination.
+     *
+     * @param send		the send operation
+     * @param failure	the error that occurred, <code>null</code> if the send operation completed normally
+     */
+    private static void recordSendResult(final SendOperation send, final Throwable failure) {
+    	if (send.circuitBreaker == null)
+    		return;
+    	final OperationContext opCtx = send.msgCtx.getOperationContext();
+    	final Object request = opCtx != null ? opCtx.getProperty(HTTPTransportSender.MC_HTTP_REQUEST) : null;
+    	int statusCode = -1;
+    	if (request instanceof Request)
+    		try {
+    			statusCode = ((Request) request).getStatusCode();
+    		} catch (RuntimeException noResponse) {
+    			// No response was received
+    		}
+    	if (request != null && (EndpointCircuitBreaker.isTransportFailure(
+    											failure != null ? failure : send.msgCtx.getFailureReason())
+    							|| EndpointCircuitBreaker.isUnavailable(statusCode)))
+    		send.circuitBreaker.recordFailure(send.destination);
+    	else if (statusCode > 0)
+    		send.circuitBreaker.recordSuccess(send.destination);
+    	else
+    		send.circuitBreaker.release(send.destination);
+    }
+
+    /**
+     * Gets the circuit breaker that keeps track of the destinations to which messages should be deferred because
+     * they are not available.
+     *
+     * @return	the circuit breaker of the HTTP transport, <code>null</code> if the transport does not support deferring
+     * 			messages
+     * @since 8.2.0
+     */
+    public static EndpointCircuitBreaker getCircuitBreaker() {
+    	return getClientSetup().getCircuitBreaker();
+    }
+
+    /**
+     * Holds the objects of a prepared send operation.
+     */
+    private static class SendOperation {
+    	final ClientSetup			setup;
+    	final IMessageUnitEntity	messageUnit;
+    	final MessageContext		msgCtx;
+    	final OperationClient		oc;
+    	final EndpointCircuitBreaker circuitBreaker;
+    	final String				destination;
+
+    	SendOperation(final ClientSetup setup, final IMessageUnitEntity messageUnit, final MessageContext msgCtx,
+    				  final OperationClient oc, final EndpointCircuitBreaker circuitBreaker, final String destination) {
+    		this.setup = setup;
+    		this.messageUnit = messageUnit;
+    		this.msgCtx = msgCtx;
+    		this.oc = oc;
+    		this.circuitBreaker = circuitBreaker;
+    		this.destination = destination;
+    	}
+
+    	/**
+    	 * Removes the operation context from the shared configuration context.
+    	 */
+    	void cleanup() {
+        	if (msgCtx.getMessageID() != null)
+        		setup.configContext.unregisterOperationContext(msgCtx.getMessageID());
+    	}
+    }
+
+    /**
+     * Gets the shared client setup for the current Holodeck B2B configuration, creating a new one when it does not
+     * exist yet or the configuration has changed.
+     *
+     * @return the client setup to use for sending
+     */
+    private static ClientSetup getClientSetup() {
+    	final AxisConfiguration axisConfig = HolodeckB2BCore.getConfiguration();
+    	ClientSetup setup = clientSetup;
+    	if (setup == null || setup.axisConfig != axisConfig)
+    		synchronized (Axis2Sender.class) {
+    			setup = clientSetup;
+    			if (setup == null || setup.axisConfig != axisConfig) {
+    				log.debug("Creating client setup for sending messages");
+    				setup = new ClientSetup(axisConfig);
+    				clientSetup = setup;
+    			}
+    		}
+    	return setup;
+    }
+
+    /**
+     * Holds the Axis2 client objects that are shared by all send operations, i.e. the configuration context, the
+     * default options and per Service the prepared operation with the engaged modules. As the send process only
+     * creates new contexts for the messages and operation, these can safely be used for concurrent sends.
+     */
+    private static class ClientSetup {
+    	final AxisConfiguration		axisConfig;
+    	final ConfigurationContext	configContext;
+    	final Options				options;
+    	final Map<String, PreparedService> services = new ConcurrentHashMap<>();
+
+    	ClientSetup(final AxisConfiguration axisConfig) {
+    		this.axisConfig = axisConfig;
+    		this.configContext = new ConfigurationContext(axisConfig);
+    		this.options = new Options();
+    		options.setTransportOut(axisConfig.getTransportOut("http"));
+    		options.setExceptionToBeThrownOnSOAPFault(false);
+    		options.setProperty(HTTPConstants.USER_AGENT, Axis2Utils.HTTP_PRODID_HEADER);
+    	}
+
+    	/**
+    	 * @return the circuit breaker of the HTTP transport sender, <code>null</code> if not available or disabled
+    	 */
+    	EndpointCircuitBreaker getCircuitBreaker() {
+    		final TransportOutDescription transport = options.getTransportOut();
+    		final EndpointCircuitBreaker cb = transport != null && transport.getSender() instanceof HTTPTransportSender ?
+    									((HTTPTransportSender) transport.getSender()).getCircuitBreaker() : null;
+    		return cb != null && cb.isEnabled() ? cb : null;
+    	}
+
+    	/**
+    	 * Gets the prepared send operation for the given Service. The operation is (re)created when the Service is not
+    	 * prepared yet, or was redeployed or its engaged modules have changed since it was prepared.
+    	 *
+    	 * @param svcName	name of the Service to use
+    	 * @return	the prepared Service, or <code>null</code> if the Service is not installed
+    	 * @throws AxisFault	when the send operation cannot be prepared
+    	 */
+    	PreparedService getService(final String svcName) throws AxisFault {
+            AxisService service;
+            try {
+    			service = axisConfig.getService(svcName);
+    		} catch (AxisFault e) {
+    			service = null;
+    		}
+            if (service == null)
+            	return null;
+
+            PreparedService prepared = services.get(svcName);
+            if (prepared == null || prepared.service != service || !prepared.modules.equals(service.getModules())) {
+            	log.debug("Preparing send operation for {} Service", svcName);
+            	prepared = new PreparedService(this, service);
+            	services.put(svcName, prepared);
+            }
+            return prepared;
+    	}
+    }
+
+    /**
+     * Holds the Service context and send operations with the engaged modules for a Service. Next to the normal send
+     * operation there is an operation for resending a cached package, which does not include the phases that package,
+     * secure and log the message.
+     */
+    private static class PreparedService {
+    	final AxisService			service;
+    	final List<String>			modules;
+    	final ServiceContext		svcCtx;
+    	final OutInAxisOperation	sendOp;
+    	final OutInAxisOperation	resendOp;
+
+    	PreparedService(final ClientSetup setup, final AxisService service) throws AxisFault {
+    		this.service = service;
+    		this.modules = new ArrayList<>(service.getModules());
+	        final AxisServiceGroup axisServiceGroup = service.getAxisServiceGroup();
+	        final ServiceGroupContext sgc = setup.configContext.createServiceGroupContext(axisServiceGroup);
+	        this.svcCtx = sgc.getServiceContext(service);
+	        this.sendOp = createOperation(setup, service);
+	        this.resendOp = createOperation(setup, service);
+	        final ArrayList<Phase> resendPhases = new ArrayList<>(resendOp.getPhasesOutFlow());
+	        resendPhases.removeIf(p -> PACKAGING_PHASES.contains(p.getPhaseName()));
+	        resendOp.setPhasesOutFlow(resendPhases);
+    	}
+
+    	private OutInAxisOperation createOperation(final ClientSetup setup, final AxisService service)
+    																							throws AxisFault {
+	        final OutInAxisOperation op = new OutOptInAxisOperation(ANON_OUT_IN_OP);
+	        op.setParent(service);
+	        setup.axisConfig.getPhasesInfo().setOperationPhases(op);
+	        // Engage all modules required by the service
+	        for(String moduleName : modules) {
+	            AxisModule module = setup.axisConfig.getModule(moduleName);
+	            if (module != null)
+	                op.engageModule(module);
+	        }
+	        return op;
+    	}
     }
 
 	/**
@@ -16,16 +16,13 @@
  */
 package org.holodeckb2b.core.axis2;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.StringReader;
-import java.io.StringWriter;
-
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMXMLBuilderFactory;
@@ -49,6 +46,26 @@ import org.w3c.dom.Element;
  */
 public final class Axis2Utils {
 
+	/**
+	 * The builders of the DOM documents to which SOAP envelopes are converted. As neither the factory nor the builders
+	 * are thread-safe, each thread uses its own builder.
+	 */
+	private static final ThreadLocal<DocumentBuilder> DOM_BUILDER = ThreadLocal.withInitial(() -> {
+		final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		try {
+			return factory.newDocumentBuilder();
+		} catch (ParserConfigurationException configError) {
+			throw new IllegalStateException("Could not create DOM builder", configError);
+		}
+	});
+	/**
+	 * The factories of the writers that write a SOAP envelope directly to a DOM document. The thread-safety of an
+	 * {@link XMLOutputFactory} is not guaranteed, so each thread uses its own factory.
+	 */
+	private static final ThreadLocal<XMLOutputFactory> DOM_WRITER_FACTORY =
+																	ThreadLocal.withInitial(XMLOutputFactory::newInstance);
+
 	/**
 	 * The parameter name to be used in the Service description to specify which <i>Message Builder</i> should be used
 	 * to prepare the message processing 
@@ -114,7 +131,8 @@ public final class Axis2Utils {
     }
 
 	/**
-	 * Converts the SOAP Envelope element from the Axis2 representation to the standard DOM representation.
+	 * Converts the SOAP Envelope element from the Axis2 representation to the standard DOM representation. The
+	 * envelope is written directly to the DOM document, i.e. without serializing and parsing it again.
 	 *
 	 * @param mc The MessageContext representing the SOAP message
 	 * @return A {@link Document} object that represents to the SOAP envelope element contained in the message, or<br>
@@ -122,13 +140,11 @@ public final class Axis2Utils {
 	 */
 	public static Document convertAxiomSOAPEnvToDOM(final MessageContext mc) {
 	    try {
-	    	final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-	        mc.getEnvelope().serialize(baos);
-	        final ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-	
-	        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-	        factory.setNamespaceAware(true);
-	        return factory.newDocumentBuilder().parse(bais);
+	    	final Document document = DOM_BUILDER.get().newDocument();
+	    	final XMLStreamWriter domWriter = DOM_WRITER_FACTORY.get().createXMLStreamWriter(new DOMResult(document));
+	        mc.getEnvelope().serialize(domWriter);
+	        domWriter.close();
+	        return document;
 	    } catch (final Exception e) {
 	        // If anything goes wrong converting the document, just return null
 	        return null;
@@ -136,7 +152,8 @@ public final class Axis2Utils {
 	}
 
 	/**
-	 * Converts a {@link Document} representation of the SOAP Envelope into a Axiom representation.
+	 * Converts a {@link Document} representation of the SOAP Envelope into a Axiom representation. The Axiom object
+	 * model is built directly from the DOM document, i.e. without serializing and parsing it again.
 	 *
 	 * @param document The standard DOM representation of the SOAP Envelope
 	 * @return An {@link SOAPEnvelope} object containing the Axiom representation of the SOAP envelope, or <br>
@@ -144,15 +161,9 @@ public final class Axis2Utils {
 	 */
 	public static SOAPEnvelope convertDOMSOAPEnvToAxiom(final Document document) {
 	    try {
-    		Transformer transformer = TransformerFactory.newInstance().newTransformer();
-    		// initialize StreamResult with File object to save to file
-    		StreamResult result = new StreamResult(new StringWriter());
-    		DOMSource source = new DOMSource(document);
-    		transformer.transform(source, result);
-    		String xmlString = result.getWriter().toString();
-	    	
-	        final SOAPEnvelope env = OMXMLBuilderFactory.createSOAPModelBuilder(new StringReader(xmlString))
+	        final SOAPEnvelope env = OMXMLBuilderFactory.createSOAPModelBuilder(new DOMSource(document))
 	        																						.getSOAPEnvelope();
+	        // Build the complete object model so it does not depend on the DOM document anymore
 	        env.build();
 	        return env;
 	    } catch (final Exception e) {
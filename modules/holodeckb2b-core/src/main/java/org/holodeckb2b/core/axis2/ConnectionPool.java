@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.HttpClient;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Manages the pool of HTTP connections used by the {@link HTTPTransportSender} to send requests to other MSHs. Next
+ * to the total number of connections, the number of connections per destination (the <i>route</i>) is limited. By
+ * default all destinations get the same maximum, but specific destinations can be assigned a different maximum,
+ * either in the configuration of the transport sender or in the P-Mode. This allows to give destinations that receive
+ * many messages more connections while keeping enough connections available for the others. The maximum of a route
+ * is only changed when a higher maximum is specified for it, so when multiple P-Modes specify a maximum for the same
+ * destination the highest one is used, independently of the order in which the P-Modes are used.
+ * <p>
+ * Connections are kept open for reuse for the time indicated by the server in the <i>Keep-Alive</i> header, but not
+ * longer than the keep-alive timeout, which can also be set per destination in the P-Mode. A background task closes
+ * expired connections and connections that have been idle for longer than the idle timeout, so no stale connections
+ * are kept in the pool. The same task logs the statistics of the pool, in total and per route, at <i>DEBUG</i> level
+ * to the <code>org.holodeckb2b.core.axis2.ConnectionPool</code> logger.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+class ConnectionPool {
+	private static final Logger log = LogManager.getLogger(ConnectionPool.class);
+
+	/**
+	 * Name of the HTTP context attribute that contains the keep-alive timeout in milliseconds to use for the
+	 * connection of the request
+	 */
+	static final String KEEP_ALIVE_TIMEOUT = "hb2b.keep-alive-timeout";
+
+	/**
+	 * Default time in milliseconds after which an idle connection is closed
+	 */
+	static final long DEFAULT_IDLE_TIMEOUT = 60000;
+	/**
+	 * Maximum interval in milliseconds between runs of the maintenance task
+	 */
+	private static final long MAX_MAINTENANCE_INTERVAL = 30000;
+
+	/**
+	 * The connection manager that actually manages the connections
+	 */
+	private final PoolingHttpClientConnectionManager	connManager;
+	/**
+	 * The client that uses the pooled connections to execute requests
+	 */
+	private final HttpClient	httpClient;
+	/**
+	 * The keep-alive timeout in milliseconds to use when none is specified for the request, <code>-1</code> if
+	 * connections can be kept open indefinitely (unless the server indicates otherwise)
+	 */
+	private final long	defaultKeepAlive;
+	/**
+	 * The time in milliseconds after which an idle connection is closed
+	 */
+	private final long	idleTimeout;
+	/**
+	 * Executes the maintenance task
+	 */
+	private final ScheduledExecutorService maintenance;
+	/**
+	 * The maximum number of connections specified for specific routes
+	 */
+	private final Map<HttpRoute, Integer> routeLimits = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new connection pool.
+	 *
+	 * @param socketFactories	the default socket factories to use for creating connections
+	 * @param maxTotal			the maximum number of connections in the pool
+	 * @param maxPerRoute		the default maximum number of connections per route
+	 * @param defaultKeepAlive	the default keep-alive timeout in milliseconds, a value &lt;= 0 indicates that the
+	 * 							server's keep-alive setting should be used
+	 * @param idleTimeout		the time in milliseconds after which an idle connection is closed
+	 */
+	ConnectionPool(final Registry<ConnectionSocketFactory> socketFactories, final int maxTotal,
+				   final int maxPerRoute, final long defaultKeepAlive, final long idleTimeout) {
+		this.connManager = new PoolingHttpClientConnectionManager(socketFactories);
+		this.connManager.setMaxTotal(maxTotal);
+		this.connManager.setDefaultMaxPerRoute(maxPerRoute);
+		this.defaultKeepAlive = defaultKeepAlive;
+		this.idleTimeout = idleTimeout;
+		this.httpClient = HttpClientBuilder.create().setConnectionManager(connManager)
+													.setConnectionManagerShared(true)
+													.setKeepAliveStrategy(createKeepAliveStrategy())
+													.build();
+
+		final long interval = Math.max(1000, Math.min(idleTimeout / 2, MAX_MAINTENANCE_INTERVAL));
+		this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread t = new Thread(r, "HTTP-ConnectionPool");
+			t.setDaemon(true);
+			return t;
+		});
+		this.maintenance.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return the client that should be used to execute the requests
+	 */
+	HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * @return the maximum number of connections in the pool
+	 */
+	int getMaxTotal() {
+		return connManager.getMaxTotal();
+	}
+
+	/**
+	 * @return the default maximum number of connections per route
+	 */
+	int getDefaultMaxPerRoute() {
+		return connManager.getDefaultMaxPerRoute();
+	}
+
+	/**
+	 * Gets the maximum number of connections for the route to the given destination.
+	 *
+	 * @param destination	URL of the destination
+	 * @return	the maximum number of connections for the route to the destination
+	 */
+	int getMaxPerRoute(final URL destination) {
+		return connManager.getMaxPerRoute(getRoute(destination));
+	}
+
+	/**
+	 * Sets the maximum number of connections for the route to the given destination. When a maximum was already set
+	 * for the route, the highest of both is used. As the maximum is only changed when a higher value is given, this
+	 * method can be called for every request without affecting the pool.
+	 *
+	 * @param destination	URL of the destination
+	 * @param max			the maximum number of connections to the destination
+	 */
+	void setMaxPerRoute(final URL destination, final int max) {
+		final HttpRoute route = getRoute(destination);
+		final Integer current = routeLimits.get(route);
+		if (current != null && current >= max)
+			return;
+		synchronized (routeLimits) {
+			final int newMax = routeLimits.merge(route, max, Math::max);
+			if (connManager.getMaxPerRoute(route) != newMax) {
+				log.debug("Set maximum number of connections to {} to {}", route.getTargetHost(), newMax);
+				connManager.setMaxPerRoute(route, newMax);
+			}
+		}
+	}
+
+	/**
+	 * Gets the statistics of the pool.
+	 *
+	 * @return the statistics of the complete pool
+	 */
+	PoolStats getTotalStats() {
+		return connManager.getTotalStats();
+	}
+
+	/**
+	 * Gets the statistics of the routes for which the pool currently contains connections or has pending requests.
+	 *
+	 * @return	map with the statistics per route, using the target host as key
+	 */
+	Map<String, PoolStats> getRouteStats() {
+		final Map<String, PoolStats> stats = new LinkedHashMap<>();
+		for (HttpRoute r : connManager.getRoutes())
+			stats.put(r.getTargetHost().toURI() + (r.getProxyHost() != null ? " via " + r.getProxyHost() : ""),
+					  connManager.getStats(r));
+		return stats;
+	}
+
+	/**
+	 * Stops the maintenance task and closes all connections in the pool.
+	 */
+	void shutdown() {
+		maintenance.shutdownNow();
+		connManager.shutdown();
+	}
+
+	/**
+	 * Gets the route to the given destination. The route is a direct connection to the host of the destination, so
+	 * route specific settings do not apply when a proxy is used.
+	 */
+	private static HttpRoute getRoute(final URL destination) {
+		final String scheme = destination.getProtocol().toLowerCase();
+		final boolean secure = "https".equals(scheme);
+		final int port = destination.getPort() > 0 ? destination.getPort() : secure ? 443 : 80;
+		return new HttpRoute(new HttpHost(destination.getHost(), port, scheme), null, secure);
+	}
+
+	/**
+	 * Creates the strategy for determining how long a connection can be kept open for reuse. This is the time
+	 * indicated by the server, limited by the keep-alive timeout specified for the request or the default one.
+	 */
+	private ConnectionKeepAliveStrategy createKeepAliveStrategy() {
+		return (response, context) -> {
+			final long server = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			final Object requested = context != null ? context.getAttribute(KEEP_ALIVE_TIMEOUT) : null;
+			final long max = requested instanceof Number ? ((Number) requested).longValue() : defaultKeepAlive;
+			if (max <= 0)
+				return server;
+			else
+				return server > 0 ? Math.min(server, max) : max;
+		};
+	}
+
+	/**
+	 * Closes the expired and idle connections and logs the pool statistics.
+	 */
+	private void maintain() {
+		try {
+			connManager.closeExpiredConnections();
+			connManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+			if (log.isDebugEnabled()) {
+				log.debug("Connection pool statistics: {}", connManager.getTotalStats());
+				getRouteStats().forEach((r, s) -> log.debug("Route {}: {}", r, s));
+			}
+		} catch (Throwable t) {
+			log.error("Error in maintenance of connection pool : {}", t.toString());
+		}
+	}
+}
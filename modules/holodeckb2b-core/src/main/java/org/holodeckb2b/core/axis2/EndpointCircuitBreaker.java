@@ -0,0 +1,321 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.axis2.AxisFault;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps track of the availability of the destinations messages are sent to so sending to a destination that is not
+ * reachable can be suspended. This prevents that every queued message is packaged, signed and then fails on the
+ * connection timeout when a trading partner's MSH is down.
+ * <p>For each destination a <i>circuit</i> is maintained which is <i>closed</i> while messages can be sent. When the
+ * configured number of consecutive sends to the destination have failed because of a transport problem, the circuit
+ * is <i>opened</i> and messages to the destination are deferred. After the open period has passed the circuit becomes
+ * <i>half open</i> and one message is sent as probe. When the probe succeeds the circuit is closed again, otherwise
+ * it is re-opened for a period twice as long as before, up to the configured maximum. A small random variation is
+ * added to the open period so circuits that opened at the same time are not probed at the same time.
+ * <p>Only circuits that are not in their normal state are kept, so the current status of all destinations that have
+ * problems can be retrieved using {@link #getStatus()}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public class EndpointCircuitBreaker {
+	private static final Logger log = LogManager.getLogger(EndpointCircuitBreaker.class);
+
+	/**
+	 * The default number of consecutive failures after which the circuit is opened
+	 */
+	public static final int DEFAULT_THRESHOLD = 5;
+	/**
+	 * The default time in milliseconds a circuit stays open after it opened for the first time
+	 */
+	public static final long DEFAULT_OPEN_TIME = 30 * 1000L;
+	/**
+	 * The default maximum time in milliseconds a circuit stays open
+	 */
+	public static final long DEFAULT_MAX_OPEN_TIME = 15 * 60 * 1000L;
+
+	/**
+	 * The state of a circuit
+	 */
+	public enum State { CLOSED, OPEN, HALF_OPEN }
+
+	/**
+	 * The status of the circuit of a destination as reported by {@link EndpointCircuitBreaker#getStatus()}.
+	 */
+	public static class Status implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String	destination;
+		private final State		state;
+		private final int		consecutiveFailures;
+		private final Date		openUntil;
+
+		Status(final String destination, final State state, final int consecutiveFailures, final Date openUntil) {
+			this.destination = destination;
+			this.state = state;
+			this.consecutiveFailures = consecutiveFailures;
+			this.openUntil = openUntil;
+		}
+
+		/**
+		 * @return the URL of the destination
+		 */
+		public String getDestination() {
+			return destination;
+		}
+
+		/**
+		 * @return the current state of the circuit
+		 */
+		public State getState() {
+			return state;
+		}
+
+		/**
+		 * @return the number of consecutive sends to the destination that failed
+		 */
+		public int getConsecutiveFailures() {
+			return consecutiveFailures;
+		}
+
+		/**
+		 * @return the time until messages to the destination are deferred when the circuit is open, <code>null</code>
+		 * 			otherwise
+		 */
+		public Date getOpenUntil() {
+			return openUntil;
+		}
+	}
+
+	/**
+	 * The circuit of a destination
+	 */
+	private static class Circuit {
+		State	state = State.CLOSED;
+		int		failures;
+		int		trips;
+		long	openUntil;
+		boolean	probing;
+	}
+
+	/**
+	 * The number of consecutive failures after which the circuit is opened, 0 if circuits are never opened
+	 */
+	private final int	threshold;
+	/**
+	 * The time in milliseconds a circuit stays open after it opened for the first time
+	 */
+	private final long	openTime;
+	/**
+	 * The maximum time in milliseconds a circuit stays open
+	 */
+	private final long	maxOpenTime;
+	/**
+	 * The circuits that are not in their normal state, i.e. closed without failures
+	 */
+	private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new circuit breaker.
+	 *
+	 * @param threshold		the number of consecutive failures after which a circuit is opened, 0 to never open
+	 * 						circuits
+	 * @param openTime		the time in milliseconds a circuit stays open after it opened for the first time
+	 * @param maxOpenTime	the maximum time in milliseconds a circuit stays open
+	 */
+	public EndpointCircuitBreaker(final int threshold, final long openTime, final long maxOpenTime) {
+		this.threshold = Math.max(0, threshold);
+		this.openTime = openTime;
+		this.maxOpenTime = Math.max(openTime, maxOpenTime);
+	}
+
+	/**
+	 * @return <code>true</code> if circuits can be opened, <code>false</code> if messages are always sent
+	 */
+	public boolean isEnabled() {
+		return threshold > 0;
+	}
+
+	/**
+	 * Checks whether messages to the given destination are currently deferred. Unlike {@link #allowSend(String)}
+	 * this method does not change the state of the circuit and can be used to check if it is useful to start the send
+	 * process.
+	 *
+	 * @param destination	the URL of the destination
+	 * @return	<code>true</code> if messages to the destination are deferred, <code>false</code> otherwise
+	 */
+	public boolean isDeferred(final String destination) {
+		final Circuit c = destination != null ? circuits.get(destination) : null;
+		if (c == null)
+			return false;
+		synchronized (c) {
+			return (c.state == State.OPEN && System.currentTimeMillis() < c.openUntil)
+					|| (c.state == State.HALF_OPEN && c.probing);
+		}
+	}
+
+	/**
+	 * Checks whether a message can be sent to the given destination. When the open period of the circuit has passed,
+	 * the circuit becomes half open and the caller may send one message as probe. The outcome of a send that is
+	 * allowed must be reported using {@link #recordSuccess(String)}, {@link #recordFailure(String)} or {@link
+	 * #release(String)}.
+	 *
+	 * @param destination	the URL of the destination
+	 * @return	<code>true</code> if the message can be sent, <code>false</code> if it should be deferred
+	 */
+	public boolean allowSend(final String destination) {
+		final Circuit c = destination != null ? circuits.get(destination) : null;
+		if (c == null)
+			return true;
+		synchronized (c) {
+			switch (c.state) {
+			case OPEN :
+				if (System.currentTimeMillis() < c.openUntil)
+					return false;
+				log.info("Sending probe message to {}", destination);
+				c.state = State.HALF_OPEN;
+				c.probing = true;
+				return true;
+			case HALF_OPEN :
+				if (c.probing)
+					return false;
+				c.probing = true;
+				return true;
+			default :
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Records that a message was successfully sent to the given destination, i.e. a response was received. This
+	 * closes the circuit of the destination.
+	 *
+	 * @param destination	the URL of the destination
+	 */
+	public void recordSuccess(final String destination) {
+		if (destination == null)
+			return;
+		// The circuit is removed within the map operation so it cannot interleave with a concurrent recordFailure
+		circuits.computeIfPresent(destination, (d, c) -> {
+			synchronized (c) {
+				if (c.state != State.CLOSED)
+					log.info("Destination {} is available again, resume sending", destination);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Records that a message could not be sent to the given destination because of a transport problem. When the
+	 * number of consecutive failures reaches the threshold or the probe of a half open circuit fails, the circuit is
+	 * opened.
+	 *
+	 * @param destination	the URL of the destination
+	 */
+	public void recordFailure(final String destination) {
+		if (!isEnabled() || destination == null)
+			return;
+		// The circuit is updated within the map operation so the failure cannot be recorded on a circuit that is
+		// removed by a concurrent recordSuccess
+		circuits.compute(destination, (d, current) -> {
+			final Circuit c = current != null ? current : new Circuit();
+			synchronized (c) {
+				c.failures++;
+				if (c.state == State.HALF_OPEN || (c.state == State.CLOSED && c.failures >= threshold)) {
+					final long period = Math.min(openTime << Math.min(c.trips++, 20), maxOpenTime);
+					c.openUntil = System.currentTimeMillis() + period
+								  + ThreadLocalRandom.current().nextLong(Math.max(1, period / 10));
+					c.state = State.OPEN;
+					c.probing = false;
+					log.warn("Deferring messages to {} for {} seconds after {} consecutive failures", destination,
+							 period / 1000, c.failures);
+				}
+			}
+			return c;
+		});
+	}
+
+	/**
+	 * Records that the send operation of a message to the given destination has finished without a result indicating
+	 * whether the destination is available, for example because the message could not be packaged. When the message
+	 * was sent as probe, another message can be used as probe.
+	 *
+	 * @param destination	the URL of the destination
+	 */
+	public void release(final String destination) {
+		final Circuit c = destination != null ? circuits.get(destination) : null;
+		if (c != null)
+			synchronized (c) {
+				c.probing = false;
+			}
+	}
+
+	/**
+	 * Gets the status of the circuits of the destinations to which the last send operation failed.
+	 *
+	 * @return	the status of the circuits that are not in their normal state
+	 */
+	public List<Status> getStatus() {
+		final List<Status> status = new ArrayList<>(circuits.size());
+		circuits.forEach((d, c) -> {
+			synchronized (c) {
+				status.add(new Status(d, c.state, c.failures, c.state == State.OPEN ? new Date(c.openUntil) : null));
+			}
+		});
+		return status;
+	}
+
+	/**
+	 * Checks whether the given exception indicates that the destination could not be reached, i.e. whether it was
+	 * caused by an I/O problem like a connection failure or timeout.
+	 *
+	 * @param t		the exception that occurred during the send operation
+	 * @return	<code>true</code> if the exception was caused by a transport problem, <code>false</code> otherwise
+	 */
+	static boolean isTransportFailure(Throwable t) {
+		// AxisFault is also an IOException, so only the exceptions it wraps are checked
+		for (int depth = 0; t != null && depth < 10; t = t.getCause(), depth++)
+			if (t instanceof IOException && !(t instanceof AxisFault))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Checks whether the given HTTP status code indicates that the destination is temporarily not available, i.e. it
+	 * is <i>502 (Bad Gateway)</i>, <i>503 (Service Unavailable)</i> or <i>504 (Gateway Timeout)</i>.
+	 *
+	 * @param statusCode	the HTTP status code of the response
+	 * @return	<code>true</code> if the destination is not available, <code>false</code> otherwise
+	 */
+	static boolean isUnavailable(final int statusCode) {
+		return statusCode == 502 || statusCode == 503 || statusCode == 504;
+	}
+}
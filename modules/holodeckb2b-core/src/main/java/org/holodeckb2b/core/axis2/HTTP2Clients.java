@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.core.workerpool.VirtualThreads;
+
+/**
+ * Manages the asynchronous HTTP clients that are used when messages are sent using HTTP/2. The clients are based on
+ * the HTTP client included in the JDK which multiplexes all concurrent requests to a server over one connection when
+ * the server supports HTTP/2, either negotiated using ALPN (h2) or by upgrading a plain connection (h2c). When the
+ * server does not support HTTP/2 the client falls back to HTTP/1.1.
+ * <p>
+ * As the TLS settings and the connection timeout can only be set on the client, a separate client is used for each
+ * combination of SSLContext and connection timeout. All clients share the same thread pool.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+class HTTP2Clients {
+	private static final Logger log = LogManager.getLogger(HTTP2Clients.class);
+
+	/**
+	 * The TLS protocols that are allowed by default
+	 */
+	static final String[] DEFAULT_PROTOCOLS = new String[] { "TLSv1.2", "TLSv1.3" };
+	/**
+	 * Maximum number of clients
+	 */
+	private static final int MAX_CLIENTS = 64;
+
+	/**
+	 * Key of a client
+	 */
+	private static class Key {
+		final SSLContext	sslContext;
+		final int			connectTimeout;
+
+		Key(SSLContext sslContext, int connectTimeout) {
+			this.sslContext = sslContext;
+			this.connectTimeout = connectTimeout;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key) o).sslContext == sslContext && ((Key) o).connectTimeout == connectTimeout;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(sslContext) + connectTimeout;
+		}
+	}
+
+	/**
+	 * The SSLContext to use when no specific TLS configuration applies
+	 */
+	private final SSLContext	defaultSSLContext;
+	/**
+	 * The thread pool used by the clients for asynchronous processing and for writing the request bodies
+	 */
+	private final ExecutorService executor;
+	/**
+	 * The clients, in access order so the least recently used one can be removed
+	 */
+	private final Map<Key, HttpClient> clients = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, HttpClient> eldest) {
+			return size() > MAX_CLIENTS;
+		}
+	};
+
+	/**
+	 * Creates a new set of clients.
+	 *
+	 * @param defaultSSLContext	the SSLContext to use when no specific TLS configuration applies, <code>null</code>
+	 * 							if the JVM default should be used
+	 */
+	HTTP2Clients(final SSLContext defaultSSLContext) {
+		this.defaultSSLContext = defaultSSLContext;
+		final AtomicInteger threadNumber = new AtomicInteger(1);
+		final ExecutorService virtual = VirtualThreads.newThreadPerTaskExecutor("HTTP2");
+		this.executor = virtual != null ? virtual :
+						new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+											   r -> {
+												   final Thread t = new Thread(r, "HTTP2-" + threadNumber.getAndIncrement());
+												   t.setDaemon(true);
+												   return t;
+											   });
+	}
+
+	/**
+	 * @return the thread pool to use for writing the request bodies
+	 */
+	ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Gets the client to use for a request.
+	 *
+	 * @param sslContext		the SSLContext to use, <code>null</code> if the default one should be used
+	 * @param protocols			the allowed TLS protocols, <code>null</code> if the default ones should be used
+	 * @param cipherSuites		the allowed cipher suites, <code>null</code> if the default ones should be used
+	 * @param connectTimeout	the connection timeout in milliseconds, 0 if there is no timeout
+	 * @return	the client
+	 */
+	HttpClient getClient(final SSLContext sslContext, final String[] protocols, final String[] cipherSuites,
+						 final int connectTimeout) {
+		final SSLContext ctx = sslContext != null ? sslContext : defaultSSLContext;
+		final Key key = new Key(ctx, connectTimeout);
+		synchronized (clients) {
+			HttpClient client = clients.get(key);
+			if (client == null) {
+				log.debug("Create new HTTP/2 client (connect timeout={}ms)", connectTimeout);
+				final SSLParameters sslParameters = new SSLParameters();
+				sslParameters.setProtocols(protocols != null && protocols.length > 0 ? protocols : DEFAULT_PROTOCOLS);
+				if (cipherSuites != null && cipherSuites.length > 0)
+					sslParameters.setCipherSuites(cipherSuites);
+				final HttpClient.Builder builder = HttpClient.newBuilder()
+															 .version(HttpClient.Version.HTTP_2)
+															 .followRedirects(HttpClient.Redirect.NEVER)
+															 .sslParameters(sslParameters)
+															 .executor(executor);
+				if (ctx != null)
+					builder.sslContext(ctx);
+				if (connectTimeout > 0)
+					builder.connectTimeout(Duration.ofMillis(connectTimeout));
+				client = builder.build();
+				clients.put(key, client);
+			}
+			return client;
+		}
+	}
+
+	/**
+	 * Removes all clients and stops the thread pool.
+	 */
+	void shutdown() {
+		synchronized (clients) {
+			clients.clear();
+		}
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,407 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPInputStream;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.axiom.mime.Header;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.kernel.http.HTTPConstants;
+import org.apache.axis2.transport.http.AxisRequestEntity;
+import org.apache.axis2.transport.http.CommonsTransportHeaders;
+import org.apache.axis2.transport.http.HTTPAuthenticator;
+import org.apache.axis2.transport.http.Request;
+import org.apache.axis2.wsdl.WSDLConstants;
+import org.apache.axiom.mime.ContentType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.commons.util.Utils;
+
+/**
+ * Is an implementation of the Axis2 {@link Request} interface that executes the request using an HTTP/2 capable
+ * client provided by {@link HTTP2Clients}. As the message is still packaged by Axis2, the same content encoding (gzip)
+ * and SwA MIME packaging is used as when sending with HTTP/1.1. When the message should be sent "chunked" the content
+ * is streamed to the server without a content length, otherwise the packaged message is sent with its length.
+ * <p>
+ * The following features of the default implementation are not supported: proxies, NTLM and Digest authentication
+ * (only pre-emptive Basic authentication is supported) and HTTP/1.0.
+ * <p>
+ * The request can also be executed <i>asynchronously</i>, which is used by the non-blocking send process (see {@link
+ * HTTPTransportSender#MC_ASYNC_SEND}). In that case {@link #execute()} only starts the exchange and returns
+ * immediately. Until the response is received the request reports a <i>202 Accepted</i> status without headers and
+ * content, so the Axis2 transport does not process a response. When the response is received, i.e. the future
+ * returned by {@link #getResponseReceived()} completes, it is processed by {@link #processResponse(MessageContext)}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+class HTTP2RequestImpl implements Request {
+	private static final Logger log = LogManager.getLogger(HTTP2RequestImpl.class);
+
+	/**
+	 * The headers that are managed by the HTTP client and cannot be set on the request
+	 */
+	private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+																 "upgrade", "transfer-encoding");
+
+	private final HTTP2Clients		clients;
+	private final SSLContext		sslContext;
+	private final String[]			protocols;
+	private final String[]			cipherSuites;
+	private final MessageContext	msgContext;
+	private final String			methodName;
+	private final AxisRequestEntity requestEntity;
+	private final HttpRequest.Builder request;
+	private final boolean			async;
+	private final List<Header>		headers = new ArrayList<>();
+	private int						connectTimeout = 0;
+	private HttpResponse<InputStream> response;
+	private CompletableFuture<HttpResponse<InputStream>> pendingResponse;
+
+	/**
+	 * Creates a new request.
+	 *
+	 * @param clients		the HTTP/2 clients to use for executing the request
+	 * @param sslContext	the SSLContext to use, <code>null</code> if the default one should be used
+	 * @param protocols		the allowed TLS protocols, <code>null</code> if the default ones should be used
+	 * @param cipherSuites	the allowed cipher suites, <code>null</code> if the default ones should be used
+	 * @param msgContext	the message context of the message being sent
+	 * @param methodName	the HTTP method
+	 * @param url			the destination URL
+	 * @param requestEntity	the packaged message to send, <code>null</code> if there is no content to send
+	 * @throws AxisFault if the URL cannot be converted to a URI
+	 */
+	HTTP2RequestImpl(HTTP2Clients clients, SSLContext sslContext, String[] protocols, String[] cipherSuites,
+					 MessageContext msgContext, String methodName, URL url, AxisRequestEntity requestEntity)
+							 																		throws AxisFault {
+		this(clients, sslContext, protocols, cipherSuites, msgContext, methodName, url, requestEntity, true, false);
+	}
+
+	/**
+	 * Creates a new request that uses the given HTTP version and is executed synchronously or asynchronously.
+	 *
+	 * @param clients		the HTTP/2 clients to use for executing the request
+	 * @param sslContext	the SSLContext to use, <code>null</code> if the default one should be used
+	 * @param protocols		the allowed TLS protocols, <code>null</code> if the default ones should be used
+	 * @param cipherSuites	the allowed cipher suites, <code>null</code> if the default ones should be used
+	 * @param msgContext	the message context of the message being sent
+	 * @param methodName	the HTTP method
+	 * @param url			the destination URL
+	 * @param requestEntity	the packaged message to send, <code>null</code> if there is no content to send
+	 * @param http2			indicates whether HTTP/2 should be used, if <code>false</code> HTTP/1.1 is used
+	 * @param async			indicates whether the request should be executed asynchronously
+	 * @throws AxisFault if the URL cannot be converted to a URI
+	 * @since 8.2.0
+	 */
+	HTTP2RequestImpl(HTTP2Clients clients, SSLContext sslContext, String[] protocols, String[] cipherSuites,
+					 MessageContext msgContext, String methodName, URL url, AxisRequestEntity requestEntity,
+					 boolean http2, boolean async) throws AxisFault {
+		this.clients = clients;
+		this.sslContext = sslContext;
+		this.protocols = protocols;
+		this.cipherSuites = cipherSuites;
+		this.msgContext = msgContext;
+		this.methodName = methodName;
+		this.requestEntity = requestEntity;
+		try {
+			this.request = HttpRequest.newBuilder(url.toURI());
+		} catch (URISyntaxException ex) {
+			throw AxisFault.makeFault(ex);
+		}
+		if (!http2)
+			request.version(HttpClient.Version.HTTP_1_1);
+		this.async = async;
+	}
+
+	@Override
+	public void enableHTTP10() {
+		log.warn("HTTP/1.0 is not supported when using HTTP/2 or the non-blocking send process, ignoring");
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		headers.removeIf(h -> h.getName().equalsIgnoreCase(name));
+		addHeader(name, value);
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		if (RESTRICTED_HEADERS.contains(name.toLowerCase()))
+			log.trace("Ignoring {} header as it is managed by the HTTP client", name);
+		else
+			headers.add(new Header(name, value));
+	}
+
+	@Override
+	public Header[] getRequestHeaders() {
+		return headers.toArray(new Header[headers.size()]);
+	}
+
+	@Override
+	public void setConnectionTimeout(int timeout) {
+		connectTimeout = timeout;
+	}
+
+	@Override
+	public void setSocketTimeout(int timeout) {
+		if (timeout > 0)
+			request.timeout(Duration.ofMillis(timeout));
+	}
+
+	@Override
+	public int getStatusCode() {
+		return response != null ? response.statusCode() : HttpURLConnection.HTTP_ACCEPTED;
+	}
+
+	@Override
+	public String getStatusText() {
+		// HTTP/2 does not have reason phrases
+		return "";
+	}
+
+	@Override
+	public String getResponseHeader(String name) {
+		return response != null ? response.headers().firstValue(name).orElse(null) : null;
+	}
+
+	@Override
+	public Header[] getResponseHeaders() {
+		final List<Header> result = new ArrayList<>();
+		if (response != null)
+			response.headers().map().forEach((n, vs) -> {
+				// Pseudo headers like :status are not returned by Axis2
+				if (!n.startsWith(":"))
+					vs.forEach(v -> result.add(new Header(n, v)));
+			});
+		return result.toArray(new Header[result.size()]);
+	}
+
+	@Override
+	public Map<String, String> getCookies() {
+		Map<String, String> cookies = null;
+		if (response == null)
+			return null;
+		for (String name : new String[] { HTTPConstants.HEADER_SET_COOKIE, HTTPConstants.HEADER_SET_COOKIE2 })
+			for (String header : response.headers().allValues(name)) {
+				final String cookie = header.split(";", 2)[0];
+				final int eq = cookie.indexOf('=');
+				if (eq > 0) {
+					if (cookies == null)
+						cookies = new HashMap<>();
+					cookies.put(cookie.substring(0, eq).trim(), cookie.substring(eq + 1).trim());
+				}
+			}
+		return cookies;
+	}
+
+	@Override
+	public InputStream getResponseContent() throws IOException {
+		return response != null ? response.body() : null;
+	}
+
+	@Override
+	public void execute() throws IOException {
+		if (msgContext.isPropertyTrue(HTTPConstants.MC_ACCEPT_GZIP))
+			addHeader(HTTPConstants.HEADER_ACCEPT_ENCODING, HTTPConstants.COMPRESSION_GZIP);
+		headers.forEach(h -> request.header(h.getName(), h.getValue()));
+		request.method(methodName, createBodyPublisher());
+
+		final HttpClient client = clients.getClient(sslContext, protocols, cipherSuites, connectTimeout);
+		if (async) {
+			log.debug("Start asynchronous execution of request");
+			pendingResponse = client.sendAsync(request.build(), BodyHandlers.ofInputStream());
+			return;
+		}
+		try {
+			response = client.send(request.build(), BodyHandlers.ofInputStream());
+			log.debug("Received response using {}", response.version());
+		} catch (InterruptedException interrupted) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for response");
+		}
+	}
+
+	/**
+	 * Gets the future that completes when the response to an asynchronously executed request has been received.
+	 * The future completes exceptionally when the exchange failed.
+	 *
+	 * @return	the future, or <code>null</code> if the request was not executed asynchronously
+	 * @since 8.2.0
+	 */
+	CompletableFuture<?> getResponseReceived() {
+		return pendingResponse;
+	}
+
+	/**
+	 * Processes the response to an asynchronously executed request in the same way as the Axis2 transport does for a
+	 * synchronous request, i.e. the status code, headers and content of the response are set in the message contexts
+	 * so the response can be handled by the <i>in flow</i>. Should only be called when the future returned by {@link
+	 * #getResponseReceived()} has completed.
+	 *
+	 * @param msgContext	the message context of the sent message
+	 * @throws AxisFault	when the exchange failed or the response indicates an error
+	 * @since 8.2.0
+	 */
+	void processResponse(MessageContext msgContext) throws AxisFault {
+		try {
+			response = pendingResponse.join();
+		} catch (CompletionException exchangeFailure) {
+			log.debug("Asynchronous request failed : {}", exchangeFailure.getCause().toString());
+			throw AxisFault.makeFault(exchangeFailure.getCause());
+		}
+		final int status = response.statusCode();
+		log.debug("Received response (status={}) using {}", status, response.version());
+		final boolean processResponse, isFault;
+		if (status == HttpURLConnection.HTTP_ACCEPTED) {
+			processResponse = false; isFault = false;
+		} else if (status >= 200 && status < 300) {
+			processResponse = true; isFault = false;
+		} else if (status == HttpURLConnection.HTTP_INTERNAL_ERROR || status == HttpURLConnection.HTTP_BAD_REQUEST
+					|| status == HttpURLConnection.HTTP_NOT_FOUND) {
+			processResponse = true; isFault = true;
+		} else {
+			releaseConnection();
+			throw new AxisFault("Transport error: " + status + " Error: " + getStatusText());
+		}
+
+		msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, new CommonsTransportHeaders(getResponseHeaders()));
+		msgContext.setProperty(HTTPConstants.MC_HTTP_STATUS_CODE, Integer.valueOf(status));
+		final OperationContext opContext = msgContext.getOperationContext();
+		final MessageContext inMsgContext = opContext != null ?
+								opContext.getMessageContext(WSDLConstants.MESSAGE_LABEL_IN_VALUE) : null;
+		final String contentTypeHeader = getResponseHeader(HTTPConstants.HEADER_CONTENT_TYPE);
+		if (contentTypeHeader != null && inMsgContext != null) {
+			try {
+				final ContentType contentType = new ContentType(contentTypeHeader);
+				inMsgContext.setProperty(Constants.Configuration.CONTENT_TYPE, contentTypeHeader);
+				final String charSet = contentType.getParameter("charset");
+				if (charSet != null)
+					inMsgContext.setProperty(Constants.Configuration.CHARACTER_SET_ENCODING, charSet);
+			} catch (java.text.ParseException invalidContentType) {
+				throw AxisFault.makeFault(invalidContentType);
+			}
+		}
+
+		if (processResponse && opContext != null) {
+			InputStream content = response.body();
+			final String contentEncoding = getResponseHeader(HTTPConstants.HEADER_CONTENT_ENCODING);
+			try {
+				if (HTTPConstants.COMPRESSION_GZIP.equalsIgnoreCase(contentEncoding))
+					content = new GZIPInputStream(content);
+				else if (contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding))
+					throw new AxisFault("HTTP :unsupported content-encoding of '" + contentEncoding + "' found");
+			} catch (IOException gzipError) {
+				throw AxisFault.makeFault(gzipError);
+			}
+			opContext.setProperty(MessageContext.TRANSPORT_IN, content);
+		}
+		if (isFault && inMsgContext != null)
+			inMsgContext.setProcessingFault(true);
+	}
+
+	/**
+	 * Creates the publisher of the request body. The content is streamed using a pipe that is filled by a separate
+	 * thread. When the request should not be sent chunked the length of the content, which Axis2 already buffered when
+	 * packaging the message, is declared so the <i>Content-Length</i> header is set.
+	 */
+	private BodyPublisher createBodyPublisher() {
+		if (requestEntity == null)
+			return BodyPublishers.noBody();
+		final BodyPublisher streamingPublisher = BodyPublishers.ofInputStream(() -> {
+				final PipedInputStream in = new PipedInputStream(64 * 1024);
+				try {
+					final PipedOutputStream out = new PipedOutputStream(in);
+					clients.getExecutor().execute(() -> {
+						try (out) {
+							requestEntity.writeRequest(out);
+						} catch (IOException writeError) {
+							log.error("Error writing request content : {}", Utils.getExceptionTrace(writeError));
+							// Closing the input signals the error to the client
+							try {
+								in.close();
+							} catch (IOException ignored) {
+							}
+						}
+					});
+				} catch (IOException pipeError) {
+					throw new IllegalStateException(pipeError);
+				}
+				return in;
+			});
+		final long contentLength = requestEntity.isChunked() ? -1 : requestEntity.getContentLength();
+		if (contentLength == 0)
+			return BodyPublishers.noBody();
+		else if (contentLength > 0)
+			return BodyPublishers.fromPublisher(streamingPublisher, contentLength);
+		else
+			return streamingPublisher;
+	}
+
+	@Override
+	public void releaseConnection() {
+		if (response != null && response.body() != null) {
+			log.trace("Cleanup response");
+			try (InputStream body = response.body()) {
+				body.transferTo(OutputStream.nullOutputStream());
+			} catch (IOException e) {
+				log.error("Error while cleaning response : {}", Utils.getExceptionTrace(e));
+			}
+		}
+	}
+
+	@Override
+	public void enableAuthentication(HTTPAuthenticator authenticator) {
+		if (authenticator.getDomain() != null) {
+			log.warn("NTLM authentication is not supported when using HTTP/2 or the non-blocking send process");
+			return;
+		}
+		log.debug("Using Basic authentication");
+		final String credentials = authenticator.getUsername() + ":" + authenticator.getPassword();
+		setHeader(HTTPConstants.HEADER_AUTHORIZATION,
+				  "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -35,6 +35,9 @@ import org.apache.http.protocol.ResponseConnControl;
 import org.apache.http.protocol.ResponseContent;
 import org.apache.http.protocol.ResponseDate;
 import org.apache.http.protocol.ResponseServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.core.workerpool.VirtualThreads;
 
 /**
  * Is a customised {@link org.apache.axis2.transport.http.server.HttpFactory} that uses the actual {@link 
@@ -45,6 +48,7 @@ import org.apache.http.protocol.ResponseServer;
  * @since 5.0.0
  */
 public class HTTPFactory extends org.apache.axis2.transport.http.server.HttpFactory {
+	private static final Logger log = LogManager.getLogger(HTTPFactory.class);
 	
 	private TransportInDescription	httpConfiguration;
 	
@@ -61,6 +65,29 @@ public class HTTPFactory extends org.apache.axis2.transport.http.server.HttpFact
         setRequestMaxThreadPoolSize(getIntParam(PARAMETER_REQUEST_MAX_THREAD_POOL_SIZE, 150));
         setThreadKeepAliveTime(getLongParam(PARAMETER_THREAD_KEEP_ALIVE_TIME, 180L));
         setThreadKeepAliveTimeUnit(getTimeUnitParam(PARAMETER_THREAD_KEEP_ALIVE_TIME_UNIT, TimeUnit.SECONDS));        
+
+        // Requests can only be rejected quickly if there are threads left to handle them
+        final AdmissionController admissionControl = getAdmissionControl();
+        if (admissionControl != null && admissionControl.getCapacity() >= getRequestCoreThreadPoolSize())
+        	log.warn("The admission control capacity ({}) should be less than the thread pool size ({})",
+        			 admissionControl.getCapacity(), getRequestCoreThreadPoolSize());
+	}
+
+	/**
+	 * @return the admission control applied to the requests, <code>null</code> if none is applied
+	 * @since 8.2.0
+	 */
+	AdmissionController getAdmissionControl() {
+		return ((HTTPWorkerFactory) newRequestWorkerFactory()).getAdmissionControl();
+	}
+
+	/**
+	 * @return the queue for requests accepted for later processing, <code>null</code> if deferred processing is not
+	 * 		   enabled
+	 * @since 8.2.0
+	 */
+	InboundQueue getInboundQueue() {
+		return ((HTTPWorkerFactory) newRequestWorkerFactory()).getInboundQueue();
 	}
 	
 	/*
@@ -85,6 +112,16 @@ public class HTTPFactory extends org.apache.axis2.transport.http.server.HttpFact
         return httpProcessor;
     }
     
+    /**
+     * Creates the executor for handling the connections. When virtual threads are enabled each connection is handled
+     * by its own virtual thread, otherwise the thread pool as configured by the parameters is used.
+     */
+    @Override
+    public ExecutorService newRequestExecutor(int port) {
+    	final ExecutorService virtual = VirtualThreads.newThreadPerTaskExecutor("HttpConnection-" + port);
+    	return virtual != null ? virtual : super.newRequestExecutor(port);
+    }
+
     /**
      * Create the connection manager used to launch request threads
      */
@@ -28,6 +28,8 @@ import org.apache.axis2.description.TransportInDescription;
 import org.apache.axis2.kernel.TransportListener;
 import org.apache.axis2.transport.http.HTTPTransportUtils;
 import org.apache.axis2.transport.http.server.SimpleHttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * Is an Axis2 {@link TransportListener} implementation that will create a stand alone HTTP listener that will use the 
@@ -44,6 +46,8 @@ import org.apache.axis2.transport.http.server.SimpleHttpServer;
  * @since 5.0.0
  */
 public class HTTPListener implements TransportListener {
+	private static final Logger log = LogManager.getLogger(HTTPListener.class);
+
 	/**
 	 * The Axis2 http server
 	 */
@@ -72,6 +76,9 @@ public class HTTPListener implements TransportListener {
 	@Override
 	public void start() throws AxisFault {
         try {
+        	final InboundQueue inboundQueue = httpFactory.getInboundQueue();
+        	if (inboundQueue != null)
+        		inboundQueue.start(configurationContext, transportConfig);
             embedded = new SimpleHttpServer(httpFactory, httpFactory.getPort());
             embedded.init();
             embedded.start();
@@ -88,6 +95,12 @@ public class HTTPListener implements TransportListener {
             } catch (Exception e) {
             }
         }
+        final InboundQueue inboundQueue = httpFactory != null ? httpFactory.getInboundQueue() : null;
+        if (inboundQueue != null)
+        	inboundQueue.stop();
+        final AdmissionController admissionControl = httpFactory != null ? httpFactory.getAdmissionControl() : null;
+        if (admissionControl != null)
+        	log.info("Admission control statistics: {}", admissionControl.getStatistics());
 	}
 
 	@Override
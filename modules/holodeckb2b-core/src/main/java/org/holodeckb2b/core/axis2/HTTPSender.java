@@ -17,19 +17,6 @@
 package org.holodeckb2b.core.axis2;
 
 import java.net.URL;
-import java.security.KeyManagementException;
-import java.security.KeyStore;
-import java.security.KeyStore.PrivateKeyEntry;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
-import java.security.cert.X509Certificate;
-import java.util.Arrays;
-
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.KeyManager;
-import javax.net.ssl.KeyManagerFactory;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
 
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
@@ -37,27 +24,24 @@ import org.apache.axis2.kernel.http.HTTPConstants;
 import org.apache.axis2.transport.http.AxisRequestEntity;
 import org.apache.axis2.transport.http.Request;
 import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.HttpClientConnectionManager;
-import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.conn.socket.PlainConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
 import org.holodeckb2b.common.pmode.TLSConfiguration;
-import org.holodeckb2b.commons.security.CertificateUtils;
-import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.core.MessageProcessingContext;
 import org.holodeckb2b.core.pmode.PModeUtils;
-import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
 import org.holodeckb2b.interfaces.messagemodel.IMessageUnit;
 import org.holodeckb2b.interfaces.pmode.IProtocol;
 
 /**
  * Extends {@link org.apache.axis2.transport.http.HTTPSender} to handle custom connection configuration based on the
- * P-Mode settings.
+ * P-Mode settings. The socket factories for custom TLS configurations are taken from the {@link TLSContextCache} so
+ * TLS sessions can be resumed and pooled connections reused for subsequent requests with the same configuration.
+ * When HTTP/2 should be used, either by default or as specified in the P-Mode, the request is executed by a
+ * {@link HTTP2RequestImpl} instead of the HTTP/1.1 client. This is also the case when the message is sent using the
+ * non-blocking send process as only that client can execute requests asynchronously. Note that the features not
+ * supported by {@link HTTP2RequestImpl}, like proxies and the per destination settings of the {@link ConnectionPool},
+ * therefore do not apply to messages sent using the non-blocking send process.
  *
  * @author Sander Fieten (sander at holodeck-b2b.org)
  * @since 8.0.0
@@ -72,19 +56,37 @@ class HTTPSender extends org.apache.axis2.transport.http.HTTPSender {
 	 */
 	static final String SOCKET_FACTORY_REGISTRY = "http.socket-factory-registry";
 	/*
-	 * The connection manager to use for getting a connection to execute requests
+	 * The pool of connections to use for executing the requests
 	 */
-	private final HttpClientConnectionManager connectionManager;
-
-	public HTTPSender(HttpClientConnectionManager connManager) {
-		this.connectionManager = connManager;
+	private final ConnectionPool connectionPool;
+	/*
+	 * The cache of socket factories for custom TLS configurations
+	 */
+	private final TLSContextCache tlsContexts;
+	/*
+	 * The clients to use for executing the requests using HTTP/2
+	 */
+	private final HTTP2Clients http2Clients;
+	/*
+	 * Indicates whether HTTP/2 should be used when the P-Mode does not specify it
+	 */
+	private final boolean defaultHTTP2;
+
+	public HTTPSender(ConnectionPool connectionPool, TLSContextCache tlsContexts, HTTP2Clients http2Clients,
+					  boolean defaultHTTP2) {
+		this.connectionPool = connectionPool;
+		this.tlsContexts = tlsContexts;
+		this.http2Clients = http2Clients;
+		this.defaultHTTP2 = defaultHTTP2;
 	}
 
 	@Override
 	protected Request createRequest(MessageContext msgContext, String methodName, URL url,
 									AxisRequestEntity requestEntity) throws AxisFault {
-		log.debug("Setup request context for connection to {}", url.toString());
+		log.debug("Setup request context for connection to {}", url);
 		HttpClientContext	clientCtx = HttpClientContext.create();
+		TLSConfiguration	tlsConfiguration = null;
+		boolean				useHTTP2 = defaultHTTP2;
 
 		log.trace("Check if a message unit is being sent");
 		MessageProcessingContext procCtx = MessageProcessingContext.getFromMessageContext(msgContext);
@@ -103,93 +105,54 @@ class HTTPSender extends org.apache.axis2.transport.http.HTTPSender {
 	    		log.debug("Set read timeout to {} ms", to);
 	    		msgContext.setProperty(HTTPConstants.SO_TIMEOUT, to);
         	}
+    		// The pool only changes the route's maximum when this is the first or a higher maximum for the route
+    		Integer maxConnections = protocolCfg.getMaxConnections();
+    		if (maxConnections != null)
+    			connectionPool.setMaxPerRoute(url, maxConnections);
+    		to = protocolCfg.getKeepAliveTimeout();
+    		if (to != null) {
+    			log.debug("Set keep-alive timeout to {} ms", to);
+    			clientCtx.setAttribute(ConnectionPool.KEEP_ALIVE_TIMEOUT, to);
+    		}
 
     		if (url.getProtocol().equalsIgnoreCase("https") && protocolCfg.getTLSConfiguration() != null) {
     			log.trace("Prepare custom TLS configuration");
-    			TLSConfiguration tlsConfiguration = new TLSConfiguration(protocolCfg.getTLSConfiguration());
-    			// Set the TLS configuration as User Token so the connection manager will only select connections
-    			// to the server that use this configuration
-    			clientCtx.setUserToken(tlsConfiguration);
-
-    			String[] allowedProtocols = tlsConfiguration.getAllowedProtocols();
-    			if (allowedProtocols != null && allowedProtocols.length > 0)
-    				log.debug("Set allowed protocols to : {}", Arrays.toString(allowedProtocols));
-    			else
-    				// Use default of TLS 1.2 or 1.3
-    				allowedProtocols = new String[] { "TLSv1.2", "TLSv1.3" };
-
-    			final String[] allowedCipherSuites = tlsConfiguration.getAllowedCipherSuites();
-    			if (allowedCipherSuites != null && allowedCipherSuites.length > 0)
-	    			log.debug("Set allowed cipher suites to : {}", Arrays.toString(allowedCipherSuites));
-
-    			// Create and set the socket factory registry so the connection manager will use the correct TLS
-    			// settings when it needs to create connections for this request
-    			clientCtx.setAttribute(SOCKET_FACTORY_REGISTRY,
-    				RegistryBuilder.<ConnectionSocketFactory>create()
-							.register("http", PlainConnectionSocketFactory.getSocketFactory())
-							.register("https", new SSLConnectionSocketFactory(createSSLContext(tlsConfiguration),
-																			allowedProtocols,
-																			allowedCipherSuites,
-																			(HostnameVerifier) null))
-							.build());
+    			tlsConfiguration = new TLSConfiguration(protocolCfg.getTLSConfiguration());
     		}
+    		if (protocolCfg.useHTTP2() != null)
+    			useHTTP2 = protocolCfg.useHTTP2();
         }
 
-		RequestImpl request = new RequestImpl(HttpClientBuilder.create().setConnectionManager(connectionManager)
-				  										 .setConnectionManagerShared(true)
-				  										 .build(),
-				  							msgContext, methodName, url, requestEntity, clientCtx);
+		final boolean async = msgContext.isPropertyTrue(HTTPTransportSender.MC_ASYNC_SEND);
+		Request request;
+		if (useHTTP2 || async) {
+			log.debug("Use {} for {}request", useHTTP2 ? "HTTP/2" : "HTTP/1.1", async ? "asynchronous " : "");
+			request = tlsConfiguration == null ?
+						new HTTP2RequestImpl(http2Clients, null, null, null, msgContext, methodName, url, requestEntity,
+											 useHTTP2, async)
+					  : new HTTP2RequestImpl(http2Clients, tlsContexts.getSSLContext(tlsConfiguration),
+							  				 tlsConfiguration.getAllowedProtocols(),
+							  				 tlsConfiguration.getAllowedCipherSuites(),
+							  				 msgContext, methodName, url, requestEntity, useHTTP2, async);
+		} else {
+			if (tlsConfiguration != null) {
+				// Set the TLS configuration as User Token so the connection manager will only select connections
+				// to the server that use this configuration
+				clientCtx.setUserToken(tlsConfiguration);
+				// Set the socket factory registry so the connection manager will use the correct TLS settings when it
+				// needs to create connections for this request
+				clientCtx.setAttribute(SOCKET_FACTORY_REGISTRY, tlsContexts.getSocketFactoryRegistry(tlsConfiguration));
+			}
+			// As the client is shared, use a separate cookie store so no cookies are shared between requests
+			clientCtx.setCookieStore(new BasicCookieStore());
+
+			request = new RequestImpl(connectionPool.getHttpClient(), msgContext, methodName, url, requestEntity,
+									  clientCtx);
+		}
 
 		// Store the request in the operation context so we can close connection properly when operation finishes
 		msgContext.getOperationContext().setProperty(HTTPTransportSender.MC_HTTP_REQUEST, request);
 
 		return request;
 	}
-
-	/**
-	 * Creates a customised SSLContext based on the TLS configuration provided in the P-Mode of the [primary] Message
-	 * Unit that is being sent.
-	 *
-	 * @param tlsConfiguration  the custom TLS settings for this request
-	 * @return the customised SSLContext
-	 * @throws AxisFault if an error occurs loading the key pair to be used for TLS client authentication from the
-	 * 					 installed Certificate Manager.
-	 */
-	private SSLContext createSSLContext(TLSConfiguration tlsConfiguration) throws AxisFault {
-		KeyManager[] kms = null;
-		String clientCertAlias = tlsConfiguration.getClientCertificateAlias();
-		if (!Utils.isNullOrEmpty(clientCertAlias)) {
-			try {
-				log.trace("Create custom KeyManager to use client certificate (alias={})", clientCertAlias);
-				final String pwd = tlsConfiguration.getClientCertificatePassword();
-				PrivateKeyEntry clientCert = HolodeckB2BCoreInterface.getCertificateManager().getKeyPair(clientCertAlias,
-																pwd);
-				KeyStore ks = KeyStore.getInstance(KeyStore.getDefaultType());
-				ks.load(null, null);
-				ks.setEntry(clientCertAlias, clientCert, new KeyStore.PasswordProtection(pwd.toCharArray()));
-				final KeyManagerFactory kmfactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
-		        kmfactory.init(ks, pwd.toCharArray());
-		        kms = kmfactory.getKeyManagers();
-		        if (log.isDebugEnabled())
-		        	log.debug("Using TLS client certificate (CN={},issuer={}))",
-			        			CertificateUtils.getSubjectCN((X509Certificate) clientCert.getCertificate()),
-			        			CertificateUtils.getIssuerCN((X509Certificate) clientCert.getCertificate()));
-			} catch (Exception clientCertError) {
-				log.error("Could not load TLS client certificate ({}): {}", clientCertAlias,
-							Utils.getExceptionTrace(clientCertError));
-				throw new AxisFault("Could not load TLS client certificate", clientCertError);
-			}
-		}
-
-		SSLContext sslContext;
-		try {
-			log.trace("Create custom SSLContext");
-			sslContext = SSLContext.getInstance("TLS", BouncyCastleJsseProvider.PROVIDER_NAME);
-			sslContext.init(kms, new TrustManager[] {new TLSCertificateTrustManager(tlsConfiguration)}, null);
-			return sslContext;
-		} catch (NoSuchAlgorithmException | NoSuchProviderException | KeyManagementException e) {
-			log.error("Could not create SSLContext: {}", Utils.getExceptionTrace(e));
-			throw new AxisFault("Could not create SSLContext", e);
-		}
-	}
 }
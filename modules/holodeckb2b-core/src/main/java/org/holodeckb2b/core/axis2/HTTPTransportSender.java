@@ -16,12 +16,16 @@
  */
 package org.holodeckb2b.core.axis2;
 
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.Security;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
@@ -34,19 +38,19 @@ import org.apache.axis2.Constants;
 import org.apache.axis2.client.Options;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.Handler;
 import org.apache.axis2.kernel.http.HTTPConstants;
 import org.apache.axis2.transport.http.HTTPSender;
 import org.apache.axis2.transport.http.Request;
 import org.apache.axis2.transport.http.impl.httpclient4.HTTPClient4TransportSender;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -82,6 +86,20 @@ import org.holodeckb2b.interfaces.security.trust.ICertificateManager;
  * 		workers</i> as configured in <code>workers.xml</code>. The default value is 10, which should be fine for
  * 		smaller gateways that have just one sender worker and a limited number of receivers. The maximum should be set
  * 		higher for larger gateways with more senders and receivers.</li>
+ * <li>MAX_CONNECTIONS_PER_ROUTE : The maximum number of connections that can be open to one destination. By default
+ * 		this is the same as the total maximum. Setting it lower ensures that a destination receiving many messages cannot
+ * 		take all connections. The maximum for a specific destination can be set in the P-Mode or using the <i>ROUTES</i>
+ * 		parameter.</li>
+ * <li>ROUTES : should contain one or more <code>Route</code> elements that set the maximum number of connections for
+ * 		specific destinations. The <code>url</code> attribute of the element contains the URL of the destination (only
+ * 		the scheme, host and port are used) and the <code>maxConnections</code> attribute the maximum number of
+ * 		connections. When different maximums are specified for the same destination, here and/or in P-Modes, the
+ * 		highest one is used.</li>
+ * <li>KEEP_ALIVE_TIMEOUT : The maximum time in milliseconds a connection is kept open for reuse after a request has
+ * 		completed. When the other server indicates a shorter time, that time is used. If not set the time indicated by
+ * 		the other server is used. The P-Mode can specify a different timeout for a destination.</li>
+ * <li>IDLE_CONNECTION_TIMEOUT : The time in milliseconds after which an unused connection is closed. If not set the
+ * 		default value is 60000 (= 1 minute).</li>
  * <li>allowedECGroups : Can be used to specify the list of elliptic curve groups that are allowed to be used in the
  * 		TLS handshake. This is a generic setting that applies to all HTTPS connections. The value must be a comma
  * 		separated list of group names, in order of preference.</li>
@@ -90,6 +108,22 @@ import org.holodeckb2b.interfaces.security.trust.ICertificateManager;
  * 		<code>password</code> attribute of these elements can contain the literal (= clear text) password or reference
  * 		to a Java System Property or Environment Variable. In the latter cases the name of the property or environment
  * 		variable should be prefixed with <i>sys:</i> respectively <i>env:</i>.</li>
+ * <li>HTTP2 : Indicates whether HTTP/2 should be used by default to send messages. When HTTP/2 is used, concurrent
+ * 		requests to the same server are multiplexed over one connection instead of using a connection from the pool for
+ * 		each request. When the other server does not support HTTP/2, HTTP/1.1 is used. Set to "true" to enable, by
+ * 		default HTTP/2 is not used. The P-Mode can specify whether HTTP/2 should be used for a specific destination.
+ * 		<br/>NOTE: Proxies and authentication schemes other than Basic are not supported when HTTP/2 is used.</li>
+ * <li>TLS_CONTEXT_MAX_AGE : The time in seconds after which the client certificate of a cached custom TLS
+ * 		configuration is checked again for changes. The TLS settings from the P-Modes are cached so TLS sessions and
+ * 		connections can be reused. If not set the default value is 300 (= 5 minutes).</li>
+ * <li>CIRCUIT_BREAKER_THRESHOLD : The number of consecutive sends to a destination that must fail because of a
+ * 		transport problem before sending to the destination is suspended. Messages to the destination are then deferred
+ * 		without being packaged until a probe message succeeds (see {@link EndpointCircuitBreaker}). If not set the
+ * 		default value is 5. Set to 0 to always send messages.</li>
+ * <li>CIRCUIT_BREAKER_OPEN_TIME : The time in seconds sending to a destination is suspended the first time. Each time
+ * 		the probe message fails the time is doubled. If not set the default value is 30.</li>
+ * <li>CIRCUIT_BREAKER_MAX_OPEN_TIME : The maximum time in seconds sending to a destination is suspended. If not set
+ * 		the default value is 900 (= 15 minutes).</li>
  * </ul>
  * If the sender is invoked to send a message unit to another MSH, it will use the P-Mode governing the exchange of the
  * [primary] message unit to configure the HTTP(S) connection. The P-Mode can override the default settings specified in
@@ -115,6 +149,24 @@ public class HTTPTransportSender extends HTTPClient4TransportSender {
 	 * when the message is sent.
 	 */
 	protected static final String MC_HTTP_REQUEST = "hb2b::httpRequest";
+	/**
+	 * Name of the message context property that indicates that the message should be sent asynchronously. When set
+	 * to <code>true</code> the sender only starts the HTTP exchange and returns without waiting for the response. As
+	 * the handlers in the <i>out flow</i> should only be notified of the completion of the flow when the response is
+	 * received, the sender removes them from the list of executed handlers and stores them in the {@link
+	 * #MC_DEFERRED_HANDLERS} property.
+	 *
+	 * @since 8.2.0
+	 */
+	public static final String MC_ASYNC_SEND = "hb2b::asyncSend";
+	/**
+	 * Name of the message context property that contains the list of executed handlers that must be notified of the
+	 * completion of the flow when the response to an asynchronous request is received. The handlers are in the order
+	 * in which they should be notified.
+	 *
+	 * @since 8.2.0
+	 */
+	static final String MC_DEFERRED_HANDLERS = "hb2b::deferredHandlers";
 
 	private static final char[] EMPTY_PWD = new char[] {};
 
@@ -135,7 +187,27 @@ public class HTTPTransportSender extends HTTPClient4TransportSender {
 	 */
 	private boolean defaultChunked;
 
-	private HttpClientConnectionManager connectionManager;
+	/**
+	 * The pool of connections used to execute all requests
+	 */
+	private ConnectionPool connectionPool;
+	/**
+	 * The cache of socket factories for the custom TLS configurations specified in the P-Modes
+	 */
+	private TLSContextCache tlsContexts;
+	/**
+	 * The clients used to execute requests using HTTP/2
+	 */
+	private HTTP2Clients http2Clients;
+	/**
+	 * Indicates if HTTP/2 should be used by default. When a message unit is sent, the P-Mode can override the default
+	 * setting.
+	 */
+	private boolean defaultHTTP2;
+	/**
+	 * Keeps track of the destinations to which messages should be deferred
+	 */
+	private EndpointCircuitBreaker circuitBreaker;
 
 	@Override
 	public void init(ConfigurationContext confContext, TransportOutDescription transportOut) throws AxisFault {
@@ -181,19 +253,61 @@ public class HTTPTransportSender extends HTTPClient4TransportSender {
 											.register("https", new SSLConnectionSocketFactory(sslContext,
 																	new String[] {"TLSv1.2", "TLSv1.3"}, null, null))
 											.build();
-		PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+		int maxConn = getIntParameter(transportOut, "MAX_CONNECTIONS", 10);
+		int maxPerRoute = getIntParameter(transportOut, "MAX_CONNECTIONS_PER_ROUTE", maxConn);
+		long keepAlive = getIntParameter(transportOut, "KEEP_ALIVE_TIMEOUT", -1);
+		long idleTimeout = getIntParameter(transportOut, "IDLE_CONNECTION_TIMEOUT",
+										   (int) ConnectionPool.DEFAULT_IDLE_TIMEOUT);
+		log.debug("Maximum number of connections set to : {} (per route : {})", maxConn, maxPerRoute);
+		connectionPool = new ConnectionPool(socketFactoryRegistry, maxConn, maxPerRoute, keepAlive, idleTimeout);
 
-		Parameter maxTotal = transportOut.getParameter("MAX_CONNECTIONS");
-		if (maxTotal != null && maxTotal.getParameterType() == Parameter.TEXT_PARAMETER) {
-			int maxConn = Integer.parseInt((String) maxTotal.getValue());
-			connManager.setMaxTotal(maxConn);
-			connManager.setDefaultMaxPerRoute(maxConn);
-		} else {
-			connManager.setMaxTotal(10);
-			connManager.setDefaultMaxPerRoute(10);
+		Parameter routes = transportOut.getParameter("ROUTES");
+		if (routes != null && routes.getParameterType() == Parameter.OM_PARAMETER) {
+			for(Iterator<OMElement> routeElems = routes.getParameterElement().getChildrenWithLocalName("Route");
+				routeElems.hasNext();) {
+				OMElement routeElem = routeElems.next();
+				String url = routeElem.getAttributeValue(new QName("url"));
+				String max = routeElem.getAttributeValue(new QName("maxConnections"));
+				try {
+					connectionPool.setMaxPerRoute(new URL(url), Integer.parseInt(max != null ? max.trim() : null));
+				} catch (MalformedURLException | NumberFormatException invalidRoute) {
+					log.warn("Ignoring invalid route configuration (url={}, maxConnections={})", url, max);
+				}
+			}
 		}
-		log.debug("Maximum number of connections set to : {}", connManager.getMaxTotal());
-		connectionManager = connManager;
+
+		long tlsMaxAge = getIntParameter(transportOut, "TLS_CONTEXT_MAX_AGE",
+										 (int) (TLSContextCache.DEFAULT_MAX_AGE / 1000)) * 1000L;
+		log.debug("Client certificate of cached TLS configurations is checked every {} seconds", tlsMaxAge / 1000);
+		tlsContexts = new TLSContextCache(tlsMaxAge);
+
+		Parameter http2 = transportOut.getParameter("HTTP2");
+		defaultHTTP2 = http2 != null && "true".equalsIgnoreCase(((String) http2.getValue()).trim());
+		log.debug("HTTP/2 is {} by default", defaultHTTP2 ? "enabled" : "disabled");
+		http2Clients = new HTTP2Clients(sslContext);
+
+		int cbThreshold = getIntParameter(transportOut, "CIRCUIT_BREAKER_THRESHOLD",
+										  EndpointCircuitBreaker.DEFAULT_THRESHOLD);
+		long cbOpenTime = getIntParameter(transportOut, "CIRCUIT_BREAKER_OPEN_TIME",
+										  (int) (EndpointCircuitBreaker.DEFAULT_OPEN_TIME / 1000)) * 1000L;
+		long cbMaxOpenTime = getIntParameter(transportOut, "CIRCUIT_BREAKER_MAX_OPEN_TIME",
+											 (int) (EndpointCircuitBreaker.DEFAULT_MAX_OPEN_TIME / 1000)) * 1000L;
+		if (cbThreshold > 0)
+			log.debug("Defer messages to a destination after {} consecutive failures for {} up to {} seconds",
+					  cbThreshold, cbOpenTime / 1000, cbMaxOpenTime / 1000);
+		else
+			log.debug("Messages to unavailable destinations are not deferred");
+		circuitBreaker = new EndpointCircuitBreaker(cbThreshold, cbOpenTime, cbMaxOpenTime);
+	}
+
+	/**
+	 * Gets the circuit breaker that keeps track of the availability of the destinations.
+	 *
+	 * @return	the circuit breaker used by this sender
+	 * @since 8.2.0
+	 */
+	public EndpointCircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
 	}
 
 	@Override
@@ -237,12 +351,39 @@ public class HTTPTransportSender extends HTTPClient4TransportSender {
 	        options.setProperty(Constants.Configuration.ENABLE_SWA, hasAttachments);
 		}
 
-		return super.invoke(msgContext);
+		// When the package of the message is cached, the cache entry writes the message
+		final Object cachedPackage = msgContext.getProperty(MessagePackageCache.MC_CACHE_ENTRY);
+		if (cachedPackage instanceof MessagePackageCache.Entry)
+			((MessagePackageCache.Entry) cachedPackage).install(msgContext);
+
+		final InvocationResponse result = super.invoke(msgContext);
+
+		final OperationContext opContext = msgContext.getOperationContext();
+		final Object request = opContext != null ? opContext.getProperty(MC_HTTP_REQUEST) : null;
+		if (request instanceof HTTP2RequestImpl && ((HTTP2RequestImpl) request).getResponseReceived() != null) {
+			log.debug("Defer completion of the out flow until the response is received");
+			final List<Handler> executed = new ArrayList<>();
+			msgContext.getExecutedPhases().forEachRemaining(executed::add);
+			msgContext.resetExecutedPhases();
+			msgContext.setProperty(MC_DEFERRED_HANDLERS, executed);
+		}
+		return result;
 	}
 
 	@Override
 	protected HTTPSender createHTTPSender() {
-		return new org.holodeckb2b.core.axis2.HTTPSender(connectionManager);
+		return new org.holodeckb2b.core.axis2.HTTPSender(connectionPool, tlsContexts, http2Clients, defaultHTTP2);
+	}
+
+	@Override
+	public void stop() {
+		if (tlsContexts != null)
+			tlsContexts.clear();
+		if (connectionPool != null)
+			connectionPool.shutdown();
+		if (http2Clients != null)
+			http2Clients.shutdown();
+		super.stop();
 	}
 
 	@Override
@@ -257,6 +398,26 @@ public class HTTPTransportSender extends HTTPClient4TransportSender {
 		msgContext.removeProperty(HTTPConstants.HTTP_METHOD);
 	}
 
+	/**
+	 * Gets the value of an integer parameter of the transport sender configuration.
+	 *
+	 * @param transportConfig 	transport sender configuration as provided in the Holodeck B2B config file
+	 * @param name				name of the parameter
+	 * @param defaultValue		value to use when the parameter is not set or has an invalid value
+	 * @return	the value of the parameter
+	 */
+	private static int getIntParameter(TransportOutDescription transportConfig, String name, int defaultValue) {
+		Parameter p = transportConfig.getParameter(name);
+		if (p == null || p.getParameterType() != Parameter.TEXT_PARAMETER)
+			return defaultValue;
+		try {
+			return Integer.parseInt(((String) p.getValue()).trim());
+		} catch (NumberFormatException invalidValue) {
+			log.warn("Invalid value for {} parameter ({}), using default : {}", name, p.getValue(), defaultValue);
+			return defaultValue;
+		}
+	}
+
 	/**
 	 * Creates a default SSLContext that will be used to create TLS connections if no specific TLS configuration is
 	 * provided in the P-Mode or this transport sender is invoked to send something in another context (e.g. to the
@@ -19,6 +19,9 @@ package org.holodeckb2b.core.axis2;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 
 import org.apache.axis2.AxisFault;
@@ -29,6 +32,7 @@ import org.apache.axis2.builder.BuilderUtil;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.TransportInDescription;
 import org.apache.axis2.dispatchers.RequestURIBasedDispatcher;
 import org.apache.axis2.engine.AxisEngine;
@@ -44,6 +48,7 @@ import org.apache.axis2.transport.http.server.Worker;
 import org.apache.axis2.transport.http.util.RESTUtil;
 import org.apache.commons.fileupload.util.Streams;
 import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.http.MethodNotSupportedException;
 import org.apache.http.protocol.HTTP;
@@ -52,7 +57,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.axis2.RequestParameters;
 import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.core.HolodeckB2BCore;
 import org.holodeckb2b.core.MessageProcessingContext;
+import org.holodeckb2b.core.metrics.ProcessingMetrics;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.core.IURLRequestParameters;
 
@@ -86,10 +93,41 @@ public class HTTPWorker implements Worker {
 			"	</body>\n" +
 			"</html>";
 
+	/**
+	 * Name of the parameter to set the maximum size in bytes of an attachment of a received message that is kept in
+	 * memory, larger attachments are temporarily stored on disk
+	 */
+	static final String PARAMETER_ATTACHMENT_THRESHOLD = "attachmentMemoryThreshold";
+	/**
+	 * Name of the parameter to set the directory where the attachments exceeding the memory threshold are stored
+	 */
+	static final String PARAMETER_ATTACHMENT_DIR = "attachmentTempDir";
+	/**
+	 * Name of the sub directory of the temp directory used when no directory for attachments is configured
+	 */
+	static final String ATTACHMENT_DIR = "attachments";
+
 	/**
 	 * The configuration of the http transport as specified in the Holodeck B2B configuration file
 	 */
 	private TransportInDescription	httpConfiguration;
+	/**
+	 * The admission control applied to the requests, <code>null</code> if no admission control is applied
+	 */
+	private AdmissionController		admissionControl;
+	/**
+	 * The queue for requests that are accepted for later processing, <code>null</code> if requests are always
+	 * processed directly
+	 */
+	private InboundQueue			inboundQueue;
+	/**
+	 * The maximum size of an attachment kept in memory, <code>null</code> if the global Axis2 setting applies
+	 */
+	private String					attachmentThreshold;
+	/**
+	 * The directory where attachments exceeding the memory threshold are stored
+	 */
+	private String					attachmentDirectory;
 
 	/**
 	 * Creates a new worker that uses the given http transport configuration.
@@ -97,7 +135,58 @@ public class HTTPWorker implements Worker {
 	 * @param httpConfiguration		the http configuration
 	 */
 	public HTTPWorker(TransportInDescription httpConfiguration) {
+		this(httpConfiguration, null);
+	}
+
+	/**
+	 * Creates a new worker that uses the given http transport configuration and admission control.
+	 *
+	 * @param httpConfiguration		the http configuration
+	 * @param admissionControl		the admission control to apply, <code>null</code> if none should be applied
+	 * @since 8.2.0
+	 */
+	HTTPWorker(TransportInDescription httpConfiguration, AdmissionController admissionControl) {
+		this(httpConfiguration, admissionControl, null);
+	}
+
+	/**
+	 * Creates a new worker that uses the given http transport configuration, admission control and queue for deferred
+	 * processing.
+	 *
+	 * @param httpConfiguration		the http configuration
+	 * @param admissionControl		the admission control to apply, <code>null</code> if none should be applied
+	 * @param inboundQueue			the queue for requests accepted for later processing, <code>null</code> if all
+	 * 								requests are processed directly
+	 * @since 8.2.0
+	 */
+	HTTPWorker(TransportInDescription httpConfiguration, AdmissionController admissionControl,
+			   InboundQueue inboundQueue) {
 		this.httpConfiguration = httpConfiguration;
+		this.admissionControl = admissionControl;
+		this.inboundQueue = inboundQueue;
+		configureAttachmentCaching();
+	}
+
+	/**
+	 * Reads the listener specific settings for caching attachments of received messages. When the memory threshold is
+	 * configured these settings take precedence over the global Axis2 parameters.
+	 */
+	private void configureAttachmentCaching() {
+		final Parameter threshold = httpConfiguration.getParameter(PARAMETER_ATTACHMENT_THRESHOLD);
+		if (threshold == null || Utils.isNullOrEmpty((String) threshold.getValue()))
+			return;
+		final Parameter dir = httpConfiguration.getParameter(PARAMETER_ATTACHMENT_DIR);
+		try {
+			final Path attDir = dir != null && !Utils.isNullOrEmpty((String) dir.getValue())
+								? Paths.get(((String) dir.getValue()).trim())
+								: HolodeckB2BCore.getConfiguration().getTempDirectory().resolve(ATTACHMENT_DIR);
+			Files.createDirectories(attDir);
+			attachmentThreshold = Long.toString(Long.parseLong(((String) threshold.getValue()).trim()));
+			attachmentDirectory = attDir.toString();
+		} catch (IOException | NumberFormatException invalidConfig) {
+			log.error("Invalid configuration for caching attachments on listener {}, using global setting: {}",
+					  httpConfiguration.getName(), invalidConfig.getMessage());
+		}
 	}
 
 	@Override
@@ -105,6 +194,52 @@ public class HTTPWorker implements Worker {
             final AxisHttpRequest request,
             final AxisHttpResponse response,
             final MessageContext msgContext) throws HttpException, IOException {
+		if (admissionControl == null) {
+			handleAndRecord(request, response, msgContext);
+			return;
+		}
+		// Admission is checked before the entity body is read, so rejected requests don't use resources
+		final String source = (String) msgContext.getProperty(MessageContext.REMOTE_ADDR);
+		final AdmissionController.Permit permit = admissionControl.admit(source != null ? source : "");
+		if (permit == null) {
+			log.debug("Rejecting request from {} because of overload", source);
+			response.setStatus(HttpStatus.SC_SERVICE_UNAVAILABLE);
+			response.addHeader(HttpHeaders.RETRY_AFTER, Integer.toString(admissionControl.getRetryAfter()));
+			response.addHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+			// Send the response now, as otherwise it is only sent after the request entity body has been read
+			response.getOutputStream().close();
+			return;
+		}
+		try {
+			handleAndRecord(request, response, msgContext);
+		} finally {
+			permit.release();
+		}
+	}
+
+	/**
+	 * Handles the request and records the time from the receipt of the request until the response has been written in
+	 * the {@link ProcessingMetrics} of the received message units.
+	 */
+	private void handleAndRecord(final AxisHttpRequest request, final AxisHttpResponse response,
+								 final MessageContext msgContext) throws HttpException, IOException {
+		final long received = System.nanoTime();
+		boolean failed = true;
+		try {
+			handle(request, response, msgContext);
+			failed = false;
+		} finally {
+			if (msgContext.getAxisService() != null)
+				ProcessingMetrics.recordExchange(MessageProcessingContext.getFromMessageContext(msgContext),
+												 System.nanoTime() - received, failed);
+		}
+	}
+
+	/**
+	 * Handles the request.
+	 */
+	private void handle(final AxisHttpRequest request, final AxisHttpResponse response,
+						final MessageContext msgContext) throws HttpException, IOException {
 
 		ConfigurationContext configurationContext = msgContext.getConfigurationContext();
         final String servicePath = configurationContext.getServiceContextPath();
@@ -152,7 +287,7 @@ public class HTTPWorker implements Worker {
             }
         }
 
-        log.trace("Find Service for request URL: " + url);
+        log.trace("Find Service for request URL: {}", url);
 		try {
 			RequestURIBasedDispatcher requestDispatcher = new RequestURIBasedDispatcher();
 			requestDispatcher.invoke(msgContext);
@@ -182,8 +317,8 @@ public class HTTPWorker implements Worker {
 
 				final Builder msgBuilder = Axis2Utils.getBuilderFromService(axisService);
 				if (msgBuilder != null) {
-					log.debug("Using " + msgBuilder.getClass().getSimpleName()
-																		+ " Builder to prepare messaging processing");
+					log.debug("Using {} Builder to prepare messaging processing",
+                              msgBuilder.getClass().getSimpleName());
 					InputStream is;
 					try {
 						log.trace("Handle possible HTTP GZip transfer-encoding");
@@ -211,13 +346,25 @@ public class HTTPWorker implements Worker {
 		            	log.debug("Using SOAP message builder");
 		            	final String ip = (String)msgContext.getProperty(MessageContext.TRANSPORT_ADDR);
 		                final String requestURL = (!Utils.isNullOrEmpty(ip) ? ip : "") + url;
-		                pi = HTTPTransportUtils.processHTTPPostRequest(
-		                        msgContext,
-		                        request.getInputStream(),
-		                        response.getOutputStream(),
-		                        contentType,
-		                        soapAction,
-		                        requestURL);
+		                // Enable the message processing to defer the processing of the request
+		                final InboundQueue.Spool spool = inboundQueue != null ?
+		                										inboundQueue.newSpool(request, msgContext) : null;
+		                if (spool != null)
+		                	msgContext.setProperty(InboundQueue.MC_SPOOL, spool);
+		                try {
+			                pi = HTTPTransportUtils.processHTTPPostRequest(
+			                        msgContext,
+			                        spool != null ? spool.getInputStream() : request.getInputStream(),
+			                        response.getOutputStream(),
+			                        contentType,
+			                        soapAction,
+			                        requestURL);
+		                } finally {
+		                	if (spool != null)
+		                		spool.discard();
+		                }
+		                if (spool != null && spool.isDeferred())
+		                	log.debug("Request accepted for later processing");
 		            }
 				}
 			} else {
@@ -301,6 +448,11 @@ public class HTTPWorker implements Worker {
             charSetEnc = MessageContext.DEFAULT_CHAR_SET_ENCODING;
         msgContext.setProperty(Constants.Configuration.CHARACTER_SET_ENCODING, charSetEnc);
         msgContext.setProperty(MessageContext.TRANSPORT_OUT, response.getOutputStream());
+        if (attachmentThreshold != null) {
+        	msgContext.setProperty(Constants.Configuration.CACHE_ATTACHMENTS, Constants.VALUE_TRUE);
+        	msgContext.setProperty(Constants.Configuration.FILE_SIZE_THRESHOLD, attachmentThreshold);
+        	msgContext.setProperty(Constants.Configuration.ATTACHMENT_TEMP_DIR, attachmentDirectory);
+        }
         MessageProcessingContext.getFromMessageContext(msgContext);
 	}
 
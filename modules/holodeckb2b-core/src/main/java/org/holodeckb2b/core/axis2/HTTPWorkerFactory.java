@@ -29,14 +29,52 @@ import org.apache.axis2.transport.http.server.WorkerFactory;
  */
 public class HTTPWorkerFactory implements WorkerFactory {
 	private TransportInDescription	httpConfiguration;
+	/**
+	 * The admission control shared by the workers, <code>null</code> if no admission control is applied
+	 */
+	private AdmissionController		admissionControl;
+	/**
+	 * The queue for requests accepted for later processing, <code>null</code> if deferred processing is not enabled
+	 */
+	private InboundQueue			inboundQueue;
 	
 	public HTTPWorkerFactory(TransportInDescription transprtIn) {
-		this.httpConfiguration = transprtIn;			
+		this(transprtIn, AdmissionController.fromConfiguration(transprtIn));
+	}
+
+	/**
+	 * Creates a factory for workers that use the given admission control.
+	 *
+	 * @param transprtIn		the http configuration
+	 * @param admissionControl	the admission control to apply, <code>null</code> if none should be applied
+	 * @since 8.2.0
+	 */
+	HTTPWorkerFactory(TransportInDescription transprtIn, AdmissionController admissionControl) {
+		this.httpConfiguration = transprtIn;
+		this.admissionControl = admissionControl;
+		this.inboundQueue = InboundQueue.fromConfiguration(transprtIn);
 	}
 
 	@Override
 	public Worker newWorker() {
-		return new HTTPWorker(httpConfiguration);
+		return new HTTPWorker(httpConfiguration, admissionControl, inboundQueue);
+	}
+
+	/**
+	 * @return the admission control applied by the workers, <code>null</code> if none is applied
+	 * @since 8.2.0
+	 */
+	AdmissionController getAdmissionControl() {
+		return admissionControl;
+	}
+
+	/**
+	 * @return the queue for requests accepted for later processing, <code>null</code> if deferred processing is not
+	 * 		   enabled
+	 * @since 8.2.0
+	 */
+	InboundQueue getInboundQueue() {
+		return inboundQueue;
 	}
 
 }
@@ -0,0 +1,721 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.kernel.OutTransportInfo;
+import org.apache.axis2.transport.http.server.AxisHttpRequest;
+import org.apache.axis2.transport.http.server.AxisHttpResponse;
+import org.apache.axis2.transport.http.server.Worker;
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.message.AbstractHttpMessage;
+import org.apache.http.protocol.HTTP;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.core.workerpool.VirtualThreads;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+
+/**
+ * Is the durable queue of received HTTP requests that are accepted for later processing. It enables an "accept and
+ * acknowledge later" mode in which the raw request is persisted and immediately acknowledged with a <i>202 Accepted
+ * </i> response to the sender, after which the request is processed by a bounded pool of threads. This reduces the time
+ * the sender has to wait and smooths bursts of messages, but can only be used for messages that do not need a
+ * synchronous response. It is therefore up to the message processing to decide whether a request can be deferred,
+ * which it can do using the {@link Spool} that the {@link HTTPWorker} registers in the message context under the
+ * {@link #MC_SPOOL} key when the queue is enabled.
+ * <p>Each queued request is stored as two files in the <code>inbound-queue</code> directory of the temp directory: the
+ * entity body and the request meta-data, i.e. method, URI, addresses and headers. The body is written and synced to
+ * disk before the meta-data file is atomically created, so a request is only considered queued when both are complete.
+ * When the listener starts all requests still in the queue are processed again, so requests accepted before a crash or
+ * shutdown are not lost. Requests that fail processing are kept with a <i>.failed</i> extension for analysis.
+ * <p>The queue is enabled by setting the <code>deferredProcessing</code> parameter of the transport receiver to <i>
+ * true</i>. The number of processing threads can be set using the <code>deferredProcessingThreads</code> parameter
+ * (default 10) and the maximum number of pending requests using <code>deferredQueueSize</code> (default 1000). When
+ * the queue is full the request is processed synchronously.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public class InboundQueue {
+	private static final Logger log = LogManager.getLogger(InboundQueue.class);
+
+	static final String PARAMETER_ENABLED = "deferredProcessing";
+	static final String PARAMETER_THREADS = "deferredProcessingThreads";
+	static final String PARAMETER_CAPACITY = "deferredQueueSize";
+
+	/**
+	 * The name of the message context property that holds the {@link Spool} of the current request
+	 */
+	public static final String MC_SPOOL = "hb2b:inbound-spool";
+
+	/**
+	 * The name of the directory in the temp directory where the queued requests are stored
+	 */
+	static final String QUEUE_DIR = "inbound-queue";
+
+	private static final String BODY_EXT = ".body";
+	private static final String REQUEST_EXT = ".req";
+	private static final String FAILED_EXT = ".failed";
+	private static final String TEMP_EXT = ".tmp";
+
+	/**
+	 * The maximum number of bytes of the entity body kept in memory while it is spooled
+	 */
+	private static final int MEMORY_THRESHOLD = 64 * 1024;
+
+	private final Path		directory;
+	private final int		threads;
+	private final int		capacity;
+	/**
+	 * The worker that processes the queued requests
+	 */
+	private final Worker	worker;
+
+	private ConfigurationContext	configurationContext;
+	private TransportInDescription	transportIn;
+	/**
+	 * The executor of the processing threads, <code>null</code> when the queue is not started
+	 */
+	private volatile ExecutorService executor;
+	/**
+	 * Indicates that the queue is stopping and queued requests should not be processed anymore
+	 */
+	private volatile boolean		stopping;
+
+	/**
+	 * The number of requests queued or being processed
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicLong	sequence = new AtomicLong();
+
+	private final AtomicLong	accepted = new AtomicLong();
+	private final AtomicLong	recovered = new AtomicLong();
+	private final AtomicLong	processed = new AtomicLong();
+	private final AtomicLong	failed = new AtomicLong();
+	private final AtomicLong	full = new AtomicLong();
+
+	/**
+	 * Creates a new queue.
+	 *
+	 * @param directory	the directory where the queued requests are stored
+	 * @param threads	the number of threads processing the queued requests
+	 * @param capacity	the maximum number of pending requests
+	 * @param worker	the worker to process the queued requests with
+	 */
+	InboundQueue(Path directory, int threads, int capacity, Worker worker) {
+		this.directory = directory;
+		this.threads = threads;
+		this.capacity = capacity;
+		this.worker = worker;
+	}
+
+	/**
+	 * Creates the queue for the given transport configuration.
+	 *
+	 * @param transportIn	the configuration of the transport
+	 * @return	the queue, or <code>null</code> when deferred processing is not enabled
+	 */
+	static InboundQueue fromConfiguration(final TransportInDescription transportIn) {
+		final Parameter enabled = transportIn.getParameter(PARAMETER_ENABLED);
+		if (enabled == null || !Utils.isTrue((String) enabled.getValue()))
+			return null;
+		return new InboundQueue(HolodeckB2BCoreInterface.getConfiguration().getTempDirectory().resolve(QUEUE_DIR),
+								Math.max(1, getIntParam(transportIn, PARAMETER_THREADS, 10)),
+								Math.max(1, getIntParam(transportIn, PARAMETER_CAPACITY, 1000)),
+								new HTTPWorker(transportIn));
+	}
+
+	/**
+	 * Starts the processing of queued requests, including the ones that were still in the queue when the listener
+	 * stopped.
+	 *
+	 * @param configContext		the Axis2 configuration context
+	 * @param transportIn		the configuration of the transport
+	 * @throws IOException	when the queue directory cannot be read
+	 */
+	void start(final ConfigurationContext configContext, final TransportInDescription transportIn)
+																						throws IOException {
+		this.configurationContext = configContext;
+		this.transportIn = transportIn;
+		this.stopping = false;
+		Files.createDirectories(directory);
+
+		ThreadFactory threadFactory = VirtualThreads.newThreadFactory("hb2b-inbound-queue");
+		if (threadFactory == null) {
+			final AtomicInteger threadCount = new AtomicInteger();
+			threadFactory = r -> new Thread(r, "hb2b-inbound-queue-" + threadCount.incrementAndGet());
+		}
+		executor = Executors.newFixedThreadPool(threads, threadFactory);
+
+		final List<String> queued = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path f : files) {
+				final String name = f.getFileName().toString();
+				if (name.endsWith(REQUEST_EXT))
+					queued.add(name.substring(0, name.length() - REQUEST_EXT.length()));
+				else if (name.endsWith(TEMP_EXT))
+					Files.deleteIfExists(f);
+			}
+		}
+		// Remove bodies of requests of which the meta-data was not written completely
+		try (DirectoryStream<Path> bodies = Files.newDirectoryStream(directory, "*" + BODY_EXT)) {
+			for (Path b : bodies) {
+				final String name = b.getFileName().toString();
+				if (!queued.contains(name.substring(0, name.length() - BODY_EXT.length()))) {
+					log.debug("Removing incomplete queued request {}", name);
+					Files.deleteIfExists(b);
+				}
+			}
+		}
+		if (!queued.isEmpty()) {
+			log.info("Recovering {} requests from the inbound queue", queued.size());
+			// The identifiers start with the time of acceptance, so sorting restores the original order
+			Collections.sort(queued);
+			for (String id : queued) {
+				pending.incrementAndGet();
+				recovered.incrementAndGet();
+				executor.execute(() -> process(id));
+			}
+		}
+	}
+
+	/**
+	 * Stops the processing of queued requests. Requests being processed are completed, requests not yet processed
+	 * remain in the queue and are processed when the queue is started again.
+	 */
+	void stop() {
+		final ExecutorService current = executor;
+		if (current == null)
+			return;
+		stopping = true;
+		executor = null;
+		current.shutdown();
+		try {
+			if (!current.awaitTermination(30, TimeUnit.SECONDS))
+				log.warn("Not all queued requests were processed before stop");
+		} catch (InterruptedException interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		log.info("Inbound queue statistics: {}", getStatistics());
+	}
+
+	/**
+	 * Creates the spool for the given request which copies the entity body while it is read for processing so it can
+	 * be persisted when the request is deferred.
+	 *
+	 * @param request		the received request
+	 * @param msgContext	the message context of the request
+	 * @return	the spool for the request
+	 */
+	Spool newSpool(final AxisHttpRequest request, final MessageContext msgContext) {
+		return new Spool(request, msgContext);
+	}
+
+	/**
+	 * Gets the current statistics of the queue.
+	 *
+	 * @return	the statistics
+	 */
+	Statistics getStatistics() {
+		return new Statistics(this);
+	}
+
+	/**
+	 * @return	a new identifier for a queued request which sorts in order of acceptance
+	 */
+	private String nextId() {
+		return String.format("%013d-%06d", System.currentTimeMillis(), sequence.incrementAndGet() % 1000000);
+	}
+
+	/**
+	 * Reserves a place in the queue.
+	 *
+	 * @return	<code>true</code> if a place was reserved, <code>false</code> if the queue is full or not started
+	 */
+	private boolean reserve() {
+		if (executor == null)
+			return false;
+		if (pending.incrementAndGet() > capacity) {
+			pending.decrementAndGet();
+			full.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the meta-data of the request and makes it available for processing. When the queue is stopped after the
+	 * request was accepted, the request is left in the queue and processed when the queue is started again.
+	 */
+	private void enqueue(final String id, final AxisHttpRequest request, final MessageContext msgContext)
+																						throws IOException {
+		final Path temp = directory.resolve(id + REQUEST_EXT + TEMP_EXT);
+		try (FileOutputStream fos = new FileOutputStream(temp.toFile());
+			 BufferedWriter w = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8))) {
+			w.write(request.getMethod()); w.newLine();
+			w.write(request.getRequestURI()); w.newLine();
+			// A missing address is written as an empty line
+			w.write(Objects.toString(msgContext.getProperty(MessageContext.REMOTE_ADDR), ""));
+			w.newLine();
+			w.write(Objects.toString(msgContext.getProperty(MessageContext.TRANSPORT_ADDR), ""));
+			w.newLine();
+			for (Header h : request.getAllHeaders())
+				// The body is stored decoded, so the transfer encoding does not apply anymore
+				if (!HTTP.TRANSFER_ENCODING.equalsIgnoreCase(h.getName())) {
+					w.write(h.getName() + ": " + h.getValue()); w.newLine();
+				}
+			w.flush();
+			fos.getFD().sync();
+		}
+		Files.move(temp, directory.resolve(id + REQUEST_EXT), StandardCopyOption.ATOMIC_MOVE);
+		accepted.incrementAndGet();
+		final ExecutorService current = executor;
+		if (current != null)
+			try {
+				current.execute(() -> process(id));
+				return;
+			} catch (RejectedExecutionException stopped) {
+				// The queue was stopped after the executor was retrieved
+			}
+		log.info("Queue stopped, request {} will be processed after restart", id);
+		pending.decrementAndGet();
+	}
+
+	/**
+	 * Processes a queued request and removes it from the queue when done. If processing fails the files of the request
+	 * are renamed so they are not processed again.
+	 *
+	 * @param id	the identifier of the queued request
+	 */
+	private void process(final String id) {
+		final Path reqFile = directory.resolve(id + REQUEST_EXT);
+		final Path bodyFile = directory.resolve(id + BODY_EXT);
+		if (stopping) {
+			// Leave request in the queue to be processed after restart
+			pending.decrementAndGet();
+			return;
+		}
+		try {
+			log.debug("Processing queued request {}", id);
+			final ReplayRequest request = readRequest(id);
+			final ReplayResponse response = new ReplayResponse();
+			worker.service(request, response, createMessageContext(request, response));
+			if (response.status >= HttpStatus.SC_BAD_REQUEST)
+				throw new IOException("Processing resulted in HTTP status " + response.status);
+			Files.deleteIfExists(reqFile);
+			Files.deleteIfExists(bodyFile);
+			processed.incrementAndGet();
+			log.debug("Processed queued request {}", id);
+		} catch (Throwable processingError) {
+			failed.incrementAndGet();
+			log.error("Error in processing queued request {} : {}", id, Utils.getExceptionTrace(processingError));
+			try {
+				Files.move(reqFile, directory.resolve(id + REQUEST_EXT + FAILED_EXT),
+						   StandardCopyOption.REPLACE_EXISTING);
+				Files.move(bodyFile, directory.resolve(id + BODY_EXT + FAILED_EXT),
+						   StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException moveError) {
+				log.error("Could not mark queued request {} as failed : {}", id, moveError.getMessage());
+			}
+		} finally {
+			pending.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Reads the meta-data of a queued request.
+	 */
+	private ReplayRequest readRequest(final String id) throws IOException {
+		try (BufferedReader r = Files.newBufferedReader(directory.resolve(id + REQUEST_EXT), StandardCharsets.UTF_8)) {
+			final ReplayRequest request = new ReplayRequest(r.readLine(), r.readLine(), emptyToNull(r.readLine()),
+															emptyToNull(r.readLine()), directory.resolve(id + BODY_EXT));
+			String line;
+			while ((line = r.readLine()) != null) {
+				final int sep = line.indexOf(':');
+				if (sep > 0)
+					request.addHeader(line.substring(0, sep), line.substring(sep + 1).trim());
+			}
+			return request;
+		}
+	}
+
+	/**
+	 * Creates the message context for processing the queued request in the same way as it is done when the request
+	 * is received.
+	 */
+	private MessageContext createMessageContext(final ReplayRequest request, final ReplayResponse response)
+																								throws IOException {
+		final MessageContext msgContext = configurationContext.createMessageContext();
+		msgContext.setIncomingTransportName(transportIn.getName());
+		msgContext.setProperty(MessageContext.REMOTE_ADDR, request.remoteAddress);
+		msgContext.setProperty(MessageContext.TRANSPORT_ADDR, request.localAddress);
+		msgContext.setTransportIn(transportIn);
+		msgContext.setTransportOut(configurationContext.getAxisConfiguration().getTransportOut(
+																					Constants.TRANSPORT_HTTP));
+		msgContext.setServerSide(true);
+		msgContext.setProperty(Constants.Configuration.TRANSPORT_IN_URL, request.getRequestURI());
+		final Map<String, String> headers = new HashMap<>();
+		for (Header h : request.getAllHeaders())
+			headers.put(h.getName(), h.getValue());
+		msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, headers);
+		msgContext.setProperty(Constants.Configuration.CONTENT_TYPE, request.getContentType());
+		msgContext.setProperty(MessageContext.TRANSPORT_OUT, response.getOutputStream());
+		msgContext.setProperty(Constants.OUT_TRANSPORT_INFO, response);
+		msgContext.setTo(new EndpointReference(request.getRequestURI()));
+		return msgContext;
+	}
+
+	private static String emptyToNull(final String s) {
+		return Utils.isNullOrEmpty(s) ? null : s;
+	}
+
+	private static int getIntParam(final TransportInDescription transportIn, final String name, final int def) {
+		final Parameter p = transportIn.getParameter(name);
+		return p != null && p.getValue() != null ? Integer.parseInt(((String) p.getValue()).trim()) : def;
+	}
+
+	/**
+	 * Copies the entity body of a request while it is read for processing so the request can be persisted in the
+	 * queue if the message processing decides that it can be processed later. The first part of the body is kept in
+	 * memory, the remainder is written to the queue directory. As most requests will not be deferred copying stops as
+	 * soon as it is known the request will be processed synchronously.
+	 */
+	public class Spool {
+		private final AxisHttpRequest	request;
+		private final MessageContext	msgContext;
+		private final InputStream		source;
+		private ByteArrayOutputStream	memory = new ByteArrayOutputStream(8192);
+		private String					id;
+		private OutputStream			fileOut;
+		private boolean					copying = true;
+		private boolean					deferred;
+
+		private Spool(final AxisHttpRequest request, final MessageContext msgContext) {
+			this.request = request;
+			this.msgContext = msgContext;
+			this.source = new FilterInputStream(request.getInputStream()) {
+				private final byte[] single = new byte[1];
+
+				@Override
+				public int read() throws IOException {
+					final int b = super.read();
+					if (b >= 0) {
+						single[0] = (byte) b;
+						copy(single, 0, 1);
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					final int n = super.read(b, off, len);
+					if (n > 0)
+						copy(b, off, n);
+					return n;
+				}
+			};
+		}
+
+		/**
+		 * @return	the stream to read the entity body of the request from
+		 */
+		InputStream getInputStream() {
+			return source;
+		}
+
+		private void copy(final byte[] b, final int off, final int len) throws IOException {
+			if (!copying)
+				return;
+			if (fileOut == null && memory.size() + len > MEMORY_THRESHOLD) {
+				id = nextId();
+				fileOut = new FileOutputStream(directory.resolve(id + BODY_EXT).toFile());
+				memory.writeTo(fileOut);
+				memory = null;
+			}
+			if (fileOut != null)
+				fileOut.write(b, off, len);
+			else
+				memory.write(b, off, len);
+		}
+
+		/**
+		 * Indicates whether the request has been deferred.
+		 *
+		 * @return <code>true</code> when the request has been accepted for later processing
+		 */
+		public boolean isDeferred() {
+			return deferred;
+		}
+
+		/**
+		 * Accepts the request for later processing. The remainder of the entity body is read and the request is
+		 * persisted in the queue. When this method returns <code>true</code> the current processing of the request
+		 * must be stopped as it will be processed again from the queue. If the queue is full the request is not
+		 * accepted and should be processed directly.
+		 *
+		 * @return <code>true</code> when the request is accepted for later processing,<br>
+		 * 		   <code>false</code> when it should be processed now
+		 * @throws IOException	when the request could not be persisted. As the entity body may already have been
+		 * 						read completely the request cannot be processed anymore.
+		 */
+		public boolean defer() throws IOException {
+			if (deferred)
+				return true;
+			if (!copying || !reserve()) {
+				discard();
+				return false;
+			}
+			try {
+				final byte[] buffer = new byte[8192];
+				while (source.read(buffer) >= 0);
+				if (fileOut == null) {
+					id = nextId();
+					fileOut = new FileOutputStream(directory.resolve(id + BODY_EXT).toFile());
+					memory.writeTo(fileOut);
+					memory = null;
+				}
+				((FileOutputStream) fileOut).getFD().sync();
+				fileOut.close();
+				copying = false;
+				enqueue(id, request, msgContext);
+				deferred = true;
+				log.debug("Accepted request {} for later processing", id);
+				return true;
+			} catch (IOException persistFailure) {
+				pending.decrementAndGet();
+				discard();
+				throw persistFailure;
+			}
+		}
+
+		/**
+		 * Stops copying the entity body and removes the data copied so far, unless the request was deferred.
+		 */
+		public void discard() {
+			if (deferred)
+				return;
+			copying = false;
+			memory = null;
+			if (fileOut != null)
+				try {
+					fileOut.close();
+				} catch (IOException closeError) {
+				} finally {
+					fileOut = null;
+					try {
+						Files.deleteIfExists(directory.resolve(id + BODY_EXT));
+						Files.deleteIfExists(directory.resolve(id + REQUEST_EXT + TEMP_EXT));
+					} catch (IOException deleteError) {
+						log.warn("Could not remove spooled data {} : {}", id, deleteError.getMessage());
+					}
+				}
+		}
+	}
+
+	/**
+	 * The request read from the queue.
+	 */
+	private static class ReplayRequest extends AbstractHttpMessage implements AxisHttpRequest {
+		private final String	method;
+		private final String	requestURI;
+		private final String	remoteAddress;
+		private final String	localAddress;
+		private final Path		body;
+
+		ReplayRequest(String method, String requestURI, String remoteAddress, String localAddress, Path body) {
+			this.method = method;
+			this.requestURI = requestURI;
+			this.remoteAddress = remoteAddress;
+			this.localAddress = localAddress;
+			this.body = body;
+		}
+
+		@Override
+		public ProtocolVersion getProtocolVersion() {
+			return HttpVersion.HTTP_1_1;
+		}
+
+		@Override
+		public String getMethod() {
+			return method;
+		}
+
+		@Override
+		public String getRequestURI() {
+			return requestURI;
+		}
+
+		@Override
+		public String getContentType() {
+			final Header contentType = getFirstHeader(HTTP.CONTENT_TYPE);
+			return contentType != null ? contentType.getValue() : null;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			try {
+				return Files.newInputStream(body);
+			} catch (IOException bodyFileError) {
+				throw new IllegalStateException("Could not read the entity body of the queued request",
+												bodyFileError);
+			}
+		}
+	}
+
+	/**
+	 * The response to a request processed from the queue. As the sender has already received the acknowledgement any
+	 * response content is discarded.
+	 */
+	private static class ReplayResponse extends AbstractHttpMessage implements AxisHttpResponse, OutTransportInfo {
+		private int status = HttpStatus.SC_OK;
+
+		@Override
+		public ProtocolVersion getProtocolVersion() {
+			return HttpVersion.HTTP_1_1;
+		}
+
+		@Override
+		public void setStatus(int sc) {
+			this.status = sc;
+		}
+
+		@Override
+		public void sendError(int sc, String msg) {
+			this.status = sc;
+		}
+
+		@Override
+		public void sendError(int sc) {
+			this.status = sc;
+		}
+
+		@Override
+		public void setContentType(String contentType) {
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return OutputStream.nullOutputStream();
+		}
+	}
+
+	/**
+	 * The statistics of the queue as reported by {@link InboundQueue#getStatistics()}.
+	 */
+	static class Statistics {
+		private final long	accepted;
+		private final long	recovered;
+		private final long	processed;
+		private final long	failed;
+		private final long	full;
+		private final int	pending;
+
+		private Statistics(InboundQueue q) {
+			this.accepted = q.accepted.get();
+			this.recovered = q.recovered.get();
+			this.processed = q.processed.get();
+			this.failed = q.failed.get();
+			this.full = q.full.get();
+			this.pending = q.pending.get();
+		}
+
+		/**
+		 * @return the number of requests accepted for later processing
+		 */
+		long getAccepted() {
+			return accepted;
+		}
+
+		/**
+		 * @return the number of requests recovered from the queue at start
+		 */
+		long getRecovered() {
+			return recovered;
+		}
+
+		/**
+		 * @return the number of queued requests processed successfully
+		 */
+		long getProcessed() {
+			return processed;
+		}
+
+		/**
+		 * @return the number of queued requests of which the processing failed
+		 */
+		long getFailed() {
+			return failed;
+		}
+
+		/**
+		 * @return the number of requests processed directly because the queue was full
+		 */
+		long getFull() {
+			return full;
+		}
+
+		/**
+		 * @return the number of requests waiting or being processed
+		 */
+		int getPending() {
+			return pending;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("accepted=%d, recovered=%d, processed=%d, failed=%d, queue full=%d, pending=%d",
+								 accepted, recovered, processed, failed, full, pending);
+		}
+	}
+}
@@ -0,0 +1,472 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.kernel.MessageFormatter;
+import org.apache.axis2.util.MessageProcessorSelector;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.common.pmode.PMode;
+import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.core.pmode.PModeUtils;
+import org.holodeckb2b.core.storage.IProcessingStateListener;
+import org.holodeckb2b.core.storage.StorageManager;
+import org.holodeckb2b.interfaces.messagemodel.Direction;
+import org.holodeckb2b.interfaces.pmode.ILeg;
+import org.holodeckb2b.interfaces.pmode.IPMode;
+import org.holodeckb2b.interfaces.pmode.IReceptionAwareness;
+import org.holodeckb2b.interfaces.pmode.ISecurityConfiguration;
+import org.holodeckb2b.interfaces.pmode.ITradingPartnerConfiguration;
+import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
+import org.holodeckb2b.interfaces.security.SecurityProcessingException;
+import org.holodeckb2b.interfaces.security.trust.ICertificateManager;
+import org.holodeckb2b.interfaces.storage.IMessageUnitEntity;
+import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
+
+/**
+ * Caches the packaged message of the first transmission of a User Message so it can be resent as is when the message
+ * must be retransmitted because no Receipt was received. This is only done when the <i>Reception Awareness</i>
+ * configuration of the P-Mode allows to resend the identical message (see {@link
+ * IReceptionAwareness#resendIdenticalMessage()}).
+ * <p>The complete MIME package as written by the message formatter is stored in the <code>package-cache</code>
+ * directory in the Holodeck B2B temp directory, together with its content type, SOAP action and a fingerprint of the
+ * P-Mode and the certificates it references. When the message is retransmitted and the fingerprint is unchanged, the
+ * {@link Axis2Sender} uses an operation without the packaging, security and logging phases and the HTTP transport
+ * sender streams the cached package, so a retry only costs I/O. When the P-Mode or certificates have changed, the
+ * cached package is discarded and the message is packaged again.
+ * <p>The cached package of a message is removed when the message reaches a final processing state, see {@link
+ * #processingStateChanged(IMessageUnitEntity, ProcessingState)}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public class MessagePackageCache {
+	private static final Logger log = LogManager.getLogger(MessagePackageCache.class);
+
+	/**
+	 * Name of the message context property that holds the {@link Entry} for the message being sent
+	 */
+	static final String MC_CACHE_ENTRY = "hb2b:package-cache-entry";
+	/**
+	 * Name of the directory in the temp directory where the packages are stored
+	 */
+	private static final String CACHE_DIR = "package-cache";
+
+	private static final String P_FINGERPRINT = "fingerprint";
+	private static final String P_CONTENT_TYPE = "contentType";
+	private static final String P_SOAP_ACTION = "soapAction";
+
+	/**
+	 * The cache for the current temp directory
+	 */
+	private static volatile MessagePackageCache instance;
+
+	/**
+	 * The directory where the packages are stored
+	 */
+	private final Path directory;
+
+	MessagePackageCache(final Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Gets the cache that stores the packages in the current Holodeck B2B temp directory.
+	 *
+	 * @return the package cache
+	 */
+	static MessagePackageCache getInstance() {
+		final Path dir = HolodeckB2BCore.getConfiguration().getTempDirectory().resolve(CACHE_DIR);
+		MessagePackageCache cache = instance;
+		if (cache == null || !cache.directory.equals(dir)) {
+			cache = new MessagePackageCache(dir);
+			instance = cache;
+		}
+		return cache;
+	}
+
+	/**
+	 * @return the directory where the packages are stored
+	 */
+	Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Removes the cached package of the given message unit, if there is one, when it has reached a final processing
+	 * state and will not be retransmitted anymore. The Core registers this method as {@link IProcessingStateListener}
+	 * with the {@link StorageManager}.
+	 *
+	 * @param msgUnit	the message unit
+	 * @param newState	the new processing state of the message unit
+	 */
+	public static void processingStateChanged(final IMessageUnitEntity msgUnit, final ProcessingState newState) {
+		if (newState.isFinal() && msgUnit instanceof IUserMessageEntity && msgUnit.getDirection() == Direction.OUT)
+			getInstance().remove(msgUnit.getCoreId());
+	}
+
+	/**
+	 * Prepares the caching of the package of the given message unit for the current send operation. When a package
+	 * with the same fingerprint is available, the returned entry will resend it. Otherwise any outdated package is
+	 * removed and the returned entry will store the package when the message is sent.
+	 *
+	 * @param msgUnit	the message unit being sent
+	 * @return	the entry to use for the send operation, or <code>null</code> if the package of the message unit should
+	 * 			not be cached
+	 */
+	Entry prepare(final IMessageUnitEntity msgUnit) {
+		if (!(msgUnit instanceof IUserMessageEntity) || msgUnit.getDirection() != Direction.OUT)
+			return null;
+		final IPMode pmode = HolodeckB2BCore.getPModeSet().get(msgUnit.getPModeId());
+		final ILeg leg = pmode != null ? PModeUtils.getLeg(msgUnit) : null;
+		final IReceptionAwareness raConfig = leg != null ? leg.getReceptionAwareness() : null;
+		if (raConfig == null || !raConfig.resendIdenticalMessage())
+			return null;
+
+		final String fingerprint;
+		try {
+			fingerprint = fingerprint(pmode);
+		} catch (Exception fpFailure) {
+			log.warn("Could not calculate fingerprint of P-Mode [{}], message [msgId={}] is not cached : {}",
+					 pmode.getId(), msgUnit.getMessageId(), fpFailure.getMessage());
+			return null;
+		}
+		final String name = msgUnit.getCoreId().replaceAll("[^A-Za-z0-9._-]", "_");
+		final Entry entry = new Entry(this, msgUnit.getCoreId(), directory.resolve(name + ".pkg"),
+									  directory.resolve(name + ".properties"), fingerprint);
+		if (Files.exists(entry.content) && Files.exists(entry.meta)) {
+			final Properties meta = new Properties();
+			try (InputStream is = Files.newInputStream(entry.meta)) {
+				meta.load(is);
+			} catch (IOException readFailure) {
+				log.warn("Could not read meta-data of cached package of message [msgId={}] : {}",
+						 msgUnit.getMessageId(), readFailure.getMessage());
+			}
+			if (fingerprint.equals(meta.getProperty(P_FINGERPRINT))) {
+				log.debug("Using cached package to resend message [msgId={}]", msgUnit.getMessageId());
+				entry.replay = true;
+				entry.contentType = meta.getProperty(P_CONTENT_TYPE);
+				entry.soapAction = meta.getProperty(P_SOAP_ACTION);
+				return entry;
+			}
+			log.debug("P-Mode or certificates changed, discard cached package of message [msgId={}]",
+					  msgUnit.getMessageId());
+		}
+		remove(entry.coreId);
+		return entry;
+	}
+
+	/**
+	 * Removes the cached package with the given <i>CoreId</i>.
+	 *
+	 * @param coreId	the <i>CoreId</i> of the message unit
+	 */
+	void remove(final String coreId) {
+		if (!Files.isDirectory(directory))
+			return;
+		final String name = coreId.replaceAll("[^A-Za-z0-9._-]", "_");
+		try {
+			Files.deleteIfExists(directory.resolve(name + ".pkg"));
+			Files.deleteIfExists(directory.resolve(name + ".properties"));
+			Files.deleteIfExists(directory.resolve(name + ".tmp"));
+		} catch (IOException deleteFailure) {
+			log.warn("Could not remove cached package of message unit [coreId={}] : {}", coreId,
+					 deleteFailure.getMessage());
+		}
+	}
+
+	/**
+	 * Calculates the fingerprint of the given P-Mode, which includes the certificates referenced by the security
+	 * configurations of the trading partners so a change of a key pair or certificate is detected as well.
+	 *
+	 * @param pmode		the P-Mode
+	 * @return	Base64 encoded SHA-256 digest of the P-Mode and referenced certificates
+	 * @throws Exception	when the P-Mode cannot be serialised
+	 */
+	static String fingerprint(final IPMode pmode) throws Exception {
+		final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		final OutputStream digestStream = new OutputStream() {
+			@Override
+			public void write(int b) {
+				digest.update((byte) b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				digest.update(b, off, len);
+			}
+		};
+		(pmode instanceof PMode ? (PMode) pmode : new PMode(pmode)).writeAsXMLTo(digestStream);
+
+		final ICertificateManager certManager = HolodeckB2BCore.getCertificateManager();
+		if (certManager != null)
+			for (ITradingPartnerConfiguration tp : new ITradingPartnerConfiguration[] { pmode.getInitiator(),
+																						pmode.getResponder() }) {
+				final ISecurityConfiguration secConfig = tp != null ? tp.getSecurityConfiguration() : null;
+				if (secConfig == null)
+					continue;
+				if (secConfig.getSignatureConfiguration() != null)
+					addCertificates(digest, certManager, secConfig.getSignatureConfiguration().getKeystoreAlias());
+				if (secConfig.getEncryptionConfiguration() != null)
+					addCertificates(digest, certManager, secConfig.getEncryptionConfiguration().getKeystoreAlias());
+			}
+		return Base64.getEncoder().encodeToString(digest.digest());
+	}
+
+	/**
+	 * Adds the certificate(s) registered under the given alias, either as key pair or trading partner certificate, to
+	 * the fingerprint.
+	 */
+	private static void addCertificates(final MessageDigest digest, final ICertificateManager certManager,
+										final String alias) throws CertificateEncodingException {
+		if (Utils.isNullOrEmpty(alias))
+			return;
+		List<X509Certificate> certs = null;
+		try {
+			certs = certManager.getKeyPairCertificates(alias);
+		} catch (SecurityProcessingException notAKeyPair) {
+		}
+		if (Utils.isNullOrEmpty(certs))
+			try {
+				final X509Certificate cert = certManager.getPartnerCertificate(alias);
+				certs = cert != null ? List.of(cert) : null;
+			} catch (SecurityProcessingException notACertificate) {
+			}
+		if (!Utils.isNullOrEmpty(certs))
+			for (X509Certificate c : certs)
+				digest.update(c.getEncoded());
+	}
+
+	/**
+	 * Is the cache entry for a message being sent. It acts as the {@link MessageFormatter} of the message, which either
+	 * writes the cached package or writes the message using the normal formatter while storing a copy of it.
+	 */
+	static class Entry implements MessageFormatter {
+		private final MessagePackageCache cache;
+		private final String	coreId;
+		private final Path		content;
+		private final Path		meta;
+		private final String	fingerprint;
+		/**
+		 * Indicates whether the cached package is resent
+		 */
+		private boolean			replay;
+		private String			contentType;
+		private String			soapAction;
+		/**
+		 * The formatter that packages the message when it is not resent from the cache
+		 */
+		private MessageFormatter formatter;
+
+		Entry(final MessagePackageCache cache, final String coreId, final Path content, final Path meta,
+			  final String fingerprint) {
+			this.cache = cache;
+			this.coreId = coreId;
+			this.content = content;
+			this.meta = meta;
+			this.fingerprint = fingerprint;
+		}
+
+		/**
+		 * @return <code>true</code> if the cached package is resent, <code>false</code> if the package will be stored
+		 */
+		boolean isReplay() {
+			return replay;
+		}
+
+		/**
+		 * Installs this entry as the message formatter of the given message context.
+		 *
+		 * @param mc	the message context of the message being sent
+		 * @throws AxisFault	when the cached package must be resent, but another formatter is configured
+		 */
+		void install(final MessageContext mc) throws AxisFault {
+			if (!replay)
+				formatter = MessageProcessorSelector.getMessageFormatter(mc);
+			mc.setProperty(Constants.Configuration.MESSAGE_FORMATTER, this);
+			if (MessageProcessorSelector.getMessageFormatter(mc) != this) {
+				// A formatter is configured for the message type and will be used instead
+				if (replay) {
+					cache.remove(coreId);
+					throw new AxisFault("Cached package cannot be sent as a specific message formatter is used");
+				}
+				log.warn("Package cannot be cached as a specific message formatter is used");
+			}
+		}
+
+		@Override
+		public String getContentType(final MessageContext mc, final OMOutputFormat format, final String action) {
+			if (!replay)
+				contentType = formatter.getContentType(mc, format, action);
+			return contentType;
+		}
+
+		@Override
+		public String formatSOAPAction(final MessageContext mc, final OMOutputFormat format, final String action) {
+			if (!replay)
+				soapAction = formatter.formatSOAPAction(mc, format, action);
+			return soapAction;
+		}
+
+		@Override
+		public URL getTargetAddress(final MessageContext mc, final OMOutputFormat format, final URL targetURL)
+																								throws AxisFault {
+			return replay ? targetURL : formatter.getTargetAddress(mc, format, targetURL);
+		}
+
+		@Override
+		public void writeTo(final MessageContext mc, final OMOutputFormat format, final OutputStream out,
+							final boolean preserve) throws AxisFault {
+			if (replay) {
+				try {
+					Files.copy(content, out);
+				} catch (IOException writeFailure) {
+					throw AxisFault.makeFault(writeFailure);
+				}
+				return;
+			}
+			// The request may be written more than once, e.g. on authentication retries, but is only stored once
+			if (Files.exists(content)) {
+				formatter.writeTo(mc, format, out, preserve);
+				return;
+			}
+			final Path tmp = content.resolveSibling(content.getFileName().toString().replace(".pkg", ".tmp"));
+			final TeeOutputStream tee;
+			try {
+				Files.createDirectories(content.getParent());
+				tee = new TeeOutputStream(out, Files.newOutputStream(tmp));
+			} catch (IOException createFailure) {
+				log.warn("Could not create cache file for message unit [coreId={}] : {}", coreId,
+						 createFailure.getMessage());
+				formatter.writeTo(mc, format, out, preserve);
+				return;
+			}
+			boolean complete = false;
+			try {
+				formatter.writeTo(mc, format, tee, preserve);
+				complete = true;
+			} finally {
+				complete &= tee.closeCopy();
+				if (complete)
+					store(tmp);
+				else
+					cache.remove(coreId);
+			}
+		}
+
+		/**
+		 * Stores the meta-data of the package and moves the completely written package to its final location.
+		 */
+		private void store(final Path tmp) {
+			final Properties metadata = new Properties();
+			metadata.setProperty(P_FINGERPRINT, fingerprint);
+			if (contentType != null)
+				metadata.setProperty(P_CONTENT_TYPE, contentType);
+			if (soapAction != null)
+				metadata.setProperty(P_SOAP_ACTION, soapAction);
+			try (OutputStream os = Files.newOutputStream(meta)) {
+				metadata.store(os, null);
+				Files.move(tmp, content, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				log.debug("Cached package of message unit [coreId={}]", coreId);
+			} catch (IOException storeFailure) {
+				log.warn("Could not store cached package of message unit [coreId={}] : {}", coreId,
+						 storeFailure.getMessage());
+				cache.remove(coreId);
+			}
+		}
+	}
+
+	/**
+	 * Writes the message to the request and a copy to the cache file. A failure to write the copy does not affect the
+	 * request, in that case the package will not be cached.
+	 */
+	private static class TeeOutputStream extends OutputStream {
+		private final OutputStream out;
+		private OutputStream copy;
+		private boolean	copyFailed;
+
+		TeeOutputStream(final OutputStream out, final OutputStream copy) {
+			this.out = out;
+			this.copy = copy;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			if (!copyFailed)
+				try {
+					copy.write(b);
+				} catch (IOException e) {
+					copyFailed = true;
+				}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			if (!copyFailed)
+				try {
+					copy.write(b, off, len);
+				} catch (IOException e) {
+					copyFailed = true;
+				}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+
+		/**
+		 * Closes the copy.
+		 *
+		 * @return <code>true</code> if the copy was written successfully, <code>false</code> otherwise
+		 */
+		boolean closeCopy() {
+			try {
+				copy.close();
+			} catch (IOException e) {
+				copyFailed = true;
+			}
+			return !copyFailed;
+		}
+	}
+}
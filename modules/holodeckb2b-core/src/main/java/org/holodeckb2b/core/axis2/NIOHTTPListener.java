@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.SessionContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.kernel.TransportListener;
+import org.apache.axis2.transport.http.HTTPTransportUtils;
+import org.apache.axis2.transport.http.server.HttpFactory;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.core.workerpool.VirtualThreads;
+
+/**
+ * Is an Axis2 {@link TransportListener} implementation that provides the same functionality as the {@link
+ * HTTPListener} but uses a non-blocking HTTP server instead of the blocking server built into Axis2. The blocking
+ * server needs a thread for each open connection, so the number of connections that can be handled is limited by the
+ * size of the thread pool and idle keep-alive connections and slow clients occupy threads that could otherwise be used
+ * for processing messages. The {@link NIOHTTPServer} used by this listener reads requests without blocking and only
+ * hands over complete requests to the {@link HTTPWorker}, so the number of threads is decoupled from the number of
+ * connections.
+ * <p>This listener can be used instead of the default listener by changing the class of the <i>http</i> transport
+ * receiver in the Holodeck B2B configuration file. It uses the same parameters as the default listener, where the
+ * <code>requestCoreThreadPoolSize</code> parameter sets the number of threads for processing requests and <code>
+ * requestTimeout</code> the time idle connections are kept open. Additionally the maximum number of open connections
+ * can be set using the <code>maxConnections</code> parameter (default 10000) and the maximum size of a request that is
+ * kept in memory using <code>requestMemoryThreshold</code> (in bytes, default 1 MiB). Requests larger than the maximum
+ * set by the <code>maxRequestSize</code> parameter (in bytes, by default there is no maximum) are rejected. When virtual threads are enabled
+ * ({@link VirtualThreads}) every request is processed by a new virtual thread. The same {@link AdmissionController
+ * admission control} as for the default listener can be configured, where the requests waiting for a worker thread
+ * are counted as queued requests. Also the {@link InboundQueue deferred processing} of requests is supported.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public class NIOHTTPListener implements TransportListener {
+	/**
+	 * Name of the parameter to set the maximum number of open connections
+	 */
+	public static final String PARAMETER_MAX_CONNECTIONS = "maxConnections";
+	/**
+	 * Name of the parameter to set the maximum size of a request entity body that is kept in memory
+	 */
+	public static final String PARAMETER_MEMORY_THRESHOLD = "requestMemoryThreshold";
+	/**
+	 * Name of the parameter to set the maximum size of a request entity body
+	 */
+	public static final String PARAMETER_MAX_REQUEST_SIZE = "maxRequestSize";
+
+	/**
+	 * The non-blocking http server
+	 */
+	private NIOHTTPServer server;
+	/**
+	 * The queue for requests accepted for later processing, <code>null</code> if not enabled
+	 */
+	private InboundQueue inboundQueue;
+	/**
+	 * The Axis2 configuration of this instance
+	 */
+	private ConfigurationContext configurationContext;
+	/**
+	 * The transport configuration for this listener
+	 */
+	private TransportInDescription	transportConfig;
+
+	@Override
+	public void init(ConfigurationContext axisConf, TransportInDescription transprtIn) throws AxisFault {
+		this.configurationContext = axisConf;
+		this.transportConfig = transprtIn;
+	}
+
+	@Override
+	public void start() throws AxisFault {
+		final String host = getStringParam(HttpFactory.PARAMETER_HOST_ADDRESS, null);
+		final int port = getIntParam(HttpFactory.PARAMETER_PORT, 8080);
+		final int workerThreads = getIntParam(HttpFactory.PARAMETER_REQUEST_CORE_THREAD_POOL_SIZE, 100);
+		final AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService workers = VirtualThreads.newThreadPerTaskExecutor("hb2b-http-worker");
+		if (workers == null) {
+			final ThreadPoolExecutor pool = new ThreadPoolExecutor(workerThreads, workerThreads,
+								getIntParam(HttpFactory.PARAMETER_THREAD_KEEP_ALIVE_TIME, 180), TimeUnit.SECONDS,
+								new LinkedBlockingQueue<>(),
+								r -> new Thread(r, "hb2b-http-worker-" + threadCount.incrementAndGet()));
+			pool.allowCoreThreadTimeOut(true);
+			workers = pool;
+		}
+		try {
+			final Path tempDir = HolodeckB2BCore.getConfiguration().getTempDirectory().resolve("http-in");
+			Files.createDirectories(tempDir);
+			final InetSocketAddress address = host != null ? new InetSocketAddress(host, port)
+														   : new InetSocketAddress(port);
+			final boolean tcpNoDelay = !"false".equals(getStringParam(HttpFactory.PARAMETER_REQUEST_TCP_NO_DELAY,
+																	   null));
+			// Admission is controlled by the server before the request is read, so not by the workers
+			final HTTPWorkerFactory workerFactory = new HTTPWorkerFactory(transportConfig, null);
+			inboundQueue = workerFactory.getInboundQueue();
+			if (inboundQueue != null)
+				inboundQueue.start(configurationContext, transportConfig);
+			server = new NIOHTTPServer(configurationContext, transportConfig, workerFactory, address, workers,
+									   getIntParam(HttpFactory.PARAMETER_REQUEST_SOCKET_TIMEOUT, 20000), tcpNoDelay,
+									   getIntParam(PARAMETER_MAX_CONNECTIONS, 10000),
+									   getIntParam(PARAMETER_MEMORY_THRESHOLD, 1024 * 1024), tempDir,
+									   getLongParam(PARAMETER_MAX_REQUEST_SIZE, 0),
+									   AdmissionController.fromConfiguration(transportConfig));
+			server.start();
+		} catch (IOException e) {
+			workers.shutdown();
+			if (inboundQueue != null)
+				inboundQueue.stop();
+			throw AxisFault.makeFault(e);
+		}
+	}
+
+	@Override
+	public void stop() throws AxisFault {
+		if (server != null)
+			server.stop();
+		if (inboundQueue != null)
+			inboundQueue.stop();
+	}
+
+	@Override
+	public EndpointReference[] getEPRsForService(String serviceName, String ip) throws AxisFault {
+		if (server == null) {
+			throw new AxisFault("Unable to generate EPR for the transport : http");
+		}
+		return HTTPTransportUtils.getEPRsForService(configurationContext, transportConfig,
+													serviceName, ip, server.getPort());
+	}
+
+	@Override
+	public SessionContext getSessionContext(MessageContext messageContext) {
+		// Session support isn't needed for Holodeck B2B
+		return null;
+	}
+
+	@Override
+	public void destroy() {
+		this.configurationContext = null;
+	}
+
+	private int getIntParam(String name, int def) {
+		String config = getStringParam(name, null);
+		return config != null ? Integer.parseInt(config.trim()) : def;
+	}
+
+	private long getLongParam(String name, long def) {
+		String config = getStringParam(name, null);
+		return config != null ? Long.parseLong(config.trim()) : def;
+	}
+
+	private String getStringParam(String name, String def) {
+		Parameter param = transportConfig.getParameter(name);
+		if (param != null && param.getValue() != null)
+			return ((String) param.getValue()).trim();
+		return def;
+	}
+}
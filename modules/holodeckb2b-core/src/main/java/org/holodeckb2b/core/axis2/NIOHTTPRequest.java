@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.axis2.transport.http.server.AxisHttpRequest;
+import org.apache.http.Header;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.message.AbstractHttpMessage;
+import org.apache.http.protocol.HTTP;
+
+/**
+ * Is the {@link AxisHttpRequest} implementation used by the {@link NIOHTTPServer} to pass a completely received HTTP
+ * request to the {@link HTTPWorker}. The entity body of the request is kept in memory as long as it does not exceed
+ * the configured threshold, larger bodies are written to a temporary file. This ensures that the memory used by a
+ * large number of concurrent requests stays limited.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+class NIOHTTPRequest extends AbstractHttpMessage implements AxisHttpRequest {
+
+	private final String 			method;
+	private final String 			requestURI;
+	private final ProtocolVersion	version;
+	/**
+	 * The maximum number of bytes of the entity body to keep in memory
+	 */
+	private final int				memoryThreshold;
+	/**
+	 * The directory where temporary files for large entity bodies are created
+	 */
+	private final Path				tempDir;
+	/**
+	 * The in memory entity body and the number of bytes it contains
+	 */
+	private byte[]					body;
+	private int						bodyLength;
+	/**
+	 * The temporary file and the channel to write to it when the entity body exceeds the threshold
+	 */
+	private Path					bodyFile;
+	private FileChannel				bodyChannel;
+
+	NIOHTTPRequest(final String method, final String requestURI, final ProtocolVersion version,
+				   final int memoryThreshold, final Path tempDir) {
+		this.method = method;
+		this.requestURI = requestURI;
+		this.version = version;
+		this.memoryThreshold = memoryThreshold;
+		this.tempDir = tempDir;
+	}
+
+	@Override
+	public ProtocolVersion getProtocolVersion() {
+		return version;
+	}
+
+	@Override
+	public String getMethod() {
+		return method;
+	}
+
+	@Override
+	public String getRequestURI() {
+		return requestURI;
+	}
+
+	@Override
+	public String getContentType() {
+		final Header contentType = getFirstHeader(HTTP.CONTENT_TYPE);
+		return contentType != null ? contentType.getValue() : null;
+	}
+
+	/**
+	 * Indicates whether the connection can be kept open after the response to this request has been sent, which is
+	 * the default for HTTP/1.1 and must be explicitly requested for HTTP/1.0.
+	 *
+	 * @return <code>true</code> if the connection can be reused, <code>false</code> if it must be closed
+	 */
+	boolean isKeepAlive() {
+		final Header connection = getFirstHeader(HTTP.CONN_DIRECTIVE);
+		if (connection != null) {
+			for (String token : connection.getValue().split(","))
+				if (HTTP.CONN_CLOSE.equalsIgnoreCase(token.trim()))
+					return false;
+				else if (HTTP.CONN_KEEP_ALIVE.equalsIgnoreCase(token.trim()))
+					return true;
+		}
+		return !version.lessEquals(HttpVersion.HTTP_1_0);
+	}
+
+	/**
+	 * Adds data to the entity body of the request.
+	 *
+	 * @param src		the buffer containing the data
+	 * @param length	the number of bytes to take from the buffer
+	 * @throws IOException	when the data could not be written to the temporary file
+	 */
+	void appendBody(final ByteBuffer src, final int length) throws IOException {
+		if (bodyChannel == null && bodyLength + length > memoryThreshold) {
+			bodyFile = Files.createTempFile(tempDir, "http-in-", ".body");
+			bodyChannel = FileChannel.open(bodyFile, StandardOpenOption.WRITE);
+			if (bodyLength > 0)
+				bodyChannel.write(ByteBuffer.wrap(body, 0, bodyLength));
+			body = null;
+		}
+		if (bodyChannel != null) {
+			final ByteBuffer data = src.slice();
+			data.limit(length);
+			while (data.hasRemaining())
+				bodyChannel.write(data);
+			src.position(src.position() + length);
+		} else {
+			if (body == null)
+				body = new byte[Math.min(memoryThreshold, Math.max(length, 8192))];
+			else if (bodyLength + length > body.length)
+				body = Arrays.copyOf(body, Math.min(memoryThreshold, Math.max(bodyLength + length,
+																				2 * body.length)));
+			src.get(body, bodyLength, length);
+		}
+		bodyLength += length;
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		if (bodyFile == null)
+			return new ByteArrayInputStream(body != null ? body : new byte[0], 0, bodyLength);
+		try {
+			if (bodyChannel.isOpen())
+				bodyChannel.close();
+			return new FilterInputStream(Files.newInputStream(bodyFile)) {
+				@Override
+				public void close() throws IOException {
+					super.close();
+					Files.deleteIfExists(bodyFile);
+				}
+			};
+		} catch (IOException bodyFileError) {
+			throw new IllegalStateException("Could not read the temporary file with the request body", bodyFileError);
+		}
+	}
+
+	/**
+	 * Releases the resources used for the entity body of the request.
+	 */
+	void discard() {
+		body = null;
+		if (bodyFile != null)
+			try {
+				bodyChannel.close();
+				Files.deleteIfExists(bodyFile);
+			} catch (IOException cleanupError) {
+				bodyFile.toFile().deleteOnExit();
+			}
+	}
+}
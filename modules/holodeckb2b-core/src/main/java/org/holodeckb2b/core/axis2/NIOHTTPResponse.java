@@ -0,0 +1,275 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import org.apache.axis2.kernel.OutTransportInfo;
+import org.apache.axis2.transport.http.server.AxisHttpResponse;
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.message.AbstractHttpMessage;
+import org.apache.http.protocol.HTTP;
+
+/**
+ * Is the {@link AxisHttpResponse} implementation used by the {@link NIOHTTPServer}. The data written to the response
+ * is buffered and handed over to the selector thread of the server for sending to the client. When the complete
+ * response fits in the buffer it is sent with a <i>Content-Length</i> header, otherwise the response is sent using
+ * the <i>chunked</i> transfer encoding (or by closing the connection for HTTP/1.0 clients). As the connection only
+ * accepts a limited amount of data waiting to be sent, a slow client will throttle the thread writing the response.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+class NIOHTTPResponse extends AbstractHttpMessage implements AxisHttpResponse, OutTransportInfo {
+
+	/**
+	 * The size of the buffer for the entity body
+	 */
+	static final int BUFFER_SIZE = 32 * 1024;
+
+	private static final byte[] CRLF = { '\r', '\n' };
+	private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * The connection to send the response on
+	 */
+	private final NIOHTTPServer.Connection	connection;
+	/**
+	 * The HTTP version of the request
+	 */
+	private final ProtocolVersion	version;
+	/**
+	 * Indicates whether the connection is kept open after the response
+	 */
+	private boolean			keepAlive;
+	private int				status = HttpStatus.SC_OK;
+	private String			reason;
+	private String			contentType;
+	/**
+	 * Indicates whether the status line and headers have been sent
+	 */
+	private boolean			committed;
+	/**
+	 * Indicates whether the chunked transfer encoding is used for the entity body
+	 */
+	private boolean			chunked;
+	/**
+	 * Indicates whether the response is completely sent
+	 */
+	private boolean			finished;
+	/**
+	 * The buffer for the entity body
+	 */
+	private final byte[]	buffer = new byte[BUFFER_SIZE];
+	private int				buffered;
+
+	private final OutputStream	outputStream = new OutputStream() {
+		@Override
+		public void write(int b) throws IOException {
+			if (buffered == buffer.length)
+				flushBuffer(false);
+			buffer[buffered++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (buffered == buffer.length)
+					flushBuffer(false);
+				final int n = Math.min(len, buffer.length - buffered);
+				System.arraycopy(b, off, buffer, buffered, n);
+				buffered += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		/*
+		 * Flushing and closing is ignored, the response is completed by the server when the request is processed so
+		 * small responses can always be sent with a Content-Length header.
+		 */
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+	};
+
+	NIOHTTPResponse(final NIOHTTPServer.Connection connection, final ProtocolVersion version, final boolean keepAlive) {
+		this.connection = connection;
+		this.version = version;
+		this.keepAlive = keepAlive;
+	}
+
+	@Override
+	public ProtocolVersion getProtocolVersion() {
+		return version;
+	}
+
+	@Override
+	public void setStatus(int sc) {
+		this.status = sc;
+		this.reason = null;
+	}
+
+	@Override
+	public void sendError(int sc, String msg) {
+		this.status = sc;
+		this.reason = msg;
+	}
+
+	@Override
+	public void sendError(int sc) {
+		setStatus(sc);
+	}
+
+	@Override
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return outputStream;
+	}
+
+	/**
+	 * @return <code>true</code> if the status and headers of the response have already been sent
+	 */
+	boolean isCommitted() {
+		return committed;
+	}
+
+	/**
+	 * Discards the buffered entity body so an error response can be sent instead. Can only be used when the response
+	 * is not yet committed.
+	 */
+	void reset() {
+		buffered = 0;
+		contentType = null;
+		removeHeaders(HTTP.CONTENT_TYPE);
+	}
+
+	/**
+	 * Completes the response by sending all buffered data.
+	 *
+	 * @throws IOException	when the response could not be sent because the connection was closed
+	 */
+	void finish() throws IOException {
+		if (!finished)
+			flushBuffer(true);
+	}
+
+	/**
+	 * Aborts the response by closing the connection after the already sent data. Used when an error occurs after the
+	 * response was committed and it is therefore not possible to inform the client about the error anymore.
+	 */
+	void abort() {
+		if (finished)
+			return;
+		finished = true;
+		try {
+			connection.send(ByteBuffer.allocate(0), true, true);
+		} catch (IOException alreadyClosed) {
+		}
+	}
+
+	/**
+	 * Sends the buffered data to the client, preceded by the status line and headers if this is the first part of
+	 * the response.
+	 *
+	 * @param last	indicates whether this is the last part of the response
+	 * @throws IOException	when the connection was closed
+	 */
+	private void flushBuffer(final boolean last) throws IOException {
+		final ByteArrayOutputStream data = new ByteArrayOutputStream(buffered + (committed ? 16 : 512));
+		if (!committed) {
+			if (!last && !version.lessEquals(HttpVersion.HTTP_1_0))
+				chunked = true;
+			else if (!last)
+				keepAlive = false;
+			writeHead(data, last ? buffered : -1);
+			committed = true;
+		}
+		if (chunked) {
+			if (buffered > 0) {
+				data.writeBytes(Integer.toHexString(buffered).getBytes(StandardCharsets.US_ASCII));
+				data.writeBytes(CRLF);
+				data.write(buffer, 0, buffered);
+				data.writeBytes(CRLF);
+			}
+			if (last)
+				data.writeBytes(LAST_CHUNK);
+		} else
+			data.write(buffer, 0, buffered);
+		buffered = 0;
+		finished = last;
+		connection.send(ByteBuffer.wrap(data.toByteArray()), last, last && !keepAlive);
+	}
+
+	/**
+	 * Writes the status line and headers of the response.
+	 *
+	 * @param out			the stream to write to
+	 * @param contentLength	the length of the entity body, or -1 if unknown
+	 */
+	private void writeHead(final ByteArrayOutputStream out, final long contentLength) {
+		final StringBuilder head = new StringBuilder(256);
+		head.append(version.lessEquals(HttpVersion.HTTP_1_0) ? HttpVersion.HTTP_1_0 : HttpVersion.HTTP_1_1)
+			.append(' ').append(status).append(' ');
+		final String phrase = reason != null ? reason : EnglishReasonPhraseCatalog.INSTANCE.getReason(status,
+																									Locale.ENGLISH);
+		if (phrase != null)
+			head.append(phrase.replace('\r', ' ').replace('\n', ' '));
+		head.append("\r\n");
+		appendHeader(head, HTTP.DATE_HEADER, DateTimeFormatter.RFC_1123_DATE_TIME.format(
+																				ZonedDateTime.now(ZoneOffset.UTC)));
+		appendHeader(head, HTTP.SERVER_HEADER, Axis2Utils.HTTP_PRODID_HEADER);
+		if (contentType != null && !containsHeader(HTTP.CONTENT_TYPE))
+			appendHeader(head, HTTP.CONTENT_TYPE, contentType);
+		for (Header h : getAllHeaders())
+			if (!HTTP.CONTENT_LEN.equalsIgnoreCase(h.getName()) && !HTTP.TRANSFER_ENCODING.equalsIgnoreCase(h.getName())
+				&& !HTTP.CONN_DIRECTIVE.equalsIgnoreCase(h.getName()))
+				appendHeader(head, h.getName(), h.getValue());
+		if (contentLength >= 0)
+			appendHeader(head, HTTP.CONTENT_LEN, Long.toString(contentLength));
+		else if (chunked)
+			appendHeader(head, HTTP.TRANSFER_ENCODING, HTTP.CHUNK_CODING);
+		if (!keepAlive)
+			appendHeader(head, HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+		else if (version.lessEquals(HttpVersion.HTTP_1_0))
+			appendHeader(head, HTTP.CONN_DIRECTIVE, HTTP.CONN_KEEP_ALIVE);
+		head.append("\r\n");
+		out.writeBytes(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	private static void appendHeader(final StringBuilder head, final String name, final String value) {
+		head.append(name).append(": ").append(value).append("\r\n");
+	}
+}
@@ -0,0 +1,907 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.AddressingHelper;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.engine.AxisEngine;
+import org.apache.axis2.kernel.RequestResponseTransport;
+import org.apache.axis2.transport.http.server.Worker;
+import org.apache.axis2.transport.http.server.WorkerFactory;
+import org.apache.axis2.util.MessageContextBuilder;
+import org.apache.http.Header;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.MethodNotSupportedException;
+import org.apache.http.ProtocolException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.UnsupportedHttpVersionException;
+import org.apache.http.protocol.HTTP;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.commons.util.Utils;
+
+/**
+ * Is a non-blocking HTTP/1.1 server based on Java NIO that is used by the {@link NIOHTTPListener}. A single selector
+ * thread accepts the connections and reads the requests from all connections. Only when a request has been received
+ * completely it is handed over to a worker thread that processes it using the {@link Worker} created by the given
+ * {@link WorkerFactory}. The response is buffered and written to the connection by the selector thread. Therefore the
+ * number of threads needed does not depend on the number of open connections but only on the number of requests being
+ * processed at the same time, so idle keep-alive connections and slow clients don't occupy a worker thread.
+ * <p>The server supports persistent connections, pipelined requests, the <i>chunked</i> transfer encoding of the
+ * request and response entity body and the <i>Expect: 100-continue</i> header. Connections are closed when they have
+ * been idle longer than the configured timeout or when the maximum number of connections has been reached. Requests
+ * with an entity body larger than the configured maximum are rejected with a <i>413 (Content Too Large)</i> response
+ * as soon as their size is known, i.e. from the <i>Content-Length</i> header or the size of the received chunks.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+class NIOHTTPServer implements Runnable {
+	private static final Logger log = LogManager.getLogger(NIOHTTPServer.class);
+
+	/**
+	 * The maximum size of the request line and headers
+	 */
+	static final int MAX_HEADER_SIZE = 64 * 1024;
+	/**
+	 * The maximum amount of response data waiting to be sent on a connection before the worker is blocked
+	 */
+	static final int MAX_PENDING_OUTPUT = 256 * 1024;
+
+	private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	private final ConfigurationContext		configurationContext;
+	private final TransportInDescription	transportIn;
+	private final WorkerFactory				workerFactory;
+	private final InetSocketAddress			address;
+	private final ExecutorService			workers;
+	/**
+	 * The time in milliseconds a connection may be idle before it is closed
+	 */
+	private final int	idleTimeout;
+	private final boolean tcpNoDelay;
+	private final int	maxConnections;
+	/**
+	 * The maximum size of a request entity body that is kept in memory and the directory to store larger ones
+	 */
+	private final int	memoryThreshold;
+	private final Path	tempDir;
+	/**
+	 * The maximum size of a request entity body, a value &lt;= 0 indicates there is no maximum
+	 */
+	private final long	maxBodySize;
+	/**
+	 * The admission control applied to the requests, <code>null</code> if no admission control is applied
+	 */
+	private final AdmissionController admissionControl;
+
+	private Selector			selector;
+	private ServerSocketChannel	serverChannel;
+	private Thread				selectorThread;
+	private volatile boolean	running;
+	/**
+	 * The open connections, only accessed by the selector thread
+	 */
+	private final Set<Connection>	connections = new HashSet<>();
+	/**
+	 * The connections that have data waiting to be sent
+	 */
+	private final Queue<Connection>	pendingWrites = new ConcurrentLinkedQueue<>();
+	/**
+	 * The buffer used by the selector thread for reading from the connections
+	 */
+	private final ByteBuffer		readBuffer = ByteBuffer.allocate(64 * 1024);
+
+	/**
+	 * Creates a new server.
+	 *
+	 * @param configurationContext	the Axis2 configuration context
+	 * @param transportIn			the configuration of the transport
+	 * @param workerFactory			the factory for the workers that process the requests
+	 * @param address				the address to listen on
+	 * @param workers				the executor for processing the requests
+	 * @param idleTimeout			the time in milliseconds an idle connection is kept open
+	 * @param tcpNoDelay			indicates whether Nagle's algorithm should be disabled on the connections
+	 * @param maxConnections		the maximum number of open connections
+	 * @param memoryThreshold		the maximum size of a request entity body that is kept in memory
+	 * @param tempDir				the directory for storing larger request entity bodies
+	 * @param maxBodySize			the maximum size of a request entity body, a value &lt;= 0 indicates there is no
+	 * 								maximum
+	 * @param admissionControl		the admission control to apply, <code>null</code> if none should be applied
+	 */
+	NIOHTTPServer(final ConfigurationContext configurationContext, final TransportInDescription transportIn,
+				  final WorkerFactory workerFactory, final InetSocketAddress address, final ExecutorService workers,
+				  final int idleTimeout, final boolean tcpNoDelay, final int maxConnections,
+				  final int memoryThreshold, final Path tempDir, final long maxBodySize,
+				  final AdmissionController admissionControl) {
+		this.configurationContext = configurationContext;
+		this.transportIn = transportIn;
+		this.workerFactory = workerFactory;
+		this.address = address;
+		this.workers = workers;
+		this.idleTimeout = idleTimeout;
+		this.tcpNoDelay = tcpNoDelay;
+		this.maxConnections = maxConnections;
+		this.memoryThreshold = memoryThreshold;
+		this.tempDir = tempDir;
+		this.maxBodySize = maxBodySize;
+		this.admissionControl = admissionControl;
+	}
+
+	/**
+	 * Opens the server socket and starts the selector thread.
+	 *
+	 * @throws IOException	when the server socket could not be opened
+	 */
+	synchronized void start() throws IOException {
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.configureBlocking(false);
+		serverChannel.bind(address, 1024);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		running = true;
+		selectorThread = new Thread(this, "hb2b-http-nio-" + getPort());
+		selectorThread.start();
+		log.info("Listening for HTTP requests on {}", serverChannel.getLocalAddress());
+	}
+
+	/**
+	 * Stops the server by closing all connections and waiting for the requests being processed to finish.
+	 */
+	synchronized void stop() {
+		if (!running)
+			return;
+		running = false;
+		selector.wakeup();
+		try {
+			selectorThread.join(10000);
+			workers.shutdown();
+			workers.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		log.info("Stopped listening for HTTP requests on port {}", getPort());
+		if (admissionControl != null)
+			log.info("Admission control statistics: {}", admissionControl.getStatistics());
+	}
+
+	/**
+	 * @return the port the server listens on
+	 */
+	int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * @return the number of currently open connections
+	 */
+	int getConnectionCount() {
+		return connections.size();
+	}
+
+	@Override
+	public void run() {
+		long lastIdleCheck = System.currentTimeMillis();
+		try {
+			while (running) {
+				selector.select(1000);
+				Connection c;
+				while ((c = pendingWrites.poll()) != null)
+					c.enableWrite();
+				for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+					final SelectionKey key = it.next();
+					it.remove();
+					if (key.isValid() && key.isAcceptable())
+						accept();
+					else if (key.attachment() != null) {
+						c = (Connection) key.attachment();
+						try {
+							if (key.isValid() && key.isWritable())
+								c.write();
+							if (key.isValid() && key.isReadable())
+								c.read();
+						} catch (IOException | CancelledKeyException connectionError) {
+							log.debug("Error on connection with {} : {}", c.remoteAddress, connectionError.getMessage());
+							c.close();
+						}
+					}
+				}
+				final long now = System.currentTimeMillis();
+				if (now - lastIdleCheck >= 1000) {
+					lastIdleCheck = now;
+					new ArrayList<>(connections).stream().filter(conn -> conn.isIdle(now)).forEach(conn -> {
+						log.debug("Closing idle connection with {}", conn.remoteAddress);
+						conn.close();
+					});
+				}
+			}
+		} catch (Throwable t) {
+			log.error("Unexpected error in HTTP listener, stopping!", t);
+		} finally {
+			new ArrayList<>(connections).forEach(Connection::close);
+			try {
+				serverChannel.close();
+				selector.close();
+			} catch (IOException closeError) {
+				log.warn("Error closing the server socket : {}", closeError.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Accepts the new connections.
+	 */
+	private void accept() {
+		SocketChannel channel;
+		try {
+			while ((channel = serverChannel.accept()) != null) {
+				if (connections.size() >= maxConnections) {
+					log.warn("Maximum number of connections ({}) reached, refusing connection from {}",
+							 maxConnections, channel.getRemoteAddress());
+					channel.close();
+					continue;
+				}
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(tcpNoDelay);
+				final Connection c = new Connection(channel);
+				c.key = channel.register(selector, SelectionKey.OP_READ, c);
+				connections.add(c);
+			}
+		} catch (IOException acceptFailure) {
+			log.warn("Could not accept new connection : {}", acceptFailure.getMessage());
+		}
+	}
+
+	/**
+	 * Processes a completely received request. This method is executed by a worker thread.
+	 *
+	 * @param connection	the connection the request was received on
+	 * @param request		the request
+	 * @param permit		the admission of the request, <code>null</code> if no admission control is applied
+	 */
+	private void process(final Connection connection, final NIOHTTPRequest request,
+						 final AdmissionController.Permit permit) {
+		final NIOHTTPResponse response = new NIOHTTPResponse(connection, request.getProtocolVersion(),
+															 request.isKeepAlive());
+		MessageContext msgContext = null;
+		try {
+			msgContext = createMessageContext(connection, request, response);
+			workerFactory.newWorker().service(request, response, msgContext);
+		} catch (HttpException httpError) {
+			log.warn("Error in processing HTTP request from {} : {}", connection.remoteAddress,
+					 httpError.getMessage());
+			if (response.isCommitted())
+				response.abort();
+			else {
+				response.reset();
+				if (httpError instanceof MethodNotSupportedException)
+					response.setStatus(HttpStatus.SC_NOT_IMPLEMENTED);
+				else if (httpError instanceof UnsupportedHttpVersionException)
+					response.setStatus(HttpStatus.SC_HTTP_VERSION_NOT_SUPPORTED);
+				else if (httpError instanceof ProtocolException)
+					response.setStatus(HttpStatus.SC_BAD_REQUEST);
+				else
+					response.setStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+			}
+		} catch (Throwable processingError) {
+			log.error("Error in processing request from {} : {}", connection.remoteAddress,
+					  Utils.getExceptionTrace(processingError));
+			if (response.isCommitted())
+				response.abort();
+			else if (msgContext != null)
+				sendFault(msgContext, response, processingError);
+			else
+				response.sendError(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+		} finally {
+			request.discard();
+		}
+		try {
+			response.finish();
+		} catch (IOException sendFailure) {
+			log.debug("Could not send response to {} : {}", connection.remoteAddress, sendFailure.getMessage());
+		} finally {
+			if (permit != null)
+				permit.release();
+		}
+	}
+
+	/**
+	 * Creates the Axis2 message context for processing the request.
+	 */
+	private MessageContext createMessageContext(final Connection connection, final NIOHTTPRequest request,
+												final NIOHTTPResponse response) throws AxisFault {
+		final MessageContext msgContext = configurationContext.createMessageContext();
+		msgContext.setIncomingTransportName(transportIn.getName());
+		msgContext.setProperty(MessageContext.REMOTE_ADDR, connection.remoteAddress.getAddress().getHostAddress());
+		msgContext.setProperty(MessageContext.TRANSPORT_ADDR, connection.localAddress.getAddress().getHostAddress());
+		msgContext.setTransportIn(transportIn);
+		msgContext.setTransportOut(configurationContext.getAxisConfiguration().getTransportOut(
+																					Constants.TRANSPORT_HTTP));
+		msgContext.setServerSide(true);
+		msgContext.setProperty(Constants.Configuration.TRANSPORT_IN_URL, request.getRequestURI());
+		final Map<String, String> headers = new HashMap<>();
+		for (Header h : request.getAllHeaders())
+			headers.put(h.getName(), h.getValue());
+		msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, headers);
+		msgContext.setProperty(Constants.Configuration.CONTENT_TYPE, request.getContentType());
+		msgContext.setProperty(MessageContext.TRANSPORT_OUT, response.getOutputStream());
+		msgContext.setProperty(Constants.OUT_TRANSPORT_INFO, response);
+		msgContext.setTo(new EndpointReference(request.getRequestURI()));
+		msgContext.setProperty(RequestResponseTransport.TRANSPORT_CONTROL, new TransportControl());
+		return msgContext;
+	}
+
+	/**
+	 * Sends a SOAP Fault to the client when an error occurred during the processing of the request.
+	 */
+	private void sendFault(final MessageContext msgContext, final NIOHTTPResponse response, final Throwable error) {
+		try {
+			response.reset();
+			msgContext.setProperty(MessageContext.TRANSPORT_OUT, response.getOutputStream());
+			msgContext.setProperty(Constants.OUT_TRANSPORT_INFO, response);
+			final MessageContext faultContext = MessageContextBuilder.createFaultMessageContext(msgContext, error);
+			response.setStatus(AddressingHelper.isFaultRedirected(msgContext) ? HttpStatus.SC_ACCEPTED
+																			   : HttpStatus.SC_INTERNAL_SERVER_ERROR);
+			AxisEngine.sendFault(faultContext);
+		} catch (Throwable faultError) {
+			log.warn("Could not send SOAP Fault : {}", faultError.getMessage());
+			if (!response.isCommitted()) {
+				response.reset();
+				response.sendError(HttpStatus.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+			} else
+				response.abort();
+		}
+	}
+
+	/**
+	 * Registers that the connection has data waiting to be sent.
+	 */
+	private void requestWrite(final Connection c) {
+		pendingWrites.add(c);
+		selector.wakeup();
+	}
+
+	/**
+	 * The states of reading a request from a connection
+	 */
+	private enum ReadState { REQUEST_LINE, HEADERS, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, PROCESSING }
+
+	/**
+	 * Represents a connection with a client. The request data is read and parsed by the selector thread until the
+	 * request is complete. Response data is added by the worker thread and sent by the selector thread.
+	 */
+	class Connection {
+		private final SocketChannel		channel;
+		private final InetSocketAddress	remoteAddress;
+		private final InetSocketAddress	localAddress;
+		private SelectionKey			key;
+		private volatile long			lastActivity = System.currentTimeMillis();
+
+		private ReadState				state = ReadState.REQUEST_LINE;
+		/**
+		 * The current line being read and the total size of the request line and headers
+		 */
+		private final ByteArrayOutputStream	line = new ByteArrayOutputStream(256);
+		private int						headerSize;
+		private NIOHTTPRequest			request;
+		/**
+		 * The admission of the request being read
+		 */
+		private AdmissionController.Permit	permit;
+		/**
+		 * The number of bytes remaining in the entity body or current chunk
+		 */
+		private long					remaining;
+		/**
+		 * The total size of the chunks of the entity body received so far
+		 */
+		private long					bodySize;
+		/**
+		 * Data received after the current request, i.e. a pipelined request
+		 */
+		private ByteBuffer				pending;
+
+		/**
+		 * The data waiting to be sent, guarded by the lock. A lock is used instead of the monitor so a waiting virtual
+		 * thread does not pin its carrier thread.
+		 */
+		private final ReentrantLock		lock = new ReentrantLock();
+		private final Condition			writable = lock.newCondition();
+		private final Deque<ByteBuffer>	output = new ArrayDeque<>();
+		private int						outputSize;
+		private boolean					responseComplete;
+		private boolean					closeAfterResponse;
+		private boolean					closed;
+
+		Connection(final SocketChannel channel) throws IOException {
+			this.channel = channel;
+			this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+			this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+		}
+
+		boolean isOpen() {
+			lock.lock();
+			try {
+				return !closed;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Checks whether the connection is idle for too long, which is the case when no request is being processed
+		 * or when the client is not reading the response.
+		 */
+		boolean isIdle(final long now) {
+			lock.lock();
+			try {
+				return now - lastActivity > idleTimeout && (state != ReadState.PROCESSING || outputSize > 0);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Reads the available data from the connection.
+		 */
+		void read() throws IOException {
+			readBuffer.clear();
+			final int n = channel.read(readBuffer);
+			if (n < 0) {
+				close();
+				return;
+			}
+			lastActivity = System.currentTimeMillis();
+			readBuffer.flip();
+			parse(readBuffer);
+		}
+
+		/**
+		 * Parses the received data until the request is complete.
+		 */
+		private void parse(final ByteBuffer data) throws IOException {
+			while (data.hasRemaining() && state != ReadState.PROCESSING) {
+				switch (state) {
+				case REQUEST_LINE :
+					final String requestLine = readLine(data);
+					if (requestLine != null && !requestLine.isEmpty() && parseRequestLine(requestLine))
+						state = ReadState.HEADERS;
+					break;
+				case HEADERS :
+					final String header = readLine(data);
+					if (header == null)
+						break;
+					else if (header.isEmpty())
+						headersComplete();
+					else if (!parseHeader(header))
+						return;
+					break;
+				case BODY :
+				case CHUNK_DATA :
+					final int len = (int) Math.min(remaining, data.remaining());
+					request.appendBody(data, len);
+					remaining -= len;
+					if (remaining == 0)
+						if (state == ReadState.BODY)
+							dispatch();
+						else
+							state = ReadState.CHUNK_END;
+					break;
+				case CHUNK_SIZE :
+					final String chunkSize = readLine(data);
+					if (chunkSize != null) {
+						final int ext = chunkSize.indexOf(';');
+						try {
+							remaining = Long.parseLong((ext >= 0 ? chunkSize.substring(0, ext) : chunkSize).trim(),
+													   16);
+						} catch (NumberFormatException invalidSize) {
+							remaining = -1;
+						}
+						if (remaining < 0) {
+							reject(HttpStatus.SC_BAD_REQUEST, "Invalid chunk size");
+							return;
+						}
+						bodySize += remaining;
+						if (isTooLarge(bodySize)) {
+							reject(HttpStatus.SC_REQUEST_TOO_LONG, "Content Too Large");
+							return;
+						}
+						state = remaining > 0 ? ReadState.CHUNK_DATA : ReadState.TRAILERS;
+					}
+					break;
+				case CHUNK_END :
+					if (readLine(data) != null)
+						state = ReadState.CHUNK_SIZE;
+					break;
+				case TRAILERS :
+					final String trailer = readLine(data);
+					if (trailer != null && trailer.isEmpty())
+						dispatch();
+					break;
+				default:
+				}
+				if (headerSize > MAX_HEADER_SIZE) {
+					reject(431, "Request Header Fields Too Large");
+					return;
+				}
+			}
+			if (state == ReadState.PROCESSING && data.hasRemaining())
+				pending = ByteBuffer.allocate(data.remaining()).put(data).flip();
+		}
+
+		/**
+		 * Reads a line terminated by LF from the data. The line is returned without the terminating CR LF.
+		 *
+		 * @return	the line, or <code>null</code> if the line is not yet complete
+		 */
+		private String readLine(final ByteBuffer data) {
+			while (data.hasRemaining()) {
+				final byte b = data.get();
+				if (state == ReadState.REQUEST_LINE || state == ReadState.HEADERS || state == ReadState.TRAILERS)
+					headerSize++;
+				if (b == '\n') {
+					final byte[] l = line.toByteArray();
+					line.reset();
+					final int length = l.length > 0 && l[l.length - 1] == '\r' ? l.length - 1 : l.length;
+					return new String(l, 0, length, StandardCharsets.ISO_8859_1);
+				}
+				if (line.size() > MAX_HEADER_SIZE) {
+					headerSize = MAX_HEADER_SIZE + 1;
+					return null;
+				}
+				line.write(b);
+			}
+			return null;
+		}
+
+		private boolean parseRequestLine(final String requestLine) throws IOException {
+			final String[] parts = requestLine.split(" ");
+			if (parts.length != 3 || !parts[2].startsWith("HTTP/")) {
+				reject(HttpStatus.SC_BAD_REQUEST, null);
+				return false;
+			}
+			final ProtocolVersion version;
+			if (HttpVersion.HTTP_1_1.toString().equals(parts[2]))
+				version = HttpVersion.HTTP_1_1;
+			else if (HttpVersion.HTTP_1_0.toString().equals(parts[2]))
+				version = HttpVersion.HTTP_1_0;
+			else {
+				reject(HttpStatus.SC_HTTP_VERSION_NOT_SUPPORTED, null);
+				return false;
+			}
+			request = new NIOHTTPRequest(parts[0], parts[1], version, memoryThreshold, tempDir);
+			bodySize = 0;
+			return true;
+		}
+
+		private boolean parseHeader(final String header) throws IOException {
+			final int colon = header.indexOf(':');
+			if (colon <= 0 || Character.isWhitespace(header.charAt(0))) {
+				reject(HttpStatus.SC_BAD_REQUEST, "Invalid header");
+				return false;
+			}
+			request.addHeader(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+			return true;
+		}
+
+		/**
+		 * Determines how the entity body of the request is transferred when all headers have been read.
+		 */
+		private void headersComplete() throws IOException {
+			// Admission is checked before the entity body is read, so rejected requests don't use resources
+			if (admissionControl != null) {
+				permit = admissionControl.tryAdmit(remoteAddress.getAddress().getHostAddress());
+				if (permit == null) {
+					reject(HttpStatus.SC_SERVICE_UNAVAILABLE, "Service Unavailable",
+						   admissionControl.getRetryAfter());
+					return;
+				}
+			}
+			final Header te = request.getFirstHeader(HTTP.TRANSFER_ENCODING);
+			final Header cl = request.getFirstHeader(HTTP.CONTENT_LEN);
+			if (te != null && !HTTP.IDENTITY_CODING.equalsIgnoreCase(te.getValue())) {
+				if (!te.getValue().toLowerCase(Locale.ROOT).endsWith(HTTP.CHUNK_CODING)) {
+					reject(HttpStatus.SC_NOT_IMPLEMENTED, "Unsupported transfer encoding");
+					return;
+				}
+				state = ReadState.CHUNK_SIZE;
+			} else if (cl != null) {
+				try {
+					remaining = Long.parseLong(cl.getValue().trim());
+				} catch (NumberFormatException invalidLength) {
+					remaining = -1;
+				}
+				if (remaining < 0) {
+					reject(HttpStatus.SC_BAD_REQUEST, "Invalid Content-Length");
+					return;
+				} else if (isTooLarge(remaining)) {
+					reject(HttpStatus.SC_REQUEST_TOO_LONG, "Content Too Large");
+					return;
+				}
+				state = ReadState.BODY;
+			} else
+				remaining = 0;
+
+			if (remaining == 0 && state != ReadState.CHUNK_SIZE)
+				dispatch();
+			else {
+				final Header expect = request.getFirstHeader(HTTP.EXPECT_DIRECTIVE);
+				if (expect != null && HTTP.EXPECT_CONTINUE.equalsIgnoreCase(expect.getValue())
+					&& !request.getProtocolVersion().lessEquals(HttpVersion.HTTP_1_0))
+					send(ByteBuffer.wrap(CONTINUE), false, false);
+			}
+		}
+
+		/**
+		 * Checks whether the given size of the entity body exceeds the maximum.
+		 */
+		private boolean isTooLarge(final long size) {
+			return maxBodySize > 0 && size > maxBodySize;
+		}
+
+		/**
+		 * Hands the complete request over to a worker thread. Reading from the connection is suspended until the
+		 * response has been sent.
+		 */
+		private void dispatch() {
+			state = ReadState.PROCESSING;
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+			final NIOHTTPRequest r = request;
+			final AdmissionController.Permit p = permit;
+			request = null;
+			permit = null;
+			try {
+				workers.execute(() -> process(this, r, p));
+			} catch (RejectedExecutionException shutdown) {
+				r.discard();
+				if (p != null)
+					p.release();
+				close();
+			}
+		}
+
+		/**
+		 * Rejects an invalid request by sending an error response and closing the connection.
+		 */
+		private void reject(final int status, final String reason) throws IOException {
+			log.warn("Rejecting invalid request from {} : {} {}", remoteAddress, status, reason);
+			reject(status, reason, 0);
+		}
+
+		/**
+		 * Rejects the request by sending an error response and closing the connection.
+		 *
+		 * @param retryAfter	the number of seconds after which the client may retry, 0 if it should not retry
+		 */
+		private void reject(final int status, final String reason, final int retryAfter) throws IOException {
+			if (request != null)
+				request.discard();
+			request = null;
+			releasePermit();
+			state = ReadState.PROCESSING;
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+			final NIOHTTPResponse response = new NIOHTTPResponse(this, HttpVersion.HTTP_1_1, false);
+			response.sendError(status, reason);
+			if (retryAfter > 0)
+				response.addHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfter));
+			response.finish();
+		}
+
+		/**
+		 * Releases the admission of the request being read, if any.
+		 */
+		private void releasePermit() {
+			if (permit != null)
+				permit.release();
+			permit = null;
+		}
+
+		/**
+		 * Adds data to be sent to the client. When too much data is already waiting to be sent, the calling worker
+		 * thread is blocked until the client has read enough data.
+		 *
+		 * @param data		the data to send
+		 * @param last		indicates whether this is the last data of the response
+		 * @param close		indicates whether the connection must be closed after the response
+		 * @throws IOException	when the connection has been closed
+		 */
+		void send(final ByteBuffer data, final boolean last, final boolean close) throws IOException {
+			lock.lock();
+			try {
+				while (outputSize > MAX_PENDING_OUTPUT && !closed)
+					writable.await();
+				if (closed)
+					throw new IOException("Connection closed");
+				output.add(data);
+				outputSize += data.remaining();
+				responseComplete |= last;
+				closeAfterResponse |= close;
+				lastActivity = System.currentTimeMillis();
+			} catch (InterruptedException interrupted) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} finally {
+				lock.unlock();
+			}
+			if (Thread.currentThread() == selectorThread)
+				enableWrite();
+			else
+				requestWrite(this);
+		}
+
+		private void enableWrite() {
+			if (key.isValid())
+				key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+		}
+
+		/**
+		 * Writes the waiting data to the connection. When the response has been sent completely the connection is
+		 * either closed or reading the next request is resumed.
+		 */
+		void write() throws IOException {
+			lock.lock();
+			try {
+				while (!output.isEmpty()) {
+					final ByteBuffer b = output.peek();
+					final int n = channel.write(b);
+					outputSize -= n;
+					if (n > 0)
+						lastActivity = System.currentTimeMillis();
+					if (b.hasRemaining())
+						break;
+					output.poll();
+				}
+				writable.signalAll();
+				if (!output.isEmpty())
+					return;
+				key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+				if (!responseComplete)
+					return;
+				responseComplete = false;
+				if (closeAfterResponse) {
+					close();
+					return;
+				}
+			} finally {
+				lock.unlock();
+			}
+			state = ReadState.REQUEST_LINE;
+			headerSize = 0;
+			key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+			if (pending != null) {
+				final ByteBuffer p = pending;
+				pending = null;
+				parse(p);
+			}
+		}
+
+		/**
+		 * Closes the connection. A worker that is waiting to send data is woken up.
+		 */
+		void close() {
+			lock.lock();
+			try {
+				if (closed)
+					return;
+				closed = true;
+				writable.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			if (request != null)
+				request.discard();
+			releasePermit();
+			connections.remove(this);
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException closeError) {
+				log.debug("Error closing connection with {} : {}", remoteAddress, closeError.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Implements the Axis2 {@link RequestResponseTransport} which is used to signal the worker when the response is
+	 * available.
+	 */
+	private static class TransportControl implements RequestResponseTransport {
+		private final CountDownLatch 	responseReady = new CountDownLatch(1);
+		private volatile RequestResponseTransportStatus status = RequestResponseTransportStatus.INITIAL;
+		private volatile AxisFault		fault;
+		private volatile boolean		responseWritten;
+
+		@Override
+		public void acknowledgeMessage(MessageContext msgContext) throws AxisFault {
+			status = RequestResponseTransportStatus.ACKED;
+			responseReady.countDown();
+		}
+
+		@Override
+		public void awaitResponse() throws InterruptedException, AxisFault {
+			status = RequestResponseTransportStatus.WAITING;
+			responseReady.await();
+			if (fault != null)
+				throw fault;
+		}
+
+		@Override
+		public void signalResponseReady() {
+			status = RequestResponseTransportStatus.SIGNALLED;
+			responseReady.countDown();
+		}
+
+		@Override
+		public void signalFaultReady(AxisFault fault) {
+			this.fault = fault;
+			signalResponseReady();
+		}
+
+		@Override
+		public RequestResponseTransportStatus getStatus() {
+			return status;
+		}
+
+		@Override
+		public boolean isResponseWritten() {
+			return responseWritten;
+		}
+
+		@Override
+		public void setResponseWritten(boolean responseWritten) {
+			this.responseWritten = responseWritten;
+		}
+	}
+}
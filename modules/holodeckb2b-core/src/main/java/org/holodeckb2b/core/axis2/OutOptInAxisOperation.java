@@ -18,7 +18,11 @@ package org.holodeckb2b.core.axis2;
 
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import javax.xml.namespace.QName;
 
@@ -36,6 +40,7 @@ import org.apache.axis2.description.ClientUtils;
 import org.apache.axis2.description.OutInAxisOperation;
 import org.apache.axis2.description.WSDL2Constants;
 import org.apache.axis2.engine.AxisEngine;
+import org.apache.axis2.engine.Handler;
 import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.kernel.TransportUtils;
 import org.apache.axis2.kernel.http.HTTPConstants;
@@ -53,6 +58,8 @@ import org.holodeckb2b.core.MessageProcessingContext;
  * <p>This class extends {@link OutInAxisOperation} to return a different {@link OperationClient} implementation.
  * Although there is just one method that changes in the <code>OperationClient</code> it must be copied from the super
  * class a an inner class can not be extended.
+ * <p>Next to the normal blocking execution, the client can also execute the MEP without waiting for the response,
+ * see {@link OutOptInAxisOperationClient#executeAsync(Executor)}.
  *
  * @author Sander Fieten (sander at holodeck-b2b.org)
  */
@@ -130,6 +137,78 @@ public class OutOptInAxisOperation extends OutInAxisOperation {
          */
         @Override
         public void executeImpl(final boolean block) throws AxisFault {
+            final MessageContext mc = prepareExecution();
+            try {
+	            // Send the SOAP Message and receive a response
+	            MessageContext responseMessageContext = send(mc);
+	            handleResponse(responseMessageContext);
+            } finally {
+            	// Ensure that context is always cleaned up
+            	completed = true;
+            	complete(mc);
+			}
+        }
+
+        /**
+         * Executes the MEP without blocking the calling thread while waiting for the response. The <i>out flow</i> is
+         * executed by the calling thread up to the point where the HTTP request has been started. When the response
+         * is received, the handlers of the out flow are notified of the completion of the flow and the response is
+         * processed by the <i>in flow</i>. This is done by the given executor.
+         * <p>When the transport does not support asynchronous execution of the request, the MEP is executed
+         * completely by the calling thread.
+         *
+         * @param executor	the executor that should be used to process the response
+         * @return	a future that completes when the MEP has completed, which is exceptionally when an error occurred in
+         * 			processing the response
+         * @throws AxisFault if something goes wrong during the execution of the out flow
+         * @since 8.2.0
+         */
+        public CompletableFuture<Void> executeAsync(final Executor executor) throws AxisFault {
+            final MessageContext mc = prepareExecution();
+            mc.setProperty(HTTPTransportSender.MC_ASYNC_SEND, Boolean.TRUE);
+
+            final MessageContext responseMessageContext;
+            final HTTP2RequestImpl pendingRequest;
+            try {
+            	responseMessageContext = createResponseContext(mc);
+            	AxisEngine.send(mc);
+            	final Object request = mc.getOperationContext().getProperty(HTTPTransportSender.MC_HTTP_REQUEST);
+            	pendingRequest = request instanceof HTTP2RequestImpl
+            						&& ((HTTP2RequestImpl) request).getResponseReceived() != null ?
+            								(HTTP2RequestImpl) request : null;
+            	if (pendingRequest == null) {
+            		log.debug("Request was executed synchronously, handle response");
+            		copyResponseProperties(mc, responseMessageContext);
+            		handleResponse(responseMessageContext);
+            	}
+            } catch (AxisFault | RuntimeException sendFailure) {
+            	completed = true;
+            	complete(mc);
+            	throw sendFailure;
+            }
+            if (pendingRequest == null) {
+            	completed = true;
+            	complete(mc);
+            	return CompletableFuture.completedFuture(null);
+            }
+
+            return pendingRequest.getResponseReceived().handleAsync((r, exchangeFailure) -> {
+            	try {
+            		completeExecution(mc, responseMessageContext, pendingRequest);
+            		return null;
+            	} catch (AxisFault processingFailure) {
+            		throw new CompletionException(processingFailure);
+            	}
+            }, executor);
+        }
+
+        /**
+         * Prepares the message context of the message to send for execution of the MEP.
+         *
+         * @return	the message context of the message to send
+         * @throws AxisFault if the MEP was already executed or there is no message to send
+         */
+        private MessageContext prepareExecution() throws AxisFault {
             if (completed) {
                 throw new AxisFault(Messages.getMessage("mepiscomplted"));
             }
@@ -147,16 +226,44 @@ public class OutOptInAxisOperation extends OutInAxisOperation {
             } else if (mc.getTransportIn() == null) {
                 mc.setTransportIn(options.getTransportIn());
             }
+            return mc;
+        }
 
-            try {
-	            // Send the SOAP Message and receive a response
-	            MessageContext responseMessageContext = send(mc);
-	            handleResponse(responseMessageContext);
-            } finally {
-            	// Ensure that context is always cleaned up
+        /**
+         * Completes the asynchronous execution of the MEP when the response to the request has been received. As the
+         * {@link AxisEngine} does for a synchronous request, the handlers of the out flow are notified of the
+         * completion of the flow, after which the response is processed.
+         *
+         * @param msgContext				the request MessageContext
+         * @param responseMessageContext	the response MessageContext
+         * @param request					the executed request
+         * @throws AxisFault	if the exchange failed or something went wrong in processing the response
+         */
+        private void completeExecution(final MessageContext msgContext, final MessageContext responseMessageContext,
+        							   final HTTP2RequestImpl request) throws AxisFault {
+        	try {
+	        	AxisFault failure = null;
+	        	try {
+	        		request.processResponse(msgContext);
+	        	} catch (AxisFault exchangeFailure) {
+	        		failure = exchangeFailure;
+	        		msgContext.setFailureReason(exchangeFailure);
+	        	}
+	        	@SuppressWarnings("unchecked")
+				final List<Handler> handlers = (List<Handler>)
+	        							msgContext.getProperty(HTTPTransportSender.MC_DEFERRED_HANDLERS);
+	        	msgContext.removeProperty(HTTPTransportSender.MC_DEFERRED_HANDLERS);
+	        	if (handlers != null)
+	        		handlers.forEach(h -> h.flowComplete(msgContext));
+	        	if (failure != null)
+	        		throw failure;
+
+	        	copyResponseProperties(msgContext, responseMessageContext);
+	        	handleResponse(responseMessageContext);
+        	} finally {
             	completed = true;
-            	complete(mc);
-			}
+            	complete(msgContext);
+        	}
         }
 
         /**
@@ -168,7 +275,23 @@ public class OutOptInAxisOperation extends OutInAxisOperation {
          * @throws AxisFault Sends the message using a two way transport and waits for a response
          */
         protected MessageContext send(final MessageContext msgContext) throws AxisFault {
+            final MessageContext responseMessageContext = createResponseContext(msgContext);
 
+            //sending the message
+            AxisEngine.send(msgContext);
+
+            copyResponseProperties(msgContext, responseMessageContext);
+            return responseMessageContext;
+        }
+
+        /**
+         * Creates the MessageContext for the response to the given request and adds it to the operation context.
+         *
+         * @param msgContext the request MessageContext
+         * @return the response MessageContext
+         * @throws AxisFault if the response MessageContext cannot be added to the operation context
+         */
+        private MessageContext createResponseContext(final MessageContext msgContext) throws AxisFault {
         	// create the responseMessageContext
             final MessageContext responseMessageContext
                     = msgContext.getConfigurationContext().createMessageContext();
@@ -180,10 +303,18 @@ public class OutOptInAxisOperation extends OutInAxisOperation {
             addMessageContext(responseMessageContext);
             responseMessageContext.setServiceContext(msgContext.getServiceContext());
             responseMessageContext.setAxisMessage(axisOp.getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+            return responseMessageContext;
+        }
 
-            //sending the message
-            AxisEngine.send(msgContext);
-
+        /**
+         * Copies the information on the received response which the transport has set on the request MessageContext
+         * to the response MessageContext.
+         *
+         * @param msgContext				the request MessageContext
+         * @param responseMessageContext	the response MessageContext
+         */
+        private void copyResponseProperties(final MessageContext msgContext,
+        									final MessageContext responseMessageContext) {
             responseMessageContext.setDoingREST(msgContext.isDoingREST());
 
             // Copy RESPONSE properties which the transport set onto the request message context when it processed
@@ -207,8 +338,6 @@ public class OutOptInAxisOperation extends OutInAxisOperation {
                     .getProperty(MessageContext.TRANSPORT_IN));
             responseMessageContext.setTransportIn(msgContext.getTransportIn());
             responseMessageContext.setTransportOut(msgContext.getTransportOut());
-
-            return responseMessageContext;
         }
 
         /**
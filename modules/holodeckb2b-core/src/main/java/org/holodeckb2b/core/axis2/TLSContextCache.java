@@ -0,0 +1,290 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.KeyStore.PrivateKeyEntry;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+
+import org.apache.axis2.AxisFault;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
+import org.holodeckb2b.common.pmode.TLSConfiguration;
+import org.holodeckb2b.commons.security.CertificateUtils;
+import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.holodeckb2b.interfaces.security.SecurityProcessingException;
+import org.holodeckb2b.interfaces.security.trust.ICertificateManager;
+
+/**
+ * Caches the socket factories and SSLContexts used to create connections with a custom TLS configuration as specified
+ * in the P-Mode. By reusing the same {@link SSLContext} for all requests with the same TLS configuration, TLS sessions
+ * can be resumed and the client key pair does not need to be loaded for every request.
+ * <p>
+ * The cached socket factories are keyed by the effective {@link TLSConfiguration}, so a changed configuration in the
+ * P-Mode automatically results in a new socket factory. A cached socket factory is discarded when the installed
+ * <i>Certificate Manager</i> changes. As the Certificate Manager does not signal changes in the key pairs it manages,
+ * the client certificate used by a cached socket factory is checked again after a configurable time and the socket
+ * factory is recreated when the certificate has changed. The number of cached TLS configurations is limited, when
+ * the limit is reached the least recently used one is removed.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+class TLSContextCache {
+	private static final Logger log = LogManager.getLogger(TLSContextCache.class);
+
+	/**
+	 * Default time in milliseconds after which the client certificate of a cached TLS configuration is checked again
+	 */
+	static final long DEFAULT_MAX_AGE = 5 * 60 * 1000;
+	/**
+	 * Maximum number of cached TLS configurations
+	 */
+	private static final int MAX_ENTRIES = 64;
+
+	/**
+	 * Represents a cached TLS configuration
+	 */
+	private static class Entry {
+		final Registry<ConnectionSocketFactory>	registry;
+		final SSLContext			sslContext;
+		final ICertificateManager	certManager;
+		final Certificate			clientCert;
+		long						checked;
+		/**
+		 * Lock for checking the client certificate, which may need to access the key store. A lock is used instead of
+		 * the monitor so virtual threads waiting for the check don't pin their carrier thread.
+		 */
+		final ReentrantLock			lock = new ReentrantLock();
+
+		Entry(Registry<ConnectionSocketFactory> registry, SSLContext sslContext, ICertificateManager certManager,
+			  Certificate clientCert) {
+			this.registry = registry;
+			this.sslContext = sslContext;
+			this.certManager = certManager;
+			this.clientCert = clientCert;
+			this.checked = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Time in milliseconds after which the client certificate is checked again
+	 */
+	private final long maxAge;
+	/**
+	 * The cached TLS configurations, in access order so the least recently used one can be removed
+	 */
+	private final Map<TLSConfiguration, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<TLSConfiguration, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param maxAge	time in milliseconds after which the client certificate of a cached TLS configuration is
+	 * 					checked again
+	 */
+	TLSContextCache(final long maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * Gets the socket factory registry to use for creating connections with the given TLS configuration.
+	 *
+	 * @param tlsConfiguration  the custom TLS settings for the request
+	 * @return the socket factory registry
+	 * @throws AxisFault if the SSLContext for the TLS configuration could not be created
+	 */
+	Registry<ConnectionSocketFactory> getSocketFactoryRegistry(final TLSConfiguration tlsConfiguration)
+																									throws AxisFault {
+		return getEntry(tlsConfiguration).registry;
+	}
+
+	/**
+	 * Gets the SSLContext to use for creating connections with the given TLS configuration.
+	 *
+	 * @param tlsConfiguration  the custom TLS settings for the request
+	 * @return the SSLContext
+	 * @throws AxisFault if the SSLContext for the TLS configuration could not be created
+	 */
+	SSLContext getSSLContext(final TLSConfiguration tlsConfiguration) throws AxisFault {
+		return getEntry(tlsConfiguration).sslContext;
+	}
+
+	/**
+	 * Gets the cached entry for the given TLS configuration, creating a new one if there is none yet or if the client
+	 * certificate has changed.
+	 */
+	private Entry getEntry(final TLSConfiguration tlsConfiguration) throws AxisFault {
+		final ICertificateManager certManager = HolodeckB2BCoreInterface.getCertificateManager();
+		Entry e;
+		synchronized (entries) {
+			e = entries.get(tlsConfiguration);
+		}
+		if (e != null && e.certManager == certManager) {
+			e.lock.lock();
+			try {
+				if (System.currentTimeMillis() - e.checked < maxAge)
+					return e;
+				log.trace("Check client certificate of cached TLS configuration");
+				final PrivateKeyEntry clientKeyPair = getClientKeyPair(tlsConfiguration, certManager);
+				if (Objects.equals(e.clientCert, clientKeyPair != null ? clientKeyPair.getCertificate() : null)) {
+					e.checked = System.currentTimeMillis();
+					return e;
+				}
+			} finally {
+				e.lock.unlock();
+			}
+			log.debug("Client certificate of TLS configuration has changed, create new SSLContext");
+		}
+		e = createEntry(tlsConfiguration, certManager);
+		synchronized (entries) {
+			entries.put(tlsConfiguration, e);
+		}
+		return e;
+	}
+
+	/**
+	 * Removes all cached TLS configurations.
+	 */
+	void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Creates the socket factory registry for the given TLS configuration.
+	 */
+	private Entry createEntry(final TLSConfiguration tlsConfiguration, final ICertificateManager certManager)
+																									throws AxisFault {
+		String[] allowedProtocols = tlsConfiguration.getAllowedProtocols();
+		if (allowedProtocols != null && allowedProtocols.length > 0)
+			log.debug("Set allowed protocols to : {}", Arrays.toString(allowedProtocols));
+		else
+			// Use default of TLS 1.2 or 1.3
+			allowedProtocols = new String[] { "TLSv1.2", "TLSv1.3" };
+
+		final String[] allowedCipherSuites = tlsConfiguration.getAllowedCipherSuites();
+		if (allowedCipherSuites != null && allowedCipherSuites.length > 0)
+			log.debug("Set allowed cipher suites to : {}", Arrays.toString(allowedCipherSuites));
+
+		final PrivateKeyEntry clientKeyPair = getClientKeyPair(tlsConfiguration, certManager);
+		final SSLContext sslContext = createSSLContext(tlsConfiguration, clientKeyPair);
+		return new Entry(RegistryBuilder.<ConnectionSocketFactory>create()
+							.register("http", PlainConnectionSocketFactory.getSocketFactory())
+							.register("https", new SSLConnectionSocketFactory(sslContext,
+																			  allowedProtocols,
+																			  allowedCipherSuites,
+																			  (HostnameVerifier) null))
+							.build(),
+						 sslContext, certManager, clientKeyPair != null ? clientKeyPair.getCertificate() : null);
+	}
+
+	/**
+	 * Gets the key pair to use for TLS client authentication from the installed Certificate Manager.
+	 *
+	 * @return the key pair, or <code>null</code> if no client authentication is configured
+	 * @throws AxisFault if the key pair could not be retrieved
+	 */
+	private PrivateKeyEntry getClientKeyPair(final TLSConfiguration tlsConfiguration,
+											 final ICertificateManager certManager) throws AxisFault {
+		final String clientCertAlias = tlsConfiguration.getClientCertificateAlias();
+		if (Utils.isNullOrEmpty(clientCertAlias))
+			return null;
+		try {
+			return certManager.getKeyPair(clientCertAlias, tlsConfiguration.getClientCertificatePassword());
+		} catch (SecurityProcessingException clientCertError) {
+			log.error("Could not load TLS client certificate ({}): {}", clientCertAlias,
+						Utils.getExceptionTrace(clientCertError));
+			throw new AxisFault("Could not load TLS client certificate", clientCertError);
+		}
+	}
+
+	/**
+	 * Creates a customised SSLContext based on the TLS configuration provided in the P-Mode of the [primary] Message
+	 * Unit that is being sent.
+	 *
+	 * @param tlsConfiguration  the custom TLS settings for this request
+	 * @param clientCert		the key pair to use for TLS client authentication, <code>null</code> if none
+	 * @return the customised SSLContext
+	 * @throws AxisFault if an error occurs setting up the SSLContext
+	 */
+	private SSLContext createSSLContext(final TLSConfiguration tlsConfiguration, final PrivateKeyEntry clientCert)
+																									throws AxisFault {
+		KeyManager[] kms = null;
+		if (clientCert != null) {
+			final String clientCertAlias = tlsConfiguration.getClientCertificateAlias();
+			try {
+				log.trace("Create custom KeyManager to use client certificate (alias={})", clientCertAlias);
+				final String pwd = tlsConfiguration.getClientCertificatePassword();
+				KeyStore ks = KeyStore.getInstance(KeyStore.getDefaultType());
+				ks.load(null, null);
+				ks.setEntry(clientCertAlias, clientCert, new KeyStore.PasswordProtection(pwd.toCharArray()));
+				final KeyManagerFactory kmfactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		        kmfactory.init(ks, pwd.toCharArray());
+		        kms = kmfactory.getKeyManagers();
+		        if (log.isDebugEnabled())
+		        	log.debug("Using TLS client certificate (CN={},issuer={}))",
+			        			CertificateUtils.getSubjectCN((X509Certificate) clientCert.getCertificate()),
+			        			CertificateUtils.getIssuerCN((X509Certificate) clientCert.getCertificate()));
+			} catch (Exception clientCertError) {
+				log.error("Could not load TLS client certificate ({}): {}", clientCertAlias,
+							Utils.getExceptionTrace(clientCertError));
+				throw new AxisFault("Could not load TLS client certificate", clientCertError);
+			}
+		}
+
+		SSLContext sslContext;
+		try {
+			log.trace("Create custom SSLContext");
+			sslContext = SSLContext.getInstance("TLS", BouncyCastleJsseProvider.PROVIDER_NAME);
+			sslContext.init(kms, new TrustManager[] {new TLSCertificateTrustManager(tlsConfiguration)}, null);
+			return sslContext;
+		} catch (NoSuchAlgorithmException | NoSuchProviderException | KeyManagementException e) {
+			log.error("Could not create SSLContext: {}", Utils.getExceptionTrace(e));
+			throw new AxisFault("Could not create SSLContext", e);
+		}
+	}
+}
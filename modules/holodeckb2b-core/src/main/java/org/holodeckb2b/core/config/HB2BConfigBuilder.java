@@ -132,5 +132,8 @@ public class HB2BConfigBuilder extends AxisConfigBuilder {
         // Indicator whether strict header validation should be performed
         hb2bConfig.setStrictHeaderValidation(Utils.isTrue((String) axisConfig
         															   .getParameterValue("StrictHeaderValidation")));    	
+
+        // Indicator whether virtual threads should be used for the thread pools
+        hb2bConfig.setUseVirtualThreads(Utils.isTrue((String) axisConfig.getParameterValue("UseVirtualThreads")));
     }
 }
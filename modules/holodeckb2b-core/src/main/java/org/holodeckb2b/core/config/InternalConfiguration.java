@@ -94,6 +94,12 @@ public class InternalConfiguration extends AxisConfiguration implements IConfigu
      */
     private boolean useStrictHeaderValidation = false;
 
+    /**
+     * Indicator whether virtual threads should be used for the thread pools
+     * @since 8.2.0
+     */
+    private boolean useVirtualThreads = false;
+
     /**
      * Creates a new Holodeck B2B configuration instance that uses the given path as its home directory.
      *
@@ -258,6 +264,22 @@ public class InternalConfiguration extends AxisConfiguration implements IConfigu
 		useStrictHeaderValidation = strict;
 	}
 
+	@Override
+	public boolean useVirtualThreads() {
+		return useVirtualThreads;
+	}
+
+	/**
+	 * Sets the global setting whether virtual threads should be used for the thread pools.
+	 *
+	 * @param useVirtual	<code>true</code> if virtual threads should be used when available,<br>
+	 * 						<code>false</code> if platform threads should be used
+	 * @since 8.2.0
+	 */
+	public void setUseVirtualThreads(final boolean useVirtual) {
+		useVirtualThreads = useVirtual;
+	}
+
 	@Override
 	public HashMap<String, AxisModule> getModules() {
 		Set<Entry<String, AxisModule>> cfgdModules = super.getModules().entrySet();
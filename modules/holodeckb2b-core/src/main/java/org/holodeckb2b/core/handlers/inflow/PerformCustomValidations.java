@@ -82,13 +82,13 @@ public class PerformCustomValidations extends AbstractUserMessageHandler {
             														   ProcessingState.READY_FOR_DELIVERY);
             } else {
                 if (!validationResult.shouldRejectMessage()) {
-                    log.info("User message [" + userMessage.getMessageId()
-                    										+ "] contains validation errors, but can be processed");
+                    log.info("User message [{}] contains validation errors, but can be processed",
+                             userMessage.getMessageId());
                 	HolodeckB2BCore.getStorageManager().setProcessingState(userMessage,
                 														   ProcessingState.READY_FOR_DELIVERY);
                 } else {
-                    log.info("User message [" + userMessage.getMessageId()
-                    								+ "] is not valid and must be rejected, generate Other error.");
+                    log.info("User message [{}] is not valid and must be rejected, generate Other error.",
+                             userMessage.getMessageId());
                     OtherContentError otherError = new OtherContentError(
                                                            buildErrorDetailText(validationResult.getValidationErrors()),
                                                            userMessage.getMessageId());
@@ -53,7 +53,7 @@ public class ProcessErrors extends AbstractBaseHandler {
         final Collection<IErrorMessageEntity> errorSignals = procCtx.getReceivedErrors();
         
         if (!Utils.isNullOrEmpty(errorSignals)) {
-            log.debug("Message contains " + errorSignals.size() + " Error signals, start processing");
+            log.debug("Message contains {} Error signals, start processing", errorSignals.size());
             for (final IErrorMessageEntity e : errorSignals)
                 // Ignore Errors that already failed
                 if (e.getCurrentProcessingState().getState() != ProcessingState.FAILURE)
@@ -80,7 +80,7 @@ public class ProcessErrors extends AbstractBaseHandler {
      */
     protected void processErrorSignal(final IErrorMessageEntity errSignal, final IMessageProcessingContext procCtx, 
     								  final Logger log) throws StorageException {
-        log.debug("Start processing Error Signal [msgId=" + errSignal.getMessageId() + "]");
+        log.debug("Start processing Error Signal [msgId={}]", errSignal.getMessageId());
         StorageManager storageManager = HolodeckB2BCore.getStorageManager();
         // Change processing state to indicate we start processing the error. Also checks that the error is not
         // already being processed
@@ -103,16 +103,15 @@ public class ProcessErrors extends AbstractBaseHandler {
         // assumed to be referenced
         final String refToMessageId = errSignal.getRefToMessageId();
         if (!Utils.isNullOrEmpty(refToMessageId)) {
-            log.debug("Error Signal [" + errSignal.getMessageId() + "] references messageId: "
-                        + refToMessageId);
+            log.debug("Error Signal [{}] references messageId: {}", errSignal.getMessageId(), refToMessageId);
             final IMessageUnitEntity sentMessage = procCtx.getSendingMessageUnit(refToMessageId);
             if (sentMessage != null)
             	refdMessages = Collections.singletonList(sentMessage);
             else
             	refdMessages = HolodeckB2BCore.getQueryManager().getMessageUnitsWithId(refToMessageId, Direction.OUT);        
         } else {
-            log.debug("Error Signal [" + errSignal.getMessageId() + "] does not contain reference."
-            			+ "Assuming it refers to all sent messages");
+            log.debug("Error Signal [{}] does not contain reference.Assuming it refers to all sent messages",
+                      errSignal.getMessageId());
             refdMessages = procCtx.getSendingMessageUnits();
         }
 
@@ -129,21 +128,21 @@ public class ProcessErrors extends AbstractBaseHandler {
             for (final IMessageUnitEntity mu : refdMessages) {
                 if (MessageUnitUtils.isWarning(errSignal)) {
                     if (mu instanceof IUserMessage)
-                    	log.info("Received an Error Signal for User Message [msgId=" + mu.getMessageId() 
-                    			 + "] with severity warning, message may not have been processed by receiver!");
-                    log.debug("Error level is warning, set processing state of referenced message ["
-                              + mu.getMessageId() + "] to warning");
+                    	log.info("Received an Error Signal for User Message [msgId={}] with severity warning, message "
+                    			 + "may not have been processed by receiver!", mu.getMessageId());
+                    log.debug("Error level is warning, set processing state of referenced message [{}] to warning",
+                              mu.getMessageId());
                     storageManager.setProcessingState(mu, ProcessingState.WARNING);
                 } else {
                     if (mu instanceof IUserMessage)
-                    	log.info("Received an Error Signal for User Message [msgId=" + mu.getMessageId() 
-                    			 + "] with severity failure, message has not been processed by receiver!");                	
-                	log.debug("Error level is failure, set processing state of referenced message ["
-                              + mu.getMessageId() + "] to failure");
+                    	log.info("Received an Error Signal for User Message [msgId={}] with severity failure, message "
+                    			 + "has not been processed by receiver!", mu.getMessageId());                	
+                	log.debug("Error level is failure, set processing state of referenced message [{}] to failure",
+                              mu.getMessageId());
                     storageManager.setProcessingState(mu, ProcessingState.FAILURE);
                 }
             }
-            log.info("Processed Error Signal [" + errSignal.getMessageId() + "]");
+            log.info("Processed Error Signal [{}]", errSignal.getMessageId());
             storageManager.setProcessingState(errSignal, ProcessingState.READY_FOR_DELIVERY);            
         }
     }
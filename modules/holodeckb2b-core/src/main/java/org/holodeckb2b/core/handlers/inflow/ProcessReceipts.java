@@ -61,7 +61,7 @@ public class ProcessReceipts extends AbstractBaseHandler {
         final Collection<IReceiptEntity>  receipts = procCtx.getReceivedReceipts();
 
         if (!Utils.isNullOrEmpty(receipts)) {
-            log.debug("Message contains " + receipts.size() + " Receipts signals, start processing");
+            log.debug("Message contains {} Receipts signals, start processing", receipts.size());
             for (final IReceiptEntity r : receipts)
                 // Ignore Receipts that already failed
                 if (r.getCurrentProcessingState().getState() != ProcessingState.FAILURE)
@@ -90,8 +90,8 @@ public class ProcessReceipts extends AbstractBaseHandler {
         }
 
         final String refToMsgId = receipt.getRefToMessageId();
-        log.trace("Start processing Receipt [msgId=" + receipt.getMessageId()
-                    + "] for referenced message with msgId=" + refToMsgId);
+        log.trace("Start processing Receipt [msgId={}] for referenced message with msgId={}",
+                  receipt.getMessageId(), refToMsgId);
 
         Collection<IMessageUnitEntity> refdMsgs = null;
         final IMessageUnitEntity sentMessage = procCtx.getSendingMessageUnit(refToMsgId);
@@ -124,8 +124,7 @@ public class ProcessReceipts extends AbstractBaseHandler {
                     // Change processing state of the reference message unit to delivered, but only if it is
                     // waiting for a receipt as we may otherwise overwrite an error state.
                     if (isWaitingForReceipt(ackedMessage)) {
-                        log.info("Receipt received for User Message [msgId= " + refToMsgId
-                        			+ "] => successfully delivered");
+                        log.info("Receipt received for User Message [msgId= {}] => successfully delivered", refToMsgId);
                         updateManager.setProcessingState(ackedMessage, ProcessingState.DELIVERED);
                         // Maybe the Receipt must also be delivered to the business application, so change state
                         // to "ready for delivery"
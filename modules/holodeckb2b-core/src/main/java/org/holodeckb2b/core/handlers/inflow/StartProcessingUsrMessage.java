@@ -37,13 +37,13 @@ public class StartProcessingUsrMessage extends AbstractUserMessageHandler {
     										  final Logger log) throws StorageException {
         final String msgId = um.getMessageId();
         String t=msgId;
-        log.trace("Change processing state to indicate start of processing of message [" + msgId + "]" );
+        log.trace("Change processing state to indicate start of processing of message [{}]", msgId);
         if (!HolodeckB2BCore.getStorageManager().setProcessingState(um, ProcessingState.PROCESSING)) {
             log.warn("User message [msgId= " + msgId + "] is already being processed");
             // Remove the User Message from the context to prevent further processing
             procCtx.setUserMessage(null);
         } else
-            log.trace("User message [msgId= " + msgId + "] is ready for processing");
+            log.trace("User message [msgId= {}] is ready for processing", msgId);
 
         return InvocationResponse.CONTINUE;
     }
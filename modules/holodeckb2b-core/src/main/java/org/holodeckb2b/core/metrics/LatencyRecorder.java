@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the processing times of a handler in a specific flow or of the message exchanges of a specific message unit
+ * type. The times are counted in a histogram with buckets that double in size, i.e. bucket <i>i</i> counts the times
+ * from 2<sup>i-1</sup> up to 2<sup>i</sup> microseconds. Recording does not use locks, so it can be done by the
+ * threads processing the messages without influencing each other.
+ * <p>As the counters are updated independently, the statistics retrieved while recording may be slightly inconsistent,
+ * e.g. the number of invocations may not include the last recorded time yet.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ * @see ProcessingMetrics
+ */
+public final class LatencyRecorder implements LatencyRecorderMXBean {
+	/**
+	 * The number of buckets in the histogram, the last bucket counts all times longer than 2<sup>38</sup> us.
+	 */
+	static final int BUCKETS = 40;
+
+	private final String		category;
+	private final String		flow;
+	private final String		name;
+
+	private final LongAdder[]	buckets = new LongAdder[BUCKETS];
+	private final LongAdder		totalTime = new LongAdder();
+	private final LongAdder		failures = new LongAdder();
+	private final AtomicLong	maxTime = new AtomicLong();
+
+	/**
+	 * Creates a new recorder.
+	 *
+	 * @param category	the category of the recorded times, i.e. the handled protocol or the message exchange
+	 * @param flow		the flow in which the handler runs, <code>null</code> for message exchanges
+	 * @param name		the name of the handler or message unit type
+	 */
+	LatencyRecorder(final String category, final String flow, final String name) {
+		this.category = category;
+		this.flow = flow;
+		this.name = name;
+		for (int i = 0; i < BUCKETS; i++)
+			buckets[i] = new LongAdder();
+	}
+
+	/**
+	 * Records the processing time of an invocation.
+	 *
+	 * @param nanos		the processing time in nanoseconds
+	 * @param failed	indicates whether the processing failed
+	 */
+	public void record(final long nanos, final boolean failed) {
+		final long micros = nanos < 0 ? 0 : nanos / 1000;
+		buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros))].increment();
+		totalTime.add(micros);
+		if (failed)
+			failures.increment();
+		long max = maxTime.get();
+		while (micros > max && !maxTime.compareAndSet(max, micros))
+			max = maxTime.get();
+	}
+
+	/**
+	 * @return a snapshot of the recorded statistics
+	 */
+	public LatencyStatistics getStatistics() {
+		final long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++)
+			counts[i] = buckets[i].sum();
+		return new LatencyStatistics(category, flow, name, counts, totalTime.sum(), maxTime.get(), failures.sum());
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getInvocations() {
+		long count = 0;
+		for (LongAdder b : buckets)
+			count += b.sum();
+		return count;
+	}
+
+	@Override
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	@Override
+	public double getMeanTime() {
+		return getStatistics().getMeanTime();
+	}
+
+	@Override
+	public long getMaxTime() {
+		return maxTime.get();
+	}
+
+	@Override
+	public long getMedianTime() {
+		return getStatistics().getPercentile(50);
+	}
+
+	@Override
+	public long getP90Time() {
+		return getStatistics().getPercentile(90);
+	}
+
+	@Override
+	public long getP99Time() {
+		return getStatistics().getPercentile(99);
+	}
+
+	@Override
+	public void reset() {
+		for (LongAdder b : buckets)
+			b.reset();
+		totalTime.reset();
+		failures.reset();
+		maxTime.set(0);
+	}
+}
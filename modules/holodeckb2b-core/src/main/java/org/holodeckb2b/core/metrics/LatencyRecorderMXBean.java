@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.metrics;
+
+/**
+ * Defines the JMX management interface of a {@link LatencyRecorder}. All times are in microseconds. As the recorder
+ * uses a histogram with exponentially growing buckets the percentiles are estimates.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public interface LatencyRecorderMXBean {
+
+	/**
+	 * @return the name of the recorded handler or message unit type
+	 */
+	String getName();
+
+	/**
+	 * @return the number of recorded invocations
+	 */
+	long getInvocations();
+
+	/**
+	 * @return the number of recorded invocations that failed
+	 */
+	long getFailures();
+
+	/**
+	 * @return the mean time of the recorded invocations
+	 */
+	double getMeanTime();
+
+	/**
+	 * @return the longest time of the recorded invocations
+	 */
+	long getMaxTime();
+
+	/**
+	 * @return the estimated median time of the recorded invocations
+	 */
+	long getMedianTime();
+
+	/**
+	 * @return the estimated time within which 90% of the recorded invocations completed
+	 */
+	long getP90Time();
+
+	/**
+	 * @return the estimated time within which 99% of the recorded invocations completed
+	 */
+	long getP99Time();
+
+	/**
+	 * Resets the recorded statistics.
+	 */
+	void reset();
+}
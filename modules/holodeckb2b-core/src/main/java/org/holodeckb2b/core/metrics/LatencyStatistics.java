@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.metrics;
+
+import java.io.Serializable;
+
+/**
+ * Is a snapshot of the statistics collected by a {@link LatencyRecorder}. All times are in microseconds.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public class LatencyStatistics implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String	category;
+	private final String	flow;
+	private final String	name;
+	private final long[]	buckets;
+	private final long		invocations;
+	private final long		totalTime;
+	private final long		maxTime;
+	private final long		failures;
+
+	LatencyStatistics(final String category, final String flow, final String name, final long[] buckets,
+					  final long totalTime, final long maxTime, final long failures) {
+		this.category = category;
+		this.flow = flow;
+		this.name = name;
+		this.buckets = buckets;
+		long count = 0;
+		for (long b : buckets)
+			count += b;
+		this.invocations = count;
+		this.totalTime = totalTime;
+		this.maxTime = maxTime;
+		this.failures = failures;
+	}
+
+	/**
+	 * @return the category of the statistics, i.e. the messaging protocol handled by the handler or
+	 * 		   {@link ProcessingMetrics#EXCHANGE} for the complete message exchanges
+	 */
+	public String getCategory() {
+		return category;
+	}
+
+	/**
+	 * @return the flow in which the handler runs, <code>null</code> for message exchanges
+	 */
+	public String getFlow() {
+		return flow;
+	}
+
+	/**
+	 * @return the name of the handler or message unit type
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the number of recorded invocations
+	 */
+	public long getInvocations() {
+		return invocations;
+	}
+
+	/**
+	 * @return the number of recorded invocations that failed
+	 */
+	public long getFailures() {
+		return failures;
+	}
+
+	/**
+	 * @return the total time of all recorded invocations
+	 */
+	public long getTotalTime() {
+		return totalTime;
+	}
+
+	/**
+	 * @return the mean time of the recorded invocations, or 0 if no invocations were recorded
+	 */
+	public double getMeanTime() {
+		return invocations == 0 ? 0 : (double) totalTime / invocations;
+	}
+
+	/**
+	 * @return the longest time of the recorded invocations
+	 */
+	public long getMaxTime() {
+		return maxTime;
+	}
+
+	/**
+	 * Gets an estimate of the time within which the given percentage of invocations completed. The estimate is
+	 * interpolated within the histogram bucket that contains the percentile and is never more than the longest time
+	 * recorded.
+	 *
+	 * @param percentage	the percentage of invocations, between 0 and 100
+	 * @return	the estimated time, or 0 if no invocations were recorded
+	 */
+	public long getPercentile(final double percentage) {
+		if (invocations == 0)
+			return 0;
+		final double rank = Math.max(1, Math.ceil(invocations * percentage / 100));
+		long counted = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			if (buckets[i] > 0 && counted + buckets[i] >= rank) {
+				final long lower = i == 0 ? 0 : 1L << (i - 1);
+				final long upper = 1L << i;
+				final long estimate = lower + (long) ((upper - lower) * (rank - counted) / buckets[i]);
+				return Math.min(estimate, maxTime);
+			}
+			counted += buckets[i];
+		}
+		return maxTime;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s%s.%s: invocations=%d, failures=%d, mean=%.1f, median=%d, p90=%d, p99=%d, max=%d",
+							 category, flow != null ? "." + flow : "", name, invocations, failures, getMeanTime(),
+							 getPercentile(50), getPercentile(90), getPercentile(99), maxTime);
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.common.util.MessageUnitUtils;
+import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
+import org.holodeckb2b.interfaces.messagemodel.IMessageUnit;
+
+/**
+ * Manages the {@link LatencyRecorder}s that collect the processing times of the handlers and of the complete message
+ * exchanges, i.e. from the receipt of the request until the response is written. The recorders are created when the
+ * first time is recorded and registered as MXBean in the platform MBean server under the <i>org.holodeckb2b</i>
+ * domain. The statistics of all recorders can also be retrieved using {@link #getStatistics()}.
+ * <p>The statistics of the send operations per priority class of the sender workers are registered in the same
+ * domain using {@link #registerSenderStatistics(SenderStatisticsMXBean)}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ * @see org.holodeckb2b.common.handlers.AbstractBaseHandler
+ */
+public final class ProcessingMetrics {
+	private static final Logger log = LogManager.getLogger(ProcessingMetrics.class);
+
+	/**
+	 * The category used for the recorders of the complete message exchanges
+	 */
+	public static final String EXCHANGE = "exchange";
+	/**
+	 * The JMX domain under which the recorders are registered
+	 */
+	private static final String JMX_DOMAIN = "org.holodeckb2b";
+
+	private static final ConcurrentHashMap<String, LatencyRecorder>	recorders = new ConcurrentHashMap<>();
+
+	private ProcessingMetrics() {}
+
+	/**
+	 * Gets the recorder for the handler with the given name running in the given flow.
+	 *
+	 * @param protocol	the messaging protocol handled by the handler, may be <code>null</code>
+	 * @param flow		the name of the flow in which the handler runs
+	 * @param handler	the name of the handler
+	 * @return	the recorder for the handler in the flow
+	 */
+	public static LatencyRecorder getHandlerRecorder(final String protocol, final String flow, final String handler) {
+		final String category = protocol != null && !protocol.isEmpty() ? protocol : "default";
+		return getRecorder(category, flow, handler);
+	}
+
+	/**
+	 * Records the processing time of a message exchange in which Holodeck B2B was the responder. The time is recorded
+	 * for each message unit received in the request.
+	 *
+	 * @param procCtx	the message processing context of the exchange
+	 * @param nanos		the time from the receipt of the request until the response was written, in nanoseconds
+	 * @param failed	indicates whether the processing of the request failed with an exception
+	 */
+	public static void recordExchange(final IMessageProcessingContext procCtx, final long nanos,
+									  final boolean failed) {
+		for (IMessageUnit mu : procCtx.getReceivedMessageUnits())
+			getRecorder(EXCHANGE, null, MessageUnitUtils.getMessageUnitName(mu)).record(nanos, failed);
+	}
+
+	/**
+	 * Gets the statistics of all recorders, sorted on category, flow and name.
+	 *
+	 * @return	the current statistics of the handlers and message exchanges
+	 */
+	public static Collection<LatencyStatistics> getStatistics() {
+		final List<LatencyStatistics> stats = new ArrayList<>(recorders.size());
+		recorders.values().forEach(r -> stats.add(r.getStatistics()));
+		stats.sort(Comparator.comparing(LatencyStatistics::getCategory)
+							 .thenComparing(s -> s.getFlow() != null ? s.getFlow() : "")
+							 .thenComparing(LatencyStatistics::getName));
+		return stats;
+	}
+
+	/**
+	 * Resets the statistics of all recorders.
+	 */
+	public static void reset() {
+		recorders.values().forEach(LatencyRecorder::reset);
+	}
+
+	/**
+	 * Registers the statistics of the send operations of a priority class of a sender worker in the platform MBean
+	 * server. When statistics for the same worker and priority class are already registered, they are replaced.
+	 * Registration problems are only logged as they do not affect the sending of messages.
+	 *
+	 * @param stats	the statistics to register
+	 */
+	public static void registerSenderStatistics(final SenderStatisticsMXBean stats) {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			final ObjectName name = getSenderStatisticsName(stats);
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+			server.registerMBean(stats, name);
+		} catch (JMException | SecurityException registrationFailed) {
+			log.warn("Could not register the {} priority send statistics of {} in JMX : {}", stats.getPriority(),
+					 stats.getWorker(), registrationFailed.getMessage());
+		}
+	}
+
+	/**
+	 * Removes the statistics of the send operations of a priority class of a sender worker from the platform MBean
+	 * server.
+	 *
+	 * @param stats	the statistics to remove
+	 */
+	public static void unregisterSenderStatistics(final SenderStatisticsMXBean stats) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(getSenderStatisticsName(stats));
+		} catch (JMException | SecurityException unregistrationFailed) {
+			log.debug("Could not unregister the {} priority send statistics of {} from JMX : {}",
+					  stats.getPriority(), stats.getWorker(), unregistrationFailed.getMessage());
+		}
+	}
+
+	private static ObjectName getSenderStatisticsName(final SenderStatisticsMXBean stats) throws JMException {
+		return new ObjectName(JMX_DOMAIN + ":type=SenderMetrics,worker=" + ObjectName.quote(stats.getWorker())
+								+ ",priority=" + stats.getPriority());
+	}
+
+	private static LatencyRecorder getRecorder(final String category, final String flow, final String name) {
+		final String key = category + (flow != null ? "." + flow : "") + "." + name;
+		LatencyRecorder recorder = recorders.get(key);
+		if (recorder == null)
+			recorder = recorders.computeIfAbsent(key, k -> register(new LatencyRecorder(category, flow, name)));
+		return recorder;
+	}
+
+	/**
+	 * Registers the recorder in the platform MBean server. Registration problems are only logged as the recorder can
+	 * still be used and its statistics are also available through {@link #getStatistics()}.
+	 */
+	private static LatencyRecorder register(final LatencyRecorder recorder) {
+		final LatencyStatistics s = recorder.getStatistics();
+		try {
+			final ObjectName name = new ObjectName(JMX_DOMAIN + ":type="
+										+ (EXCHANGE.equals(s.getCategory()) ? "ExchangeMetrics"
+																			: "HandlerMetrics,protocol=" + s.getCategory()
+																			  + ",flow=" + s.getFlow())
+										+ ",name=" + ObjectName.quote(s.getName()));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(recorder, name);
+		} catch (JMException | SecurityException registrationFailed) {
+			log.warn("Could not register the metrics of {} in JMX : {}", s.getName(), registrationFailed.getMessage());
+		}
+		return recorder;
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.metrics;
+
+/**
+ * Defines the JMX management interface of the statistics of the send operations of one priority class executed by a
+ * {@link org.holodeckb2b.core.workers.SenderWorker}. All times are in milliseconds.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ * @see ProcessingMetrics#registerSenderStatistics(SenderStatisticsMXBean)
+ */
+public interface SenderStatisticsMXBean {
+
+	/**
+	 * @return the name of the sender worker
+	 */
+	String getWorker();
+
+	/**
+	 * @return the name of the priority class
+	 */
+	String getPriority();
+
+	/**
+	 * @return the number of send operations waiting for execution
+	 */
+	int getQueued();
+
+	/**
+	 * @return the number of send operations currently executing
+	 */
+	int getExecuting();
+
+	/**
+	 * @return the total number of send operations started
+	 */
+	long getStarted();
+
+	/**
+	 * @return the average time the started send operations had to wait
+	 */
+	long getAverageWait();
+
+	/**
+	 * @return the maximum time a started send operation had to wait
+	 */
+	long getMaxWait();
+}
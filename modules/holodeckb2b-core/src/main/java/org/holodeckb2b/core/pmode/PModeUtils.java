@@ -27,6 +27,7 @@ import org.holodeckb2b.interfaces.general.EbMSConstants;
 import org.holodeckb2b.interfaces.messagemodel.Direction;
 import org.holodeckb2b.interfaces.messagemodel.IErrorMessage;
 import org.holodeckb2b.interfaces.messagemodel.IMessageUnit;
+import org.holodeckb2b.interfaces.messagemodel.IReceipt;
 import org.holodeckb2b.interfaces.messagemodel.IUserMessage;
 import org.holodeckb2b.interfaces.pmode.ILeg;
 import org.holodeckb2b.interfaces.pmode.ILeg.Label;
@@ -143,6 +144,34 @@ public class PModeUtils {
     			return getSendLeg(pmode);
     }
 
+    /**
+     * Gets the URL the given message unit will be sent to. The URL is determined in the same way as done by the HTTP
+     * transport configuration of the ebMS3/AS4 module, i.e. Receipts and Errors can have their own URL and otherwise
+     * the URL from the Leg's protocol configuration is used.
+     *
+     * @param m		Message unit to determine the destination for
+     * @return		The destination URL, or <code>null</code> if it cannot be determined
+     * @since 8.2.0
+     */
+    public static String getDestinationURL(final IMessageUnit m) {
+        String destURL = null;
+        try {
+            final ILeg leg = getLeg(m);
+            if (leg == null)
+                return null;
+            try {
+                if (m instanceof IReceipt)
+                    destURL = leg.getReceiptConfiguration().getTo();
+                else if (m instanceof IErrorMessage)
+                    destURL = leg.getUserMessageFlow().getErrorHandlingConfiguration().getReceiverErrorsTo();
+            } catch (NullPointerException npe) {}
+            if (destURL == null)
+                destURL = leg.getProtocol().getAddress();
+        } catch (final NullPointerException | IllegalStateException noLeg) {
+        }
+        return destURL;
+    }
+
     /**
      * Gets the configuration of the <i>Leg</i> that governs the sending by Holodeck B2B of <i>User Message</i> message
      * units. Note that there can be no such leg if the given P-Mode is managing a One-Way MEP for receiving.
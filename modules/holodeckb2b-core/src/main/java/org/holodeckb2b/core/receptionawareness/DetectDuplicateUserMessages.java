@@ -100,13 +100,13 @@ public class DetectDuplicateUserMessages extends AbstractUserMessageHandler {
             return InvocationResponse.CONTINUE;
         } else {
             final String msgId = um.getMessageId();
-            log.trace("Duplicate detection enabled. Check if this Usermessage [msgId=" + msgId
-                        + "] has already been delivered");
+            log.trace("Duplicate detection enabled. Check if this Usermessage [msgId={}] has already been delivered",
+                      msgId);
 
             boolean isDuplicate = false;
             isDuplicate = HolodeckB2BCore.getQueryManager().isAlreadyProcessed(um);
             if (isDuplicate) {
-                log.debug("UserMessage [msgId=" + msgId + "] has already been processed");
+                log.debug("UserMessage [msgId={}] has already been processed", msgId);
                 // Also log in special duplicate log
                 duplicateLog.info("UserMessage [msgId=" + msgId
                                             + "] is a duplicate of an already processed message");
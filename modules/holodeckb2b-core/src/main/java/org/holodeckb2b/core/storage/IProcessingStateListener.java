@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.storage;
+
+import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
+import org.holodeckb2b.interfaces.storage.IMessageUnitEntity;
+
+/**
+ * Defines the interface of Core components that need to be notified when the processing state of a message unit is
+ * changed using {@link StorageManager#setProcessingState(IMessageUnitEntity, ProcessingState, String)}. Listeners are
+ * registered with the {@link StorageManager} and are called on the thread that changed the processing state, so they
+ * should return quickly. Exceptions thrown by a listener are logged and do not affect the change of the processing
+ * state.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+@FunctionalInterface
+public interface IProcessingStateListener {
+
+	/**
+	 * Is called after the processing state of the message unit has been changed.
+	 *
+	 * @param msgUnit	the entity object of the message unit
+	 * @param newState	the new processing state of the message unit
+	 */
+	void processingStateChanged(IMessageUnitEntity msgUnit, ProcessingState newState);
+}
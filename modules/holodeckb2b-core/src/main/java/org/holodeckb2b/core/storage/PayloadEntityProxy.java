@@ -85,6 +85,18 @@ public class PayloadEntityProxy implements IPayloadEntity {
 		}
 	}
 
+	@Override
+	public byte[] getContentDigest(String algorithm) throws IOException {
+		try {
+			if (content == null)
+				content = ((QueryManager) HolodeckB2BCore.getQueryManager()).retrievePayloadContent(source);
+
+			return content == null ? null : content.getDigest(algorithm);
+		} catch (StorageException e) {
+			throw new IOException("Could not get digest of payload content", e);
+		}
+	}
+
 	@Override
 	public Containment getContainment() {
 		return source.getContainment();
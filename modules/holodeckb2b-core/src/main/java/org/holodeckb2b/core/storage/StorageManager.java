@@ -20,8 +20,11 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
@@ -85,6 +88,11 @@ public class StorageManager {
 	 */
 	private final IPayloadStorageProvider	psProvider;
 
+	/**
+	 * The listeners to notify when the processing state of a message unit has changed
+	 */
+	private final List<IProcessingStateListener> stateListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Creates a new facade to the given Metadata and Payload Storage Providers so other Core classes can update the
      * data of message units.
@@ -97,6 +105,42 @@ public class StorageManager {
         this.psProvider = psp;
     }
 
+    /**
+     * Registers a listener that is notified when the processing state of a message unit has changed.
+     *
+     * @param listener	the listener to register
+     * @since 8.2.0
+     */
+    public void addProcessingStateListener(final IProcessingStateListener listener) {
+    	stateListeners.add(listener);
+    }
+
+    /**
+     * Removes a registered processing state listener.
+     *
+     * @param listener	the listener to remove
+     * @since 8.2.0
+     */
+    public void removeProcessingStateListener(final IProcessingStateListener listener) {
+    	stateListeners.remove(listener);
+    }
+
+    /**
+     * Notifies the registered listeners of the new processing state of the message unit.
+     *
+     * @param msgUnit	the message unit
+     * @param newState	its new processing state
+     */
+    private void notifyStateListeners(final IMessageUnitEntity msgUnit, final ProcessingState newState) {
+    	for (IProcessingStateListener l : stateListeners)
+    		try {
+    			l.processingStateChanged(msgUnit, newState);
+    		} catch (RuntimeException listenerFailure) {
+    			log.warn("Error in notifying listener of new processing state ({}) of message unit (msgId={}) : {}",
+    					 newState, msgUnit.getMessageId(), Utils.getExceptionTrace(listenerFailure));
+    		}
+    }
+
     /**
      * Stores the meta-data of a received message unit. The processing state of the new entity object will be set to
      * {@linkplain ProcessingState#CREATED}.
@@ -372,6 +416,7 @@ public class StorageManager {
      * time of the new state to the current time. Returns a boolean indicating whether the message unit's processing
      * state was updated successfully. In case the state could not be updated, the entity object will contain the latest
      * version of the meta-data.
+     * <p>When the processing state has been updated the registered {@link IProcessingStateListener}s are notified.
      *
      * @param msgUnit           The entity object representing the message unit
      * @param newProcState      The new processing state
@@ -387,6 +432,7 @@ public class StorageManager {
     	final ProcessingState cState = msgUnit.getCurrentProcessingState().getState();
 		try {
 			updateEntity(msgUnit, m -> m.setProcessingState(newProcState, description));
+			notifyStateListeners(msgUnit, newProcState);
 			return true;
 		} catch (AlreadyChangedException changed) {
 			// This probably indicates that the processing state has already been changed
@@ -495,51 +541,69 @@ public class StorageManager {
      * @throws StorageException When a problem occurs while removing the message unit from the database.
      */
     public void deleteMessageUnit(IMessageUnitEntity messageUnit) throws StorageException {
-        log.trace("Deleting {} with MessageId={}", MessageUnitUtils.getMessageUnitName(messageUnit),
-        			messageUnit.getMessageId());
-        final Collection<? extends IPayloadEntity> payloads = messageUnit instanceof IUserMessage ?
-        														((IUserMessageEntity) messageUnit).getPayloads() : null;
-
-        Collection<StorageException> plFailures = new ArrayList<>();
-        if (payloads != null) {
-        	log.trace("Remove payload content of User Message");
-        	for (IPayloadEntity p : payloads) {
-        		try {
-        			psProvider.removePayloadContent(p instanceof PayloadEntityProxy ?
-        																	((PayloadEntityProxy) p).getSource() : p);
-        			log.trace("Removed payload content (URI={})", p.getPayloadURI());
-        		} catch (StorageException deleteFailed) {
-        			log.warn("Error removing payload content (URI={}) of User Messsage (msgId={}): {}",
-							 p.getPayloadURI(), messageUnit.getMessageId(), Utils.getExceptionTrace(deleteFailed));
-        			plFailures.add(new StorageException("Error removing payload content (URI=" + p.getPayloadURI() + ")",
-        											deleteFailed));
-				}
-        	}
-        }
-
-        StorageException deleteFailure = null;
-        // If not all payload content was removed, keep the meta-data of the message, so we can try again later
-        if (plFailures.isEmpty())
-	        try {
-	        	mdsProvider.deleteMessageUnit(messageUnit instanceof UserMessageEntityProxy ?
-	        								 	((UserMessageEntityProxy) messageUnit).getSource() : messageUnit);
-	        	log.info("{} (MessageId={}) removed from storage", MessageUnitUtils.getMessageUnitName(messageUnit),
-	        				messageUnit.getMessageId());
-	        } catch (StorageException mmdDeleteFailed) {
-				log.error("Error deleting meta-data of message unit (msgId={}) : {}", messageUnit.getMessageId(),
-							Utils.getExceptionTrace(mmdDeleteFailed));
-				deleteFailure = mmdDeleteFailed;
-	        }
-        else {
-        	deleteFailure = new StorageException("Failed to remove message unit [coreId=" + messageUnit.getCoreId() + "]");
-        	for(StorageException e : plFailures)
-        		deleteFailure.addSuppressed(e);
-        }
-    	log.debug("Raise event to indicate that message unit (msgId={}) {} removed", messageUnit.getMessageId(),
-    				plFailures.isEmpty() ? "is" : "could not be");
-    	HolodeckB2BCoreInterface.getEventProcessor().raiseEvent(deleteFailure == null ?
-    															  new MessageUnitPurged(messageUnit)
-																: new MessagePurgeFailure(messageUnit, deleteFailure));
+    	deleteMessageUnits(Collections.singletonList(messageUnit));
+    }
+
+    /**
+     * Deletes the meta-data and for User Messages the payload contents of the given message units. The payload
+     * contents of all message units are removed in one batch before the meta-data of the message units is deleted.
+     * When the payload contents cannot be removed, the meta-data of the User Messages is kept, so the removal can be
+     * tried again later.
+     *
+     * @param messageUnits      The {@link IMessageUnitEntity} objects to be deleted
+     * @throws StorageException When a problem occurs while removing the message units from the database.
+     * @since 8.2.0
+     */
+    public void deleteMessageUnits(Collection<? extends IMessageUnitEntity> messageUnits) throws StorageException {
+    	final List<IPayloadEntity> payloads = new ArrayList<>();
+    	for (IMessageUnitEntity messageUnit : messageUnits) {
+    		log.trace("Deleting {} with MessageId={}", MessageUnitUtils.getMessageUnitName(messageUnit),
+    					messageUnit.getMessageId());
+    		if (messageUnit instanceof IUserMessage)
+    			for (IPayloadEntity p : ((IUserMessageEntity) messageUnit).getPayloads())
+    				payloads.add(p instanceof PayloadEntityProxy ? ((PayloadEntityProxy) p).getSource() : p);
+    	}
+
+    	StorageException plFailure = null;
+    	if (!payloads.isEmpty()) {
+    		log.trace("Remove content of {} payloads", payloads.size());
+    		try {
+    			psProvider.removePayloadContent(payloads);
+    			log.trace("Removed payload content");
+    		} catch (StorageException deleteFailed) {
+    			log.warn("Error removing payload content of {} User Messages: {}", messageUnits.size(),
+    					 Utils.getExceptionTrace(deleteFailed));
+    			plFailure = deleteFailed;
+    		}
+    	}
+
+    	for (IMessageUnitEntity messageUnit : messageUnits) {
+    		StorageException deleteFailure = null;
+    		final boolean hasPayloads = messageUnit instanceof IUserMessage
+    									&& !Utils.isNullOrEmpty(((IUserMessageEntity) messageUnit).getPayloads());
+    		// If not all payload content was removed, keep the meta-data of the message, so we can try again later
+    		if (plFailure == null || !hasPayloads)
+    			try {
+    				mdsProvider.deleteMessageUnit(messageUnit instanceof UserMessageEntityProxy ?
+    											((UserMessageEntityProxy) messageUnit).getSource() : messageUnit);
+    				log.info("{} (MessageId={}) removed from storage", MessageUnitUtils.getMessageUnitName(messageUnit),
+    						messageUnit.getMessageId());
+    			} catch (StorageException mmdDeleteFailed) {
+    				log.error("Error deleting meta-data of message unit (msgId={}) : {}", messageUnit.getMessageId(),
+    						Utils.getExceptionTrace(mmdDeleteFailed));
+    				deleteFailure = mmdDeleteFailed;
+    			}
+    		else {
+    			deleteFailure = new StorageException("Failed to remove message unit [coreId=" + messageUnit.getCoreId()
+    												+ "]");
+    			deleteFailure.addSuppressed(plFailure);
+    		}
+    		log.debug("Raise event to indicate that message unit (msgId={}) {} removed", messageUnit.getMessageId(),
+    				deleteFailure == null ? "is" : "could not be");
+    		HolodeckB2BCoreInterface.getEventProcessor().raiseEvent(deleteFailure == null ?
+    																  new MessageUnitPurged(messageUnit)
+    																: new MessagePurgeFailure(messageUnit, deleteFailure));
+    	}
     }
 
     /**
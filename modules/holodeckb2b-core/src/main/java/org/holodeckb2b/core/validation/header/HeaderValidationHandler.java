@@ -154,8 +154,8 @@ public class HeaderValidationHandler extends AbstractBaseHandler {
                 // Determine the validation to use
                 boolean useStrictValidation = shouldUseStrictMode(m);
 
-                log.debug("Validate " + MessageUnitUtils.getMessageUnitName(m) + " header meta-data using "
-                         + (useStrictValidation ? "strict" : "basic") + " validation");
+                log.debug("Validate {} header meta-data using {} validation",
+                          MessageUnitUtils.getMessageUnitName(m), (useStrictValidation ? "strict" : "basic"));
 
                 final IMessageValidationSpecification validationSpec = useStrictValidation ?
                 						strictValidatorSpecs.get(MessageUnitUtils.getMessageUnitType(m)) :
@@ -165,8 +165,8 @@ public class HeaderValidationHandler extends AbstractBaseHandler {
 	                																	.validate(m, validationSpec);
 
 	                if (validationResult == null || Utils.isNullOrEmpty(validationResult.getValidationErrors()))
-	                    log.debug("Header of " + MessageUnitUtils.getMessageUnitName(m) + " [" + m.getMessageId()
-	                            + "] successfully validated");
+	                    log.debug("Header of {} [{}] successfully validated",
+                                  MessageUnitUtils.getMessageUnitName(m), m.getMessageId());
 	                else {
 	                	log.warn("Header of " + MessageUnitUtils.getMessageUnitName(m) + " [" + m.getMessageId()
 	                            + "] is invalid!\n\tDetails: " + printErrors(validationResult.getValidationErrors()));
@@ -66,6 +66,11 @@ class ContinuousWorkerRunner implements IWorkerTask {
         actualTask.setParameters(parameters);
     }
 
+    @Override
+    public void shutdown() {
+        actualTask.shutdown();
+    }
+
     @Override
     public void run() {
         try {
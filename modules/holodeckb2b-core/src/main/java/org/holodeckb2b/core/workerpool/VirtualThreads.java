@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.workerpool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.interfaces.config.IConfiguration;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+
+/**
+ * Provides the thread factories and executors for the thread pools of Holodeck B2B, using <i>virtual threads</i> when
+ * this is enabled in the configuration ({@link IConfiguration#useVirtualThreads()}) and the JVM supports them, i.e.
+ * when running on Java 21 or later. Most of the threads used for processing messages spend their time waiting on the
+ * database, disk or network, so using virtual threads allows for more concurrent processing without the need to size
+ * the thread pools.
+ * <p>As Holodeck B2B is built for Java 11 the virtual thread API is accessed using reflection. When virtual threads are
+ * not available, or not enabled, the regular platform threads are used.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public final class VirtualThreads {
+	private static final Logger log = LogManager.getLogger(VirtualThreads.class);
+
+	/**
+	 * The <code>Thread.ofVirtual()</code> method and the methods of the returned builder, <code>null</code> when the
+	 * JVM does not support virtual threads
+	 */
+	private static final Method OF_VIRTUAL;
+	private static final Method BUILDER_NAME;
+	private static final Method BUILDER_FACTORY;
+	/**
+	 * The <code>Executors.newThreadPerTaskExecutor(ThreadFactory)</code> method
+	 */
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+	static {
+		Method ofVirtual = null, name = null, factory = null, perTask = null;
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			name = builder.getMethod("name", String.class, long.class);
+			factory = builder.getMethod("factory");
+			perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+		} catch (ReflectiveOperationException notSupported) {
+			ofVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		BUILDER_NAME = name;
+		BUILDER_FACTORY = factory;
+		NEW_THREAD_PER_TASK_EXECUTOR = perTask;
+	}
+
+	/**
+	 * Indicates whether a warning was already logged that virtual threads are enabled but not supported
+	 */
+	private static volatile boolean warned;
+
+	private VirtualThreads() {}
+
+	/**
+	 * @return <code>true</code> if the JVM supports virtual threads, <code>false</code> otherwise
+	 */
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Checks whether virtual threads should be used, which is the case when they are enabled in the configuration and
+	 * supported by the JVM.
+	 *
+	 * @return <code>true</code> if virtual threads should be used, <code>false</code> otherwise
+	 */
+	public static boolean isEnabled() {
+		final IConfiguration config;
+		try {
+			config = HolodeckB2BCoreInterface.getConfiguration();
+		} catch (Exception notInitialised) {
+			return false;
+		}
+		if (config == null || !config.useVirtualThreads())
+			return false;
+		if (!isSupported() && !warned) {
+			warned = true;
+			log.warn("Use of virtual threads is enabled, but not supported by this JVM ({}). Using platform threads.",
+					 System.getProperty("java.version"));
+		}
+		return isSupported();
+	}
+
+	/**
+	 * Creates a factory for the threads of a pool. When virtual threads are enabled the factory creates virtual
+	 * threads, otherwise a {@link PoolThreadFactory} is returned.
+	 *
+	 * @param poolName	the name of the pool, used for naming the threads
+	 * @return	the thread factory
+	 */
+	public static ThreadFactory newThreadFactory(final String poolName) {
+		return isEnabled() ? newVirtualThreadFactory(poolName) : new PoolThreadFactory(poolName);
+	}
+
+	/**
+	 * Creates an executor that runs each task on a new virtual thread when virtual threads are enabled. Such an
+	 * executor has no limit on the number of concurrent tasks, so it should only be used where the concurrency is
+	 * already limited otherwise.
+	 *
+	 * @param poolName	the name of the pool, used for naming the threads
+	 * @return	the executor using virtual threads, or <code>null</code> when virtual threads are not enabled
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(final String poolName) {
+		if (!isEnabled())
+			return null;
+		try {
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, newVirtualThreadFactory(poolName));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create virtual thread executor", e);
+		}
+	}
+
+	/**
+	 * Creates a factory for virtual threads named using the given pool name followed by a sequence number.
+	 */
+	private static ThreadFactory newVirtualThreadFactory(final String poolName) {
+		try {
+			final Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), poolName + "-", 1L);
+			return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create virtual thread factory", e);
+		}
+	}
+}
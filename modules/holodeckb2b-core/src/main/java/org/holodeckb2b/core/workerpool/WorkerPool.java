@@ -143,7 +143,7 @@ public class WorkerPool implements IWorkerPool {
 	    	pool = null;
 	    	return;
 	    }
-	    pool = new ScheduledThreadPoolExecutor(1, new PoolThreadFactory(name));
+	    pool = new ScheduledThreadPoolExecutor(1, VirtualThreads.newThreadFactory(name));
 	    log.debug("Initial configuration of workers");
 	    reconfigure(workerCfgs);
 	    lastRefresh = Instant.now();
@@ -275,8 +275,7 @@ public class WorkerPool implements IWorkerPool {
         	log.debug("Removing {} workers from the pool", delWorkers.size());
         	for(RunningWorker w : delWorkers) {
         		try {
-        			w.instances.forEach(i -> i.value1().cancel(false));
-        			workers.remove(w);
+        			removeInstances(w, false);
         			log.trace("{} worker removed from pool", w.config.getName());
         		} catch (Throwable t) {
         			log.error("Exception thrown when stopping current worker instance: {} - {}", 
@@ -311,8 +310,7 @@ public class WorkerPool implements IWorkerPool {
         			log.debug("Worker {} needs to rescheduled", wName);
         			try {
 	        			log.trace("Removing old instances of {} worker", wName);
-	        			w.instances.forEach(i -> i.value1().cancel(false));
-	        			workers.remove(w);
+	        			removeInstances(w, false);
 	        			log.trace("Adding instances of {} worker with new configuration", wName);
 	        			addWorker(newCfg);	        			
             		} catch (Throwable t) {
@@ -339,9 +337,7 @@ public class WorkerPool implements IWorkerPool {
 	        			} catch (Throwable rollbackError) {
 	        				log.fatal("Removing {} worker from pool because configuration could not be rolled back! Error: {} - {}",
 	        						  rollbackError.getClass().getSimpleName(), rollbackError.getMessage());
-	        				for(Pair<Future<?>, IWorkerTask> i : w.instances)	        			
-	        					i.value1().cancel(true);
-	        				workers.remove(w);
+	        				removeInstances(w, true);
 	        			}        				
         			}
         		}
@@ -420,6 +416,36 @@ public class WorkerPool implements IWorkerPool {
     }
     
 
+    /**
+     * Removes all instances of the given worker from the pool. The scheduled executions of the instances are cancelled
+     * and the tasks are informed they are removed by calling {@link IWorkerTask#shutdown()}.
+     *
+     * @param w			the worker to remove
+     * @param interrupt	indicates whether running instances should be interrupted
+     */
+    private void removeInstances(final RunningWorker w, final boolean interrupt) {
+    	for(Pair<Future<?>, IWorkerTask> i : w.instances) {
+    		i.value1().cancel(interrupt);
+    		shutdownTask(i.value2());
+    	}
+    	workers.remove(w);
+    }
+
+    /**
+     * Informs the given task that it is removed from the pool. Exceptions thrown by the task are only logged as the
+     * task will not be executed anymore anyway.
+     *
+     * @param t		the task to shut down
+     */
+    private void shutdownTask(final IWorkerTask t) {
+    	try {
+    		t.shutdown();
+    	} catch (Throwable t2) {
+    		log.warn("Exception thrown when shutting down worker task {}: {} - {}", t.getName(),
+    				 t2.getClass().getSimpleName(), t2.getMessage());
+    	}
+    }
+
     /**
      * Stops the worker pool and all the managed workers.
      * <p>As workers may not stop immediately a time should be specified to allow for orderly shutdown of the workers.
@@ -438,6 +464,7 @@ public class WorkerPool implements IWorkerPool {
                 log.error("Not all tasks did terminate correctly before shutdown wait time expired!");
                 pool.shutdownNow();
             }            
+            workers.forEach(w -> w.instances.forEach(i -> shutdownTask(i.value2())));
             log.info("Worker pool STOPPED");
         } catch (final InterruptedException ie) {
             log.warn("Interrupt received while stopping worker pool:" + ie.getMessage());
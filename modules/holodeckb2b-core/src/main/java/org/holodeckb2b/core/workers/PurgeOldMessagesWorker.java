@@ -21,7 +21,6 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Map;
 
-import org.holodeckb2b.common.util.MessageUnitUtils;
 import org.holodeckb2b.common.workers.AbstractWorkerTask;
 import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.core.HolodeckB2BCore;
@@ -77,13 +76,11 @@ public class PurgeOldMessagesWorker extends AbstractWorkerTask {
         }
 
         log.debug("Removing {} expired message units", experidMsgUnits.size());
-        for(final IMessageUnitEntity msgUnit : experidMsgUnits) {
-        	try {
-        		HolodeckB2BCore.getStorageManager().deleteMessageUnit(msgUnit);
-            } catch (final StorageException dbe) {
-                log.error("Could not remove data of {} (msgId={})", MessageUnitUtils.getMessageUnitName(msgUnit), 
-                			msgUnit.getMessageId());
-            }
+        try {
+        	// Remove all message units at once so the payload content can be removed in one batch
+        	HolodeckB2BCore.getStorageManager().deleteMessageUnits(experidMsgUnits);
+        } catch (final StorageException dbe) {
+            log.error("Could not remove data of expired message units! Error details: " + dbe.getMessage());
         }
     }
 
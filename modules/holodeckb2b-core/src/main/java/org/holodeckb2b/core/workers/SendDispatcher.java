@@ -0,0 +1,568 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.workers;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.core.workerpool.VirtualThreads;
+import org.holodeckb2b.interfaces.pmode.IPMode.Priority;
+
+/**
+ * Executes the send operations started by the {@link SenderWorker} on a bounded pool of threads. The send operations
+ * are grouped by their destination and the number of concurrent sends per destination is limited, so a slow or
+ * unresponsive endpoint cannot occupy all threads.
+ * <p>
+ * Each send operation belongs to a {@link Priority} class, which is derived from the P-Mode of the message unit. When
+ * send operations of multiple classes are waiting, the classes are served in proportion to their weight using a
+ * smooth weighted round-robin, so messages with a higher priority are sent earlier while messages with a lower priority
+ * still get their share. Within a class the send operations are grouped per P-Mode and destination and these groups
+ * are served in a round-robin fashion, so a P-Mode or destination with many waiting messages does not block the
+ * messages of other P-Modes and destinations. To prevent that a class is starved, for example when the higher priority
+ * messages are waiting for a busy destination, a class whose oldest send operation has been waiting longer than {@link
+ * #MAX_WAIT} is served first.
+ * <p>
+ * For each priority class statistics on the number of waiting and executing send operations and the time the
+ * operations had to wait before they were started are kept. These can be retrieved using {@link #getStatistics()}.
+ * <p>
+ * A send operation can also be asynchronous, i.e. only start the sending of the message and return a {@link
+ * CompletionStage} that completes when the send operation has finished. Such operations count as executing until the
+ * stage completes, but do not occupy a thread while waiting, so the maximum number of concurrent send operations can be
+ * larger than the number of threads.
+ * <p>
+ * The threads of the pool are stopped when idle for some time. When the dispatcher is replaced, for example because
+ * the worker is reconfigured, it should be stopped using {@link #shutdown()}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since  8.2.0
+ */
+class SendDispatcher {
+	private static final Logger log = LogManager.getLogger(SendDispatcher.class);
+
+	/**
+	 * Time in seconds after which an idle thread is stopped
+	 */
+	private static final long IDLE_TIMEOUT = 60;
+	/**
+	 * Time in milliseconds a send operation can wait before its priority class is served first
+	 */
+	static final long MAX_WAIT = 30 * 1000L;
+	/**
+	 * The relative share of the send operations that is started for each priority class when operations of multiple
+	 * classes are waiting
+	 */
+	private static final Map<Priority, Integer> WEIGHTS = Map.of(Priority.HIGH, 6, Priority.NORMAL, 3, Priority.LOW, 1);
+
+	/**
+	 * Maximum number of concurrent send operations
+	 */
+	private final int	maxConcurrent;
+	/**
+	 * Maximum number of concurrent send operations per destination
+	 */
+	private final int	maxPerDestination;
+	/**
+	 * The send operations waiting for execution, grouped per priority class
+	 */
+	private final EnumMap<Priority, PriorityClass> classes = new EnumMap<>(Priority.class);
+	/**
+	 * The number of send operations currently executing per destination
+	 */
+	private final Map<String, Integer> active = new HashMap<>();
+	/**
+	 * The identifiers of the message units that are waiting or being sent
+	 */
+	private final Set<String> inProgress = new HashSet<>();
+	/**
+	 * Total number of send operations currently executing
+	 */
+	private int	totalActive = 0;
+	/**
+	 * Indicates whether the dispatcher is shut down
+	 */
+	private boolean shutdown = false;
+	/**
+	 * The thread pool executing the send operations
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Represents a send operation waiting for execution
+	 */
+	private static class Send {
+		final String	id;
+		final String	destination;
+		final Supplier<? extends CompletionStage<?>> task;
+		final long		queued = System.currentTimeMillis();
+
+		Send(String id, String destination, Supplier<? extends CompletionStage<?>> task) {
+			this.id = id;
+			this.destination = destination;
+			this.task = task;
+		}
+	}
+
+	/**
+	 * Contains the waiting send operations of a priority class, grouped per P-Mode and destination in order of
+	 * arrival of the group, and the statistics of the class.
+	 */
+	private static class PriorityClass {
+		final Priority	priority;
+		final int		weight;
+		final LinkedHashMap<String, ArrayDeque<Send>> waiting = new LinkedHashMap<>();
+		/**
+		 * The group that was last served, used for the round-robin selection of the next send
+		 */
+		String	lastServed;
+		/**
+		 * The current weight of the class in the smooth weighted round-robin selection
+		 */
+		int		current;
+		int		queued;
+		int		executing;
+		long	started;
+		long	totalWait;
+		long	maxWait;
+
+		PriorityClass(Priority priority) {
+			this.priority = priority;
+			this.weight = WEIGHTS.get(priority);
+		}
+
+		/**
+		 * @return the time the send operation that has been waiting longest was queued, or {@link Long#MAX_VALUE} if
+		 * 			no send operation is waiting
+		 */
+		long oldest() {
+			long oldest = Long.MAX_VALUE;
+			for (ArrayDeque<Send> q : waiting.values())
+				oldest = Math.min(oldest, q.peek().queued);
+			return oldest;
+		}
+	}
+
+	/**
+	 * The statistics of a priority class as reported by {@link SendDispatcher#getStatistics()}.
+	 */
+	static class Statistics {
+		private final int	queued;
+		private final int	executing;
+		private final long	started;
+		private final long	averageWait;
+		private final long	maxWait;
+
+		Statistics(PriorityClass c) {
+			this.queued = c.queued;
+			this.executing = c.executing;
+			this.started = c.started;
+			this.averageWait = c.started > 0 ? c.totalWait / c.started : 0;
+			this.maxWait = c.maxWait;
+		}
+
+		/**
+		 * @return the number of send operations waiting for execution
+		 */
+		int getQueued() {
+			return queued;
+		}
+
+		/**
+		 * @return the number of send operations currently executing
+		 */
+		int getExecuting() {
+			return executing;
+		}
+
+		/**
+		 * @return the total number of send operations started
+		 */
+		long getStarted() {
+			return started;
+		}
+
+		/**
+		 * @return the average time in milliseconds the started send operations had to wait
+		 */
+		long getAverageWait() {
+			return averageWait;
+		}
+
+		/**
+		 * @return the maximum time in milliseconds a started send operation had to wait
+		 */
+		long getMaxWait() {
+			return maxWait;
+		}
+
+		@Override
+		public String toString() {
+			return "queued=" + queued + ", executing=" + executing + ", started=" + started
+					+ ", avgWait=" + averageWait + "ms, maxWait=" + maxWait + "ms";
+		}
+	}
+
+	/**
+	 * Creates a new dispatcher.
+	 *
+	 * @param maxConcurrent		the maximum number of concurrent send operations
+	 * @param maxPerDestination	the maximum number of concurrent send operations per destination
+	 */
+	SendDispatcher(final int maxConcurrent, final int maxPerDestination) {
+		this(maxConcurrent, maxPerDestination, maxConcurrent);
+	}
+
+	/**
+	 * Creates a new dispatcher that uses the given number of threads to execute the send operations.
+	 *
+	 * @param maxConcurrent		the maximum number of concurrent send operations
+	 * @param maxPerDestination	the maximum number of concurrent send operations per destination
+	 * @param threads			the number of threads to use
+	 */
+	SendDispatcher(final int maxConcurrent, final int maxPerDestination, final int threads) {
+		this.maxConcurrent = maxConcurrent;
+		this.maxPerDestination = maxPerDestination;
+		for (Priority p : Priority.values())
+			classes.put(p, new PriorityClass(p));
+		this.executor = new ThreadPoolExecutor(threads, threads, IDLE_TIMEOUT, TimeUnit.SECONDS,
+											   new LinkedBlockingQueue<>(), VirtualThreads.newThreadFactory("Sender"));
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @return the maximum number of concurrent send operations
+	 */
+	int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	/**
+	 * @return the number of threads used to execute the send operations
+	 */
+	int getThreads() {
+		return executor.getMaximumPoolSize();
+	}
+
+	/**
+	 * Gets the executor that runs the send operations. Asynchronous send operations can use it to process the result
+	 * of the operation.
+	 *
+	 * @return the executor used by the dispatcher
+	 */
+	Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * @return the maximum number of concurrent send operations per destination
+	 */
+	int getMaxPerDestination() {
+		return maxPerDestination;
+	}
+
+	/**
+	 * Queues a send operation with normal priority for execution. If a send operation for the same message unit is
+	 * already waiting or being executed the new one is ignored.
+	 *
+	 * @param destination	the destination of the message unit, may be <code>null</code> if unknown
+	 * @param id			identifier of the message unit to send
+	 * @param task			the send operation
+	 * @return	<code>true</code> if the send operation was queued, <code>false</code> if it was ignored
+	 */
+	boolean submit(final String destination, final String id, final Runnable task) {
+		return submit(null, null, destination, id, task);
+	}
+
+	/**
+	 * Queues a send operation for execution. If a send operation for the same message unit is already waiting or being
+	 * executed the new one is ignored.
+	 *
+	 * @param priority		the priority class of the message unit, <code>null</code> for normal priority
+	 * @param pmodeId		the identifier of the P-Mode of the message unit, may be <code>null</code> if unknown
+	 * @param destination	the destination of the message unit, may be <code>null</code> if unknown
+	 * @param id			identifier of the message unit to send
+	 * @param task			the send operation
+	 * @return	<code>true</code> if the send operation was queued, <code>false</code> if it was ignored
+	 */
+	boolean submit(final Priority priority, final String pmodeId, final String destination, final String id,
+				   final Runnable task) {
+		return submitAsync(priority, pmodeId, destination, id, () -> {
+			task.run();
+			return CompletableFuture.completedFuture(null);
+		});
+	}
+
+	/**
+	 * Queues an asynchronous send operation with normal priority for execution. The operation is considered to be
+	 * executing until the returned stage completes. If a send operation for the same message unit is already waiting
+	 * or being executed the new one is ignored.
+	 *
+	 * @param destination	the destination of the message unit, may be <code>null</code> if unknown
+	 * @param id			identifier of the message unit to send
+	 * @param task			the send operation, returning the stage that completes when the operation has finished
+	 * @return	<code>true</code> if the send operation was queued, <code>false</code> if it was ignored
+	 */
+	boolean submitAsync(final String destination, final String id,
+						final Supplier<? extends CompletionStage<?>> task) {
+		return submitAsync(null, null, destination, id, task);
+	}
+
+	/**
+	 * Queues an asynchronous send operation for execution. The operation is considered to be executing until the
+	 * returned stage completes. If a send operation for the same message unit is already waiting or being executed
+	 * the new one is ignored.
+	 *
+	 * @param priority		the priority class of the message unit, <code>null</code> for normal priority
+	 * @param pmodeId		the identifier of the P-Mode of the message unit, may be <code>null</code> if unknown
+	 * @param destination	the destination of the message unit, may be <code>null</code> if unknown
+	 * @param id			identifier of the message unit to send
+	 * @param task			the send operation, returning the stage that completes when the operation has finished
+	 * @return	<code>true</code> if the send operation was queued, <code>false</code> if it was ignored or the
+	 * 			dispatcher is shut down
+	 */
+	boolean submitAsync(final Priority priority, final String pmodeId, final String destination, final String id,
+						final Supplier<? extends CompletionStage<?>> task) {
+		final String dest = destination != null ? destination : "";
+		final String group = (pmodeId != null ? pmodeId : "") + '\n' + dest;
+		synchronized (this) {
+			if (shutdown || !inProgress.add(id))
+				return false;
+			final PriorityClass c = classes.get(priority != null ? priority : Priority.NORMAL);
+			c.waiting.computeIfAbsent(group, g -> new ArrayDeque<>()).add(new Send(id, dest, task));
+			c.queued++;
+		}
+		dispatch();
+		return true;
+	}
+
+	/**
+	 * Shuts down the dispatcher. The send operations that are waiting are discarded, the message units are still ready
+	 * to be sent and will be picked up again by the worker. The send operations that are executing are completed, after
+	 * which the threads of the pool are stopped.
+	 */
+	void shutdown() {
+		synchronized (this) {
+			if (shutdown)
+				return;
+			shutdown = true;
+			for (PriorityClass c : classes.values()) {
+				c.waiting.values().forEach(q -> q.forEach(send -> inProgress.remove(send.id)));
+				c.waiting.clear();
+				c.queued = 0;
+			}
+			// When send operations are still executing, the executor is shut down when the last one completes
+			if (totalActive > 0)
+				return;
+		}
+		executor.shutdown();
+	}
+
+	/**
+	 * @return <code>true</code> if the dispatcher is shut down and all send operations have completed
+	 */
+	boolean isTerminated() {
+		return executor.isTerminated();
+	}
+
+	/**
+	 * Gets the current statistics of the priority classes.
+	 *
+	 * @return	the statistics of each priority class
+	 */
+	synchronized Map<Priority, Statistics> getStatistics() {
+		final Map<Priority, Statistics> stats = new EnumMap<>(Priority.class);
+		classes.forEach((p, c) -> stats.put(p, new Statistics(c)));
+		return stats;
+	}
+
+	/**
+	 * Gets the current statistics of the given priority class.
+	 *
+	 * @param priority	the priority class
+	 * @return	the statistics of the priority class
+	 */
+	synchronized Statistics getStatistics(final Priority priority) {
+		return new Statistics(classes.get(priority));
+	}
+
+	/**
+	 * Indicates whether the send operation for the given message unit is waiting or being executed.
+	 *
+	 * @param id	identifier of the message unit
+	 * @return <code>true</code> if the message unit is waiting or being sent, <code>false</code> otherwise
+	 */
+	synchronized boolean isInProgress(final String id) {
+		return inProgress.contains(id);
+	}
+
+	/**
+	 * Starts the execution of waiting send operations as long as threads are available, taking into account the limit
+	 * per destination.
+	 */
+	private void dispatch() {
+		while (true) {
+			final PriorityClass c;
+			final Send next;
+			synchronized (this) {
+				if (shutdown || totalActive >= maxConcurrent)
+					return;
+				final long now = System.currentTimeMillis();
+				final Map<PriorityClass, String> candidates = new HashMap<>();
+				for (PriorityClass pc : classes.values()) {
+					final String g = nextGroup(pc);
+					if (g != null)
+						candidates.put(pc, g);
+				}
+				c = selectClass(candidates, now);
+				if (c == null)
+					return;
+				final String group = candidates.get(c);
+				final ArrayDeque<Send> queue = c.waiting.get(group);
+				next = queue.poll();
+				if (queue.isEmpty())
+					c.waiting.remove(group);
+				c.lastServed = group;
+				c.queued--;
+				c.executing++;
+				c.started++;
+				final long wait = now - next.queued;
+				c.totalWait += wait;
+				c.maxWait = Math.max(c.maxWait, wait);
+				active.merge(next.destination, 1, Integer::sum);
+				totalActive++;
+			}
+			try {
+				executor.execute(() -> execute(c, next));
+			} catch (RejectedExecutionException rejected) {
+				log.error("Could not start send operation for message unit [{}] : {}", next.id, rejected.getMessage());
+				completed(c, next);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Selects the priority class of which a send operation should be started next. When the oldest send operation of
+	 * a class has been waiting longer than {@link #MAX_WAIT} the class with the longest waiting operation is selected.
+	 * Otherwise the class is selected using a smooth weighted round-robin, i.e. the current weight of each class is
+	 * increased by its weight and the class with the highest current weight is selected, after which its current
+	 * weight is decreased by the total weight of the classes.
+	 *
+	 * @param candidates	the classes that have a send operation that can be started
+	 * @param now			the current time
+	 * @return	the selected class, or <code>null</code> if there are no candidates
+	 */
+	private PriorityClass selectClass(final Map<PriorityClass, String> candidates, final long now) {
+		if (candidates.isEmpty())
+			return null;
+		PriorityClass starved = null;
+		long oldest = now - MAX_WAIT;
+		for (PriorityClass pc : candidates.keySet()) {
+			final long o = pc.oldest();
+			if (o < oldest) {
+				oldest = o;
+				starved = pc;
+			}
+		}
+		if (starved != null) {
+			log.debug("Serving {} priority send operations first as they are waiting for {} ms", starved.priority,
+					  now - oldest);
+			return starved;
+		}
+		PriorityClass selected = null;
+		int total = 0;
+		for (PriorityClass pc : classes.values())
+			if (candidates.containsKey(pc)) {
+				pc.current += pc.weight;
+				total += pc.weight;
+				if (selected == null || pc.current > selected.current)
+					selected = pc;
+			}
+		selected.current -= total;
+		return selected;
+	}
+
+	/**
+	 * Selects the group of the given priority class of which a send operation should be started next. This is the
+	 * first group after the one last served that has waiting send operations to a destination that has not reached its
+	 * limit.
+	 *
+	 * @param c		the priority class
+	 * @return	the selected group, or <code>null</code> if no send operation of the class can be started
+	 */
+	private String nextGroup(final PriorityClass c) {
+		String first = null;
+		boolean passedLast = c.lastServed == null || !c.waiting.containsKey(c.lastServed);
+		for (Map.Entry<String, ArrayDeque<Send>> e : c.waiting.entrySet()) {
+			final String g = e.getKey();
+			if (active.getOrDefault(e.getValue().peek().destination, 0) < maxPerDestination) {
+				if (passedLast && !g.equals(c.lastServed))
+					return g;
+				if (first == null)
+					first = g;
+			}
+			if (g.equals(c.lastServed))
+				passedLast = true;
+		}
+		return first;
+	}
+
+	/**
+	 * Executes the send operation and starts the next one when it has finished.
+	 */
+	private void execute(final PriorityClass c, final Send send) {
+		CompletionStage<?> result;
+		try {
+			result = send.task.get();
+		} catch (Throwable t) {
+			result = CompletableFuture.failedFuture(t);
+		}
+		result.whenComplete((r, t) -> {
+			if (t != null)
+				log.error("Unexpected error in send operation for message unit [{}] : {}", send.id, t.toString());
+			completed(c, send);
+			dispatch();
+		});
+	}
+
+	/**
+	 * Registers the completion of a send operation.
+	 */
+	private synchronized void completed(final PriorityClass c, final Send send) {
+		inProgress.remove(send.id);
+		totalActive--;
+		c.executing--;
+		if (active.merge(send.destination, -1, Integer::sum) <= 0)
+			active.remove(send.destination);
+		if (shutdown && totalActive == 0)
+			executor.shutdown();
+	}
+}
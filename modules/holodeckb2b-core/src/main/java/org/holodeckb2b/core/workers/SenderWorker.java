@@ -16,9 +16,13 @@
  */
 package org.holodeckb2b.core.workers;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -27,8 +31,16 @@ import org.holodeckb2b.common.workers.AbstractWorkerTask;
 import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.core.HolodeckB2BCore;
 import org.holodeckb2b.core.axis2.Axis2Sender;
+import org.holodeckb2b.core.axis2.EndpointCircuitBreaker;
+import org.holodeckb2b.core.metrics.ProcessingMetrics;
+import org.holodeckb2b.core.metrics.SenderStatisticsMXBean;
+import org.holodeckb2b.core.pmode.PModeUtils;
+import org.holodeckb2b.core.storage.IProcessingStateListener;
+import org.holodeckb2b.core.storage.StorageManager;
 import org.holodeckb2b.interfaces.messagemodel.Direction;
 import org.holodeckb2b.interfaces.messagemodel.IMessageUnit;
+import org.holodeckb2b.interfaces.pmode.IPMode;
+import org.holodeckb2b.interfaces.pmode.IPMode.Priority;
 import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
 import org.holodeckb2b.interfaces.storage.IMessageUnitEntity;
 import org.holodeckb2b.interfaces.storage.StorageException;
@@ -37,8 +49,39 @@ import org.holodeckb2b.interfaces.workerpool.TaskConfigurationException;
 /**
  * Is responsible for selecting the message units to be send. It looks for all messages waiting in the database to
  * get send and starts the send process for each of them.
- * <p>This worker does not need configuration to run. As this worker is needed for Holodeck B2B to work properly it is
- * included in the default worker pool.
+ * <p>The send processes are executed on a separate pool of threads so messages to different destinations can be sent
+ * in parallel and a slow endpoint does not hold back the messages to other endpoints. The number of threads and the
+ * number of messages that can be sent concurrently to the same destination URL can be configured using the
+ * parameters:<ul>
+ * <li><i>maxConcurrentSends</i> : the maximum number of messages that are sent concurrently, default 10</li>
+ * <li><i>maxSendsPerDestination</i> : the maximum number of messages that are sent concurrently to the same
+ * destination, default 2</li>
+ * <li><i>asyncSend</i> : indicates whether the non-blocking send process should be used, default <i>false</i>. When
+ * enabled, the threads are not occupied while waiting for the response of the other MSH, so the maximum number of
+ * concurrent sends can be set much higher than the number of threads (see {@link
+ * Axis2Sender#sendMessageAsync(IMessageUnitEntity, java.util.concurrent.Executor)}). <b>NOTE:</b> the non-blocking
+ * send process always uses the JDK HTTP client, also for HTTP/1.1. This client does not support proxies, NTLM and
+ * Digest authentication and HTTP/1.0, and does not use the connection pool of the HTTP transport sender, so the
+ * maximum number of connections and keep-alive timeout configured per destination, in the transport configuration
+ * or the P-Mode, do not apply. Do not enable it when any of these features is needed.</li>
+ * <li><i>senderThreads</i> : the number of threads used for sending when the non-blocking send process is used,
+ * by default the number of available processors (but not more than <i>maxConcurrentSends</i>). When the blocking
+ * send process is used, the number of threads is always equal to <i>maxConcurrentSends</i>.</li>
+ * <li><i>immediateDispatch</i> : indicates whether message units should be queued for sending as soon as their
+ * processing state is set to <i>READY_TO_PUSH</i>, default <i>true</i>. The worker then registers itself as {@link
+ * IProcessingStateListener} with the {@link StorageManager} so the message unit does not have to wait for the next
+ * run of the worker. The periodic check of the database is still executed but only serves as safety net for message
+ * units that could not be queued immediately, so its interval can be much longer.</li></ul>
+ * When there are more messages waiting than can be sent, the destinations are served in turn. Messages to a
+ * destination that is currently not available according to the {@link EndpointCircuitBreaker} are left waiting.
+ * <p>The P-Mode of a message unit can assign a {@link Priority} class to it. When messages of multiple classes are
+ * waiting, messages with a higher priority are sent first in proportion to the priority of their class, so a large
+ * batch of low priority messages does not delay urgent messages. The number of waiting messages and the time they had
+ * to wait per class is logged at <i>DEBUG</i> level on each run of the worker and is available through JMX as {@link
+ * SenderStatisticsMXBean} per priority class, see {@link ProcessingMetrics#registerSenderStatistics(
+ * SenderStatisticsMXBean)}. As the statistics are kept by the pool of sender threads, they restart when the number of
+ * concurrent sends or threads is reconfigured.
+ * <p>As this worker is needed for Holodeck B2B to work properly it is included in the default worker pool.
  *
  * @author Sander Fieten (sander at holodeck-b2b.org)
  */
@@ -47,7 +90,102 @@ public class SenderWorker extends AbstractWorkerTask {
     private static final Logger log = LogManager.getLogger(SenderWorker.class.getName());
 
     /**
-     * Looks for message units that are for sending and kicks off the send process
+     * Name of the parameter that sets the maximum number of concurrent sends
+     */
+    public static final String P_MAX_CONCURRENT = "maxConcurrentSends";
+    /**
+     * Name of the parameter that sets the maximum number of concurrent sends to the same destination
+     */
+    public static final String P_MAX_PER_DESTINATION = "maxSendsPerDestination";
+    /**
+     * Name of the parameter that indicates whether the non-blocking send process should be used
+     */
+    public static final String P_ASYNC_SEND = "asyncSend";
+    /**
+     * Name of the parameter that sets the number of threads used by the non-blocking send process
+     */
+    public static final String P_THREADS = "senderThreads";
+    /**
+     * Name of the parameter that indicates whether message units should be sent as soon as they are ready
+     */
+    public static final String P_IMMEDIATE_DISPATCH = "immediateDispatch";
+
+    private static final int DEFAULT_MAX_CONCURRENT = 10;
+    private static final int DEFAULT_MAX_PER_DESTINATION = 2;
+
+    /**
+     * The dispatcher that executes the send processes
+     */
+    private volatile SendDispatcher dispatcher = new SendDispatcher(DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_PER_DESTINATION);
+    /**
+     * Indicates whether the non-blocking send process is used
+     */
+    private boolean asyncSend = false;
+    /**
+     * The listener that queues message units for sending as soon as they become ready to be sent
+     */
+    private final IProcessingStateListener readyListener = (msgUnit, newState) -> {
+        if (newState == ProcessingState.READY_TO_PUSH)
+            triggerSend(msgUnit);
+    };
+    /**
+     * The storage manager the listener is registered with, <code>null</code> if message units are not sent
+     * immediately
+     */
+    private StorageManager listeningTo;
+    /**
+     * The statistics of the priority classes registered in JMX, <code>null</code> if not registered
+     */
+    private List<PriorityStatistics> jmxStatistics;
+
+    /**
+     * Makes the statistics of a priority class of the current dispatcher available through JMX.
+     */
+    private class PriorityStatistics implements SenderStatisticsMXBean {
+        private final Priority priority;
+
+        PriorityStatistics(final Priority priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public String getWorker() {
+            return getName();
+        }
+
+        @Override
+        public String getPriority() {
+            return priority.name();
+        }
+
+        @Override
+        public int getQueued() {
+            return dispatcher.getStatistics(priority).getQueued();
+        }
+
+        @Override
+        public int getExecuting() {
+            return dispatcher.getStatistics(priority).getExecuting();
+        }
+
+        @Override
+        public long getStarted() {
+            return dispatcher.getStatistics(priority).getStarted();
+        }
+
+        @Override
+        public long getAverageWait() {
+            return dispatcher.getStatistics(priority).getAverageWait();
+        }
+
+        @Override
+        public long getMaxWait() {
+            return dispatcher.getStatistics(priority).getMaxWait();
+        }
+    }
+
+    /**
+     * Looks for message units that are for sending and queues the send process
      * for each of them. To prevent a message from being send twice the send process
      * is only started if the processing state can be successfully changed.
      */
@@ -62,6 +200,7 @@ public class SenderWorker extends AbstractWorkerTask {
 
             if (!Utils.isNullOrEmpty(msgUnitsToSend)) {
                 log.trace("Found {} message units to send",  msgUnitsToSend.size());
+                final EndpointCircuitBreaker circuitBreaker = Axis2Sender.getCircuitBreaker();
                 for (final IMessageUnitEntity msgUnit : msgUnitsToSend) {
                     // Only message units associated with a P-Mode can be send
                     if (Utils.isNullOrEmpty(msgUnit.getPModeId())) {
@@ -70,28 +209,234 @@ public class SenderWorker extends AbstractWorkerTask {
                         continue;
                     }
 
-                    // Indicate that processing will start
-                    if (HolodeckB2BCore.getStorageManager().setProcessingState(msgUnit, ProcessingState.PROCESSING)) {
-                    	// only when we could succesfully set processing state really start processing
-                        log.trace("Trigger send process for {} [{}]", MessageUnitUtils.getMessageUnitName(msgUnit),
-                        			msgUnit.getMessageId());
-                        Axis2Sender.sendMessage(msgUnit);
-                    } else
-                        // Message probably already in process
-                        log.trace("Could not start sending [{}] because processing state was already changed",
-                        		  msgUnit.getMessageId());
+                    queue(msgUnit, circuitBreaker, false);
                 }
             }
         } catch (final StorageException dbError) {
             log.error("Could not process messages because a database error occurred. Details: {}",
                         Utils.getExceptionTrace(dbError));
         }
+
+        if (log.isDebugEnabled())
+            dispatcher.getStatistics().forEach((p, stats) -> log.debug("{} priority sends : {}", p, stats));
+    }
+
+    /**
+     * Immediately queues the send process for the given message unit that has just been set to <i>READY_TO_PUSH</i>,
+     * so it does not have to wait until the next run of the worker. The message unit is retrieved again from the
+     * database when the send process starts, so the caller can continue to use the given entity object.
+     *
+     * @param msgUnit   the message unit that is ready to be sent
+     */
+    private void triggerSend(final IMessageUnitEntity msgUnit) {
+        if (msgUnit.getDirection() != Direction.OUT || Utils.isNullOrEmpty(msgUnit.getPModeId()))
+            return;
+        try {
+            log.trace("Immediately queue {} [{}] for sending", MessageUnitUtils.getMessageUnitName(msgUnit),
+            		  msgUnit.getMessageId());
+            queue(msgUnit, Axis2Sender.getCircuitBreaker(), true);
+        } catch (final RuntimeException queueFailure) {
+            log.warn("Could not queue {} [{}] for immediate sending, will be sent on next run. Error: {}",
+            		 MessageUnitUtils.getMessageUnitName(msgUnit), msgUnit.getMessageId(), queueFailure.getMessage());
+        }
+    }
+
+    /**
+     * Queues the send process for the given message unit unless its destination is currently not available.
+     *
+     * @param msgUnit           the message unit to send
+     * @param circuitBreaker    the circuit breaker that tracks the availability of the destinations, <code>null
+     *                          </code> if not used
+     * @param retrieve          indicates whether the message unit should be retrieved again from the database when the
+     *                          send process starts
+     */
+    private void queue(final IMessageUnitEntity msgUnit, final EndpointCircuitBreaker circuitBreaker,
+    				   final boolean retrieve) {
+        final String destination = PModeUtils.getDestinationURL(msgUnit);
+        if (circuitBreaker != null && circuitBreaker.isDeferred(destination)) {
+            log.trace("Defer sending {} [{}] as destination is not available",
+            		  MessageUnitUtils.getMessageUnitName(msgUnit), msgUnit.getMessageId());
+            return;
+        }
+        final String pmodeId = msgUnit.getPModeId();
+        final IPMode pmode = HolodeckB2BCore.getPModeSet().get(pmodeId);
+        final Priority priority = pmode != null ? pmode.getPriority() : null;
+        final SendDispatcher d = dispatcher;
+        final String coreId = msgUnit.getCoreId();
+        final boolean queued = asyncSend ?
+        				d.submitAsync(priority, pmodeId, destination, coreId,
+        							  () -> sendAsync(retrieve ? retrieve(coreId) : msgUnit, d.getExecutor()))
+        			  : d.submit(priority, pmodeId, destination, coreId,
+        					  	 () -> send(retrieve ? retrieve(coreId) : msgUnit));
+        if (!queued)
+            log.trace("{} [{}] is already queued for sending", MessageUnitUtils.getMessageUnitName(msgUnit),
+            		  msgUnit.getMessageId());
+    }
+
+    /**
+     * Retrieves the current meta-data of the message unit with the given <i>CoreId</i> from the database.
+     *
+     * @param coreId    the <i>CoreId</i> of the message unit
+     * @return  the message unit, or <code>null</code> if it could not be retrieved
+     */
+    private IMessageUnitEntity retrieve(final String coreId) {
+        try {
+            return HolodeckB2BCore.getQueryManager().getMessageUnitWithCoreId(coreId);
+        } catch (final StorageException dbError) {
+            log.error("Could not retrieve message unit [coreId={}] because a database error occurred. Details: {}",
+                        coreId, Utils.getExceptionTrace(dbError));
+            return null;
+        }
+    }
+
+    /**
+     * Starts the send process for the given message unit if its processing state can be changed to
+     * <i>PROCESSING</i>.
+     *
+     * @param msgUnit   the message unit to send
+     */
+    private void send(final IMessageUnitEntity msgUnit) {
+        if (msgUnit == null)
+            return;
+        try {
+            // Indicate that processing will start
+            if (HolodeckB2BCore.getStorageManager().setProcessingState(msgUnit, ProcessingState.PROCESSING)) {
+            	// only when we could succesfully set processing state really start processing
+                log.trace("Trigger send process for {} [{}]", MessageUnitUtils.getMessageUnitName(msgUnit),
+                			msgUnit.getMessageId());
+                Axis2Sender.sendMessage(msgUnit);
+            } else
+                // Message probably already in process
+                log.trace("Could not start sending [{}] because processing state was already changed",
+                		  msgUnit.getMessageId());
+        } catch (final StorageException dbError) {
+            log.error("Could not send message [{}] because a database error occurred. Details: {}",
+                        msgUnit.getMessageId(), Utils.getExceptionTrace(dbError));
+        }
     }
 
     /**
-     * This worker does not take any configuration. Therefor the implementation of this method is empty.
+     * Starts the non-blocking send process for the given message unit if its processing state can be changed to
+     * <i>PROCESSING</i>.
+     *
+     * @param msgUnit   the message unit to send
+     * @param executor	the executor to use for processing the response
+     * @return	the stage that completes when the send process has finished
+     */
+    private CompletionStage<Void> sendAsync(final IMessageUnitEntity msgUnit, final Executor executor) {
+        if (msgUnit == null)
+            return CompletableFuture.completedFuture(null);
+        try {
+            if (HolodeckB2BCore.getStorageManager().setProcessingState(msgUnit, ProcessingState.PROCESSING)) {
+                log.trace("Trigger asynchronous send process for {} [{}]",
+                		  MessageUnitUtils.getMessageUnitName(msgUnit), msgUnit.getMessageId());
+                return Axis2Sender.sendMessageAsync(msgUnit, executor).exceptionally(t -> {
+                	log.error("Could not complete sending message [{}]. Details: {}", msgUnit.getMessageId(),
+                			  Utils.getExceptionTrace(t.getCause() != null ? t.getCause() : t));
+                	return null;
+                });
+            } else
+                log.trace("Could not start sending [{}] because processing state was already changed",
+                		  msgUnit.getMessageId());
+        } catch (final StorageException dbError) {
+            log.error("Could not send message [{}] because a database error occurred. Details: {}",
+                        msgUnit.getMessageId(), Utils.getExceptionTrace(dbError));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Configures the number of concurrent sends, both in total and per destination, whether the non-blocking send
+     * process is used and whether message units are sent immediately based on the <i>maxConcurrentSends</i>,
+     * <i>maxSendsPerDestination</i>, <i>asyncSend</i>, <i>senderThreads</i> and <i>immediateDispatch</i> parameters.
+     * When a parameter is not specified or has an invalid value the default is used.
      */
     @Override
     public void setParameters(final Map<String, ?> parameters) throws TaskConfigurationException {
+        final int maxConcurrent = getIntParameter(parameters, P_MAX_CONCURRENT, DEFAULT_MAX_CONCURRENT);
+        final int maxPerDestination = getIntParameter(parameters, P_MAX_PER_DESTINATION, DEFAULT_MAX_PER_DESTINATION);
+        final Object async = parameters != null ? parameters.get(P_ASYNC_SEND) : null;
+        asyncSend = async != null && "true".equalsIgnoreCase(async.toString().trim());
+        final int threads = !asyncSend ? maxConcurrent :
+        					Math.min(maxConcurrent, getIntParameter(parameters, P_THREADS,
+        															Runtime.getRuntime().availableProcessors()));
+        final Object immediate = parameters != null ? parameters.get(P_IMMEDIATE_DISPATCH) : null;
+        setImmediateDispatch(immediate == null || !"false".equalsIgnoreCase(immediate.toString().trim()));
+        if (maxConcurrent != dispatcher.getMaxConcurrent() || maxPerDestination != dispatcher.getMaxPerDestination()
+        	|| threads != dispatcher.getThreads()) {
+            final SendDispatcher previous = dispatcher;
+            dispatcher = new SendDispatcher(maxConcurrent, maxPerDestination, threads);
+            previous.shutdown();
+        }
+        log.info("Sending at most {} messages concurrently, with at most {} to the same destination, using {}{}"
+        		 + " threads", maxConcurrent, maxPerDestination, threads, asyncSend ? " non-blocking" : "");
+        registerStatistics();
+    }
+
+    /**
+     * Stops listening for message units that become ready to be sent and shuts down the dispatcher. Send processes
+     * that are already running are completed.
+     *
+     * @since 8.2.0
+     */
+    @Override
+    public void shutdown() {
+        setImmediateDispatch(false);
+        unregisterStatistics();
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Registers the statistics of the priority classes in JMX, unless already done.
+     */
+    private synchronized void registerStatistics() {
+        if (jmxStatistics != null)
+            return;
+        jmxStatistics = new ArrayList<>(Priority.values().length);
+        for (Priority p : Priority.values()) {
+            final PriorityStatistics stats = new PriorityStatistics(p);
+            ProcessingMetrics.registerSenderStatistics(stats);
+            jmxStatistics.add(stats);
+        }
+    }
+
+    /**
+     * Removes the statistics of the priority classes from JMX.
+     */
+    private synchronized void unregisterStatistics() {
+        if (jmxStatistics != null) {
+            jmxStatistics.forEach(ProcessingMetrics::unregisterSenderStatistics);
+            jmxStatistics = null;
+        }
+    }
+
+    /**
+     * Registers or unregisters the listener that queues message units as soon as they become ready to be sent.
+     *
+     * @param enable	indicates whether message units should be sent immediately
+     */
+    private synchronized void setImmediateDispatch(final boolean enable) {
+        if (listeningTo != null) {
+            listeningTo.removeProcessingStateListener(readyListener);
+            listeningTo = null;
+        }
+        if (enable) {
+            listeningTo = HolodeckB2BCore.getStorageManager();
+            listeningTo.addProcessingStateListener(readyListener);
+        }
+    }
+
+    private int getIntParameter(final Map<String, ?> parameters, final String name, final int defaultValue) {
+        final Object value = parameters != null ? parameters.get(name) : null;
+        if (value == null)
+            return defaultValue;
+        try {
+            final int i = Integer.parseInt(value.toString().trim());
+            if (i > 0)
+                return i;
+        } catch (final NumberFormatException NaN) {
+        }
+        log.warn("Illegal value [" + value.toString() + "] used for \"" + name + "\" parameter! Using default.");
+        return defaultValue;
     }
 }
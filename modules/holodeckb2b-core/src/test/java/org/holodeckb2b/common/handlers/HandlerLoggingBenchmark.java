@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.common.handlers;
+
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.common.testhelpers.Benchmark;
+import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
+
+/**
+ * Benchmark of the time and memory used by the invocation of the handlers in a flow, comparing the handlers as they
+ * log now, i.e. using a log that is created once per flow and parameterised log messages, with handlers that log as
+ * before, i.e. creating the log on each invocation and concatenating the log message. As in a normal deployment the
+ * debug level is not enabled. The number of handlers in the flow can be set using the system property
+ * <i>handlers</i>.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of rounds as argument.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class HandlerLoggingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		final int rounds = Benchmark.getArgument(args, 0, 100000);
+		final int count = Integer.getInteger("handlers", 30);
+
+		final AbstractBaseHandler[] current = new AbstractBaseHandler[count];
+		final AbstractBaseHandler[] previous = new AbstractBaseHandler[count];
+		for (int i = 0; i < count; i++) {
+			current[i] = new CurrentHandler();
+			current[i].init(new HandlerDescription("Handler" + i));
+			previous[i] = new PreviousHandler();
+			previous[i].init(new HandlerDescription("Handler" + i));
+		}
+		final MessageContext mc = new MessageContext();
+		mc.setServerSide(true);
+		mc.setFLOW(MessageContext.IN_FLOW);
+		mc.setMessageID("benchmark-message-id@holodeck-b2b.org");
+
+		Benchmark.warmUp(rounds, () -> run(previous, mc), () -> run(current, mc));
+		for (boolean now : new boolean[] { false, true }) {
+			final Benchmark.Measurement m = Benchmark.measure(rounds, () -> run(now ? current : previous, mc));
+			System.out.printf("%-8s: CPU %.2f us, allocated %.0f bytes per message (%d handlers)%n",
+							  now ? "current" : "previous", m.getCpuTime() / 1000, m.getAllocated(), count);
+		}
+	}
+
+	private static void run(final AbstractBaseHandler[] handlers, final MessageContext mc) throws Exception {
+		for (AbstractBaseHandler h : handlers)
+			h.invoke(mc);
+	}
+
+	/**
+	 * Handler that logs a parameterised message.
+	 */
+	static class CurrentHandler extends AbstractBaseHandler {
+		@Override
+		protected InvocationResponse doProcessing(IMessageProcessingContext procCtx, Logger log) throws Exception {
+			log.debug("Processed message [msgId={}] in flow {}", procCtx.getParentContext().getMessageID(),
+					  procCtx.getParentContext().getFLOW());
+			return InvocationResponse.CONTINUE;
+		}
+	}
+
+	/**
+	 * Handler that, like handlers did before, creates the log on each invocation and logs a concatenated message.
+	 */
+	static class PreviousHandler extends AbstractBaseHandler {
+		@Override
+		protected InvocationResponse doProcessing(IMessageProcessingContext procCtx, Logger log) throws Exception {
+			final MessageContext mc = procCtx.getParentContext();
+			String flowName = mc.isServerSide() ? "RESPONSE_" : "REQUEST_";
+			switch (mc.getFLOW()) {
+			case MessageContext.IN_FLOW :
+				flowName += "IN_FLOW"; break;
+			case MessageContext.OUT_FLOW :
+				flowName += "OUT_FLOW"; break;
+			}
+			final Logger l = LogManager.getLogger("org.holodeckb2b.msgproc." + handledMsgProtocol + "." + flowName
+												  + "." + getHandlerDesc().getName());
+			l.debug("Processed message [msgId=" + mc.getMessageID() + "] in flow " + mc.getFLOW());
+			return InvocationResponse.CONTINUE;
+		}
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.common.testhelpers;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Contains the functions shared by the benchmarks, i.e. the classes that measure the performance of a part of Holodeck
+ * B2B. As a benchmark framework like JMH is not available in the build, the benchmarks are plain classes that are run
+ * using their <code>main</code> method and are not executed as part of the build. The benchmarks typically compare
+ * the current implementation with the previous one by first warming up both using {@link #warmUp(int, Operation...)}
+ * and then measuring each using {@link #measure(int, Operation)} or a {@link Measurement} when only a part of each
+ * round should be measured.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public final class Benchmark {
+
+	/**
+	 * An operation executed in each round of the benchmark.
+	 */
+	@FunctionalInterface
+	public interface Operation {
+		void run() throws Exception;
+	}
+
+	private static final com.sun.management.ThreadMXBean threads =
+								(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private static final com.sun.management.OperatingSystemMXBean os =
+						(com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+	private Benchmark() {}
+
+	/**
+	 * Gets the value of a numeric argument of the benchmark.
+	 *
+	 * @param args			the arguments given to the <code>main</code> method
+	 * @param i				index of the argument
+	 * @param defaultValue	value to use when the argument is not given
+	 * @return	the value of the argument
+	 */
+	public static int getArgument(final String[] args, final int i, final int defaultValue) {
+		return args.length > i ? Integer.parseInt(args[i]) : defaultValue;
+	}
+
+	/**
+	 * Warms up the JVM by executing the given operations alternately for the given number of rounds.
+	 *
+	 * @param rounds		number of times each operation is executed
+	 * @param operations	the operations to execute
+	 * @throws Exception when an operation fails
+	 */
+	public static void warmUp(final int rounds, final Operation... operations) throws Exception {
+		for (int i = 0; i < rounds; i++)
+			for (Operation op : operations)
+				op.run();
+	}
+
+	/**
+	 * Measures the CPU time, elapsed time and memory allocated by the current thread when executing the given
+	 * operation for the given number of rounds.
+	 *
+	 * @param rounds	number of times the operation is executed
+	 * @param operation	the operation to measure
+	 * @return	the measurement
+	 * @throws Exception when the operation fails
+	 */
+	public static Measurement measure(final int rounds, final Operation operation) throws Exception {
+		final Measurement m = Measurement.ofCurrentThread();
+		m.start();
+		for (int i = 0; i < rounds; i++)
+			operation.run();
+		m.stop(rounds);
+		return m;
+	}
+
+	/**
+	 * Sorts the given latencies and summarises them as their average, median and 99th percentile.
+	 *
+	 * @param latencies	the measured latencies in nanoseconds
+	 * @param n			number of latencies measured, i.e. the first <code>n</code> elements of the array are used
+	 * @return	the summary of the latencies in milliseconds
+	 */
+	public static String summariseLatencies(final long[] latencies, final int n) {
+		if (n == 0)
+			return "no latencies measured";
+		Arrays.sort(latencies, 0, n);
+		return String.format("latency avg %.1f ms p50 %.1f ms p99 %.1f ms",
+							 Arrays.stream(latencies, 0, n).average().orElse(0) / 1e6, latencies[n / 2] / 1e6,
+							 latencies[Math.max(0, (int) Math.ceil(n * 0.99) - 1)] / 1e6);
+	}
+
+	/**
+	 * Accumulates the CPU time, elapsed time and, when measuring the current thread, allocated memory of the measured
+	 * operations. When measuring the current thread only the CPU time used by that thread is included, so operations
+	 * that use other threads should be measured for the whole process. A thread measurement must be started and
+	 * stopped by the same thread.
+	 */
+	public static final class Measurement {
+		private final boolean	process;
+		private long	cpuStart, wallStart, allocStart;
+		private long	cpu, wall, allocated, operations;
+
+		private Measurement(final boolean process) {
+			this.process = process;
+		}
+
+		/**
+		 * @return a new measurement of the current thread
+		 */
+		public static Measurement ofCurrentThread() {
+			return new Measurement(false);
+		}
+
+		/**
+		 * @return a new measurement of the whole process, which does not include the allocated memory
+		 */
+		public static Measurement ofProcess() {
+			return new Measurement(true);
+		}
+
+		/**
+		 * Starts measuring.
+		 */
+		public void start() {
+			if (!process)
+				allocStart = threads.getCurrentThreadAllocatedBytes();
+			cpuStart = process ? os.getProcessCpuTime() : threads.getCurrentThreadCpuTime();
+			wallStart = System.nanoTime();
+		}
+
+		/**
+		 * Stops measuring a single operation.
+		 */
+		public void stop() {
+			stop(1);
+		}
+
+		/**
+		 * Stops measuring the given number of operations.
+		 *
+		 * @param n	number of operations executed since the measurement was started
+		 */
+		public void stop(final long n) {
+			wall += System.nanoTime() - wallStart;
+			cpu += (process ? os.getProcessCpuTime() : threads.getCurrentThreadCpuTime()) - cpuStart;
+			if (!process)
+				allocated += threads.getCurrentThreadAllocatedBytes() - allocStart;
+			operations += n;
+		}
+
+		/**
+		 * @return the number of measured operations
+		 */
+		public long getOperations() {
+			return operations;
+		}
+
+		/**
+		 * @return the average CPU time per operation in nanoseconds
+		 */
+		public double getCpuTime() {
+			return operations > 0 ? (double) cpu / operations : 0;
+		}
+
+		/**
+		 * @return the average elapsed time per operation in nanoseconds
+		 */
+		public double getWallTime() {
+			return operations > 0 ? (double) wall / operations : 0;
+		}
+
+		/**
+		 * @return the average number of bytes allocated per operation, or -1 when measuring the whole process
+		 */
+		public double getAllocated() {
+			return process ? -1 : operations > 0 ? (double) allocated / operations : 0;
+		}
+
+		/**
+		 * @return the number of operations executed per second
+		 */
+		public double getThroughput() {
+			return wall > 0 ? operations * 1e9 / wall : 0;
+		}
+
+		/**
+		 * Summarises the measurement as the average CPU time, elapsed time and, when measuring the current thread,
+		 * allocated memory per operation.
+		 */
+		@Override
+		public String toString() {
+			return process ? String.format("CPU %.1f us, wall %.1f us", getCpuTime() / 1000, getWallTime() / 1000)
+						   : String.format("CPU %.1f us, wall %.1f us, allocated %.1f KiB", getCpuTime() / 1000,
+										   getWallTime() / 1000, getAllocated() / 1024);
+		}
+	}
+}
@@ -68,6 +68,7 @@ public class HolodeckB2BTestCore extends HolodeckB2BCoreImpl implements IHolodec
 	private ICertificateManager certManager;
 	private IMetadataStorageProvider mdsProvider = new InMemoryMDSProvider();
 	private IPayloadStorageProvider  psProvider = new InMemoryPSProvider();
+	private StorageManager	storageManager;
 	private List<IMessageProcessingEventConfiguration> eventConfig = new ArrayList<>();
 	private IDeliveryManager	deliveryManager;
 	private Map<String, Module> modules = new HashMap<>();
@@ -182,6 +183,7 @@ public class HolodeckB2BTestCore extends HolodeckB2BCoreImpl implements IHolodec
 	public void setMetadataStorageProvider(IMetadataStorageProvider provider) throws StorageException {
 		mdsProvider = provider;
 		mdsProvider.init(configuration);
+		storageManager = null;
 	}
 
 	public IMetadataStorageProvider getMetadataStorageProvider() {
@@ -191,6 +193,7 @@ public class HolodeckB2BTestCore extends HolodeckB2BCoreImpl implements IHolodec
 	public void setPayloadStorageProvider(IPayloadStorageProvider provider) throws StorageException {
 		psProvider = provider;
 		psProvider.init(configuration);
+		storageManager = null;
 	}
 
 	public IPayloadStorageProvider getPayloadStorageProvider() {
@@ -209,8 +212,10 @@ public class HolodeckB2BTestCore extends HolodeckB2BCoreImpl implements IHolodec
 	 * @see org.holodeckb2b.interfaces.core.IHolodeckB2BCore#getQueryManager()
 	 */
 	@Override
-	public StorageManager getStorageManager() {
-		return new StorageManager(getMetadataStorageProvider(), getPayloadStorageProvider());
+	public synchronized StorageManager getStorageManager() {
+		if (storageManager == null)
+			storageManager = createStorageManager(getMetadataStorageProvider(), getPayloadStorageProvider());
+		return storageManager;
 	}
 
 
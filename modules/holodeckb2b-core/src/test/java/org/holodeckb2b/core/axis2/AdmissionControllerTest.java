@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.http.server.Worker;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link AdmissionController}
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class AdmissionControllerTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testDisabledByDefault() throws Exception {
+		final TransportInDescription http = new TransportInDescription("http");
+		assertNull(AdmissionController.fromConfiguration(http));
+
+		http.addParameter(new Parameter(AdmissionController.PARAMETER_MAX_IN_FLIGHT, "10"));
+		http.addParameter(new Parameter(AdmissionController.PARAMETER_MAX_QUEUED, "5"));
+		http.addParameter(new Parameter(AdmissionController.PARAMETER_RETRY_AFTER, "30"));
+		final AdmissionController ac = AdmissionController.fromConfiguration(http);
+		assertNotNull(ac);
+		assertEquals(15, ac.getCapacity());
+		assertEquals(30, ac.getRetryAfter());
+	}
+
+	@Test
+	void testQueueFull() {
+		final AdmissionController ac = new AdmissionController(2, 0, 100, false, 10);
+		final AdmissionController.Permit p1 = ac.admit("a");
+		final AdmissionController.Permit p2 = ac.admit("a");
+		assertNotNull(p1);
+		assertNotNull(p2);
+		assertNull(ac.admit("b"));
+
+		p1.release();
+		// Releasing twice must not free another slot
+		p1.release();
+		assertNotNull(ac.admit("b"));
+		assertNull(ac.admit("b"));
+
+		final AdmissionController.Statistics stats = ac.getStatistics();
+		assertEquals(3, stats.getAdmitted());
+		assertEquals(2, stats.getRejectedQueueFull());
+		assertEquals(2, stats.getInFlight());
+	}
+
+	@Test
+	void testQueueTimeout() {
+		final AdmissionController ac = new AdmissionController(1, 1, 50, false, 10);
+		assertNotNull(ac.admit("a"));
+		final long start = System.nanoTime();
+		assertNull(ac.admit("a"));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+		final AdmissionController.Statistics stats = ac.getStatistics();
+		assertEquals(1, stats.getDelayed());
+		assertEquals(1, stats.getRejectedTimeout());
+		assertEquals(0, stats.getQueued());
+	}
+
+	@Test
+	void testQueuedAdmittedOnRelease() throws Exception {
+		final AdmissionController ac = new AdmissionController(1, 1, 5000, false, 10);
+		final AdmissionController.Permit p1 = ac.admit("a");
+		final Future<AdmissionController.Permit> waiting = Executors.newSingleThreadExecutor()
+																	 .submit(() -> ac.admit("b"));
+		while (ac.getStatistics().getQueued() == 0)
+			Thread.sleep(5);
+		p1.release();
+		assertNotNull(waiting.get(5, TimeUnit.SECONDS));
+		assertEquals(1, ac.getStatistics().getInFlight());
+	}
+
+	@Test
+	void testFairShare() {
+		// Capacity of 4, so with two sources each source gets 2
+		final AdmissionController ac = new AdmissionController(2, 2, 10, true, 10);
+		assertNotNull(ac.tryAdmit("a"));
+		assertNotNull(ac.tryAdmit("a"));
+		// No contention yet, so "a" can use more
+		assertNotNull(ac.tryAdmit("a"));
+		assertNotNull(ac.tryAdmit("b"));
+		assertNull(ac.tryAdmit("a"));
+		assertEquals(1, ac.getStatistics().getRejectedQueueFull());
+
+		final AdmissionController ac2 = new AdmissionController(2, 2, 10, true, 10);
+		assertNotNull(ac2.tryAdmit("a"));
+		assertNotNull(ac2.tryAdmit("a"));
+		assertNotNull(ac2.tryAdmit("b"));
+		// "a" already has its share of 2 now "b" is also active
+		assertNull(ac2.tryAdmit("a"));
+		assertNotNull(ac2.tryAdmit("b"));
+		assertEquals(1, ac2.getStatistics().getRejectedFairShare());
+	}
+
+	@Test
+	void testNIOServerRejectsBeforeBody() throws Exception {
+		final CountDownLatch proceed = new CountDownLatch(1);
+		final Worker blockingWorker = (request, response, msgContext) -> {
+			try {
+				proceed.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+			}
+			NIOHTTPServerTest.ECHO_WORKER.service(request, response, msgContext);
+		};
+		final AdmissionController ac = new AdmissionController(1, 0, 0, false, 7);
+		final NIOHTTPServer server = new NIOHTTPServer(new ConfigurationContext(new AxisConfiguration()),
+													new TransportInDescription("http"), () -> blockingWorker,
+													new InetSocketAddress("localhost", 0),
+													Executors.newFixedThreadPool(2), 5000, true, 100, 64 * 1024,
+													tempDir, 0, ac);
+		server.start();
+		try (Socket first = new Socket("localhost", server.getPort());
+			 Socket second = new Socket("localhost", server.getPort())) {
+			first.getOutputStream().write("POST /msh HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1\r\n\r\na"
+										  .getBytes(StandardCharsets.US_ASCII));
+			while (ac.getStatistics().getInFlight() == 0)
+				Thread.sleep(5);
+
+			// Only the headers are sent, the rejection must not wait for the body
+			second.getOutputStream().write("POST /msh HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1000\r\n\r\n"
+										   .getBytes(StandardCharsets.US_ASCII));
+			final String response = new String(second.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+			assertTrue(response.startsWith("HTTP/1.1 " + HttpStatus.SC_SERVICE_UNAVAILABLE), response);
+			assertTrue(response.contains("Retry-After: 7"), response);
+
+			proceed.countDown();
+			final InputStream in = first.getInputStream();
+			assertTrue(new String(in.readNBytes(12), StandardCharsets.US_ASCII).startsWith("HTTP/1.1 200"));
+		} finally {
+			server.stop();
+		}
+		assertEquals(0, ac.getStatistics().getInFlight());
+		assertEquals(1, ac.getStatistics().getRejected());
+	}
+}
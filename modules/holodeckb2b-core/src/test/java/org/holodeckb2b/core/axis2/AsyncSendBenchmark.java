@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.Phase;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.common.pmode.PMode;
+import org.holodeckb2b.common.testhelpers.Benchmark;
+import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Load test of the blocking and non-blocking send operations of {@link Axis2Sender} against a slow trading partner.
+ * The messages are sent to a local receiver that delays each response, using the same small number of threads for
+ * both send operations. With the blocking send the throughput is limited to <i>threads / latency</i>, while the
+ * non-blocking send can have many more messages in transit.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of messages, the number of threads, the maximum number of messages in
+ * transit and the response delay in milliseconds as arguments.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class AsyncSendBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		final int messages = Benchmark.getArgument(args, 0, 1000);
+		final int threads = Benchmark.getArgument(args, 1, 4);
+		final int inTransit = Benchmark.getArgument(args, 2, 200);
+		final long latency = Benchmark.getArgument(args, 3, 500);
+
+		final AtomicInteger concurrent = new AtomicInteger();
+		final AtomicInteger maxConcurrent = new AtomicInteger();
+		final HttpServer receiver = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+		receiver.createContext("/msh", ex -> {
+			maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+			ex.getRequestBody().readAllBytes();
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+			}
+			concurrent.decrementAndGet();
+			ex.sendResponseHeaders(202, -1);
+			ex.close();
+		});
+		receiver.setExecutor(Executors.newCachedThreadPool());
+		receiver.start();
+		Axis2SenderBenchmark.PrepareMessage.destination =
+											"http://localhost:" + receiver.getAddress().getPort() + "/msh";
+
+		final HolodeckB2BTestCore core = new HolodeckB2BTestCore();
+		HolodeckB2BCoreInterface.setImplementation(core);
+		final var axisConfig = core.getConfiguration();
+		final TransportOutDescription http = new TransportOutDescription("http");
+		final HTTPTransportSender sender = new HTTPTransportSender();
+		http.setSender(sender);
+		axisConfig.addTransportOut(http);
+		sender.init(new ConfigurationContext(axisConfig), http);
+		axisConfig.addService(new AxisService("as4"));
+		final Phase prepare = new Phase("benchmark");
+		prepare.addHandler(new Axis2SenderBenchmark.PrepareMessage());
+		axisConfig.getOutFlowPhases().add(prepare);
+
+		final PMode pmode = HB2BTestUtils.create1WaySendPushPMode();
+		core.getPModeSet().add(pmode);
+		final List<IUserMessageEntity> blocking = createMessages(pmode, messages);
+		final List<IUserMessageEntity> nonBlocking = createMessages(pmode, messages);
+
+		System.out.printf("Sending %d messages with %d threads to receiver with %d ms latency%n", messages, threads,
+						  latency);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		// The messages are sent by the executor's threads, so the whole process is measured
+		final Benchmark.Measurement blockingSend = Benchmark.Measurement.ofProcess();
+		blockingSend.start();
+		final List<CompletableFuture<Void>> sends = new ArrayList<>(messages);
+		for (IUserMessageEntity m : blocking)
+			sends.add(CompletableFuture.runAsync(() -> {
+				try {
+					Axis2Sender.sendMessage(m);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}, executor));
+		CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+		blockingSend.stop(messages);
+		report("Blocking", blockingSend, maxConcurrent.getAndSet(0));
+
+		final Semaphore transit = new Semaphore(inTransit);
+		sends.clear();
+		final Benchmark.Measurement nonBlockingSend = Benchmark.Measurement.ofProcess();
+		nonBlockingSend.start();
+		for (IUserMessageEntity m : nonBlocking) {
+			transit.acquire();
+			sends.add(CompletableFuture.supplyAsync(() -> Axis2Sender.sendMessageAsync(m, executor), executor)
+									   .thenCompose(f -> f)
+									   .whenComplete((r, t) -> transit.release()));
+		}
+		CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+		nonBlockingSend.stop(messages);
+		report("Non-blocking (max " + inTransit + " in transit)", nonBlockingSend, maxConcurrent.get());
+
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+		receiver.stop(0);
+		System.exit(0);
+	}
+
+	private static List<IUserMessageEntity> createMessages(PMode pmode, int n) throws Exception {
+		final List<IUserMessageEntity> result = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			final UserMessage um = new UserMessage();
+			um.setPModeId(pmode.getId());
+			um.setMessageId(HolodeckB2BCore.getConfiguration().getHostName() + "-" + i + "-" + System.nanoTime());
+			result.add(HolodeckB2BCore.getStorageManager().storeOutGoingMessageUnit(um));
+		}
+		return result;
+	}
+
+	private static void report(String mode, Benchmark.Measurement m, int maxConcurrent) {
+		System.out.printf("%-40s: %6.0f ms total, %7.1f msgs/s, CPU %.1f us per message, max %d concurrent "
+						  + "requests at receiver%n", mode, m.getWallTime() * m.getOperations() / 1e6,
+						  m.getThroughput(), m.getCpuTime() / 1000, maxConcurrent);
+	}
+}
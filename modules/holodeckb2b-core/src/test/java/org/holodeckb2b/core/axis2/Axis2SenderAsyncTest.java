@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.Phase;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.apache.axis2.kernel.http.HTTPConstants;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.common.pmode.PMode;
+import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.core.pmode.PModeUtils;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
+import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+class Axis2SenderAsyncTest {
+
+	private static final long LATENCY = 300;
+
+	private static HttpServer receiver;
+	private static HTTPTransportSender sender;
+	private static PMode pmode;
+	private static ExecutorService executor;
+
+	/**
+	 * Handler that sets the destination and records the completion of the out flow
+	 */
+	public static class RecordingHandler extends AbstractHandler {
+		static volatile String destination;
+		static volatile long	flowCompleted;
+		static volatile Integer statusCode;
+		static volatile Exception failure;
+		static volatile String	thread;
+		static final AtomicInteger invoked = new AtomicInteger();
+
+		@Override
+		public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+			invoked.incrementAndGet();
+			msgContext.setEnvelope(OMAbstractFactory.getSOAP12Factory().getDefaultEnvelope());
+			msgContext.setProperty(Constants.Configuration.TRANSPORT_URL, destination);
+			return InvocationResponse.CONTINUE;
+		}
+
+		@Override
+		public void flowComplete(MessageContext msgContext) {
+			statusCode = (Integer) msgContext.getProperty(HTTPConstants.MC_HTTP_STATUS_CODE);
+			failure = msgContext.getFailureReason();
+			thread = Thread.currentThread().getName();
+			flowCompleted = System.currentTimeMillis();
+		}
+	}
+
+	@BeforeAll
+	static void setup() throws Exception {
+		receiver = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		receiver.createContext("/msh", ex -> {
+			ex.getRequestBody().readAllBytes();
+			try {
+				Thread.sleep(LATENCY);
+			} catch (InterruptedException e) {
+			}
+			ex.sendResponseHeaders(202, -1);
+			ex.close();
+		});
+		receiver.setExecutor(Executors.newCachedThreadPool());
+		receiver.start();
+
+		final HolodeckB2BTestCore core = new HolodeckB2BTestCore();
+		HolodeckB2BCoreInterface.setImplementation(core);
+		final var axisConfig = core.getConfiguration();
+		final TransportOutDescription http = new TransportOutDescription("http");
+		sender = new HTTPTransportSender();
+		http.setSender(sender);
+		axisConfig.addTransportOut(http);
+		sender.init(new ConfigurationContext(axisConfig), http);
+		axisConfig.addService(new AxisService("as4"));
+		final Phase phase = new Phase("test");
+		phase.addHandler(new RecordingHandler());
+		axisConfig.getOutFlowPhases().add(phase);
+
+		pmode = HB2BTestUtils.create1WaySendPushPMode();
+		core.getPModeSet().add(pmode);
+
+		executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "completion"));
+	}
+
+	@AfterAll
+	static void shutdown() {
+		executor.shutdown();
+		sender.stop();
+		receiver.stop(0);
+	}
+
+	@BeforeEach
+	void reset() {
+		RecordingHandler.flowCompleted = 0;
+		RecordingHandler.statusCode = null;
+		RecordingHandler.failure = null;
+		RecordingHandler.thread = null;
+	}
+
+	private IUserMessageEntity createMessage() throws Exception {
+		final UserMessage um = new UserMessage();
+		um.setPModeId(pmode.getId());
+		um.setMessageId("async-" + System.nanoTime() + "@test");
+		return HolodeckB2BCore.getStorageManager().storeOutGoingMessageUnit(um);
+	}
+
+	@Test
+	void testSendAsync() throws Exception {
+		RecordingHandler.destination = "http://localhost:" + receiver.getAddress().getPort() + "/msh";
+
+		final long start = System.currentTimeMillis();
+		final CompletableFuture<Void> result = Axis2Sender.sendMessageAsync(createMessage(), executor);
+		// The calling thread should not wait for the response
+		assertTrue(System.currentTimeMillis() - start < LATENCY);
+		assertFalse(result.isDone());
+		assertEquals(0, RecordingHandler.flowCompleted);
+
+		result.get(5, TimeUnit.SECONDS);
+		assertTrue(RecordingHandler.flowCompleted - start >= LATENCY);
+		assertEquals("completion", RecordingHandler.thread);
+		assertEquals(202, RecordingHandler.statusCode);
+		assertNull(RecordingHandler.failure);
+	}
+
+	@Test
+	void testSendAsyncFailure() throws Exception {
+		try (ServerSocket s = new ServerSocket(0)) {
+			RecordingHandler.destination = "http://localhost:" + s.getLocalPort() + "/msh";
+		}
+		final IUserMessageEntity userMessage = createMessage();
+
+		Axis2Sender.sendMessageAsync(userMessage, executor).get(5, TimeUnit.SECONDS);
+
+		assertTrue(RecordingHandler.flowCompleted > 0);
+		assertNotNull(RecordingHandler.failure);
+		// As for the blocking send, an unhandled transport failure suspends the message
+		assertEquals(ProcessingState.SUSPENDED, userMessage.getCurrentProcessingState().getState());
+	}
+
+	@Test
+	void testDeferWhenUnavailable() throws Exception {
+		try (ServerSocket s = new ServerSocket(0)) {
+			RecordingHandler.destination = "http://localhost:" + s.getLocalPort() + "/msh";
+		}
+		final EndpointCircuitBreaker cb = sender.getCircuitBreaker();
+		final String destination = PModeUtils.getDestinationURL(createMessage());
+		try {
+			for (int i = 0; i < EndpointCircuitBreaker.DEFAULT_THRESHOLD; i++)
+				Axis2Sender.sendMessageAsync(createMessage(), executor).get(5, TimeUnit.SECONDS);
+			assertTrue(cb.isDeferred(destination));
+
+			final int invocations = RecordingHandler.invoked.get();
+			final IUserMessageEntity userMessage = createMessage();
+			HolodeckB2BCore.getStorageManager().setProcessingState(userMessage, ProcessingState.PROCESSING);
+			Axis2Sender.sendMessageAsync(userMessage, executor).get(5, TimeUnit.SECONDS);
+
+			// The message should not be processed but wait until the destination is available again
+			assertEquals(invocations, RecordingHandler.invoked.get());
+			assertEquals(ProcessingState.READY_TO_PUSH, userMessage.getCurrentProcessingState().getState());
+		} finally {
+			cb.recordSuccess(destination);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.Phase;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.common.pmode.PMode;
+import org.holodeckb2b.common.testhelpers.Benchmark;
+import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Microbenchmark of the overhead of the send operation of {@link Axis2Sender}. It sends a minimal SOAP message to a
+ * local receiver that responds immediately with an empty response, so the measured time is mostly spent on setting
+ * up and executing the Axis2 send process.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of messages to send as argument.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class Axis2SenderBenchmark {
+
+	private static final int WARMUP = Integer.getInteger("warmup", 1000);
+
+	/**
+	 * Handler that creates the SOAP envelope and sets the destination, replacing the handlers that are normally
+	 * executed in the out flow.
+	 */
+	public static class PrepareMessage extends AbstractHandler {
+		static String destination;
+
+		@Override
+		public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+			msgContext.setEnvelope(OMAbstractFactory.getSOAP12Factory().getDefaultEnvelope());
+			msgContext.setProperty(Constants.Configuration.TRANSPORT_URL, destination);
+			return InvocationResponse.CONTINUE;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		final int messages = Benchmark.getArgument(args, 0, 10000);
+
+		final AtomicInteger received = new AtomicInteger();
+		final HttpServer receiver = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		receiver.createContext("/msh", ex -> {
+			received.incrementAndGet();
+			ex.getRequestBody().readAllBytes();
+			ex.sendResponseHeaders(202, -1);
+			ex.close();
+		});
+		receiver.setExecutor(Executors.newFixedThreadPool(4));
+		receiver.start();
+		PrepareMessage.destination = "http://localhost:" + receiver.getAddress().getPort() + "/msh";
+
+		final HolodeckB2BTestCore core = new HolodeckB2BTestCore();
+		HolodeckB2BCoreInterface.setImplementation(core);
+		final var axisConfig = core.getConfiguration();
+		final TransportOutDescription http = new TransportOutDescription("http");
+		final HTTPTransportSender sender = new HTTPTransportSender();
+		http.setSender(sender);
+		axisConfig.addTransportOut(http);
+		sender.init(new ConfigurationContext(axisConfig), http);
+		axisConfig.addService(new AxisService("as4"));
+		final Phase prepare = new Phase("benchmark");
+		prepare.addHandler(new PrepareMessage());
+		axisConfig.getOutFlowPhases().add(prepare);
+
+		final PMode pmode = HB2BTestUtils.create1WaySendPushPMode();
+		core.getPModeSet().add(pmode);
+
+		System.out.printf("Warming up with %d messages%n", WARMUP);
+		send(pmode, WARMUP);
+		System.out.printf("Sending %d messages%n", messages);
+		final Benchmark.Measurement m = Benchmark.Measurement.ofCurrentThread();
+		m.start();
+		send(pmode, messages);
+		m.stop(messages);
+		System.out.printf("Average time per send: %.1f us (%.0f msgs/s)%n", m.getWallTime() / 1000,
+						  m.getThroughput());
+		System.out.printf("Receiver got %d of %d messages%n", received.get(), WARMUP + messages);
+		receiver.stop(0);
+		System.exit(0);
+	}
+
+	private static void send(PMode pmode, int n) throws Exception {
+		for (int i = 0; i < n; i++) {
+			final UserMessage um = new UserMessage();
+			um.setPModeId(pmode.getId());
+			um.setMessageId(HolodeckB2BCore.getConfiguration().getHostName() + "-" + i + "-" + System.nanoTime());
+			final IUserMessageEntity entity = HolodeckB2BCore.getStorageManager().storeOutGoingMessageUnit(um);
+			Axis2Sender.sendMessage(entity);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAP11Constants;
+import org.apache.axiom.soap.SOAP12Constants;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.context.MessageContext;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Tests the conversion of the SOAP envelope between the Axiom and DOM object models by {@link Axis2Utils}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class Axis2UtilsTest {
+
+	private static final String WSSE_NS =
+						"http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd";
+	private static final String WSU_NS =
+						"http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-utility-1.0.xsd";
+
+	private static final String ENVELOPE =
+			"<soapenv:Envelope xmlns:soapenv=\"http://www.w3.org/2003/05/soap-envelope\">"
+			+ "<soapenv:Header>"
+			+ "<eb3:Messaging xmlns:eb3=\"http://docs.oasis-open.org/ebxml-msg/ebms/v3.0/ns/core/200704/\" "
+			+ "soapenv:mustUnderstand=\"true\"><eb3:UserMessage><eb3:MessageInfo>"
+			+ "<eb3:Timestamp>2025-01-01T00:00:00Z</eb3:Timestamp><eb3:MessageId>msg-1@test</eb3:MessageId>"
+			+ "</eb3:MessageInfo><eb3:Description xml:lang=\"en\">a &amp; &lt;b&gt;</eb3:Description>"
+			+ "</eb3:UserMessage></eb3:Messaging></soapenv:Header>"
+			+ "<soapenv:Body xmlns:wsu=\"" + WSU_NS + "\" wsu:Id=\"body\">"
+			+ "<ns:content xmlns:ns=\"urn:test\" xmlns=\"urn:default\"><child attr=\"v\">text<!-- comment --></child>"
+			+ "<![CDATA[cdata]]></ns:content></soapenv:Body></soapenv:Envelope>";
+
+	@Test
+	void testConvertToDOM() throws Exception {
+		final MessageContext mc = new MessageContext();
+		mc.setEnvelope(OMXMLBuilderFactory.createSOAPModelBuilder(new StringReader(ENVELOPE)).getSOAPEnvelope());
+
+		final Document document = Axis2Utils.convertAxiomSOAPEnvToDOM(mc);
+
+		assertNotNull(document);
+		final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		final Document parsed = factory.newDocumentBuilder().parse(new ByteArrayInputStream(ENVELOPE.getBytes()));
+		assertEquals(serialize(parsed), serialize(document));
+		final Element body = (Element) document.getDocumentElement().getLastChild();
+		assertEquals("body", body.getAttributeNS(WSU_NS, "Id"));
+	}
+
+	@Test
+	void testConvertToAxiom() throws Exception {
+		final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		final Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(ENVELOPE.getBytes()));
+		// Add a header like the security libraries do, i.e. without declaring the namespaces
+		final Element security = document.createElementNS(WSSE_NS, "wsse:Security");
+		final Element token = document.createElementNS(WSSE_NS, "wsse:BinarySecurityToken");
+		token.setAttributeNS(WSU_NS, "wsu:Id", "token");
+		token.setTextContent("dGVzdA==");
+		security.appendChild(token);
+		document.getDocumentElement().getFirstChild().appendChild(security);
+
+		final SOAPEnvelope env = Axis2Utils.convertDOMSOAPEnvToAxiom(document);
+
+		assertNotNull(env);
+		assertEquals(SOAP12Constants.SOAP_ENVELOPE_NAMESPACE_URI, env.getNamespaceURI());
+		final OMElement wsseHeader = (OMElement) env.getHeader().getHeaderBlocksWithNSURI(WSSE_NS).get(0);
+		final OMElement omToken = wsseHeader.getFirstElement();
+		assertEquals("token", omToken.getAttributeValue(new QName(WSU_NS, "Id")));
+		assertEquals("dGVzdA==", omToken.getText());
+		// The serialized envelope must declare the namespaces used by the added header
+		final String xml = env.toString();
+		assertTrue(xml.contains("xmlns:wsse=\"" + WSSE_NS + "\""));
+		assertTrue(xml.contains("<![CDATA[cdata]]>"));
+
+		// Converting back to DOM should give the same document
+		final MessageContext mc = new MessageContext();
+		mc.setEnvelope(env);
+		assertEquals(serialize(document), serialize(Axis2Utils.convertAxiomSOAPEnvToDOM(mc)));
+	}
+
+	@Test
+	void testSOAP11() throws Exception {
+		final String soap11 = ENVELOPE.replace(SOAP12Constants.SOAP_ENVELOPE_NAMESPACE_URI,
+											   SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI);
+		final MessageContext mc = new MessageContext();
+		mc.setEnvelope(OMXMLBuilderFactory.createSOAPModelBuilder(new StringReader(soap11)).getSOAPEnvelope());
+
+		final Document document = Axis2Utils.convertAxiomSOAPEnvToDOM(mc);
+		assertNotNull(document);
+		assertEquals(SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI, document.getDocumentElement().getNamespaceURI());
+
+		final SOAPEnvelope env = Axis2Utils.convertDOMSOAPEnvToAxiom(document);
+		assertNotNull(env);
+		assertEquals(SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI, env.getNamespaceURI());
+		assertEquals("msg-1@test", env.getHeader().getFirstElement().getFirstElement().getFirstElement()
+												 .getFirstChildWithName(new QName(
+												 "http://docs.oasis-open.org/ebxml-msg/ebms/v3.0/ns/core/200704/",
+												 "MessageId")).getText());
+	}
+
+	@Test
+	void testConcurrentConversion() throws Exception {
+		final String expected = serialize(DocumentBuilderFactory.newInstance().newDocumentBuilder()
+													.parse(new ByteArrayInputStream(ENVELOPE.getBytes())));
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 200; i++)
+				results.add(executor.submit(() -> {
+					final MessageContext mc = new MessageContext();
+					mc.setEnvelope(OMXMLBuilderFactory.createSOAPModelBuilder(new StringReader(ENVELOPE))
+																						.getSOAPEnvelope());
+					return serialize(Axis2Utils.convertAxiomSOAPEnvToDOM(mc));
+				}));
+			for (Future<String> r : results)
+				assertEquals(expected, r.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static String serialize(final Document document) throws Exception {
+		final StringWriter w = new StringWriter();
+		TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(w));
+		return w.toString();
+	}
+}
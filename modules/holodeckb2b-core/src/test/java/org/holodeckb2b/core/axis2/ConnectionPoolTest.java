@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class ConnectionPoolTest {
+
+	private HttpServer heavy;
+	private HttpServer light;
+	private ConnectionPool pool;
+
+	private final AtomicInteger concurrent = new AtomicInteger();
+	private final AtomicInteger maxConcurrent = new AtomicInteger();
+	private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+	@BeforeEach
+	void startServers() throws IOException {
+		heavy = startServer(200);
+		light = startServer(0);
+	}
+
+	@AfterEach
+	void stopServers() {
+		if (pool != null)
+			pool.shutdown();
+		heavy.stop(0);
+		light.stop(0);
+	}
+
+	private HttpServer startServer(long latency) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", ex -> respond(ex, latency));
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		return server;
+	}
+
+	private void respond(HttpExchange ex, long latency) throws IOException {
+		ex.getRequestBody().readAllBytes();
+		if (latency > 0) {
+			maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+			}
+			concurrent.decrementAndGet();
+		} else
+			connections.add(ex.getRemoteAddress().getPort());
+		ex.getResponseHeaders().add("Keep-Alive", "timeout=30");
+		ex.sendResponseHeaders(200, -1);
+		ex.close();
+	}
+
+	private static String url(HttpServer server) {
+		return "http://localhost:" + server.getAddress().getPort() + "/";
+	}
+
+	private ConnectionPool createPool(int maxTotal, int maxPerRoute, long keepAlive, long idleTimeout) {
+		return new ConnectionPool(RegistryBuilder.<ConnectionSocketFactory>create()
+									.register("http", PlainConnectionSocketFactory.getSocketFactory()).build(),
+								  maxTotal, maxPerRoute, keepAlive, idleTimeout);
+	}
+
+	private void get(String url, HttpClientContext ctx) throws IOException {
+		HttpResponse response = pool.getHttpClient().execute(new HttpGet(url), ctx);
+		EntityUtils.consume(response.getEntity());
+	}
+
+	@Test
+	void testRouteLimits() throws Exception {
+		pool = createPool(6, 1, -1, ConnectionPool.DEFAULT_IDLE_TIMEOUT);
+		final String heavyURL = url(heavy);
+		pool.setMaxPerRoute(new URL(heavyURL), 4);
+		assertEquals(4, pool.getMaxPerRoute(new URL(heavyURL)));
+		assertEquals(1, pool.getMaxPerRoute(new URL(url(light))));
+
+		final ExecutorService executor = Executors.newFixedThreadPool(12);
+		final CountDownLatch heavyDone = new CountDownLatch(12);
+		for (int i = 0; i < 12; i++)
+			executor.execute(() -> {
+				try {
+					get(heavyURL, HttpClientContext.create());
+				} catch (IOException e) {
+				}
+				heavyDone.countDown();
+			});
+		// Requests to the light route must not be blocked by the ones to the heavy route
+		Thread.sleep(50);
+		final long start = System.currentTimeMillis();
+		get(url(light), HttpClientContext.create());
+		assertTrue(System.currentTimeMillis() - start < 200);
+
+		assertTrue(heavyDone.await(5, TimeUnit.SECONDS));
+		assertEquals(4, maxConcurrent.get());
+		executor.shutdown();
+
+		assertEquals(2, pool.getRouteStats().size());
+		assertEquals(4, pool.getRouteStats().get("http://localhost:" + heavy.getAddress().getPort()).getMax());
+	}
+
+	@Test
+	void testConflictingRouteLimits() throws Exception {
+		pool = createPool(10, 2, -1, ConnectionPool.DEFAULT_IDLE_TIMEOUT);
+		final URL destination = new URL(url(heavy));
+		pool.setMaxPerRoute(destination, 5);
+		pool.setMaxPerRoute(destination, 3);
+		assertEquals(5, pool.getMaxPerRoute(destination));
+		pool.setMaxPerRoute(destination, 7);
+		pool.setMaxPerRoute(destination, 5);
+		assertEquals(7, pool.getMaxPerRoute(destination));
+		// A lower maximum than the default is applied when it is the first for the route
+		final URL other = new URL(url(light));
+		pool.setMaxPerRoute(other, 1);
+		assertEquals(1, pool.getMaxPerRoute(other));
+	}
+
+	@Test
+	void testIdleEviction() throws Exception {
+		pool = createPool(4, 4, -1, 500);
+		get(url(light), HttpClientContext.create());
+		assertEquals(1, pool.getTotalStats().getAvailable());
+
+		for (int i = 0; i < 30 && pool.getTotalStats().getAvailable() > 0; i++)
+			Thread.sleep(100);
+		assertEquals(0, pool.getTotalStats().getAvailable());
+	}
+
+	@Test
+	void testKeepAliveTimeout() throws Exception {
+		// The server indicates 30 seconds, the default limits this to 200 ms
+		pool = createPool(4, 4, 200, ConnectionPool.DEFAULT_IDLE_TIMEOUT);
+		get(url(light), HttpClientContext.create());
+		Thread.sleep(300);
+		// The expired connection should not be reused
+		get(url(light), HttpClientContext.create());
+		assertEquals(2, connections.size());
+
+		// The timeout in the request context overrides the default
+		HttpClientContext ctx = HttpClientContext.create();
+		ctx.setAttribute(ConnectionPool.KEEP_ALIVE_TIMEOUT, 5000);
+		get(url(light), ctx);
+		Thread.sleep(300);
+		get(url(light), HttpClientContext.create());
+		assertEquals(2, connections.size());
+	}
+}
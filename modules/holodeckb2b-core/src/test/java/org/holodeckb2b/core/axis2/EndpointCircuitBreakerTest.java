@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+
+import org.apache.axis2.AxisFault;
+import org.holodeckb2b.core.axis2.EndpointCircuitBreaker.State;
+import org.holodeckb2b.core.axis2.EndpointCircuitBreaker.Status;
+import org.junit.jupiter.api.Test;
+
+class EndpointCircuitBreakerTest {
+
+	private static final String DEST = "http://partner.example.com/msh";
+
+	@Test
+	void testOpenAfterThreshold() {
+		final EndpointCircuitBreaker cb = new EndpointCircuitBreaker(3, 60000, 60000);
+
+		for (int i = 0; i < 2; i++) {
+			assertTrue(cb.allowSend(DEST));
+			cb.recordFailure(DEST);
+		}
+		assertFalse(cb.isDeferred(DEST));
+		assertEquals(State.CLOSED, cb.getStatus().get(0).getState());
+
+		cb.recordFailure(DEST);
+		assertTrue(cb.isDeferred(DEST));
+		assertFalse(cb.allowSend(DEST));
+		final Status s = cb.getStatus().get(0);
+		assertEquals(DEST, s.getDestination());
+		assertEquals(State.OPEN, s.getState());
+		assertEquals(3, s.getConsecutiveFailures());
+		assertNotNull(s.getOpenUntil());
+
+		// Other destinations are not affected
+		assertTrue(cb.allowSend("http://other.example.com/msh"));
+	}
+
+	@Test
+	void testSuccessResetsFailures() {
+		final EndpointCircuitBreaker cb = new EndpointCircuitBreaker(2, 60000, 60000);
+
+		cb.recordFailure(DEST);
+		cb.recordSuccess(DEST);
+		cb.recordFailure(DEST);
+		assertFalse(cb.isDeferred(DEST));
+
+		cb.recordSuccess(DEST);
+		assertTrue(cb.getStatus().isEmpty());
+	}
+
+	@Test
+	void testConcurrentSuccessAndFailure() throws Exception {
+		final EndpointCircuitBreaker cb = new EndpointCircuitBreaker(Integer.MAX_VALUE, 60000, 60000);
+
+		// Each thread ends with a failure, so that must be recorded whatever the order in which the threads run
+		final Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					cb.recordSuccess(DEST);
+					cb.recordFailure(DEST);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread t : threads)
+			t.join();
+
+		assertEquals(1, cb.getStatus().size());
+		assertTrue(cb.getStatus().get(0).getConsecutiveFailures() >= 1);
+	}
+
+	@Test
+	void testHalfOpenProbe() throws Exception {
+		final EndpointCircuitBreaker cb = new EndpointCircuitBreaker(1, 50, 60000);
+
+		cb.recordFailure(DEST);
+		assertFalse(cb.allowSend(DEST));
+		Thread.sleep(100);
+		assertFalse(cb.isDeferred(DEST));
+
+		// Only one message is allowed as probe
+		assertTrue(cb.allowSend(DEST));
+		assertEquals(State.HALF_OPEN, cb.getStatus().get(0).getState());
+		assertTrue(cb.isDeferred(DEST));
+		assertFalse(cb.allowSend(DEST));
+
+		// When the probe did not reach the destination, another message can be used
+		cb.release(DEST);
+		assertTrue(cb.allowSend(DEST));
+
+		cb.recordSuccess(DEST);
+		assertFalse(cb.isDeferred(DEST));
+		assertTrue(cb.getStatus().isEmpty());
+	}
+
+	@Test
+	void testBackoff() throws Exception {
+		final EndpointCircuitBreaker cb = new EndpointCircuitBreaker(1, 100, 250);
+
+		cb.recordFailure(DEST);
+		long period = cb.getStatus().get(0).getOpenUntil().getTime() - System.currentTimeMillis();
+		assertTrue(period <= 110);
+
+		Thread.sleep(120);
+		assertTrue(cb.allowSend(DEST));
+		cb.recordFailure(DEST);
+		period = cb.getStatus().get(0).getOpenUntil().getTime() - System.currentTimeMillis();
+		assertTrue(period > 110 && period <= 220);
+
+		Thread.sleep(230);
+		assertTrue(cb.allowSend(DEST));
+		cb.recordFailure(DEST);
+		period = cb.getStatus().get(0).getOpenUntil().getTime() - System.currentTimeMillis();
+		// Limited by the maximum
+		assertTrue(period > 220 && period <= 275);
+	}
+
+	@Test
+	void testDisabled() {
+		final EndpointCircuitBreaker cb = new EndpointCircuitBreaker(0, 60000, 60000);
+
+		assertFalse(cb.isEnabled());
+		for (int i = 0; i < 10; i++)
+			cb.recordFailure(DEST);
+		assertTrue(cb.allowSend(DEST));
+		assertTrue(cb.getStatus().isEmpty());
+	}
+
+	@Test
+	void testFailureClassification() {
+		assertTrue(EndpointCircuitBreaker.isTransportFailure(AxisFault.makeFault(new ConnectException())));
+		assertTrue(EndpointCircuitBreaker.isTransportFailure(new IOException()));
+		assertFalse(EndpointCircuitBreaker.isTransportFailure(new AxisFault("Security failure")));
+		assertFalse(EndpointCircuitBreaker.isTransportFailure(null));
+
+		assertTrue(EndpointCircuitBreaker.isUnavailable(503));
+		assertFalse(EndpointCircuitBreaker.isUnavailable(500));
+		assertFalse(EndpointCircuitBreaker.isUnavailable(202));
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.axiom.mime.Header;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.kernel.http.HTTPConstants;
+import org.apache.axis2.transport.http.AxisRequestEntity;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+
+class HTTP2RequestImplTest {
+
+	private static HttpServer server;
+	private static HTTP2Clients clients;
+
+	private static volatile Headers receivedHeaders;
+	private static volatile byte[] receivedContent;
+
+	@BeforeAll
+	static void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", ex -> {
+			receivedHeaders = ex.getRequestHeaders();
+			receivedContent = ex.getRequestBody().readAllBytes();
+			ex.getResponseHeaders().add("Set-Cookie", "session=abc; Path=/");
+			ex.getResponseHeaders().add("X-Test", "response");
+			ex.sendResponseHeaders(202, -1);
+			ex.close();
+		});
+		server.start();
+		clients = new HTTP2Clients(null);
+	}
+
+	@AfterAll
+	static void stopServer() {
+		clients.shutdown();
+		server.stop(0);
+	}
+
+	private static URL url() throws IOException {
+		return new URL("http://localhost:" + server.getAddress().getPort() + "/msh");
+	}
+
+	private static AxisRequestEntity createEntity(byte[] content, boolean chunked) throws IOException {
+		final AxisRequestEntity entity = mock(AxisRequestEntity.class);
+		when(entity.isChunked()).thenReturn(chunked);
+		when(entity.getContentLength()).thenReturn(chunked ? -1L : content.length);
+		doAnswer(inv -> {
+			((OutputStream) inv.getArgument(0)).write(content);
+			return null;
+		}).when(entity).writeRequest(any(OutputStream.class));
+		return entity;
+	}
+
+	private static byte[] createContent(int size) {
+		final byte[] content = new byte[size];
+		new Random().nextBytes(content);
+		return content;
+	}
+
+	@Test
+	void testSendWithLength() throws Exception {
+		final byte[] content = createContent(10000);
+		final MessageContext mc = new MessageContext();
+		mc.setProperty(HTTPConstants.MC_ACCEPT_GZIP, Boolean.TRUE);
+
+		final HTTP2RequestImpl request = new HTTP2RequestImpl(clients, null, null, null, mc, "POST", url(),
+															  createEntity(content, false));
+		request.setHeader(HTTPConstants.HEADER_CONTENT_TYPE, "application/soap+xml");
+		request.setHeader(HTTPConstants.HEADER_CONTENT_TYPE, "multipart/related; type=\"application/soap+xml\"");
+		request.addHeader(HTTPConstants.HEADER_CONTENT_LENGTH, "1");
+		request.setConnectionTimeout(1000);
+		request.setSocketTimeout(5000);
+		request.execute();
+
+		assertEquals(202, request.getStatusCode());
+		assertEquals("response", request.getResponseHeader("x-test"));
+		assertTrue(Arrays.stream(request.getResponseHeaders()).anyMatch(h -> "response".equals(h.getValue())));
+		final Map<String, String> cookies = request.getCookies();
+		assertEquals("abc", cookies.get("session"));
+		request.releaseConnection();
+
+		// Content-Length must not be set on the request as it is managed by the client
+		assertEquals(2, request.getRequestHeaders().length);
+		assertEquals("multipart/related; type=\"application/soap+xml\"", receivedHeaders.getFirst("Content-Type"));
+		assertEquals(String.valueOf(content.length), receivedHeaders.getFirst("Content-Length"));
+		assertNull(receivedHeaders.getFirst("Transfer-Encoding"));
+		assertEquals(HTTPConstants.COMPRESSION_GZIP, receivedHeaders.getFirst("Accept-Encoding"));
+		assertArrayEquals(content, receivedContent);
+	}
+
+	@Test
+	void testSendChunked() throws Exception {
+		// Larger than the pipe buffer so the content must be streamed
+		final byte[] content = createContent(300 * 1024);
+
+		final HTTP2RequestImpl request = new HTTP2RequestImpl(clients, null, null, null, new MessageContext(), "POST",
+															  url(), createEntity(content, true));
+		request.execute();
+
+		assertEquals(202, request.getStatusCode());
+		request.releaseConnection();
+
+		assertEquals("chunked", receivedHeaders.getFirst("Transfer-Encoding"));
+		assertNull(receivedHeaders.getFirst("Content-Length"));
+		assertArrayEquals(content, receivedContent);
+	}
+
+	@Test
+	void testClientReuse() throws Exception {
+		final HTTP2Clients clients = new HTTP2Clients(null);
+		try {
+			assertTrue(clients.getClient(null, null, null, 1000) == clients.getClient(null, null, null, 1000));
+			assertTrue(clients.getClient(null, null, null, 1000) != clients.getClient(null, null, null, 2000));
+		} finally {
+			clients.shutdown();
+		}
+	}
+
+	@Test
+	void testRequestHeaders() throws Exception {
+		final HTTP2RequestImpl request = new HTTP2RequestImpl(clients, null, null, null, new MessageContext(), "POST",
+															  url(), null);
+		request.addHeader("X-Custom", "1");
+		request.addHeader("X-Custom", "2");
+		request.addHeader(HTTPConstants.HEADER_HOST, "localhost");
+		request.setHeader("Connection", "keep-alive");
+		final Header[] headers = request.getRequestHeaders();
+		assertEquals(2, headers.length);
+		request.setHeader("x-custom", "3");
+		assertEquals(1, request.getRequestHeaders().length);
+		assertEquals("3", request.getRequestHeaders()[0].getValue());
+	}
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.http.server.HttpFactory;
+import org.apache.axis2.transport.http.server.SimpleHttpServer;
+import org.apache.axis2.transport.http.server.Worker;
+import org.holodeckb2b.common.testhelpers.Benchmark;
+
+/**
+ * Load test comparing the blocking HTTP server built into Axis2, as used by the {@link HTTPListener}, with the {@link
+ * NIOHTTPServer} used by the {@link NIOHTTPListener}. A large number of keep-alive connections is opened and on each
+ * connection a number of requests is sent. As the blocking server needs a thread per connection it is configured with
+ * a thread pool as large as the number of connections, the non-blocking server uses a fixed number of workers. For
+ * both servers the number of threads, the heap memory used and the request latency are reported.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of connections and number of requests per connection as arguments.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class HTTPListenerBenchmark {
+
+	private static final int NIO_WORKERS = 16;
+
+	/**
+	 * Worker that reads the request and responds with a small message after simulating some processing time
+	 */
+	private static final Worker WORKER = (request, response, msgContext) -> {
+		try (InputStream is = request.getInputStream()) {
+			is.transferTo(OutputStream.nullOutputStream());
+		}
+		try {
+			Thread.sleep(2);
+		} catch (InterruptedException e) {
+		}
+		response.setStatus(200);
+		response.setContentType("application/soap+xml");
+		response.getOutputStream().write("<Receipt/>".getBytes(StandardCharsets.US_ASCII));
+	};
+
+	public static void main(String[] args) throws Exception {
+		final int connections = Benchmark.getArgument(args, 0, 2000);
+		final int requests = Benchmark.getArgument(args, 1, 5);
+		final AxisConfiguration axisConfig = new AxisConfiguration();
+		final TransportInDescription http = new TransportInDescription("http");
+		http.setReceiver(new NIOHTTPListener());
+		axisConfig.addTransportIn(http);
+		final ConfigurationContext configContext = new ConfigurationContext(axisConfig);
+		final byte[] request = ("POST /services/msh HTTP/1.1\r\nHost: localhost\r\n"
+								+ "Content-Type: application/soap+xml\r\nContent-Length: 512\r\n\r\n" + "x".repeat(512))
+								.getBytes(StandardCharsets.US_ASCII);
+
+		System.out.printf("%d connections, %d requests per connection%n", connections, requests);
+
+		final int port;
+		try (ServerSocket s = new ServerSocket(0)) {
+			port = s.getLocalPort();
+		}
+		final HttpFactory factory = new HttpFactory(configContext, port, () -> WORKER);
+		factory.setRequestCoreThreadPoolSize(connections);
+		factory.setRequestMaxThreadPoolSize(connections);
+		final SimpleHttpServer blocking = new SimpleHttpServer(factory, port);
+		blocking.init();
+		blocking.start();
+		try {
+			run("blocking", blocking.getPort(), connections, requests, request);
+		} finally {
+			blocking.destroy();
+		}
+
+		final NIOHTTPServer nio = new NIOHTTPServer(configContext, http, () -> WORKER, new InetSocketAddress(0),
+													Executors.newFixedThreadPool(NIO_WORKERS), 60000, true, connections + 10, 1024 * 1024,
+													Files.createTempDirectory("hb2b-bench"), 0, null);
+		nio.start();
+		try {
+			run("nio", nio.getPort(), connections, requests, request);
+		} finally {
+			nio.stop();
+		}
+	}
+
+	private static void run(final String name, final int port, final int connections, final int requests,
+							final byte[] request) throws IOException, InterruptedException {
+		System.gc();
+		final long heapBefore = usedHeap();
+		final int threadsBefore = Thread.activeCount();
+		final List<Socket> sockets = new ArrayList<>(connections);
+		final long[] latencies = new long[connections * requests];
+		int n = 0;
+		try {
+			for (int i = 0; i < connections; i++)
+				sockets.add(new Socket("localhost", port));
+			final boolean[] failed = new boolean[connections];
+			int failures = 0;
+			final long start = System.nanoTime();
+			int maxThreads = 0;
+			long maxHeap = 0;
+			for (int r = 0; r < requests; r++) {
+				final long[] sent = new long[connections];
+				for (int i = 0; i < connections; i++) {
+					sent[i] = System.nanoTime();
+					try {
+						if (!failed[i])
+							sockets.get(i).getOutputStream().write(request);
+					} catch (IOException writeFailure) {
+						failed[i] = true;
+						failures++;
+					}
+				}
+				for (int i = 0; i < connections; i++) {
+					if (failed[i])
+						continue;
+					try {
+						readResponse(sockets.get(i).getInputStream());
+						latencies[n++] = System.nanoTime() - sent[i];
+					} catch (IOException readFailure) {
+						failed[i] = true;
+						failures++;
+					}
+				}
+				maxThreads = Math.max(maxThreads, Thread.activeCount() - threadsBefore);
+				maxHeap = Math.max(maxHeap, usedHeap() - heapBefore);
+			}
+			final long duration = System.nanoTime() - start;
+			System.out.printf("%-9s: %6.0f req/s, %s, server threads %d, heap %.1f MiB, failed connections %d%n",
+							  name, n * 1e9 / duration, Benchmark.summariseLatencies(latencies, n), maxThreads,
+							  maxHeap / 1048576.0, failures);
+		} finally {
+			for (Socket s : sockets)
+				s.close();
+		}
+	}
+
+	private static long usedHeap() {
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private static void readResponse(final InputStream in) throws IOException {
+		int length = 0;
+		String line;
+		readLine(in);
+		while (!(line = readLine(in)).isEmpty())
+			if (line.regionMatches(true, 0, "Content-Length:", 0, 15))
+				length = Integer.parseInt(line.substring(15).trim());
+		in.readNBytes(length);
+	}
+
+	private static String readLine(final InputStream in) throws IOException {
+		final StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n' && c >= 0)
+			if (c != '\r')
+				line.append((char) c);
+		if (c < 0)
+			throw new IOException("Connection closed");
+		return line.toString();
+	}
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.http.server.Worker;
+import org.apache.http.HttpVersion;
+import org.apache.http.protocol.HTTP;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link InboundQueue}
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class InboundQueueTest {
+
+	@TempDir
+	Path tempDir;
+
+	private Path queueDir;
+	private ConfigurationContext configContext;
+	private TransportInDescription http;
+
+	/**
+	 * The entity bodies of the processed requests by their message context's remote address
+	 */
+	private final Map<String, byte[]> processed = new ConcurrentHashMap<>();
+
+	private final Worker recordingWorker = (request, response, msgContext) -> {
+		try (InputStream is = request.getInputStream()) {
+			assertEquals("text/xml", request.getContentType());
+			assertEquals("text/xml", msgContext.getProperty(org.apache.axis2.Constants.Configuration.CONTENT_TYPE));
+			assertNull(request.getFirstHeader(HTTP.TRANSFER_ENCODING));
+			processed.put((String) msgContext.getProperty(MessageContext.REMOTE_ADDR), is.readAllBytes());
+		}
+		response.setStatus(202);
+	};
+
+	@BeforeEach
+	void setUp() throws Exception {
+		queueDir = tempDir.resolve(InboundQueue.QUEUE_DIR);
+		configContext = new ConfigurationContext(new AxisConfiguration());
+		http = new TransportInDescription("http");
+	}
+
+	@Test
+	void testDisabledByDefault() throws Exception {
+		assertNull(InboundQueue.fromConfiguration(http));
+		http.addParameter(new Parameter(InboundQueue.PARAMETER_ENABLED, "false"));
+		assertNull(InboundQueue.fromConfiguration(http));
+	}
+
+	@Test
+	void testDeferAndProcess() throws Exception {
+		final InboundQueue queue = new InboundQueue(queueDir, 2, 10, recordingWorker);
+		queue.start(configContext, http);
+		try {
+			// One body that stays in memory and one that is spooled to disk
+			final byte[] small = randomBody(1000);
+			final byte[] large = randomBody(200 * 1024);
+			final InboundQueue.Spool s1 = queue.newSpool(createRequest(small), createMsgContext("small"));
+			final InboundQueue.Spool s2 = queue.newSpool(createRequest(large), createMsgContext("large"));
+			// Read only the start of the body like the message processing does
+			s1.getInputStream().readNBytes(100);
+			s2.getInputStream().readNBytes(100 * 1024);
+
+			assertTrue(s1.defer());
+			assertTrue(s2.defer());
+			assertTrue(s1.isDeferred());
+			awaitProcessed(queue, 2);
+
+			assertArrayEquals(small, processed.get("small"));
+			assertArrayEquals(large, processed.get("large"));
+			assertEquals(2, queue.getStatistics().getAccepted());
+			assertEquals(2, queue.getStatistics().getProcessed());
+			assertEquals(0, queue.getStatistics().getPending());
+			assertEquals(0, listFiles().size());
+		} finally {
+			queue.stop();
+		}
+	}
+
+	@Test
+	void testDiscard() throws Exception {
+		final InboundQueue queue = new InboundQueue(queueDir, 1, 10, recordingWorker);
+		queue.start(configContext, http);
+		try {
+			final InboundQueue.Spool spool = queue.newSpool(createRequest(randomBody(200 * 1024)),
+															createMsgContext("a"));
+			spool.getInputStream().readNBytes(150 * 1024);
+			assertEquals(1, listFiles().size());
+			spool.discard();
+			assertFalse(spool.defer());
+			assertEquals(0, listFiles().size());
+		} finally {
+			queue.stop();
+		}
+	}
+
+	@Test
+	void testQueueFull() throws Exception {
+		final CountDownLatch proceed = new CountDownLatch(1);
+		final Worker blockingWorker = (request, response, msgContext) -> {
+			try {
+				proceed.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+			}
+			recordingWorker.service(request, response, msgContext);
+		};
+		final InboundQueue queue = new InboundQueue(queueDir, 1, 1, blockingWorker);
+		queue.start(configContext, http);
+		try {
+			assertTrue(queue.newSpool(createRequest(randomBody(10)), createMsgContext("a")).defer());
+			final InboundQueue.Spool full = queue.newSpool(createRequest(randomBody(10)), createMsgContext("b"));
+			assertFalse(full.defer());
+			assertFalse(full.isDeferred());
+			assertEquals(1, queue.getStatistics().getFull());
+			proceed.countDown();
+			awaitProcessed(queue, 1);
+		} finally {
+			queue.stop();
+		}
+	}
+
+	@Test
+	void testFailedProcessingKept() throws Exception {
+		final InboundQueue queue = new InboundQueue(queueDir, 1, 10, (request, response, msgContext) -> {
+			response.setStatus(500);
+		});
+		queue.start(configContext, http);
+		try {
+			assertTrue(queue.newSpool(createRequest(randomBody(10)), createMsgContext("a")).defer());
+			while (queue.getStatistics().getPending() > 0)
+				Thread.sleep(5);
+			assertEquals(1, queue.getStatistics().getFailed());
+			final List<String> files = listFiles();
+			assertEquals(2, files.size());
+			assertTrue(files.stream().allMatch(f -> f.endsWith(".failed")));
+		} finally {
+			queue.stop();
+		}
+	}
+
+	@Test
+	void testRecovery() throws Exception {
+		final CountDownLatch proceed = new CountDownLatch(1);
+		final InboundQueue queue1 = new InboundQueue(queueDir, 1, 10, (request, response, msgContext) -> {
+			try {
+				proceed.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+			}
+			recordingWorker.service(request, response, msgContext);
+		});
+		queue1.start(configContext, http);
+		final byte[] first = randomBody(100);
+		final byte[] second = randomBody(100 * 1024);
+		final byte[] third = randomBody(10);
+		assertTrue(queue1.newSpool(createRequest(first), createMsgContext("first")).defer());
+		assertTrue(queue1.newSpool(createRequest(second), createMsgContext("second")).defer());
+		assertTrue(queue1.newSpool(createRequest(third), createMsgContext("third")).defer());
+		// Stop while processing the first request, the others should stay in the queue
+		final Thread stopper = new Thread(queue1::stop);
+		stopper.start();
+		Thread.sleep(50);
+		proceed.countDown();
+		stopper.join(5000);
+		assertEquals(1, processed.size());
+		assertArrayEquals(first, processed.get("first"));
+		assertEquals(4, listFiles().size());
+
+		// Simulate an interrupted write of a new request
+		Files.write(queueDir.resolve("9999999999999-000001.body"), randomBody(10));
+		Files.write(queueDir.resolve("9999999999999-000001.req.tmp"), randomBody(10));
+
+		final InboundQueue queue2 = new InboundQueue(queueDir, 1, 10, recordingWorker);
+		queue2.start(configContext, http);
+		try {
+			awaitProcessed(queue2, 2);
+			assertEquals(2, queue2.getStatistics().getRecovered());
+			assertArrayEquals(second, processed.get("second"));
+			assertArrayEquals(third, processed.get("third"));
+			assertEquals(0, listFiles().size());
+		} finally {
+			queue2.stop();
+		}
+	}
+
+	@Test
+	void testMissingAddresses() throws Exception {
+		final List<Object> addresses = new CopyOnWriteArrayList<>();
+		final InboundQueue queue = new InboundQueue(queueDir, 1, 10, (request, response, msgContext) -> {
+			addresses.add(msgContext.getProperty(MessageContext.REMOTE_ADDR));
+			addresses.add(msgContext.getProperty(MessageContext.TRANSPORT_ADDR));
+			response.setStatus(202);
+		});
+		queue.start(configContext, http);
+		try {
+			assertTrue(queue.newSpool(createRequest(randomBody(10)), new MessageContext()).defer());
+			awaitProcessed(queue, 1);
+			assertEquals(2, addresses.size());
+			assertNull(addresses.get(0));
+			assertNull(addresses.get(1));
+		} finally {
+			queue.stop();
+		}
+	}
+
+	@Test
+	void testNotDeferredWhenStopped() throws Exception {
+		final InboundQueue queue = new InboundQueue(queueDir, 1, 10, recordingWorker);
+		queue.start(configContext, http);
+		final InboundQueue.Spool spool = queue.newSpool(createRequest(randomBody(10)), createMsgContext("a"));
+		queue.stop();
+		assertFalse(spool.defer());
+		assertEquals(0, listFiles().size());
+	}
+
+	private void awaitProcessed(final InboundQueue queue, final int n) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (queue.getStatistics().getProcessed() < n && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertEquals(n, queue.getStatistics().getProcessed());
+	}
+
+	private List<String> listFiles() throws Exception {
+		try (Stream<Path> files = Files.list(queueDir)) {
+			return files.map(f -> f.getFileName().toString()).collect(Collectors.toList());
+		}
+	}
+
+	private NIOHTTPRequest createRequest(final byte[] body) throws Exception {
+		final NIOHTTPRequest request = new NIOHTTPRequest("POST", "/services/msh", HttpVersion.HTTP_1_1, 64 * 1024,
+														  tempDir);
+		request.addHeader(HTTP.CONTENT_TYPE, "text/xml");
+		request.addHeader(HTTP.TRANSFER_ENCODING, HTTP.CHUNK_CODING);
+		request.appendBody(ByteBuffer.wrap(body), body.length);
+		return request;
+	}
+
+	private MessageContext createMsgContext(final String remoteAddress) {
+		final MessageContext msgContext = new MessageContext();
+		msgContext.setProperty(MessageContext.REMOTE_ADDR, remoteAddress);
+		msgContext.setProperty(MessageContext.TRANSPORT_ADDR, "localhost");
+		return msgContext;
+	}
+
+	private static byte[] randomBody(final int size) {
+		final byte[] body = new byte[size];
+		new Random(size).nextBytes(body);
+		return body;
+	}
+}
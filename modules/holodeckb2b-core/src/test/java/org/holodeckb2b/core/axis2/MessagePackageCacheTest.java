@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisModule;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.Flow;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.Phase;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.common.pmode.Leg;
+import org.holodeckb2b.common.pmode.PMode;
+import org.holodeckb2b.common.pmode.ReceptionAwarenessConfig;
+import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
+import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+class MessagePackageCacheTest {
+
+	private static HttpServer receiver;
+	private static HTTPTransportSender sender;
+	private static PMode pmode;
+
+	private static volatile byte[]	lastRequest;
+	private static volatile String	lastContentType;
+
+	/**
+	 * Handler in the packaging phase that creates a different envelope every time it is invoked
+	 */
+	public static class PackagingHandler extends AbstractHandler {
+		static final AtomicInteger invoked = new AtomicInteger();
+
+		@Override
+		public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+			final SOAPEnvelope env = OMAbstractFactory.getSOAP12Factory().getDefaultEnvelope();
+			env.getBody().setText("packaged-" + invoked.incrementAndGet() + "-" + System.nanoTime());
+			msgContext.setEnvelope(env);
+			return InvocationResponse.CONTINUE;
+		}
+	}
+
+	/**
+	 * Handler in the transport phase that sets the destination
+	 */
+	public static class DestinationHandler extends AbstractHandler {
+		@Override
+		public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+			msgContext.setProperty(Constants.Configuration.TRANSPORT_URL,
+								   "http://localhost:" + receiver.getAddress().getPort() + "/msh");
+			return InvocationResponse.CONTINUE;
+		}
+	}
+
+	@BeforeAll
+	static void setup() throws Exception {
+		receiver = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		receiver.createContext("/msh", ex -> {
+			lastRequest = ex.getRequestBody().readAllBytes();
+			lastContentType = ex.getRequestHeaders().getFirst("Content-Type");
+			ex.sendResponseHeaders(202, -1);
+			ex.close();
+		});
+		receiver.setExecutor(Executors.newCachedThreadPool());
+		receiver.start();
+
+		final HolodeckB2BTestCore core = new HolodeckB2BTestCore();
+		HolodeckB2BCoreInterface.setImplementation(core);
+		final var axisConfig = core.getConfiguration();
+		final TransportOutDescription http = new TransportOutDescription("http");
+		sender = new HTTPTransportSender();
+		http.setSender(sender);
+		axisConfig.addTransportOut(http);
+		sender.init(new ConfigurationContext(axisConfig), http);
+
+		axisConfig.getPhasesInfo().setOUTPhases(List.of(new Phase("ProtocolProcessing"), new Phase("Security"),
+														new Phase("Transport"), new Phase("Logging"),
+														new Phase("MessageOut")));
+		final AxisModule module = new AxisModule("cachetest");
+		final Flow outFlow = new Flow();
+		outFlow.addHandler(handler("Package", new PackagingHandler(), "ProtocolProcessing"));
+		outFlow.addHandler(handler("Destination", new DestinationHandler(), "Transport"));
+		module.setOutFlow(outFlow);
+		axisConfig.addModule(module);
+		final AxisService service = new AxisService("as4");
+		service.addModuleref("cachetest");
+		axisConfig.addService(service);
+
+		pmode = HB2BTestUtils.create1WaySendPushPMode();
+		final ReceptionAwarenessConfig raConfig = new ReceptionAwarenessConfig();
+		raConfig.setResendIdenticalMessage(true);
+		((Leg) pmode.getLegs().get(0)).setReceptionAwareness(raConfig);
+		core.getPModeSet().add(pmode);
+	}
+
+	private static HandlerDescription handler(final String name, final AbstractHandler h, final String phase) {
+		final HandlerDescription hd = new HandlerDescription(name);
+		hd.setHandler(h);
+		h.init(hd);
+		hd.getRules().setPhaseName(phase);
+		return hd;
+	}
+
+	@AfterAll
+	static void shutdown() {
+		sender.stop();
+		receiver.stop(0);
+	}
+
+	private IUserMessageEntity createMessage() throws Exception {
+		final UserMessage um = new UserMessage();
+		um.setPModeId(pmode.getId());
+		um.setMessageId("cache-" + System.nanoTime() + "@test");
+		return HolodeckB2BCore.getStorageManager().storeOutGoingMessageUnit(um);
+	}
+
+	@Test
+	void testResendCachedPackage() throws Exception {
+		final IUserMessageEntity userMessage = createMessage();
+		final int packaged = PackagingHandler.invoked.get();
+
+		Axis2Sender.sendMessage(userMessage);
+		assertEquals(packaged + 1, PackagingHandler.invoked.get());
+		final byte[] first = lastRequest;
+		final String contentType = lastContentType;
+		assertNotNull(first);
+
+		final MessagePackageCache.Entry entry = MessagePackageCache.getInstance().prepare(userMessage);
+		assertNotNull(entry);
+		assertTrue(entry.isReplay());
+
+		lastRequest = null;
+		Axis2Sender.sendMessage(userMessage);
+		// The message should not be packaged again but the cached package sent
+		assertEquals(packaged + 1, PackagingHandler.invoked.get());
+		assertArrayEquals(first, lastRequest);
+		assertEquals(contentType, lastContentType);
+	}
+
+	@Test
+	void testPModeChangeInvalidates() throws Exception {
+		final IUserMessageEntity userMessage = createMessage();
+		Axis2Sender.sendMessage(userMessage);
+		assertTrue(MessagePackageCache.getInstance().prepare(userMessage).isReplay());
+
+		final ReceptionAwarenessConfig raConfig = (ReceptionAwarenessConfig) pmode.getLegs().get(0)
+																			.getReceptionAwareness();
+		try {
+			raConfig.setDuplicateDetection(true);
+			assertFalse(MessagePackageCache.getInstance().prepare(userMessage).isReplay());
+
+			final int packaged = PackagingHandler.invoked.get();
+			Axis2Sender.sendMessage(userMessage);
+			assertEquals(packaged + 1, PackagingHandler.invoked.get());
+		} finally {
+			raConfig.setDuplicateDetection(false);
+		}
+	}
+
+	@Test
+	void testRemoveOnFinalState() throws Exception {
+		final IUserMessageEntity userMessage = createMessage();
+		Axis2Sender.sendMessage(userMessage);
+		final MessagePackageCache cache = MessagePackageCache.getInstance();
+		assertTrue(cache.prepare(userMessage).isReplay());
+
+		HolodeckB2BCore.getStorageManager().setProcessingState(userMessage, ProcessingState.DELIVERED);
+
+		assertFalse(cache.prepare(userMessage).isReplay());
+		try (var files = Files.list(cache.getDirectory())) {
+			assertTrue(files.noneMatch(f -> f.getFileName().toString().startsWith(
+												userMessage.getCoreId().replaceAll("[^A-Za-z0-9._-]", "_"))));
+		}
+	}
+
+	@Test
+	void testNotCachedWithoutConfig() throws Exception {
+		final PMode other = HB2BTestUtils.create1WaySendPushPMode();
+		HolodeckB2BCore.getPModeSet().add(other);
+		final UserMessage um = new UserMessage();
+		um.setPModeId(other.getId());
+		um.setMessageId("nocache-" + System.nanoTime() + "@test");
+
+		assertNull(MessagePackageCache.getInstance().prepare(
+											HolodeckB2BCore.getStorageManager().storeOutGoingMessageUnit(um)));
+	}
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.http.server.Worker;
+import org.apache.http.HttpException;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NIOHTTPServerTest {
+
+	private static final int WORKERS = 2;
+	private static final long MAX_BODY_SIZE = 2 * 1024 * 1024;
+
+	@TempDir
+	static Path tempDir;
+
+	private static NIOHTTPServer server;
+	private static HttpClient client;
+
+	/**
+	 * Worker that echoes the request body, or fails when the "fail" path is requested
+	 */
+	static final Worker ECHO_WORKER = (request, response, msgContext) -> {
+		if (request.getRequestURI().endsWith("/fail"))
+			throw new HttpException("Failure requested");
+		if (request.getRequestURI().endsWith("/wait"))
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+			}
+		response.setStatus(HttpStatus.SC_OK);
+		response.setContentType(request.getContentType() != null ? request.getContentType() : "text/plain");
+		response.addHeader("X-Request-URI", request.getRequestURI());
+		try (InputStream is = request.getInputStream()) {
+			is.transferTo(response.getOutputStream());
+		}
+	};
+
+	@BeforeAll
+	static void startServer() throws Exception {
+		final AxisConfiguration axisConfig = new AxisConfiguration();
+		server = new NIOHTTPServer(new ConfigurationContext(axisConfig), new TransportInDescription("http"),
+								   () -> ECHO_WORKER, new InetSocketAddress("localhost", 0),
+								   Executors.newFixedThreadPool(WORKERS), 2000, true, 1000, 64 * 1024, tempDir,
+								   MAX_BODY_SIZE, null);
+		server.start();
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	}
+
+	@AfterAll
+	static void stopServer() {
+		server.stop();
+	}
+
+	private static URI uri(final String path) {
+		return URI.create("http://localhost:" + server.getPort() + path);
+	}
+
+	@Test
+	void testEcho() throws Exception {
+		final HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/services/msh"))
+											.header("Content-Type", "application/soap+xml")
+											.POST(HttpRequest.BodyPublishers.ofString("<Envelope/>")).build(),
+											HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, response.statusCode());
+		assertEquals("<Envelope/>", response.body());
+		assertEquals("application/soap+xml", response.headers().firstValue("Content-Type").get());
+		assertEquals("/services/msh", response.headers().firstValue("X-Request-URI").get());
+		assertEquals("11", response.headers().firstValue("Content-Length").get());
+	}
+
+	@Test
+	void testLargeChunkedBody() throws Exception {
+		// Larger than the memory threshold so it's written to a temp file and the response is chunked
+		final byte[] data = new byte[1024 * 1024 + 17];
+		new Random().nextBytes(data);
+		final HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri("/services/msh"))
+									.POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(data)))
+									.build(), HttpResponse.BodyHandlers.ofByteArray());
+		assertEquals(200, response.statusCode());
+		assertArrayEquals(data, response.body());
+		assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").get());
+		try (var files = Files.list(tempDir)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	void testPipelinedKeepAlive() throws Exception {
+		try (Socket s = new Socket("localhost", server.getPort())) {
+			final OutputStream out = s.getOutputStream();
+			out.write(("POST /one HTTP/1.1\r\nHost: localhost\r\nContent-Length: 3\r\n\r\nabc"
+					 + "POST /two HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+					 + "2\r\nde\r\n1;ext=1\r\nf\r\n0\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+			final InputStream in = s.getInputStream();
+			assertEquals("abc", readResponse(in, 200));
+			assertEquals("def", readResponse(in, 200));
+
+			// The connection should still be usable
+			out.write("GET /three HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+																				.getBytes(StandardCharsets.US_ASCII));
+			assertEquals("", readResponse(in, 200));
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	void testErrors() throws Exception {
+		final HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/fail"))
+											.POST(HttpRequest.BodyPublishers.ofString("x")).build(),
+											HttpResponse.BodyHandlers.ofString());
+		assertEquals(500, response.statusCode());
+
+		try (Socket s = new Socket("localhost", server.getPort())) {
+			s.getOutputStream().write("INVALID\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+			readResponse(s.getInputStream(), 400);
+			assertEquals(-1, s.getInputStream().read());
+		}
+	}
+
+	@Test
+	void testRequestTooLarge() throws Exception {
+		try (Socket s = new Socket("localhost", server.getPort())) {
+			s.getOutputStream().write(("POST /large HTTP/1.1\r\nHost: localhost\r\nContent-Length: "
+										+ (MAX_BODY_SIZE + 1) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+			readResponse(s.getInputStream(), 413);
+			assertEquals(-1, s.getInputStream().read());
+		}
+		// The size of a chunked body is checked for each chunk
+		try (Socket s = new Socket("localhost", server.getPort())) {
+			final OutputStream out = s.getOutputStream();
+			out.write(("POST /large HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+						+ Long.toHexString(MAX_BODY_SIZE) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+			out.write(new byte[(int) MAX_BODY_SIZE]);
+			out.write("\r\n1\r\n".getBytes(StandardCharsets.US_ASCII));
+			readResponse(s.getInputStream(), 413);
+			assertEquals(-1, s.getInputStream().read());
+		}
+	}
+
+	@Test
+	void testManyConnections() throws Exception {
+		final int connections = 200;
+		final List<Socket> sockets = new ArrayList<>();
+		try {
+			for (int i = 0; i < connections; i++)
+				sockets.add(new Socket("localhost", server.getPort()));
+			// All requests are sent before any response is read, only two workers are available
+			for (int i = 0; i < connections; i++)
+				sockets.get(i).getOutputStream().write(("POST /wait HTTP/1.1\r\nHost: localhost\r\n"
+														+ "Content-Length: " + Integer.toString(i).length() + "\r\n\r\n"
+														+ i).getBytes(StandardCharsets.US_ASCII));
+			for (int i = 0; i < connections; i++)
+				assertEquals(Integer.toString(i), readResponse(sockets.get(i).getInputStream(), 200));
+		} finally {
+			for (Socket s : sockets)
+				s.close();
+		}
+	}
+
+	@Test
+	void testIdleConnectionClosed() throws Exception {
+		final CountDownLatch closed = new CountDownLatch(1);
+		try (Socket s = new Socket("localhost", server.getPort())) {
+			new Thread(() -> {
+				try {
+					if (s.getInputStream().read() == -1)
+						closed.countDown();
+				} catch (IOException e) {
+					closed.countDown();
+				}
+			}).start();
+			assertTrue(closed.await(5, TimeUnit.SECONDS));
+		}
+	}
+
+	/**
+	 * Reads a response with a Content-Length header from the stream and checks the status code.
+	 *
+	 * @return the response body
+	 */
+	private static String readResponse(final InputStream in, final int expectedStatus) throws IOException {
+		final String statusLine = readLine(in);
+		assertEquals(expectedStatus, Integer.parseInt(statusLine.split(" ")[1]), statusLine);
+		int length = 0;
+		String header;
+		while (!(header = readLine(in)).isEmpty())
+			if (header.toLowerCase().startsWith("content-length:"))
+				length = Integer.parseInt(header.substring(15).trim());
+		return new String(in.readNBytes(length), StandardCharsets.US_ASCII);
+	}
+
+	private static String readLine(final InputStream in) throws IOException {
+		final StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n' && c >= 0)
+			if (c != '\r')
+				line.append((char) c);
+		return line.toString();
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.context.MessageContext;
+import org.holodeckb2b.common.testhelpers.Benchmark;
+import org.w3c.dom.Document;
+
+/**
+ * Benchmark of the time and memory used to convert the SOAP envelope from Axiom to DOM and back again, as is done when
+ * signing/encrypting or verifying/decrypting a message, comparing the previous conversion, which serialized the
+ * envelope and parsed it again, with the direct conversion now done by {@link Axis2Utils}. The header of the envelope
+ * contains a number of elements that can be set using the system property <i>elements</i>.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of rounds as argument.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class SOAPEnvelopeConversionBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		final int rounds = Benchmark.getArgument(args, 0, 10000);
+		final int elements = Integer.getInteger("elements", 50);
+
+		final String envelope = createEnvelope(elements);
+		System.out.printf("Envelope with %d header elements, size %d bytes%n", elements, envelope.length());
+		final MessageContext mc = new MessageContext();
+
+		Benchmark.warmUp(rounds, () -> run(mc, envelope, false), () -> run(mc, envelope, true));
+		for (boolean direct : new boolean[] { false, true }) {
+			final Benchmark.Measurement m = Benchmark.Measurement.ofCurrentThread();
+			for (int i = 0; i < rounds; i++) {
+				// Creating the Axiom envelope is not part of the conversion and therefore excluded from measurement
+				mc.setEnvelope(OMXMLBuilderFactory.createSOAPModelBuilder(new StringReader(envelope))
+												  .getSOAPEnvelope());
+				mc.getEnvelope().build();
+				m.start();
+				convert(mc, direct);
+				m.stop();
+			}
+			System.out.printf("%-11s: %s per message%n", direct ? "direct" : "re-parsing", m);
+		}
+	}
+
+	private static void run(final MessageContext mc, final String envelope, final boolean direct) throws Exception {
+		mc.setEnvelope(OMXMLBuilderFactory.createSOAPModelBuilder(new StringReader(envelope)).getSOAPEnvelope());
+		convert(mc, direct);
+	}
+
+	private static SOAPEnvelope convert(final MessageContext mc, final boolean direct) throws Exception {
+		if (direct)
+			return Axis2Utils.convertDOMSOAPEnvToAxiom(Axis2Utils.convertAxiomSOAPEnvToDOM(mc));
+		else {
+			// The conversion as previously implemented in Axis2Utils
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			mc.getEnvelope().serialize(baos);
+			final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			final Document document = factory.newDocumentBuilder().parse(
+																	new ByteArrayInputStream(baos.toByteArray()));
+			final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+			final StringWriter writer = new StringWriter();
+			transformer.transform(new DOMSource(document), new StreamResult(writer));
+			final SOAPEnvelope env = OMXMLBuilderFactory.createSOAPModelBuilder(
+																new StringReader(writer.toString())).getSOAPEnvelope();
+			env.build();
+			return env;
+		}
+	}
+
+	private static String createEnvelope(final int elements) {
+		final StringBuilder xml = new StringBuilder(
+				"<soapenv:Envelope xmlns:soapenv=\"http://www.w3.org/2003/05/soap-envelope\"><soapenv:Header>"
+				+ "<eb3:Messaging xmlns:eb3=\"http://docs.oasis-open.org/ebxml-msg/ebms/v3.0/ns/core/200704/\" "
+				+ "soapenv:mustUnderstand=\"true\"><eb3:UserMessage><eb3:MessageProperties>");
+		for (int i = 0; i < elements; i++)
+			xml.append("<eb3:Property name=\"property-").append(i).append("\">value-").append(i)
+			   .append("</eb3:Property>");
+		xml.append("</eb3:MessageProperties></eb3:UserMessage></eb3:Messaging></soapenv:Header>")
+		   .append("<soapenv:Body><content xmlns=\"urn:benchmark\">benchmark</content></soapenv:Body>")
+		   .append("</soapenv:Envelope>");
+		return xml.toString();
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.Security;
+import java.util.List;
+
+import org.apache.http.config.Registry;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
+import org.holodeckb2b.common.pmode.TLSConfiguration;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.common.testhelpers.TestCertificateManager;
+import org.holodeckb2b.commons.testing.TestUtils;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TLSContextCacheTest {
+
+	private static HolodeckB2BTestCore	testCore;
+	private static KeyStore.PrivateKeyEntry partyA;
+	private static KeyStore.PrivateKeyEntry partyB;
+
+	@BeforeAll
+	static void setupTest() throws Exception {
+		if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null)
+			Security.addProvider(new BouncyCastleProvider());
+		if (Security.getProvider(BouncyCastleJsseProvider.PROVIDER_NAME) == null)
+			Security.addProvider(new BouncyCastleJsseProvider());
+
+		KeyStore ks = KeyStore.getInstance("JKS");
+		try (InputStream is = new FileInputStream(TestUtils.getTestResource("cfg/repo/privatekeys.jks").toFile())) {
+			ks.load(is, "secrets".toCharArray());
+		}
+		partyA = (KeyStore.PrivateKeyEntry) ks.getEntry("partya",
+														new KeyStore.PasswordProtection("ExampleA".toCharArray()));
+		partyB = (KeyStore.PrivateKeyEntry) ks.getEntry("partyb",
+														new KeyStore.PasswordProtection("ExampleB".toCharArray()));
+
+		testCore = new HolodeckB2BTestCore();
+		HolodeckB2BCoreInterface.setImplementation(testCore);
+	}
+
+	@BeforeEach
+	void resetCertManager() throws Exception {
+		// Setting the Certificate Manager to null will result in a new instance being created
+		testCore.setCertificateManager(null);
+		registerClientCert(partyA);
+	}
+
+	private static void registerClientCert(KeyStore.PrivateKeyEntry keyPair) throws Exception {
+		((TestCertificateManager) testCore.getCertificateManager())
+																	.registerKeyPair(keyPair, "client", "secret");
+	}
+
+	private static TLSConfiguration createConfig(List<String> protocols, String clientCert) {
+		TLSConfiguration cfg = new TLSConfiguration();
+		cfg.setAllowedProtocols(protocols);
+		if (clientCert != null)
+			cfg.setClientCertificate(clientCert, "secret");
+		return cfg;
+	}
+
+	@Test
+	void testReuseForSameConfiguration() {
+		TLSContextCache cache = new TLSContextCache(TLSContextCache.DEFAULT_MAX_AGE);
+
+		TLSConfiguration cfg1 = createConfig(List.of("TLSv1.2", "TLSv1.3"), "client");
+		TLSConfiguration cfg2 = createConfig(List.of("TLSv1.2", "TLSv1.3"), "client");
+		assertEquals(cfg1, cfg2);
+		assertEquals(cfg1.hashCode(), cfg2.hashCode());
+
+		Registry<ConnectionSocketFactory> r1 = assertDoesNotThrow(() -> cache.getSocketFactoryRegistry(cfg1));
+		Registry<ConnectionSocketFactory> r2 = assertDoesNotThrow(() -> cache.getSocketFactoryRegistry(cfg2));
+		assertSame(r1, r2);
+	}
+
+	@Test
+	void testDifferentConfiguration() {
+		TLSContextCache cache = new TLSContextCache(TLSContextCache.DEFAULT_MAX_AGE);
+
+		Registry<ConnectionSocketFactory> r1 = assertDoesNotThrow(() ->
+								cache.getSocketFactoryRegistry(createConfig(List.of("TLSv1.2"), "client")));
+		Registry<ConnectionSocketFactory> r2 = assertDoesNotThrow(() ->
+								cache.getSocketFactoryRegistry(createConfig(List.of("TLSv1.2"), null)));
+		Registry<ConnectionSocketFactory> r3 = assertDoesNotThrow(() ->
+								cache.getSocketFactoryRegistry(createConfig(List.of("TLSv1.3"), null)));
+		assertNotSame(r1, r2);
+		assertNotSame(r2, r3);
+	}
+
+	@Test
+	void testCertManagerChanged() throws Exception {
+		TLSContextCache cache = new TLSContextCache(TLSContextCache.DEFAULT_MAX_AGE);
+		TLSConfiguration cfg = createConfig(null, "client");
+
+		Registry<ConnectionSocketFactory> r1 = assertDoesNotThrow(() -> cache.getSocketFactoryRegistry(cfg));
+
+		resetCertManager();
+
+		assertNotSame(r1, assertDoesNotThrow(() -> cache.getSocketFactoryRegistry(cfg)));
+	}
+
+	@Test
+	void testClientCertChanged() throws Exception {
+		TLSContextCache cache = new TLSContextCache(0);
+		TLSConfiguration cfg = createConfig(null, "client");
+
+		Registry<ConnectionSocketFactory> r1 = assertDoesNotThrow(() -> cache.getSocketFactoryRegistry(cfg));
+		// Certificate unchanged, so same context should be used
+		assertSame(r1, assertDoesNotThrow(() -> cache.getSocketFactoryRegistry(cfg)));
+
+		registerClientCert(partyB);
+
+		assertNotSame(r1, assertDoesNotThrow(() -> cache.getSocketFactoryRegistry(cfg)));
+	}
+}
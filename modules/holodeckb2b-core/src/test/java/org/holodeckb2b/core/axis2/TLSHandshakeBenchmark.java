@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
+import org.holodeckb2b.common.pmode.TLSConfiguration;
+import org.holodeckb2b.common.testhelpers.Benchmark;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.common.testhelpers.TestCertificateManager;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsExchange;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * Benchmark of the number of TLS handshakes and the latency of requests with a custom TLS configuration, comparing
+ * the creation of a new SSLContext per request, as was done before the {@link TLSContextCache} was added, with the use
+ * of the cache as now done by {@link HTTPSender}. Both are executed with keep-alive connections and with connections
+ * that are closed after each request, in which case the cached SSLContext allows the TLS session to be resumed.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of requests per scenario as argument. It uses the JDK's <i>keytool</i> to
+ * generate the certificate of the local TLS endpoint.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class TLSHandshakeBenchmark {
+
+	private static final Set<Integer>	connections = ConcurrentHashMap.newKeySet();
+	private static final Set<BigInteger> sessions = ConcurrentHashMap.newKeySet();
+
+	public static void main(String[] args) throws Exception {
+		final int requests = Benchmark.getArgument(args, 0, 500);
+
+		Security.addProvider(new BouncyCastleProvider());
+		Security.addProvider(new BouncyCastleJsseProvider());
+
+		final Path dir = Files.createTempDirectory("tlsbench");
+		final Path ksFile = dir.resolve("server.p12");
+		final Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+									"-genkeypair", "-keystore", ksFile.toString(), "-storetype", "PKCS12",
+									"-storepass", "secrets", "-alias", "server", "-keyalg", "RSA", "-keysize", "2048",
+									"-dname", "CN=localhost", "-ext", "SAN=dns:localhost", "-validity", "1")
+								.inheritIO().start();
+		if (keytool.waitFor() != 0)
+			throw new IllegalStateException("Could not generate server certificate");
+		final KeyStore ks = KeyStore.getInstance("PKCS12");
+		try (InputStream is = new FileInputStream(ksFile.toFile())) {
+			ks.load(is, "secrets".toCharArray());
+		}
+		Files.delete(ksFile);
+		Files.delete(dir);
+
+		final KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		kmf.init(ks, "secrets".toCharArray());
+		final SSLContext serverCtx = SSLContext.getInstance("TLS");
+		serverCtx.init(kmf.getKeyManagers(), null, null);
+		final HttpsServer server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setHttpsConfigurator(new HttpsConfigurator(serverCtx));
+		server.createContext("/msh", ex -> {
+			connections.add(ex.getRemoteAddress().getPort());
+			sessions.add(new BigInteger(1, ((HttpsExchange) ex).getSSLSession().getId()));
+			ex.getRequestBody().readAllBytes();
+			ex.sendResponseHeaders(202, -1);
+			ex.close();
+		});
+		server.setExecutor(Executors.newFixedThreadPool(4));
+		server.start();
+		final String url = "https://localhost:" + server.getAddress().getPort() + "/msh";
+
+		final HolodeckB2BTestCore core = new HolodeckB2BTestCore();
+		HolodeckB2BCoreInterface.setImplementation(core);
+		((TestCertificateManager) core.getCertificateManager())
+										.registerTrustedCertificate((X509Certificate) ks.getCertificate("server"),
+																	"server");
+		final TLSConfiguration tlsConfig = new TLSConfiguration();
+		// Use TLS 1.2 so resumed sessions can be recognised by their session id
+		tlsConfig.setAllowedProtocols(List.of("TLSv1.2"));
+
+		final PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager(
+								RegistryBuilder.<ConnectionSocketFactory>create()
+												.register("http", PlainConnectionSocketFactory.getSocketFactory())
+												.build());
+		final HttpClient sharedClient = HttpClientBuilder.create().setConnectionManager(connManager)
+																	.setConnectionManagerShared(true).build();
+		final TLSContextCache sharedCache = new TLSContextCache(TLSContextCache.DEFAULT_MAX_AGE);
+
+		for (boolean keepAlive : new boolean[] { true, false }) {
+			run("warm-up", url, tlsConfig, keepAlive, requests / 5, false, sharedClient, sharedCache);
+			run("uncached", url, tlsConfig, keepAlive, requests, false, sharedClient, sharedCache);
+			run("cached", url, tlsConfig, keepAlive, requests, true, sharedClient, sharedCache);
+		}
+		server.stop(0);
+		System.exit(0);
+	}
+
+	private static void run(String name, String url, TLSConfiguration tlsConfig, boolean keepAlive, int n,
+							boolean cached, HttpClient client, TLSContextCache sharedCache) throws Exception {
+		connections.clear();
+		sessions.clear();
+		final Benchmark.Measurement m = Benchmark.Measurement.ofCurrentThread();
+		m.start();
+		for (int i = 0; i < n; i++) {
+			final TLSContextCache cache = cached ? sharedCache : new TLSContextCache(TLSContextCache.DEFAULT_MAX_AGE);
+			final HttpClientContext ctx = HttpClientContext.create();
+			ctx.setUserToken(tlsConfig);
+			ctx.setAttribute(HTTPSender.SOCKET_FACTORY_REGISTRY, cache.getSocketFactoryRegistry(tlsConfig));
+			final HttpPost post = new HttpPost(url);
+			post.setEntity(new ByteArrayEntity(new byte[1024]));
+			if (!keepAlive)
+				post.setHeader("Connection", "close");
+			final HttpResponse response = client.execute(post, ctx);
+			EntityUtils.consume(response.getEntity());
+		}
+		m.stop(n);
+		if (!"warm-up".equals(name))
+			System.out.printf("%-8s %-10s: %4d requests, %4d connections, %4d full handshakes, %8.1f us/request%n",
+							  name, keepAlive ? "keep-alive" : "close", n, connections.size(), sessions.size(),
+							  m.getWallTime() / 1000);
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.axis2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.http.server.HttpFactory;
+import org.apache.axis2.transport.http.server.SimpleHttpServer;
+import org.apache.axis2.transport.http.server.Worker;
+import org.holodeckb2b.common.testhelpers.Benchmark;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.core.workerpool.VirtualThreads;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+
+/**
+ * Load test comparing the handling of requests by the blocking HTTP server using the default pool of platform threads
+ * with using virtual threads (see {@link VirtualThreads}). A large number of slow clients is simulated that each open
+ * a connection, send the request body in small parts with a pause between them and wait for the response. The
+ * processing of the request is simulated by a worker that waits for some time, like it would when waiting for the
+ * database. As in the {@link HTTPFactory} the thread pool is limited to 150 threads. For both modes the throughput,
+ * request latency and the number of threads are reported. When virtual threads are not supported by the JVM only the
+ * platform threads are tested.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of clients as argument.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class VirtualThreadsBenchmark {
+
+	private static final int POOL_SIZE = 150;
+	private static final int BODY_PARTS = 4;
+	private static final int CLIENT_PAUSE = 50;
+	private static final int PROCESSING_TIME = 20;
+
+	/**
+	 * Worker that reads the request and responds with a small message after simulating some processing time
+	 */
+	private static final Worker WORKER = (request, response, msgContext) -> {
+		try (InputStream is = request.getInputStream()) {
+			is.transferTo(OutputStream.nullOutputStream());
+		}
+		try {
+			Thread.sleep(PROCESSING_TIME);
+		} catch (InterruptedException e) {
+		}
+		response.setStatus(200);
+		response.setContentType("application/soap+xml");
+		response.getOutputStream().write("<Receipt/>".getBytes(StandardCharsets.US_ASCII));
+	};
+
+	public static void main(String[] args) throws Exception {
+		final int clients = Benchmark.getArgument(args, 0, 1000);
+		final HolodeckB2BTestCore core = new HolodeckB2BTestCore();
+		HolodeckB2BCoreInterface.setImplementation(core);
+		final AxisConfiguration axisConfig = new AxisConfiguration();
+		final TransportInDescription http = new TransportInDescription("http");
+		http.setReceiver(new HTTPListener());
+		axisConfig.addTransportIn(http);
+		final ConfigurationContext configContext = new ConfigurationContext(axisConfig);
+
+		System.out.printf("%d clients, body sent in %d parts with %d ms pause, processing time %d ms%n", clients,
+						  BODY_PARTS, CLIENT_PAUSE, PROCESSING_TIME);
+
+		core.getConfiguration().setUseVirtualThreads(false);
+		run("platform", configContext, clients);
+		if (VirtualThreads.isSupported()) {
+			core.getConfiguration().setUseVirtualThreads(true);
+			run("virtual", configContext, clients);
+		} else
+			System.out.println("Virtual threads not supported by this JVM (" + System.getProperty("java.version") + ")");
+	}
+
+	private static void run(final String name, final ConfigurationContext configContext, final int clients)
+																							throws Exception {
+		final int port;
+		try (ServerSocket s = new ServerSocket(0)) {
+			port = s.getLocalPort();
+		}
+		// Same executor selection as the HTTPFactory, but with the simulating worker
+		final HttpFactory factory = new HttpFactory(configContext, port, () -> WORKER) {
+			@Override
+			public ExecutorService newRequestExecutor(int port) {
+				final ExecutorService virtual = VirtualThreads.newThreadPerTaskExecutor("HttpConnection-" + port);
+				return virtual != null ? virtual : super.newRequestExecutor(port);
+			}
+		};
+		factory.setRequestCoreThreadPoolSize(POOL_SIZE);
+		factory.setRequestMaxThreadPoolSize(POOL_SIZE);
+		final SimpleHttpServer server = new SimpleHttpServer(factory, port);
+		server.init();
+		server.start();
+		try {
+			final int threadsBefore = Thread.activeCount();
+			final long[] latencies = new long[clients];
+			final AtomicInteger measured = new AtomicInteger();
+			final AtomicInteger failures = new AtomicInteger();
+			final AtomicInteger maxThreads = new AtomicInteger();
+			final CountDownLatch done = new CountDownLatch(clients);
+			final long start = System.nanoTime();
+			for (int i = 0; i < clients; i++) {
+				new Thread(() -> {
+					try {
+						final long latency = slowRequest(port);
+						latencies[measured.getAndIncrement()] = latency;
+					} catch (IOException | InterruptedException e) {
+						failures.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				}).start();
+			}
+			while (done.getCount() > 0) {
+				// Subtract the client threads that are still running
+				maxThreads.accumulateAndGet(Thread.activeCount() - threadsBefore - (int) done.getCount(), Math::max);
+				Thread.sleep(10);
+			}
+			final long duration = System.nanoTime() - start;
+			final int n = measured.get();
+			System.out.printf("%-8s: %6.0f req/s, %s, platform threads %d, failed %d%n", name, n * 1e9 / duration,
+							  Benchmark.summariseLatencies(latencies, n), maxThreads.get(), failures.get());
+		} finally {
+			server.destroy();
+		}
+	}
+
+	/**
+	 * Sends a request in which the body is sent in parts with a pause between them and waits for the response.
+	 *
+	 * @return the time it took to get the response
+	 */
+	private static long slowRequest(final int port) throws IOException, InterruptedException {
+		final long start = System.nanoTime();
+		try (Socket s = new Socket("localhost", port)) {
+			final OutputStream out = s.getOutputStream();
+			out.write(("POST /services/msh HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n"
+					   + "Content-Type: application/soap+xml\r\nContent-Length: " + BODY_PARTS * 128 + "\r\n\r\n")
+					  .getBytes(StandardCharsets.US_ASCII));
+			for (int p = 0; p < BODY_PARTS; p++) {
+				out.flush();
+				Thread.sleep(CLIENT_PAUSE);
+				out.write("x".repeat(128).getBytes(StandardCharsets.US_ASCII));
+			}
+			out.flush();
+			final InputStream in = s.getInputStream();
+			if (!readLine(in).contains(" 200 "))
+				throw new IOException("Request failed");
+			in.transferTo(OutputStream.nullOutputStream());
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static String readLine(final InputStream in) throws IOException {
+		final StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n' && c >= 0)
+			if (c != '\r')
+				line.append((char) c);
+		return line.toString();
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the histogram based statistics of the {@link LatencyRecorder}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class LatencyRecorderTest {
+
+	@Test
+	void testStatistics() {
+		final LatencyRecorder recorder = new LatencyRecorder("test", "IN_FLOW", "TestHandler");
+		// 90 invocations of 10us, 9 of 1ms and one failed one of 100ms
+		for (int i = 0; i < 90; i++)
+			recorder.record(10_000, false);
+		for (int i = 0; i < 9; i++)
+			recorder.record(1_000_000, false);
+		recorder.record(100_000_000, true);
+
+		final LatencyStatistics stats = recorder.getStatistics();
+		assertEquals(100, stats.getInvocations());
+		assertEquals(1, stats.getFailures());
+		assertEquals(100_000, stats.getMaxTime());
+		assertEquals((90 * 10 + 9 * 1000 + 100_000) / 100.0, stats.getMeanTime(), 0.001);
+		// The percentiles are estimates within the bucket containing the time
+		assertTrue(stats.getPercentile(50) >= 8 && stats.getPercentile(50) <= 16);
+		assertTrue(stats.getPercentile(90) >= 8 && stats.getPercentile(90) <= 16);
+		assertTrue(stats.getPercentile(99) >= 512 && stats.getPercentile(99) <= 1024);
+		assertEquals(100_000, stats.getPercentile(100));
+
+		recorder.reset();
+		assertEquals(0, recorder.getInvocations());
+		assertEquals(0, recorder.getMaxTime());
+		assertEquals(0, recorder.getMedianTime());
+	}
+
+	@Test
+	void testConcurrentRecording() throws Exception {
+		final LatencyRecorder recorder = new LatencyRecorder("test", "IN_FLOW", "TestHandler");
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			final long time = (t + 1) * 1000L;
+			executor.execute(() -> {
+				for (int i = 0; i < 10000; i++)
+					recorder.record(time, i % 100 == 0);
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(80000, recorder.getInvocations());
+		assertEquals(800, recorder.getFailures());
+		assertEquals(8, recorder.getMaxTime());
+		assertEquals(4.5, recorder.getMeanTime(), 0.001);
+	}
+}
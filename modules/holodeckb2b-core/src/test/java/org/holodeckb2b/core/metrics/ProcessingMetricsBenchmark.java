@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.metrics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import org.holodeckb2b.common.testhelpers.Benchmark;
+
+/**
+ * Benchmark of the overhead of recording the processing time of a handler invocation in a {@link LatencyRecorder},
+ * i.e. reading the clock before and after the invocation and updating the histogram. The recording is done by an
+ * increasing number of threads that all use the same recorder, as happens when many messages are processed
+ * concurrently. The time needed to only read the clock is reported separately.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of rounds as argument.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class ProcessingMetricsBenchmark {
+
+	private static final AtomicLong sink = new AtomicLong();
+
+	public static void main(String[] args) throws Exception {
+		final int rounds = Benchmark.getArgument(args, 0, 10_000_000);
+		final int maxThreads = Runtime.getRuntime().availableProcessors();
+
+		run(1, rounds, false);
+		run(1, rounds, true);
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			final double clock = run(threads, rounds, false);
+			final double record = run(threads, rounds, true);
+			System.out.printf("%2d threads: clock only %.1f ns, with recording %.1f ns per invocation%n", threads,
+							  clock, record);
+		}
+	}
+
+	/**
+	 * Runs the given number of invocations in each thread and returns the average time per invocation.
+	 */
+	private static double run(final int threads, final int rounds, final boolean record) throws Exception {
+		final LatencyRecorder recorder = new LatencyRecorder("benchmark", "IN_FLOW", "Handler");
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		final DoubleAdder totalTime = new DoubleAdder();
+		for (int t = 0; t < threads; t++)
+			new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				long s = 0;
+				final Benchmark.Measurement m = Benchmark.Measurement.ofCurrentThread();
+				m.start();
+				for (int i = 0; i < rounds; i++) {
+					final long invoked = System.nanoTime();
+					if (record)
+						recorder.record(System.nanoTime() - invoked, false);
+					else
+						s += System.nanoTime() - invoked;
+				}
+				m.stop(rounds);
+				totalTime.add(m.getWallTime());
+				sink.addAndGet(s);
+				done.countDown();
+			}).start();
+		start.countDown();
+		done.await();
+		return totalTime.sum() / threads;
+	}
+}
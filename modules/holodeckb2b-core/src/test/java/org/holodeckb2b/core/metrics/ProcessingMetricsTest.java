@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.common.handlers.AbstractBaseHandler;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.core.MessageProcessingContext;
+import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
+import org.holodeckb2b.test.storage.UserMessageEntity;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the recording of the processing times of the handlers and message exchanges in the {@link ProcessingMetrics}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class ProcessingMetricsTest {
+
+	@Test
+	void testHandlerMetrics() throws Exception {
+		final TestHandler handler = new TestHandler();
+		handler.init(new HandlerDescription("MetricsTestHandler"));
+
+		final MessageContext mc = new MessageContext();
+		mc.setServerSide(true);
+		mc.setFLOW(MessageContext.IN_FLOW);
+		handler.invoke(mc);
+		handler.fail = true;
+		assertThrows(AxisFault.class, () -> handler.invoke(mc));
+		mc.setServerSide(false);
+		mc.setFLOW(MessageContext.OUT_FLOW);
+		handler.fail = false;
+		handler.invoke(mc);
+
+		final LatencyStatistics inFlow = getStatistics("RESPONSE_IN_FLOW", "MetricsTestHandler");
+		assertEquals("default", inFlow.getCategory());
+		assertEquals(2, inFlow.getInvocations());
+		assertEquals(1, inFlow.getFailures());
+		final LatencyStatistics outFlow = getStatistics("REQUEST_OUT_FLOW", "MetricsTestHandler");
+		assertEquals(1, outFlow.getInvocations());
+		assertEquals(0, outFlow.getFailures());
+
+		final ObjectName jmxName = new ObjectName("org.holodeckb2b:type=HandlerMetrics,protocol=default,"
+												  + "flow=RESPONSE_IN_FLOW,name=\"MetricsTestHandler\"");
+		assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(jmxName, "Invocations"));
+	}
+
+	@Test
+	void testExchangeMetrics() throws Exception {
+		final MessageContext mc = new MessageContext();
+		mc.setFLOW(MessageContext.IN_FLOW);
+		final MessageProcessingContext procCtx = MessageProcessingContext.getFromMessageContext(mc);
+		procCtx.setUserMessage(new UserMessageEntity(new UserMessage()));
+		final long before = getInvocations("User Message");
+
+		ProcessingMetrics.recordExchange(procCtx, 5_000_000, false);
+
+		assertEquals(before + 1, getInvocations("User Message"));
+		assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+						new ObjectName("org.holodeckb2b:type=ExchangeMetrics,name=\"User Message\"")));
+	}
+
+	private static long getInvocations(final String name) {
+		return ProcessingMetrics.getStatistics().stream()
+						.filter(s -> ProcessingMetrics.EXCHANGE.equals(s.getCategory()) && name.equals(s.getName()))
+						.mapToLong(LatencyStatistics::getInvocations).sum();
+	}
+
+	private static LatencyStatistics getStatistics(final String flow, final String name) {
+		return ProcessingMetrics.getStatistics().stream()
+						.filter(s -> flow.equals(s.getFlow()) && name.equals(s.getName())).findFirst().get();
+	}
+
+	static class TestHandler extends AbstractBaseHandler {
+		boolean fail = false;
+
+		@Override
+		protected InvocationResponse doProcessing(IMessageProcessingContext procCtx, Logger log) throws Exception {
+			if (fail)
+				throw new IllegalStateException("Failure");
+			return InvocationResponse.CONTINUE;
+		}
+	}
+}
@@ -31,6 +31,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -417,6 +418,22 @@ class StorageManagerTest {
 		assertFalse(mdsProvider.existsMessageId(um.getMessageId()));
 	}
 
+	@Test
+	void testDeleteMessageUnits() {
+		Receipt r = new Receipt();
+		r.setMessageId(UUID.randomUUID().toString());
+		UserMessage um = new UserMessage();
+		um.setMessageId(UUID.randomUUID().toString());
+
+		IMessageUnitEntity storedR = assertDoesNotThrow(() -> mdsProvider.storeMessageUnit(r));
+		IMessageUnitEntity storedUm = assertDoesNotThrow(() -> mdsProvider.storeMessageUnit(um));
+
+		assertDoesNotThrow(() -> HolodeckB2BCore.getStorageManager().deleteMessageUnits(List.of(storedR, storedUm)));
+
+		assertFalse(mdsProvider.existsMessageId(r.getMessageId()));
+		assertFalse(mdsProvider.existsMessageId(um.getMessageId()));
+	}
+
 	@Test
 	void testDeleteUserMessageWithPayloads() throws FileNotFoundException {
 		Payload pl = new Payload();
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.workerpool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link VirtualThreads}. As the tests may run on a JVM that does not support virtual threads, the expected
+ * result depends on {@link VirtualThreads#isSupported()}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class VirtualThreadsTest {
+
+	private static HolodeckB2BTestCore core;
+
+	@BeforeAll
+	static void setupCore() throws Exception {
+		core = new HolodeckB2BTestCore();
+		HolodeckB2BCoreInterface.setImplementation(core);
+	}
+
+	@Test
+	void testDisabled() {
+		core.getConfiguration().setUseVirtualThreads(false);
+
+		assertFalse(VirtualThreads.isEnabled());
+		assertInstanceOf(PoolThreadFactory.class, VirtualThreads.newThreadFactory("test"));
+		assertNull(VirtualThreads.newThreadPerTaskExecutor("test"));
+	}
+
+	@Test
+	void testEnabled() throws Exception {
+		core.getConfiguration().setUseVirtualThreads(true);
+		try {
+			assertEquals(VirtualThreads.isSupported(), VirtualThreads.isEnabled());
+
+			final Thread t = VirtualThreads.newThreadFactory("test").newThread(() -> {});
+			assertTrue(t.getName().startsWith("test"));
+			assertEquals(VirtualThreads.isSupported(), isVirtual(t));
+
+			final ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test");
+			if (!VirtualThreads.isSupported())
+				assertNull(executor);
+			else {
+				assertNotNull(executor);
+				assertTrue(executor.submit(() -> isVirtual(Thread.currentThread())).get(5, TimeUnit.SECONDS));
+				executor.shutdown();
+			}
+		} finally {
+			core.getConfiguration().setUseVirtualThreads(false);
+		}
+	}
+
+	private static boolean isVirtual(final Thread t) throws Exception {
+		try {
+			return (Boolean) Thread.class.getMethod("isVirtual").invoke(t);
+		} catch (NoSuchMethodException notSupported) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.workers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.holodeckb2b.core.workers.SendDispatcher.Statistics;
+import org.holodeckb2b.interfaces.pmode.IPMode.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class SendDispatcherTest {
+
+	private static final long SLOW_LATENCY = 500;
+	private static final long FAST_LATENCY = 10;
+
+	private HttpServer server;
+	private String	   slowURL;
+	private String	   fastURL;
+
+	private final ConcurrentHashMap<String, AtomicInteger> concurrent = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, AtomicInteger> maxConcurrent = new ConcurrentHashMap<>();
+
+	@BeforeEach
+	void startEndpoints() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/slow", ex -> respond(ex, "/slow", SLOW_LATENCY));
+		server.createContext("/fast", ex -> respond(ex, "/fast", FAST_LATENCY));
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		final String base = "http://localhost:" + server.getAddress().getPort();
+		slowURL = base + "/slow";
+		fastURL = base + "/fast";
+	}
+
+	@AfterEach
+	void stopEndpoints() {
+		server.stop(0);
+	}
+
+	private void respond(HttpExchange ex, String endpoint, long latency) throws IOException {
+		final int current = concurrent.computeIfAbsent(endpoint, e -> new AtomicInteger()).incrementAndGet();
+		maxConcurrent.computeIfAbsent(endpoint, e -> new AtomicInteger()).accumulateAndGet(current, Math::max);
+		try {
+			Thread.sleep(latency);
+		} catch (InterruptedException e) {
+		}
+		concurrent.get(endpoint).decrementAndGet();
+		ex.sendResponseHeaders(200, -1);
+		ex.close();
+	}
+
+	private Runnable post(String url, CountDownLatch done) {
+		return () -> {
+			try {
+				HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+				c.setRequestMethod("POST");
+				c.setDoOutput(true);
+				c.getOutputStream().close();
+				try (InputStream is = c.getInputStream()) {
+					is.readAllBytes();
+				}
+				done.countDown();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		};
+	}
+
+	@Test
+	void testSlowDestinationDoesNotBlockOthers() throws Exception {
+		final SendDispatcher dispatcher = new SendDispatcher(4, 2);
+		final CountDownLatch slowDone = new CountDownLatch(6);
+		final CountDownLatch fastDone = new CountDownLatch(20);
+
+		final long start = System.currentTimeMillis();
+		// Queue the messages to the slow endpoint first, so they would block the fast ones when sent sequentially
+		for (int i = 0; i < 6; i++)
+			assertTrue(dispatcher.submit(slowURL, "slow-" + i, post(slowURL, slowDone)));
+		for (int i = 0; i < 20; i++)
+			assertTrue(dispatcher.submit(fastURL, "fast-" + i, post(fastURL, fastDone)));
+
+		assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+		final long fastTime = System.currentTimeMillis() - start;
+		assertFalse(slowDone.await(0, TimeUnit.MILLISECONDS));
+		assertTrue(fastTime < SLOW_LATENCY * 3, "Fast destination held back by slow one: " + fastTime + "ms");
+
+		assertTrue(slowDone.await(10, TimeUnit.SECONDS));
+		assertEquals(2, maxConcurrent.get("/slow").get());
+		assertTrue(maxConcurrent.get("/fast").get() <= 2);
+	}
+
+	@Test
+	void testTotalLimit() throws Exception {
+		final SendDispatcher dispatcher = new SendDispatcher(3, 2);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(12);
+
+		for (int d = 0; d < 4; d++)
+			for (int i = 0; i < 3; i++)
+				dispatcher.submit("http://destination" + d, d + "-" + i, () -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						Thread.sleep(50);
+					} catch (InterruptedException e) {
+					}
+					running.decrementAndGet();
+					done.countDown();
+				});
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(3, maxRunning.get());
+	}
+
+	@Test
+	void testIgnoreDuplicates() throws Exception {
+		final SendDispatcher dispatcher = new SendDispatcher(1, 1);
+		final CountDownLatch blocker = new CountDownLatch(1);
+		final AtomicInteger executed = new AtomicInteger();
+
+		assertTrue(dispatcher.submit(null, "msg-1", () -> {
+			executed.incrementAndGet();
+			try {
+				blocker.await();
+			} catch (InterruptedException e) {
+			}
+		}));
+		assertFalse(dispatcher.submit(null, "msg-1", executed::incrementAndGet));
+		assertTrue(dispatcher.isInProgress("msg-1"));
+
+		blocker.countDown();
+		for (int i = 0; i < 50 && dispatcher.isInProgress("msg-1"); i++)
+			Thread.sleep(20);
+		assertFalse(dispatcher.isInProgress("msg-1"));
+		assertEquals(1, executed.get());
+	}
+
+	@Test
+	void testAsyncSendsNotLimitedByThreads() throws Exception {
+		// Only 2 threads are available, but 10 messages can be in transit at the same time
+		final SendDispatcher dispatcher = new SendDispatcher(10, 10, 2);
+		final HttpClient client = HttpClient.newHttpClient();
+		final CountDownLatch done = new CountDownLatch(10);
+
+		final long start = System.currentTimeMillis();
+		for (int i = 0; i < 10; i++)
+			assertTrue(dispatcher.submitAsync(slowURL, "slow-" + i, () ->
+							client.sendAsync(HttpRequest.newBuilder(URI.create(slowURL))
+																	.POST(HttpRequest.BodyPublishers.noBody()).build(),
+											 BodyHandlers.discarding())
+								  .thenRun(done::countDown)));
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		final long elapsed = System.currentTimeMillis() - start;
+		assertEquals(10, maxConcurrent.get("/slow").get());
+		assertTrue(elapsed < SLOW_LATENCY * 3, "Sends were limited by number of threads: " + elapsed + "ms");
+		for (int i = 0; i < 50 && dispatcher.isInProgress("slow-9"); i++)
+			Thread.sleep(20);
+		assertFalse(dispatcher.isInProgress("slow-9"));
+	}
+
+	@Test
+	void testShutdown() throws Exception {
+		final SendDispatcher dispatcher = new SendDispatcher(1, 1);
+		final AtomicInteger executed = new AtomicInteger();
+		final CountDownLatch blocker = block(dispatcher);
+		assertTrue(dispatcher.submit(null, "msg-1", executed::incrementAndGet));
+
+		dispatcher.shutdown();
+		// The waiting send operation is discarded, the executing one is completed
+		assertFalse(dispatcher.isInProgress("msg-1"));
+		assertTrue(dispatcher.isInProgress("blocker"));
+		assertFalse(dispatcher.submit(null, "msg-2", executed::incrementAndGet));
+		assertFalse(dispatcher.isTerminated());
+
+		blocker.countDown();
+		for (int i = 0; i < 50 && !dispatcher.isTerminated(); i++)
+			Thread.sleep(20);
+		assertTrue(dispatcher.isTerminated());
+		assertFalse(dispatcher.isInProgress("blocker"));
+		assertEquals(0, executed.get());
+	}
+
+	/**
+	 * Submits a send operation that blocks the only available slot of the dispatcher until the returned latch is
+	 * released, so the send operations submitted afterwards are queued.
+	 */
+	private CountDownLatch block(SendDispatcher dispatcher) {
+		final CountDownLatch blocker = new CountDownLatch(1);
+		dispatcher.submit("http://blocker", "blocker", () -> {
+			try {
+				blocker.await();
+			} catch (InterruptedException e) {
+			}
+		});
+		return blocker;
+	}
+
+	@Test
+	void testPriorityWeighting() throws Exception {
+		final SendDispatcher dispatcher = new SendDispatcher(1, 1);
+		final List<String> order = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch done = new CountDownLatch(20);
+		final CountDownLatch blocker = block(dispatcher);
+
+		// Queue the low priority messages first, so they would be sent first without priority handling
+		for (int i = 0; i < 10; i++)
+			dispatcher.submit(Priority.LOW, "bulk", "http://destination" + i, "low-" + i, () -> {
+				order.add("low");
+				done.countDown();
+			});
+		for (int i = 0; i < 10; i++)
+			dispatcher.submit(Priority.HIGH, "urgent", "http://destination" + i, "high-" + i, () -> {
+				order.add("high");
+				done.countDown();
+			});
+		blocker.countDown();
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		// The high priority messages get six times the share of the low priority ones, but low priority messages are
+		// not blocked completely
+		final List<String> first = order.subList(0, 7);
+		assertEquals(6, Collections.frequency(first, "high"));
+		assertEquals(1, Collections.frequency(first, "low"));
+	}
+
+	@Test
+	void testFairBetweenPModes() throws Exception {
+		final SendDispatcher dispatcher = new SendDispatcher(1, 1);
+		final List<String> order = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch done = new CountDownLatch(12);
+		final CountDownLatch blocker = block(dispatcher);
+
+		for (int i = 0; i < 10; i++)
+			dispatcher.submit(null, "batch", fastURL, "batch-" + i, () -> {
+				order.add("batch");
+				done.countDown();
+			});
+		for (int i = 0; i < 2; i++)
+			dispatcher.submit(null, "other", fastURL, "other-" + i, () -> {
+				order.add("other");
+				done.countDown();
+			});
+		blocker.countDown();
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of("batch", "other", "batch", "other"), order.subList(0, 4));
+	}
+
+	@Test
+	void testStatistics() throws Exception {
+		final SendDispatcher dispatcher = new SendDispatcher(1, 1);
+		final CountDownLatch blocker = block(dispatcher);
+		for (int i = 0; i < 3; i++)
+			dispatcher.submit(Priority.LOW, "bulk", fastURL, "low-" + i, () -> {});
+
+		Statistics low = dispatcher.getStatistics().get(Priority.LOW);
+		assertEquals(3, low.getQueued());
+		assertEquals(0, low.getStarted());
+		final Map<Priority, Statistics> stats = dispatcher.getStatistics();
+		assertEquals(1, stats.get(Priority.NORMAL).getExecuting());
+		assertEquals(0, stats.get(Priority.HIGH).getStarted());
+
+		Thread.sleep(50);
+		blocker.countDown();
+		for (int i = 0; i < 50 && dispatcher.isInProgress("low-2"); i++)
+			Thread.sleep(20);
+
+		low = dispatcher.getStatistics().get(Priority.LOW);
+		assertEquals(0, low.getQueued());
+		assertEquals(0, low.getExecuting());
+		assertEquals(3, low.getStarted());
+		assertTrue(low.getMaxWait() >= 50);
+		assertTrue(low.getAverageWait() <= low.getMaxWait());
+	}
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.core.workers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.common.pmode.PMode;
+import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.core.storage.IProcessingStateListener;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
+import org.holodeckb2b.interfaces.storage.IMessageUnitEntity;
+import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SenderWorkerTest {
+
+	private static PMode pmode;
+
+	private SenderWorker worker;
+
+	private final Map<String, List<ProcessingState>> changes = new ConcurrentHashMap<>();
+
+	private final IProcessingStateListener recorder = (m, s) ->
+							changes.computeIfAbsent(m.getCoreId(), id -> new CopyOnWriteArrayList<>()).add(s);
+
+	@BeforeAll
+	public static void setUpClass() throws Exception {
+		HolodeckB2BTestCore testCore = new HolodeckB2BTestCore();
+		HolodeckB2BCoreInterface.setImplementation(testCore);
+		pmode = HB2BTestUtils.create1WaySendPushPMode();
+		testCore.getPModeSet().add(pmode);
+	}
+
+	@BeforeEach
+	public void registerRecorder() {
+		HolodeckB2BCore.getStorageManager().addProcessingStateListener(recorder);
+	}
+
+	@AfterEach
+	public void shutdownWorker() {
+		HolodeckB2BCore.getStorageManager().removeProcessingStateListener(recorder);
+		if (worker != null)
+			worker.shutdown();
+	}
+
+	private IUserMessageEntity createMessage() throws Exception {
+		final UserMessage um = new UserMessage();
+		um.setPModeId(pmode.getId());
+		um.setMessageId("trigger-" + System.nanoTime() + "@test");
+		return HolodeckB2BCore.getStorageManager().storeOutGoingMessageUnit(um);
+	}
+
+	private boolean waitForSendStart(IMessageUnitEntity msgUnit, long waitMillis) throws Exception {
+		final long end = System.currentTimeMillis() + waitMillis;
+		do {
+			final List<ProcessingState> states = changes.get(msgUnit.getCoreId());
+			if (states != null && states.contains(ProcessingState.PROCESSING))
+				return true;
+			Thread.sleep(20);
+		} while (System.currentTimeMillis() < end);
+		return false;
+	}
+
+	@Test
+	public void testImmediateDispatch() throws Exception {
+		worker = new SenderWorker();
+		worker.setParameters(null);
+
+		final IUserMessageEntity userMessage = createMessage();
+		HolodeckB2BCore.getStorageManager().setProcessingState(userMessage, ProcessingState.READY_TO_PUSH);
+
+		// The worker is not run, so the send process can only be started by the listener
+		assertTrue(waitForSendStart(userMessage, 2000));
+		assertEquals(List.of(ProcessingState.READY_TO_PUSH, ProcessingState.PROCESSING),
+					 changes.get(userMessage.getCoreId()).subList(0, 2));
+	}
+
+	@Test
+	public void testNoImmediateDispatch() throws Exception {
+		worker = new SenderWorker();
+		worker.setParameters(Map.of(SenderWorker.P_IMMEDIATE_DISPATCH, "false"));
+
+		final IUserMessageEntity userMessage = createMessage();
+		HolodeckB2BCore.getStorageManager().setProcessingState(userMessage, ProcessingState.READY_TO_PUSH);
+
+		assertFalse(waitForSendStart(userMessage, 500));
+		assertEquals(ProcessingState.READY_TO_PUSH, HolodeckB2BCore.getQueryManager()
+											.getMessageUnitWithCoreId(userMessage.getCoreId())
+											.getCurrentProcessingState().getState());
+	}
+
+	@Test
+	public void testNoDispatchAfterShutdown() throws Exception {
+		worker = new SenderWorker();
+		worker.setParameters(null);
+		worker.shutdown();
+
+		final IUserMessageEntity userMessage = createMessage();
+		HolodeckB2BCore.getStorageManager().setProcessingState(userMessage, ProcessingState.READY_TO_PUSH);
+
+		assertFalse(waitForSendStart(userMessage, 500));
+	}
+
+	@Test
+	public void testStatisticsInJMX() throws Exception {
+		worker = new SenderWorker();
+		worker.setName("jmxSender");
+		worker.setParameters(null);
+
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName normal = new ObjectName("org.holodeckb2b:type=SenderMetrics,worker=\"jmxSender\","
+												 + "priority=NORMAL");
+		assertTrue(server.isRegistered(normal));
+		assertTrue(server.isRegistered(new ObjectName("org.holodeckb2b:type=SenderMetrics,worker=\"jmxSender\","
+													  + "priority=HIGH")));
+		assertEquals(0L, server.getAttribute(normal, "Started"));
+
+		final IUserMessageEntity userMessage = createMessage();
+		HolodeckB2BCore.getStorageManager().setProcessingState(userMessage, ProcessingState.READY_TO_PUSH);
+		assertTrue(waitForSendStart(userMessage, 2000));
+		assertEquals(1L, server.getAttribute(normal, "Started"));
+
+		worker.shutdown();
+		assertFalse(server.isRegistered(normal));
+	}
+}
@@ -429,6 +429,19 @@ public class DefaultMetadataStorageProvider implements IMetadataStorageProvider
 		}
 	}
 
+	@Override
+	public boolean hasPayloadMetadata(String payloadId) throws StorageException {
+		final EntityManager em = emf.createEntityManager();
+		try {
+			return em.createQuery("SELECT COUNT(p) FROM PayloadInfo p WHERE p.PAYLOAD_ID = :payloadId", Long.class)
+						.setParameter("payloadId", payloadId).getSingleResult() > 0;
+		} catch (final Exception e) {
+			throw new StorageException("Could not execute query \"hasPayloadMetadata\"", e);
+		} finally {
+			em.close();
+		}
+	}
+
 	/**
      * Gets the meta-data of the specified maximum of message units which last processing state was before the given
      * time stamp. The resulting list is ordered descending by the last processing state's start time.
@@ -190,6 +190,14 @@ public class QueryTests extends BaseProviderTest {
 		assertEquals(1, assertDoesNotThrow(() -> provider.getUnboundPayloads()).size());
 	}
 
+	@Test
+	void testHasPayloadMetadata() {
+		final String payloadId = assertDoesNotThrow(() -> provider.getUnboundPayloads()).iterator().next()
+																						 .getPayloadId();
+		assertTrue(assertDoesNotThrow(() -> provider.hasPayloadMetadata(payloadId)));
+		assertFalse(assertDoesNotThrow(() -> provider.hasPayloadMetadata(UUID.randomUUID().toString())));
+	}
+
 	@Test
 	void testGetMessageHistory() {
 		List<IMessageUnitEntity> r = assertDoesNotThrow(() -> provider.getMessageHistory(new Date(), 100));
@@ -20,6 +20,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
 
 import org.apache.axis2.description.Parameter;
 import org.apache.logging.log4j.LogManager;
@@ -39,6 +46,24 @@ import org.holodeckb2b.interfaces.storage.StorageException;
  * By default the payloads will be stored in the <code>pldata</code> subdirectory of the Holodeck B2B <i>temp</i>
  * directory as specified by {@link IConfiguration#getTempDirectory()}. The directory can be changed by setting the
  * <i>payload-directory</i> parameter in the Holodeck B2B configuration, i.e. in the <code>holodeckb2b.xml</code> file.
+ * <p>
+ * While the content is written to storage the provider calculates its digest so it doesn't need to be read again when
+ * the payload is signed. By default the SHA-256 digest is calculated, the algorithms to use can be set with the
+ * <i>payload-digest-algorithms</i> parameter as a comma separated list of algorithm names as used by {@link
+ * MessageDigest}. Setting the parameter to an empty value disables the calculation of digests.
+ * <p>
+ * Payload files are removed asynchronously by a {@link PayloadDeleter} so the purge process is not held back by the
+ * file system. The number of threads used for removing files can be set with the <i>payload-delete-workers</i>
+ * parameter, by default two threads are used. Content files for which no meta-data exists anymore are removed at
+ * startup, see {@link #removeOrphanedContent(Predicate)}.
+ * <p>
+ * Small payloads are staged in memory by a {@link PayloadStagingArea} so they can be read without accessing the disk
+ * when they are sent or delivered shortly after being stored. The staging is configured by these parameters:<ul>
+ * <li><i>payload-staging-threshold</i> : maximum size in bytes of a payload to be staged, default 64 KiB. Setting it
+ * 		to 0 disables staging.</li>
+ * <li><i>payload-staging-memory</i> : maximum total size in bytes of the staged payloads, default 32 MiB.</li></ul>
+ * The content of staged payloads is always written to disk when it is stored.
+ * The statistics of the staging can be retrieved using {@link #getStagingStatistics()}.
  *
  * @author Sander Fieten (sander at holodeck-b2b.org)
  * @since 7.0.0
@@ -48,6 +73,18 @@ public class DefaultPayloadStorageProvider implements IPayloadStorageProvider {
 	 * The directory where the paylaod data is to be stored.
 	 */
 	private Path	directory;
+	/**
+	 * The names of the algorithms for which the digest of the payload content is calculated
+	 */
+	private List<String> digestAlgorithms;
+	/**
+	 * The deleter that removes the payload files in the background
+	 */
+	private PayloadDeleter deleter;
+	/**
+	 * The staging area for small payloads, <code>null</code> if staging is disabled
+	 */
+	private PayloadStagingArea staging;
 
 	@Override
 	public String getName() {
@@ -72,30 +109,138 @@ public class DefaultPayloadStorageProvider implements IPayloadStorageProvider {
 			throw new StorageException(directory.toString() + " is not a valid directory");
 
 		LogManager.getLogger().info("Base directory for storing payloads = " + directory.toString());
+
+		digestAlgorithms = new ArrayList<>();
+		Parameter digestSetting = config.getParameter("payload-digest-algorithms");
+		if (digestSetting == null || digestSetting.getParameterType() != Parameter.TEXT_PARAMETER)
+			digestAlgorithms.add("SHA-256");
+		else
+			for (String a : ((String) digestSetting.getValue()).split(",")) {
+				if (a.isBlank())
+					continue;
+				try {
+					MessageDigest.getInstance(a.trim());
+				} catch (NoSuchAlgorithmException unsupported) {
+					throw new StorageException("Unsupported digest algorithm: " + a.trim());
+				}
+				digestAlgorithms.add(a.trim());
+			}
+		LogManager.getLogger().info("Digest algorithms for payload content = {}", digestAlgorithms);
+
+		final long deleteWorkers = getNumericParameter(config, "payload-delete-workers", 2);
+		if (deleteWorkers < 1)
+			throw new StorageException("Invalid value for payload-delete-workers parameter");
+		deleter = new PayloadDeleter(directory, (int) deleteWorkers);
+
+		final long stagingThreshold = getNumericParameter(config, "payload-staging-threshold", 64 * 1024);
+		final long stagingMemory = getNumericParameter(config, "payload-staging-memory", 32 * 1024 * 1024);
+		if (stagingThreshold < 0 || stagingThreshold > Integer.MAX_VALUE || stagingMemory < 0)
+			throw new StorageException("Invalid value for payload staging parameters");
+		if (stagingThreshold > 0 && stagingMemory > 0) {
+			staging = new PayloadStagingArea((int) stagingThreshold, stagingMemory);
+			LogManager.getLogger().info("Staging payloads up to {} bytes in memory (max {} bytes)",
+										stagingThreshold, stagingMemory);
+		} else
+			staging = null;
+	}
+
+	/**
+	 * Gets the value of a numeric parameter from the configuration.
+	 *
+	 * @param config		the Holodeck B2B configuration
+	 * @param name			name of the parameter
+	 * @param defaultValue	value to use when the parameter is not set
+	 * @return	the value of the parameter
+	 * @throws StorageException when the parameter is not a valid number
+	 */
+	private static long getNumericParameter(IConfiguration config, String name, long defaultValue)
+																						throws StorageException {
+		Parameter setting = config.getParameter(name);
+		if (setting == null || setting.getParameterType() != Parameter.TEXT_PARAMETER)
+			return defaultValue;
+		try {
+			return Long.parseLong(((String) setting.getValue()).trim());
+		} catch (NumberFormatException invalidNumber) {
+			throw new StorageException("Invalid value for " + name + " parameter");
+		}
 	}
 
 	@Override
 	public void shutdown() {
+		if (staging != null)
+			staging.shutdown();
+		if (deleter != null)
+			deleter.shutdown();
+	}
+
+	/**
+	 * Gets the statistics of the in-memory staging of payloads.
+	 *
+	 * @return	the current staging statistics, or <code>null</code> if staging is disabled
+	 * @since 8.2.0
+	 */
+	public StagingStatistics getStagingStatistics() {
+		return staging != null ? staging.getStatistics() : null;
 	}
 
 	@Override
 	public IPayloadContent createNewPayloadStorage(IPayloadEntity p)
 			throws StorageException {
-		return new PayloadContent(p.getPayloadId(), directory.resolve(p.getPayloadId()).toFile());
+		return new PayloadContent(p.getPayloadId(), directory.resolve(p.getPayloadId()).toFile(), digestAlgorithms,
+								  staging);
 	}
 
 	@Override
 	public IPayloadContent getPayloadContent(IPayloadEntity p) throws StorageException {
 		File contentFile = directory.resolve(p.getPayloadId()).toFile();
-		return contentFile.exists() ? new PayloadContent(p.getPayloadId(), contentFile) : null;
+		final boolean available = contentFile.exists() || (staging != null && staging.contains(p.getPayloadId()));
+		return available && !deleter.isPending(p.getPayloadId()) ?
+							new PayloadContent(p.getPayloadId(), contentFile, digestAlgorithms, staging) : null;
 	}
 
+	/**
+	 * Queues the content files for which no meta-data exists anymore for removal.
+	 */
+	@Override
+	public void removeOrphanedContent(Predicate<String> hasMetadata) throws StorageException {
+		try {
+			deleter.queueOrphanedContent(hasMetadata);
+		} catch (IOException scanError) {
+			throw new StorageException("Could not check for orphaned payload content", scanError);
+		}
+	}
+
+	/**
+	 * Queues the payload content for removal. If the payload cannot be queued the content is removed immediately.
+	 */
 	@Override
 	public void removePayloadContent(IPayloadEntity p) throws StorageException {
+		removePayloadContent(Collections.singletonList(p));
+	}
+
+	/**
+	 * Queues the content of the given payloads for removal, writing the deletion journal to disk only once. If the
+	 * payloads cannot be queued the content is removed immediately.
+	 */
+	@Override
+	public void removePayloadContent(Collection<? extends IPayloadEntity> payloads) throws StorageException {
+		final List<String> payloadIds = new ArrayList<>(payloads.size());
+		for (IPayloadEntity p : payloads) {
+			if (staging != null)
+				staging.remove(p.getPayloadId());
+			payloadIds.add(p.getPayloadId());
+		}
 		try {
-			Files.deleteIfExists(directory.resolve(p.getPayloadId()));
-		} catch (IOException ioError) {
-			throw new StorageException("Could not delete content", ioError);
+			deleter.enqueue(payloadIds);
+		} catch (IOException queueError) {
+			LogManager.getLogger().warn("Could not queue payloads (payloadIds={}) for removal, removing now : {}",
+										payloadIds, queueError.getMessage());
+			try {
+				for (String payloadId : payloadIds)
+					deleter.deleteFiles(payloadId);
+			} catch (IOException ioError) {
+				throw new StorageException("Could not delete content", ioError);
+			}
 		}
 	}
 }
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.storage.payloads;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Is the pool of off-heap buffers used by the {@link PayloadStagingArea} to hold the staged content. Allocating a
+ * direct buffer is expensive and its memory is only released when the buffer is garbage collected, so the buffers of
+ * evicted and removed payloads are kept in the pool for reuse. To limit the number of different buffer sizes the
+ * buffers are allocated in size classes that are a power of two, starting at {@link #MIN_BUFFER_SIZE}.
+ * <p>
+ * The pool itself does not limit the number of buffers. The staging area counts the size of the free buffers as used
+ * memory and calls {@link #trim(long, int)} to release free buffers when it needs room. This class is not thread safe,
+ * the staging area must synchronise access to it.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+class DirectBufferPool {
+	/**
+	 * The size of the smallest buffers
+	 */
+	static final int MIN_BUFFER_SIZE = 64;
+	/**
+	 * The size of the largest size class, buffers for larger content are allocated with the exact size
+	 */
+	private static final int MAX_CLASS_SIZE = 1 << 30;
+
+	/**
+	 * The free buffers per size class
+	 */
+	private final Map<Integer, ArrayDeque<ByteBuffer>> free = new HashMap<>();
+	/**
+	 * Total size of the free buffers
+	 */
+	private long freeBytes = 0;
+	/**
+	 * Number of buffers that were reused instead of allocated
+	 */
+	private long reused = 0;
+
+	/**
+	 * Gets the size of the buffer that is used for content of the given length.
+	 *
+	 * @param length	length of the content
+	 * @return	the size of the buffer
+	 */
+	static int getBufferSize(final int length) {
+		if (length <= MIN_BUFFER_SIZE)
+			return MIN_BUFFER_SIZE;
+		else if (length > MAX_CLASS_SIZE)
+			return length;
+		else
+			return Integer.highestOneBit(length - 1) << 1;
+	}
+
+	/**
+	 * Indicates whether a free buffer is available for content of the given length.
+	 *
+	 * @param length	length of the content
+	 * @return	<code>true</code> if a free buffer can be reused, <code>false</code> if a new one must be allocated
+	 */
+	boolean hasFree(final int length) {
+		final ArrayDeque<ByteBuffer> buffers = free.get(getBufferSize(length));
+		return buffers != null && !buffers.isEmpty();
+	}
+
+	/**
+	 * Gets a buffer for content of the given length. A free buffer of the right size class is reused if available,
+	 * otherwise a new one is allocated. The limit of the returned buffer is set to the length of the content.
+	 *
+	 * @param length	length of the content
+	 * @return	the buffer
+	 */
+	ByteBuffer acquire(final int length) {
+		final int size = getBufferSize(length);
+		final ArrayDeque<ByteBuffer> buffers = free.get(size);
+		ByteBuffer buffer = buffers != null ? buffers.poll() : null;
+		if (buffer != null) {
+			freeBytes -= size;
+			reused++;
+			buffer.clear();
+		} else
+			buffer = ByteBuffer.allocateDirect(size);
+		return buffer.limit(length);
+	}
+
+	/**
+	 * Returns a buffer that is not used anymore to the pool.
+	 *
+	 * @param buffer	the buffer acquired from this pool
+	 */
+	void release(final ByteBuffer buffer) {
+		free.computeIfAbsent(buffer.capacity(), s -> new ArrayDeque<>()).push(buffer);
+		freeBytes += buffer.capacity();
+	}
+
+	/**
+	 * Releases free buffers so their memory can be reclaimed, until at least the given number of bytes is released or
+	 * only one buffer of the size class for the given content length remains.
+	 *
+	 * @param bytes		the number of bytes to release
+	 * @param length	length of the content for which a buffer will be acquired next
+	 * @return	the number of bytes released
+	 */
+	long trim(final long bytes, final int length) {
+		final int keep = getBufferSize(length);
+		long released = 0;
+		for (Iterator<Map.Entry<Integer, ArrayDeque<ByteBuffer>>> it = free.entrySet().iterator();
+			 it.hasNext() && released < bytes;) {
+			final Map.Entry<Integer, ArrayDeque<ByteBuffer>> sizeClass = it.next();
+			final ArrayDeque<ByteBuffer> buffers = sizeClass.getValue();
+			final int minimum = sizeClass.getKey() == keep ? 1 : 0;
+			while (buffers.size() > minimum && released < bytes) {
+				buffers.pop();
+				released += sizeClass.getKey();
+			}
+			if (buffers.isEmpty())
+				it.remove();
+		}
+		freeBytes -= released;
+		return released;
+	}
+
+	/**
+	 * @return	the total size of the free buffers
+	 */
+	long getFreeBytes() {
+		return freeBytes;
+	}
+
+	/**
+	 * @return	the number of buffers that were reused instead of allocated
+	 */
+	long getReused() {
+		return reused;
+	}
+}
@@ -23,17 +23,54 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.interfaces.storage.IPayloadContent;
 import org.holodeckb2b.interfaces.storage.StorageException;
 
 /**
  * Is the default Payload Storage Provider's implementation of {@link IPayloadContent}.
+ * <p>
+ * When digest algorithms are configured the digests of the content are calculated while it is written to storage and
+ * saved in a separate file next to the content file, see {@link #getDigestsFile(Path)}. For content that is adopted
+ * the digests are calculated when first requested. The digests file also records the size and last modification time
+ * of the content file so digests are only used when the content has not changed since they were calculated.
+ * <p>
+ * When a {@link PayloadStagingArea} is provided, content that is small enough is first collected in memory and then
+ * handed over to the staging area which holds it in memory for fast reading and takes care of writing it to disk.
  *
  * @author Sander Fieten (sander at holodeck-b2b.org)
  * @since  7.0.0
  */
 public class PayloadContent implements IPayloadContent {
+	/**
+	 * Extension of the file that holds the digests of the payload content
+	 */
+	static final String DIGESTS_FILE_EXT = ".digests";
+	/**
+	 * Names of the properties in the digests file that hold the size and last modification time of the content file
+	 */
+	private static final String SIZE_PROPERTY = "content.size";
+	private static final String MODIFIED_PROPERTY = "content.modified";
+
 	/**
 	 * The unique identifier assigned to this payload
 	 */
@@ -46,16 +83,74 @@ public class PayloadContent implements IPayloadContent {
 	 * The stream used to write the payload's content
 	 */
 	private ContentOutputStream writeStream;
+	/**
+	 * The names of the algorithms for which the digest of the content should be available
+	 */
+	private final Collection<String> digestAlgorithms;
+	/**
+	 * The digests of the content, lazily loaded from the digests file
+	 */
+	private Map<String, byte[]> digests;
+	/**
+	 * Lock for loading or calculating the digests. A lock is used instead of the monitor as calculating the digests
+	 * requires reading the content and virtual threads waiting for the monitor would pin their carrier thread.
+	 */
+	private final ReentrantLock digestsLock = new ReentrantLock();
+	/**
+	 * The staging area for small payloads, <code>null</code> if staging is not used
+	 */
+	private final PayloadStagingArea staging;
 
 	/**
-	 * Creates a new instance with the given PayloadId and path to the actual data.
+	 * Creates a new instance with the given PayloadId and path to the actual data. No digests will be calculated for
+	 * the content.
 	 *
 	 * @param payloadId	The unique identifier assigned to this payload
 	 * @param path		The file containing the payload's content
 	 */
 	public PayloadContent(String payloadId, File path) {
+		this(payloadId, path, Collections.emptyList());
+	}
+
+	/**
+	 * Creates a new instance with the given PayloadId, path to the actual data and names of the digest algorithms for
+	 * which the digest of the content should be made available.
+	 *
+	 * @param payloadId		The unique identifier assigned to this payload
+	 * @param path			The file containing the payload's content
+	 * @param algorithms	The names of the digest algorithms, must be supported by {@link MessageDigest}
+	 * @since 8.2.0
+	 */
+	public PayloadContent(String payloadId, File path, Collection<String> algorithms) {
+		this(payloadId, path, algorithms, null);
+	}
+
+	/**
+	 * Creates a new instance with the given PayloadId, path to the actual data, names of the digest algorithms for
+	 * which the digest of the content should be made available and the staging area to use for small payloads.
+	 *
+	 * @param payloadId		The unique identifier assigned to this payload
+	 * @param path			The file containing the payload's content
+	 * @param algorithms	The names of the digest algorithms, must be supported by {@link MessageDigest}
+	 * @param staging		The staging area to use, may be <code>null</code> if staging is not used
+	 * @since 8.2.0
+	 */
+	PayloadContent(String payloadId, File path, Collection<String> algorithms, PayloadStagingArea staging) {
 		this.payloadId = payloadId;
 		this.contentPath = path;
+		this.digestAlgorithms = algorithms;
+		this.staging = staging;
+	}
+
+	/**
+	 * Gets the path of the file that holds the digests of the content stored in the given file.
+	 *
+	 * @param contentFile	path of the file containing the payload's content
+	 * @return	path of the related digests file
+	 * @since 8.2.0
+	 */
+	static Path getDigestsFile(Path contentFile) {
+		return contentFile.resolveSibling(contentFile.getFileName().toString() + DIGESTS_FILE_EXT);
 	}
 
 	@Override
@@ -65,7 +160,14 @@ public class PayloadContent implements IPayloadContent {
 
 	@Override
 	public boolean isContentAvailable() {
-		return contentPath.exists() && (writeStream == null || writeStream.closed);
+		return (writeStream == null || writeStream.closed) && (isStaged() || contentPath.exists());
+	}
+
+	/**
+	 * @return <code>true</code> when the content is held in the staging area, <code>false</code> otherwise
+	 */
+	private boolean isStaged() {
+		return staging != null && staging.contains(payloadId);
 	}
 
 	@Override
@@ -73,22 +175,26 @@ public class PayloadContent implements IPayloadContent {
 		if (writeStream != null && !writeStream.closed)
 			// Content is still written, so not available for reading right now
 			return null;
-		else
+		else {
+			final InputStream staged = staging != null ? staging.read(payloadId) : null;
+			if (staged != null)
+				return staged;
 			try {
 				return new FileInputStream(contentPath);
 			} catch (FileNotFoundException ioError) {
 				// No content has yet been written
 				return null;
 			}
+		}
 	}
 
 	@Override
 	public OutputStream openStorage() throws StorageException {
 		if (writeStream == null) {
-			if (contentPath.exists())
+			if (contentPath.exists() || isStaged())
 				throw new StorageException("The payload data is already	stored");
 			try {
-				writeStream = new ContentOutputStream(contentPath);
+				writeStream = new ContentOutputStream(createDigesters());
 			} catch (FileNotFoundException ioError) {
 				throw new StorageException("Could not open payload file: " + contentPath.toString(), ioError);
 			}
@@ -99,28 +205,293 @@ public class PayloadContent implements IPayloadContent {
 	}
 
 	/**
-	 * Is an extented version of a {@link java.io.FileOutputStream} that has an indicator if the stream is closed.
+	 * Takes over the given file as the payload content. When the file is located on the same file system as the
+	 * payload directory it is just renamed. If the rename is not possible, a hard link is created and only if that is
+	 * also not possible the content of the file is copied.
 	 */
-	class ContentOutputStream extends FileOutputStream {
+	@Override
+	public void adoptContent(Path source) throws StorageException {
+		if (writeStream != null || contentPath.exists() || isStaged())
+			throw new StorageException("The payload data is already stored");
+
+		final Logger log = LogManager.getLogger();
+		final Path target = contentPath.toPath();
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+			log.trace("Moved {} to payload file {}", source, target);
+			return;
+		} catch (AtomicMoveNotSupportedException | UnsupportedOperationException differentFS) {
+			log.trace("Cannot move {} to payload directory, try hard link", source);
+		} catch (IOException moveFailed) {
+			log.trace("Moving {} to payload directory failed ({}), try hard link", source, moveFailed.getMessage());
+		}
+		try {
+			Files.createLink(target, source);
+			log.trace("Linked {} to payload file {}", source, target);
+			return;
+		} catch (UnsupportedOperationException | IOException linkFailed) {
+			log.trace("Cannot link {} to payload file, copy content", source);
+		}
+		try {
+			Files.copy(source, target);
+			log.trace("Copied {} to payload file {}", source, target);
+		} catch (IOException copyFailed) {
+			try {
+				Files.deleteIfExists(target);
+			} catch (IOException ignored) {}
+			throw new StorageException("Could not store content from " + source.toString(), copyFailed);
+		}
+	}
+
+	/**
+	 * Gets the digest of the content. If the digests file is missing or outdated, for example because the content was
+	 * adopted, the digests are calculated and saved now so they don't need to be calculated again on a next request.
+	 */
+	@Override
+	public byte[] getDigest(String algorithm) throws StorageException {
+		if (!isContentAvailable() || digestAlgorithms.stream().noneMatch(a -> a.equalsIgnoreCase(algorithm)))
+			return null;
+
+		digestsLock.lock();
+		try {
+			return getDigests().get(algorithm.toUpperCase());
+		} finally {
+			digestsLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the digests of the content, loading or calculating them when not available yet. Must be called while
+	 * holding the digests lock.
+	 */
+	private Map<String, byte[]> getDigests() throws StorageException {
+		if (digests == null && staging != null)
+			digests = staging.getDigests(payloadId);
+		if (digests == null)
+			digests = loadDigests();
+		if (digests == null) {
+			LogManager.getLogger().trace("Calculate digests of payload content (payloadId={})", payloadId);
+			final MessageDigest[] digesters = createDigesters();
+			final byte[] buffer = new byte[8192];
+			try (InputStream is = getContent()) {
+				int r;
+				while ((r = is.read(buffer)) > 0)
+					for (MessageDigest md : digesters)
+						md.update(buffer, 0, r);
+			} catch (IOException readError) {
+				throw new StorageException("Could not read payload content for calculating digest", readError);
+			}
+			saveDigests(digesters);
+		}
+		return digests;
+	}
+
+	/**
+	 * Creates the {@link MessageDigest} instances for the configured algorithms.
+	 *
+	 * @return	array with the digesters, empty when no algorithms are configured
+	 * @throws StorageException	when one of the configured algorithms is not supported
+	 */
+	private MessageDigest[] createDigesters() throws StorageException {
+		final MessageDigest[] digesters = new MessageDigest[digestAlgorithms.size()];
+		int i = 0;
+		for (String a : digestAlgorithms)
+			try {
+				digesters[i++] = MessageDigest.getInstance(a);
+			} catch (NoSuchAlgorithmException unsupported) {
+				throw new StorageException("Unsupported digest algorithm: " + a, unsupported);
+			}
+		return digesters;
+	}
+
+	/**
+	 * Loads the digests of the content from the digests file.
+	 *
+	 * @return	the digests read from the file, or <code>null</code> when the file does not exist, does not contain all
+	 * 			configured algorithms or does not match the current content file
+	 */
+	private Map<String, byte[]> loadDigests() {
+		final Path digestsFile = getDigestsFile(contentPath.toPath());
+		if (!Files.exists(digestsFile))
+			return null;
+
+		final Properties props = new Properties();
+		try (Reader r = Files.newBufferedReader(digestsFile, StandardCharsets.UTF_8)) {
+			props.load(r);
+		} catch (IOException readError) {
+			LogManager.getLogger().warn("Could not read digests file ({}) : {}", digestsFile, readError.getMessage());
+			return null;
+		}
+		if (!Long.toString(contentPath.length()).equals(props.getProperty(SIZE_PROPERTY))
+			|| !Long.toString(contentPath.lastModified()).equals(props.getProperty(MODIFIED_PROPERTY)))
+			return null;
+
+		final Map<String, byte[]> loaded = new HashMap<>();
+		for (String a : digestAlgorithms) {
+			final String value = props.getProperty(a.toUpperCase());
+			if (value == null)
+				return null;
+			loaded.put(a.toUpperCase(), Base64.getDecoder().decode(value));
+		}
+		return loaded;
+	}
+
+	/**
+	 * Completes the calculation of the digests.
+	 *
+	 * @param digesters	the digesters that have processed the complete content
+	 * @return	map with the digest values, with the upper case algorithm name as key
+	 */
+	private static Map<String, byte[]> finishDigests(MessageDigest[] digesters) {
+		final Map<String, byte[]> calculated = new HashMap<>();
+		for (MessageDigest md : digesters)
+			calculated.put(md.getAlgorithm().toUpperCase(), md.digest());
+		return calculated;
+	}
+
+	/**
+	 * Completes the calculation of the digests and saves them in the digests file. As the digests are only an
+	 * optimisation a failure to save them is only logged.
+	 *
+	 * @param digesters	the digesters that have processed the complete content
+	 */
+	private void saveDigests(MessageDigest[] digesters) {
+		digests = finishDigests(digesters);
+		try {
+			writeDigestsFile(contentPath, digests);
+		} catch (IOException writeError) {
+			LogManager.getLogger().warn("Could not save digests of payload (payloadId={}) : {}", payloadId,
+										writeError.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the digests file for the given content file.
+	 *
+	 * @param contentPath	the file containing the payload's content
+	 * @param digests		the digests of the content
+	 * @throws IOException	when the digests file could not be written
+	 */
+	static void writeDigestsFile(File contentPath, Map<String, byte[]> digests) throws IOException {
+		final Properties props = new Properties();
+		digests.forEach((a, d) -> props.setProperty(a, Base64.getEncoder().encodeToString(d)));
+		props.setProperty(SIZE_PROPERTY, Long.toString(contentPath.length()));
+		props.setProperty(MODIFIED_PROPERTY, Long.toString(contentPath.lastModified()));
+
+		try (Writer w = Files.newBufferedWriter(getDigestsFile(contentPath.toPath()), StandardCharsets.UTF_8)) {
+			props.store(w, null);
+		}
+	}
+
+	/**
+	 * Is the stream used to write the payload content. It has an indicator if the stream is closed and calculates the
+	 * digests of the content while it is written. When a staging area is used the content is first collected in memory
+	 * and only written to a file when it becomes larger than the staging threshold.
+	 */
+	class ContentOutputStream extends OutputStream {
 		/**
 		 * Indicator is the stream is closed
 		 */
 		private boolean closed = false;
+		/**
+		 * The digesters to which the written content is passed
+		 */
+		private final MessageDigest[] digesters;
+		/**
+		 * The stream to the content file, <code>null</code> while the content is collected in memory
+		 */
+		private FileOutputStream fileStream;
+		/**
+		 * Buffer holding the content while it is collected in memory
+		 */
+		private byte[] buffer;
+		/**
+		 * Number of bytes in the buffer
+		 */
+		private int count;
 
 		/**
-		 * Opens the the stream for writing to the specified file.
+		 * Opens the the stream for writing the payload content.
 		 *
-		 * @see java.io.FileOutputStream#FileOutputStream(java.io.File)
+		 * @param digesters	the digesters for calculating the content's digests, may be empty
+		 * @throws FileNotFoundException when no staging is used and the content file cannot be opened
 		 */
-		public ContentOutputStream(File file) throws FileNotFoundException {
-			super(file);
+		ContentOutputStream(MessageDigest[] digesters) throws FileNotFoundException {
+			this.digesters = digesters;
+			if (staging != null && staging.getThreshold() > 0)
+				buffer = new byte[Math.min(staging.getThreshold(), 8192)];
+			else
+				fileStream = new FileOutputStream(contentPath);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (fileStream != null && !closed) {
+				fileStream.write(b);
+				for (MessageDigest md : digesters)
+					md.update((byte) b);
+			} else
+				write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed)
+				throw new IOException("Stream is closed");
+			if (fileStream == null && count + len > staging.getThreshold()) {
+				// Content too large for staging, continue writing to file
+				fileStream = new FileOutputStream(contentPath);
+				fileStream.write(buffer, 0, count);
+				buffer = null;
+			}
+			if (fileStream != null)
+				fileStream.write(b, off, len);
+			else {
+				if (count + len > buffer.length)
+					buffer = Arrays.copyOf(buffer, Math.min(staging.getThreshold(),
+															Math.max(buffer.length * 2, count + len)));
+				System.arraycopy(b, off, buffer, count, len);
+				count += len;
+			}
+			for (MessageDigest md : digesters)
+				md.update(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (fileStream != null)
+				fileStream.flush();
 		}
 
 		@Override
 		public void close() throws IOException {
-			super.close();
-			closed = true;
+			if (closed)
+				return;
+			// The digests can only be finished once, so the stream is closed even if writing the content fails
+			try {
+				if (fileStream != null) {
+					fileStream.close();
+					if (digesters.length > 0) {
+						digestsLock.lock();
+						try {
+							saveDigests(digesters);
+						} finally {
+							digestsLock.unlock();
+						}
+					}
+				} else {
+					digestsLock.lock();
+					try {
+						digests = finishDigests(digesters);
+					} finally {
+						digestsLock.unlock();
+					}
+					staging.stage(payloadId, contentPath.toPath(), buffer, count, digests);
+				}
+			} finally {
+				closed = true;
+				buffer = null;
+			}
 		}
 	}
-
 }
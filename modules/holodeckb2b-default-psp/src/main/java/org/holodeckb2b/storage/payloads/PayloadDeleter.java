@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.storage.payloads;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.core.workerpool.PoolThreadFactory;
+import org.holodeckb2b.interfaces.storage.StorageException;
+
+/**
+ * Removes the payload files of the default Payload Storage Provider in the background so the caller, normally the
+ * purge process, is not held back by the file system latency.
+ * <p>
+ * To ensure that no payload files are left behind when Holodeck B2B is stopped or crashes before all queued files
+ * are removed, the identifiers of the payloads to remove are first written to a journal file in the payload directory.
+ * The journal is forced to disk before payloads are reported as queued. When a set of payloads is queued, e.g. by the
+ * purge process, all their identifiers are written at once and the journal is forced only once. It is truncated when all queued files are
+ * removed and read again on startup to continue the removal. At startup also digest files that have no related
+ * content file anymore are removed and the content files for which no meta-data exists anymore can be queued using
+ * {@link #queueOrphanedContent(Predicate)}.
+ * <p>
+ * The removal is done in batches by a small pool of threads. When a file cannot be removed it is retried a few times
+ * with an increasing delay. If the file still cannot be removed it is left for the next startup.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since  8.2.0
+ */
+class PayloadDeleter {
+	private static final Logger log = LogManager.getLogger(PayloadDeleter.class);
+
+	/**
+	 * Name of the journal file that holds the queued payloads
+	 */
+	static final String JOURNAL_FILE = ".delete-queue";
+	/**
+	 * Maximum number of payloads removed in one batch
+	 */
+	private static final int BATCH_SIZE = 100;
+	/**
+	 * Maximum number of attempts to remove a payload file
+	 */
+	private static final int MAX_ATTEMPTS = 5;
+	/**
+	 * Base delay in milliseconds before retrying the removal, multiplied by the number of failed attempts
+	 */
+	private static final long RETRY_DELAY = 2000;
+	/**
+	 * Size of the journal in bytes above which it is compacted
+	 */
+	private static final long COMPACT_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * The directory where the payload files are stored
+	 */
+	private final Path	directory;
+	/**
+	 * The journal of queued payloads
+	 */
+	private FileChannel	journal;
+	/**
+	 * Lock to synchronise the changes to the journal. A lock is used instead of a monitor so virtual threads writing
+	 * to the journal don't pin their carrier thread.
+	 */
+	private final ReentrantLock journalLock = new ReentrantLock();
+	/**
+	 * The identifiers of the payloads that are queued for removal but not yet removed
+	 */
+	private final Set<String> pending = ConcurrentHashMap.newKeySet();
+	/**
+	 * The queue of payloads waiting to be processed
+	 */
+	private final LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<>();
+	/**
+	 * The number of failed attempts per payload
+	 */
+	private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+	/**
+	 * Indicates whether a batch is already scheduled for execution
+	 */
+	private final AtomicBoolean batchScheduled = new AtomicBoolean(false);
+	/**
+	 * The thread pool that executes the removals
+	 */
+	private final ScheduledThreadPoolExecutor executor;
+
+	/**
+	 * Creates a new deleter for the given payload directory and re-queues the payloads that were not removed yet
+	 * before the last shutdown.
+	 *
+	 * @param directory		the directory where the payload files are stored
+	 * @param workers		the number of threads to use for removing the files
+	 * @throws StorageException	when the journal cannot be read or opened
+	 */
+	PayloadDeleter(final Path directory, final int workers) throws StorageException {
+		this.directory = directory;
+		final Path journalFile = directory.resolve(JOURNAL_FILE);
+		try {
+			if (Files.exists(journalFile))
+				for (String id : new LinkedHashSet<>(Files.readAllLines(journalFile, StandardCharsets.UTF_8)))
+					if (!id.isBlank()) {
+						pending.add(id);
+						queue.add(id);
+					}
+			journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+													StandardOpenOption.APPEND);
+		} catch (IOException journalError) {
+			throw new StorageException("Could not open payload deletion journal", journalError);
+		}
+		if (!pending.isEmpty())
+			log.info("Continue removal of {} payloads queued before last shutdown", pending.size());
+
+		removeOrphanedDigests();
+
+		executor = new ScheduledThreadPoolExecutor(workers, new PoolThreadFactory("PayloadDeleter"));
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		if (!queue.isEmpty())
+			scheduleBatch();
+		else
+			truncateJournalIfDone();
+	}
+
+	/**
+	 * Queues the payload with the given identifier for removal.
+	 *
+	 * @param payloadId	identifier of the payload to remove
+	 * @throws IOException when the payload could not be added to the journal
+	 */
+	void enqueue(final String payloadId) throws IOException {
+		enqueue(Collections.singletonList(payloadId));
+	}
+
+	/**
+	 * Queues the payloads with the given identifiers for removal. The identifiers are added to the journal at once, so
+	 * it needs to be forced to disk only once.
+	 *
+	 * @param payloadIds	identifiers of the payloads to remove
+	 * @throws IOException when the payloads could not be added to the journal
+	 */
+	void enqueue(final Collection<String> payloadIds) throws IOException {
+		if (payloadIds.isEmpty())
+			return;
+		final StringBuilder entries = new StringBuilder();
+		for (String payloadId : payloadIds)
+			entries.append(payloadId).append('\n');
+		final ByteBuffer data = ByteBuffer.wrap(entries.toString().getBytes(StandardCharsets.UTF_8));
+		journalLock.lock();
+		try {
+			while (data.hasRemaining())
+				journal.write(data);
+			journal.force(false);
+			pending.addAll(payloadIds);
+		} finally {
+			journalLock.unlock();
+		}
+		queue.addAll(payloadIds);
+		scheduleBatch();
+	}
+
+	/**
+	 * Queues the content files for which no meta-data exists anymore and which are not already queued for removal.
+	 * These files are left behind when Holodeck B2B was stopped after the meta-data of a payload was removed but before
+	 * the payload was added to the journal.
+	 *
+	 * @param hasMetadata	predicate to check whether meta-data exists for the payload with the given identifier
+	 * @return	the number of content files queued for removal
+	 * @throws IOException when the payload directory could not be read or a payload could not be added to the journal
+	 */
+	int queueOrphanedContent(final Predicate<String> hasMetadata) throws IOException {
+		final List<String> orphans = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+													f -> Files.isRegularFile(f) && isContentFile(f.getFileName()))) {
+			for (Path f : files) {
+				final String payloadId = f.getFileName().toString();
+				if (!pending.contains(payloadId) && !hasMetadata.test(payloadId))
+					orphans.add(payloadId);
+			}
+		}
+		for (String payloadId : orphans)
+			log.debug("Queue orphaned content file (payloadId={}) for removal", payloadId);
+		enqueue(orphans);
+		if (!orphans.isEmpty())
+			log.info("Queued {} orphaned payload files for removal", orphans.size());
+		return orphans.size();
+	}
+
+	/**
+	 * Indicates whether the given file name is the name of a payload content file, i.e. it is not the journal or a
+	 * digests file.
+	 *
+	 * @param fileName	the file name to check
+	 * @return	<code>true</code> if the file contains payload content, <code>false</code> otherwise
+	 */
+	private static boolean isContentFile(final Path fileName) {
+		final String name = fileName.toString();
+		return !name.startsWith(JOURNAL_FILE) && !name.endsWith(PayloadContent.DIGESTS_FILE_EXT);
+	}
+
+	/**
+	 * Indicates whether the payload with the given identifier is queued for removal.
+	 *
+	 * @param payloadId	identifier of the payload
+	 * @return	<code>true</code> if the payload is queued for removal, <code>false</code> otherwise
+	 */
+	boolean isPending(final String payloadId) {
+		return pending.contains(payloadId);
+	}
+
+	/**
+	 * Removes the files of the payload with the given identifier.
+	 *
+	 * @param payloadId	identifier of the payload to remove
+	 * @throws IOException when a file could not be removed
+	 */
+	void deleteFiles(final String payloadId) throws IOException {
+		final Path contentFile = directory.resolve(payloadId);
+		Files.deleteIfExists(contentFile);
+		Files.deleteIfExists(PayloadContent.getDigestsFile(contentFile));
+	}
+
+	/**
+	 * Stops the removal of payload files. Payloads that are not removed yet remain in the journal and will be removed
+	 * after the next startup.
+	 */
+	void shutdown() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+				executor.shutdownNow();
+		} catch (InterruptedException interrupted) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		journalLock.lock();
+		try {
+			journal.close();
+		} catch (IOException closeError) {
+			log.warn("Could not close payload deletion journal : {}", closeError.getMessage());
+		} finally {
+			journalLock.unlock();
+		}
+		if (!pending.isEmpty())
+			log.info("{} payloads still queued for removal", pending.size());
+	}
+
+	/**
+	 * Schedules the execution of a batch if none is scheduled yet.
+	 */
+	private void scheduleBatch() {
+		if (!executor.isShutdown() && batchScheduled.compareAndSet(false, true))
+			executor.execute(this::processBatch);
+	}
+
+	/**
+	 * Removes the files of the next batch of queued payloads.
+	 */
+	private void processBatch() {
+		batchScheduled.set(false);
+		final List<String> batch = new ArrayList<>(BATCH_SIZE);
+		queue.drainTo(batch, BATCH_SIZE);
+		// When there are more payloads waiting, let another thread start on them
+		if (!queue.isEmpty())
+			scheduleBatch();
+		if (batch.isEmpty())
+			return;
+
+		log.trace("Removing {} payload files", batch.size());
+		for (String payloadId : batch) {
+			try {
+				deleteFiles(payloadId);
+				log.trace("Removed payload file (payloadId={})", payloadId);
+				failures.remove(payloadId);
+				pending.remove(payloadId);
+			} catch (IOException deleteFailed) {
+				final int attempts = failures.merge(payloadId, 1, Integer::sum);
+				if (attempts < MAX_ATTEMPTS) {
+					log.warn("Could not remove payload file (payloadId={}), retrying : {}", payloadId,
+							 deleteFailed.getMessage());
+					if (!executor.isShutdown())
+						executor.schedule(() -> { queue.add(payloadId); scheduleBatch(); },
+										  RETRY_DELAY * attempts, TimeUnit.MILLISECONDS);
+				} else
+					log.error("Could not remove payload file (payloadId={}) after {} attempts, retry on next startup",
+							  payloadId, attempts);
+			}
+		}
+		truncateJournalIfDone();
+	}
+
+	/**
+	 * Truncates the journal when all queued payloads are removed, or compacts it when it has grown too large.
+	 */
+	private void truncateJournalIfDone() {
+		journalLock.lock();
+		try {
+			if (!journal.isOpen())
+				return;
+			if (pending.isEmpty())
+				journal.truncate(0);
+			else if (journal.size() > COMPACT_THRESHOLD)
+				compactJournal();
+		} catch (IOException journalError) {
+			log.warn("Could not clean up payload deletion journal : {}", journalError.getMessage());
+		} finally {
+			journalLock.unlock();
+		}
+	}
+
+	/**
+	 * Rewrites the journal so it only contains the payloads that are still pending. The new journal is first written
+	 * to a temporary file which then replaces the current journal so no entries get lost when the process is
+	 * interrupted. Must be called while holding the journal lock.
+	 *
+	 * @throws IOException when the journal could not be rewritten
+	 */
+	private void compactJournal() throws IOException {
+		final Path journalFile = directory.resolve(JOURNAL_FILE);
+		final Path tmpFile = directory.resolve(JOURNAL_FILE + ".tmp");
+		try (BufferedWriter w = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+			for (String id : pending) {
+				w.write(id);
+				w.newLine();
+			}
+		}
+		journal.close();
+		Files.move(tmpFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+												StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * Removes the digest files for which the related content file does not exist anymore, which can happen when
+	 * Holodeck B2B was stopped while removing the payload files.
+	 */
+	private void removeOrphanedDigests() {
+		try (DirectoryStream<Path> digestFiles = Files.newDirectoryStream(directory,
+																	"*" + PayloadContent.DIGESTS_FILE_EXT)) {
+			for (Path d : digestFiles) {
+				final String fileName = d.getFileName().toString();
+				if (!Files.exists(d.resolveSibling(fileName.substring(0, fileName.length()
+																	- PayloadContent.DIGESTS_FILE_EXT.length())))) {
+					log.debug("Removing orphaned digest file {}", fileName);
+					Files.deleteIfExists(d);
+				}
+			}
+		} catch (IOException dirError) {
+			log.warn("Could not check for orphaned digest files : {}", dirError.getMessage());
+		}
+	}
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.storage.payloads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Is the in-memory tier of the default Payload Storage Provider. It holds the content of small payloads in off-heap
+ * buffers so the content can be read without accessing the disk when the payload is sent or delivered shortly after it
+ * was stored.
+ * <p>
+ * The total size of the staged content is limited. When a new payload does not fit, the least recently used payloads
+ * that are already written to disk are evicted. If there is still not enough room the payload is not staged and
+ * directly written to disk.
+ * <p>
+ * The buffers holding the content are taken from a {@link DirectBufferPool} and returned to it when the payload is
+ * evicted or removed and no stream is reading its content anymore, so buffers are reused instead of allocated for
+ * every payload. The limit applies to the memory of all buffers, including the free ones in the pool, and as buffers
+ * are allocated in size classes, slightly less content than the limit can be staged.
+ * <p>
+ * The staged content is always written to disk when the payload is stored, so it is persisted before the message is
+ * acknowledged and the staging only saves reading it back.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since  8.2.0
+ */
+class PayloadStagingArea {
+	private static final Logger log = LogManager.getLogger(PayloadStagingArea.class);
+
+	/**
+	 * Represents a staged payload
+	 */
+	static class Entry {
+		final Path					file;
+		final ByteBuffer			buffer;
+		final ByteBuffer 			data;
+		final int					length;
+		final Map<String, byte[]> 	digests;
+		boolean						flushed;
+		boolean						removed;
+		final ReentrantLock			lock = new ReentrantLock();
+		/**
+		 * Number of open streams reading the content and whether the entry is not staged anymore, guarded by the
+		 * lock on the entries. The buffer is returned to the pool when both are the case.
+		 */
+		int							readers;
+		boolean						detached;
+
+		Entry(Path file, ByteBuffer buffer, Map<String, byte[]> digests) {
+			this.file = file;
+			this.buffer = buffer;
+			this.data = buffer.asReadOnlyBuffer();
+			this.length = buffer.remaining();
+			this.digests = digests;
+		}
+	}
+
+	/**
+	 * Maximum size of content that is staged
+	 */
+	private final int	threshold;
+	/**
+	 * Maximum total size of the staged content
+	 */
+	private final long	capacity;
+	/**
+	 * The staged payloads, in access order so the least recently used can be evicted
+	 */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	/**
+	 * Total size of the staged content
+	 */
+	private long 		used = 0;
+	/**
+	 * The pool of buffers for holding the staged content and the total size of the buffers of staged payloads
+	 */
+	private final DirectBufferPool bufferPool = new DirectBufferPool();
+	private long		allocated = 0;
+	/**
+	 * Counters for the statistics
+	 */
+	private final AtomicLong memoryReads = new AtomicLong();
+	private final AtomicLong diskReads = new AtomicLong();
+	private final AtomicLong staged = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong evicted = new AtomicLong();
+
+	/**
+	 * Creates a new staging area.
+	 *
+	 * @param threshold		the maximum size of content that is staged
+	 * @param capacity		the maximum total size of staged content
+	 */
+	PayloadStagingArea(final int threshold, final long capacity) {
+		this.threshold = threshold;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * @return	the maximum size of content that is staged
+	 */
+	int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Stages the given content and writes it to disk. If the content cannot be staged because there is not enough room
+	 * it is just written to disk.
+	 *
+	 * @param payloadId	identifier of the payload
+	 * @param file		the file to which the content must be written
+	 * @param content	buffer holding the content
+	 * @param length	the length of the content
+	 * @param digests	the digests of the content, which are saved together with the content
+	 * @throws IOException	when the content could not be written to disk
+	 */
+	void stage(final String payloadId, final Path file, final byte[] content, final int length,
+			   final Map<String, byte[]> digests) throws IOException {
+		Entry entry = null;
+		synchronized (entries) {
+			if (makeRoom(length)) {
+				final ByteBuffer buffer = bufferPool.acquire(length);
+				buffer.put(content, 0, length).flip();
+				entry = new Entry(file, buffer, digests);
+				entries.put(payloadId, entry);
+				used += length;
+				allocated += buffer.capacity();
+				staged.incrementAndGet();
+			} else
+				rejected.incrementAndGet();
+		}
+		if (entry == null) {
+			log.trace("No room to stage payload (payloadId={}), write to disk", payloadId);
+			writeFile(file, ByteBuffer.wrap(content, 0, length), digests);
+		} else
+			try {
+				flush(entry);
+			} catch (IOException writeError) {
+				synchronized (entries) {
+					entries.remove(payloadId);
+					detach(entry);
+				}
+				throw writeError;
+			}
+	}
+
+	/**
+	 * Indicates whether the content of the given payload is staged.
+	 *
+	 * @param payloadId	identifier of the payload
+	 * @return	<code>true</code> if the content is staged, <code>false</code> otherwise
+	 */
+	boolean contains(final String payloadId) {
+		synchronized (entries) {
+			return entries.containsKey(payloadId);
+		}
+	}
+
+	/**
+	 * Gets the digests of the staged content.
+	 *
+	 * @param payloadId	identifier of the payload
+	 * @return	the digests of the staged content, or <code>null</code> if the payload is not staged
+	 */
+	Map<String, byte[]> getDigests(final String payloadId) {
+		synchronized (entries) {
+			final Entry e = entries.get(payloadId);
+			return e != null ? e.digests : null;
+		}
+	}
+
+	/**
+	 * Gets a stream to read the staged content of the given payload.
+	 *
+	 * @param payloadId	identifier of the payload
+	 * @return	stream to read the content, or <code>null</code> if the payload is not staged
+	 */
+	InputStream read(final String payloadId) {
+		final Entry e;
+		synchronized (entries) {
+			e = entries.get(payloadId);
+			if (e != null)
+				e.readers++;
+		}
+		if (e == null) {
+			diskReads.incrementAndGet();
+			return null;
+		}
+		memoryReads.incrementAndGet();
+		return new BufferInputStream(e.data.duplicate(), () -> endRead(e));
+	}
+
+	/**
+	 * Registers that a stream reading the content of the given entry is closed.
+	 */
+	private void endRead(final Entry e) {
+		synchronized (entries) {
+			if (--e.readers == 0 && e.detached)
+				bufferPool.release(e.buffer);
+		}
+	}
+
+	/**
+	 * Updates the administration for an entry that is not staged anymore and returns its buffer to the pool when it
+	 * is not being read. Must be called while holding the lock on the entries and when the content of the entry is not
+	 * being written to disk.
+	 */
+	private void detach(final Entry e) {
+		used -= e.length;
+		allocated -= e.buffer.capacity();
+		e.detached = true;
+		if (e.readers == 0)
+			bufferPool.release(e.buffer);
+	}
+
+	/**
+	 * Removes the given payload from the staging area. If the content is still being written to disk, it waits until
+	 * the write has completed.
+	 *
+	 * @param payloadId	identifier of the payload
+	 */
+	void remove(final String payloadId) {
+		final Entry e;
+		synchronized (entries) {
+			e = entries.remove(payloadId);
+		}
+		if (e != null) {
+			// Wait until a running write of the content has completed before the buffer can be reused
+			e.lock.lock();
+			try {
+				e.removed = true;
+			} finally {
+				e.lock.unlock();
+			}
+			synchronized (entries) {
+				detach(e);
+			}
+		}
+	}
+
+	/**
+	 * Shuts down the staging area, which only logs the statistics as all staged content is already written to disk.
+	 */
+	void shutdown() {
+		log.info("Payload staging statistics: {}", getStatistics());
+	}
+
+	/**
+	 * @return	the current statistics of the staging area
+	 */
+	StagingStatistics getStatistics() {
+		synchronized (entries) {
+			return new StagingStatistics(memoryReads.get(), diskReads.get(), staged.get(), rejected.get(), evicted.get(),
+								  entries.size(), used, allocated + bufferPool.getFreeBytes(), bufferPool.getReused());
+		}
+	}
+
+	/**
+	 * Writes the content of the given staged payload to disk if this has not been done already and it has not been
+	 * removed in the meantime.
+	 *
+	 * @throws IOException	when the content could not be written
+	 */
+	private void flush(final Entry e) throws IOException {
+		e.lock.lock();
+		try {
+			if (e.flushed || e.removed)
+				return;
+			writeFile(e.file, e.data.duplicate(), e.digests);
+			e.flushed = true;
+		} finally {
+			e.lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the content and digests file of the payload.
+	 */
+	private void writeFile(final Path contentFile, final ByteBuffer data, final Map<String, byte[]> digests)
+																								throws IOException {
+		try (FileChannel fc = FileChannel.open(contentFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			while (data.hasRemaining())
+				fc.write(data);
+		}
+		if (!digests.isEmpty())
+			PayloadContent.writeDigestsFile(contentFile.toFile(), digests);
+	}
+
+	/**
+	 * Makes room for a buffer to hold content of the given length. First free buffers in the pool that cannot be used
+	 * for the content are released and then the least recently used payloads that are already written to disk are
+	 * evicted. Must be called while holding the lock on the entries. Payloads that are being written at the moment are
+	 * skipped so the entries are not locked while waiting for the write to complete.
+	 *
+	 * @param length	the length of the content
+	 * @return	<code>true</code> if there is enough room, <code>false</code> otherwise
+	 */
+	private boolean makeRoom(final int length) {
+		final int size = DirectBufferPool.getBufferSize(length);
+		if (length > threshold || size > capacity)
+			return false;
+		final Iterator<Entry> lru = entries.values().iterator();
+		while (true) {
+			final long excess = allocated + bufferPool.getFreeBytes() + (bufferPool.hasFree(length) ? 0 : size)
+								- capacity;
+			if (excess <= 0)
+				return true;
+			if (bufferPool.trim(excess, length) > 0)
+				continue;
+			Entry victim = null;
+			while (victim == null && lru.hasNext()) {
+				final Entry e = lru.next();
+				if (e.lock.tryLock())
+					try {
+						if (e.flushed)
+							victim = e;
+					} finally {
+						e.lock.unlock();
+					}
+			}
+			if (victim == null)
+				return false;
+			lru.remove();
+			detach(victim);
+			evicted.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Is an {@link InputStream} to read the content of a {@link ByteBuffer}.
+	 */
+	private static class BufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+		/**
+		 * Is called when the stream is closed, after which the buffer may be reused
+		 */
+		private Runnable onClose;
+
+		BufferInputStream(ByteBuffer buffer, Runnable onClose) {
+			this.buffer = buffer;
+			this.onClose = onClose;
+		}
+
+		@Override
+		public int read() throws IOException {
+			checkOpen();
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			checkOpen();
+			if (len == 0)
+				return 0;
+			if (!buffer.hasRemaining())
+				return -1;
+			final int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public int available() throws IOException {
+			checkOpen();
+			return buffer.remaining();
+		}
+
+		@Override
+		public void close() {
+			if (onClose != null) {
+				onClose.run();
+				onClose = null;
+			}
+		}
+
+		private void checkOpen() throws IOException {
+			if (onClose == null)
+				throw new IOException("Stream is closed");
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.storage.payloads;
+
+/**
+ * Contains the statistics of the in-memory tier of the default Payload Storage Provider, see {@link
+ * PayloadStagingArea}. The statistics can be retrieved using {@link DefaultPayloadStorageProvider#getStagingStatistics()}.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since  8.2.0
+ */
+public class StagingStatistics {
+	private final long memoryReads;
+	private final long diskReads;
+	private final long staged;
+	private final long rejected;
+	private final long evicted;
+	private final int  currentCount;
+	private final long currentSize;
+	private final long bufferMemory;
+	private final long buffersReused;
+
+	StagingStatistics(long memoryReads, long diskReads, long staged, long rejected, long evicted,
+					  int currentCount, long currentSize, long bufferMemory, long buffersReused) {
+		this.memoryReads = memoryReads;
+		this.diskReads = diskReads;
+		this.staged = staged;
+		this.rejected = rejected;
+		this.evicted = evicted;
+		this.currentCount = currentCount;
+		this.currentSize = currentSize;
+		this.bufferMemory = bufferMemory;
+		this.buffersReused = buffersReused;
+	}
+
+	/**
+	 * @return number of reads of payload content served from memory
+	 */
+	public long getMemoryReads() {
+		return memoryReads;
+	}
+
+	/**
+	 * @return number of reads of payload content that had to be served from disk
+	 */
+	public long getDiskReads() {
+		return diskReads;
+	}
+
+	/**
+	 * @return the fraction of reads served from memory, or 0 if no content has been read yet
+	 */
+	public double getHitRate() {
+		final long total = memoryReads + diskReads;
+		return total == 0 ? 0 : (double) memoryReads / total;
+	}
+
+	/**
+	 * @return number of payloads that were staged
+	 */
+	public long getStaged() {
+		return staged;
+	}
+
+	/**
+	 * @return number of payloads that could not be staged because there was not enough room
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return number of payloads evicted from memory to make room for new ones
+	 */
+	public long getEvicted() {
+		return evicted;
+	}
+
+	/**
+	 * @return number of payloads currently staged
+	 */
+	public int getCurrentCount() {
+		return currentCount;
+	}
+
+	/**
+	 * @return total size of the currently staged content
+	 */
+	public long getCurrentSize() {
+		return currentSize;
+	}
+
+	/**
+	 * @return total size of the buffers allocated for staging, including the free buffers kept for reuse
+	 * @since 8.2.0
+	 */
+	public long getBufferMemory() {
+		return bufferMemory;
+	}
+
+	/**
+	 * @return number of payloads that were staged in a reused buffer
+	 * @since 8.2.0
+	 */
+	public long getBuffersReused() {
+		return buffersReused;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("memoryReads=%d, diskReads=%d, hitRate=%.2f, staged=%d, rejected=%d, evicted=%d, "
+							+ "current=%d (%d bytes), bufferMemory=%d, buffersReused=%d",
+							memoryReads, diskReads, getHitRate(), staged, rejected, evicted,
+							currentCount, currentSize, bufferMemory, buffersReused);
+	}
+}
@@ -165,9 +165,22 @@ class DefaultPayloadStorageProviderTest {
 		File testfile = assertDoesNotThrow(() ->
 								TestDataHelper.createTestFile(TestUtils.getTestResource("pldata"), pl.getPayloadId()));
 
+		IPayloadContent content = assertDoesNotThrow(() -> provider.getPayloadContent(pl));
+		assertDoesNotThrow(() -> content.getDigest("SHA-256"));
+		final Path digestsFile = PayloadContent.getDigestsFile(testfile.toPath());
+		assertTrue(Files.exists(digestsFile));
+
 		assertDoesNotThrow(() -> provider.removePayloadContent(pl));
-		assertFalse(testfile.exists());
+		assertNull(assertDoesNotThrow(() -> provider.getPayloadContent(pl)));
 
 		assertDoesNotThrow(() -> provider.removePayloadContent(new PayloadEntity()));
+
+		// Removal of the files is done asynchronously, so wait a bit
+		for (int i = 0; i < 50 && (testfile.exists() || Files.exists(digestsFile)); i++)
+			assertDoesNotThrow(() -> Thread.sleep(100));
+		assertFalse(testfile.exists());
+		assertFalse(Files.exists(digestsFile));
+
+		provider.shutdown();
 	}
 }
@@ -19,8 +19,10 @@ package org.holodeckb2b.storage.payloads;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayInputStream;
@@ -31,7 +33,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
@@ -186,4 +190,142 @@ class PayloadContentTest {
 
 		assertThrows(StorageException.class, () -> content.openStorage());
 	}
+
+	@Test
+	void testAdoptContent() throws IOException {
+		final File source = TestDataHelper.createTestFile(TESTDIR);
+		final byte[] data = Files.readAllBytes(source.toPath());
+		final File testfile = TESTDIR.resolve(UUID.randomUUID().toString()).toFile();
+		final PayloadContent content = new PayloadContent("adopttest1", testfile);
+
+		assertDoesNotThrow(() -> content.adoptContent(source.toPath()));
+
+		assertFalse(source.exists());
+		assertTrue(content.isContentAvailable());
+		try (InputStream cis = assertDoesNotThrow(() -> content.getContent());
+			 InputStream bais = new ByteArrayInputStream(data)) {
+			HB2BTestUtils.assertEqual(bais, cis);
+		}
+	}
+
+	@Test
+	void testRejectAdoptExisting() throws IOException {
+		final File source = TestDataHelper.createTestFile(TESTDIR);
+		final File testfile = TestDataHelper.createTestFile(TESTDIR);
+		final PayloadContent content = new PayloadContent("adopttest2", testfile);
+
+		assertThrows(StorageException.class, () -> content.adoptContent(source.toPath()));
+		assertTrue(source.exists());
+	}
+
+	@Test
+	void testDigestOnWrite() throws Exception {
+		final File testfile = TESTDIR.resolve(UUID.randomUUID().toString()).toFile();
+		final PayloadContent content = new PayloadContent("digesttest1", testfile, List.of("SHA-256"));
+		final byte[] data = TestDataHelper.createRandomData();
+
+		OutputStream cos = content.openStorage();
+		cos.write(data, 0, 50);
+		assertNull(content.getDigest("SHA-256"));
+		cos.write(Arrays.copyOfRange(data, 50, data.length));
+		cos.close();
+
+		assertTrue(Files.exists(PayloadContent.getDigestsFile(testfile.toPath())));
+		assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), content.getDigest("SHA-256"));
+		assertNull(content.getDigest("SHA-512"));
+
+		// A new instance should use the saved digest
+		final PayloadContent content2 = new PayloadContent("digesttest1", testfile, List.of("SHA-256"));
+		assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), content2.getDigest("sha-256"));
+	}
+
+	@Test
+	void testDigestOfAdoptedContent() throws Exception {
+		final File source = TestDataHelper.createTestFile(TESTDIR);
+		final byte[] data = Files.readAllBytes(source.toPath());
+		final File testfile = TESTDIR.resolve(UUID.randomUUID().toString()).toFile();
+		final PayloadContent content = new PayloadContent("digesttest2", testfile, List.of("SHA-256", "SHA-512"));
+
+		content.adoptContent(source.toPath());
+
+		assertFalse(Files.exists(PayloadContent.getDigestsFile(testfile.toPath())));
+		assertArrayEquals(MessageDigest.getInstance("SHA-512").digest(data), content.getDigest("SHA-512"));
+		assertTrue(Files.exists(PayloadContent.getDigestsFile(testfile.toPath())));
+	}
+
+	@Test
+	void testOutdatedDigest() throws Exception {
+		final File testfile = TESTDIR.resolve(UUID.randomUUID().toString()).toFile();
+		final PayloadContent content = new PayloadContent("digesttest3", testfile, List.of("SHA-256"));
+
+		try (OutputStream cos = content.openStorage()) {
+			cos.write(TestDataHelper.createRandomData());
+		}
+		final byte[] changed = TestDataHelper.createRandomData();
+		Files.write(testfile.toPath(), changed);
+		testfile.setLastModified(testfile.lastModified() + 2000);
+
+		final PayloadContent content2 = new PayloadContent("digesttest3", testfile, List.of("SHA-256"));
+		assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(changed), content2.getDigest("SHA-256"));
+	}
+
+	@Test
+	void testStagedContent() throws Exception {
+		final PayloadStagingArea staging = new PayloadStagingArea(30000, 1024 * 1024);
+		final String payloadId = UUID.randomUUID().toString();
+		final File testfile = TESTDIR.resolve(payloadId).toFile();
+		final PayloadContent content = new PayloadContent(payloadId, testfile, List.of("SHA-256"), staging);
+		final byte[] data = TestDataHelper.createRandomData();
+
+		try (OutputStream cos = content.openStorage()) {
+			cos.write(data);
+		}
+
+		assertTrue(content.isContentAvailable());
+		assertArrayEquals(data, Files.readAllBytes(testfile.toPath()));
+		try (InputStream cis = content.getContent()) {
+			HB2BTestUtils.assertEqual(new ByteArrayInputStream(data), cis);
+		}
+		assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data),
+				new PayloadContent(payloadId, testfile, List.of("SHA-256"), staging).getDigest("SHA-256"));
+		assertEquals(1, staging.getStatistics().getMemoryReads());
+		staging.shutdown();
+	}
+
+	@Test
+	void testSpillToFile() throws Exception {
+		final PayloadStagingArea staging = new PayloadStagingArea(50, 1024);
+		final String payloadId = UUID.randomUUID().toString();
+		final File testfile = TESTDIR.resolve(payloadId).toFile();
+		final PayloadContent content = new PayloadContent(payloadId, testfile, List.of("SHA-256"), staging);
+		final byte[] data = TestDataHelper.createRandomData();
+
+		try (OutputStream cos = content.openStorage()) {
+			cos.write(data, 0, 40);
+			cos.write(data, 40, data.length - 40);
+		}
+
+		assertFalse(staging.contains(payloadId));
+		assertArrayEquals(data, Files.readAllBytes(testfile.toPath()));
+		assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), content.getDigest("SHA-256"));
+		staging.shutdown();
+	}
+
+	@Test
+	void testCloseAfterFailedStaging() throws Exception {
+		final PayloadStagingArea staging = new PayloadStagingArea(1024, 4096);
+		final String payloadId = UUID.randomUUID().toString();
+		final File testfile = TESTDIR.resolve(payloadId).toFile();
+		final PayloadContent content = new PayloadContent(payloadId, testfile, List.of("SHA-256"), staging);
+
+		final OutputStream cos = content.openStorage();
+		cos.write(new byte[100]);
+		// The staged content cannot be written because the file already exists
+		Files.write(testfile.toPath(), new byte[0]);
+		assertThrows(IOException.class, () -> cos.close());
+		assertDoesNotThrow(() -> cos.close());
+		assertThrows(IOException.class, () -> cos.write(1));
+		assertFalse(staging.contains(payloadId));
+		staging.shutdown();
+	}
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.storage.payloads;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.holodeckb2b.commons.testing.TestUtils;
+import org.holodeckb2b.commons.util.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PayloadDeleterTest {
+	private static final Path TESTDIR = TestUtils.getTestResource("deleter");
+
+	@BeforeEach
+	void setupTest() throws IOException {
+		if (!Files.exists(TESTDIR))
+			Files.createDirectories(TESTDIR);
+		else
+			FileUtils.cleanDirectory(TESTDIR);
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		FileUtils.cleanDirectory(TESTDIR);
+		Files.delete(TESTDIR);
+	}
+
+	@Test
+	void testRemove() throws Exception {
+		final File content = TestDataHelper.createTestFile(TESTDIR);
+		final String payloadId = content.getName();
+
+		final PayloadDeleter deleter = new PayloadDeleter(TESTDIR, 1);
+		deleter.enqueue(payloadId);
+
+		waitUntilRemoved(deleter, payloadId);
+		assertFalse(content.exists());
+
+		deleter.shutdown();
+		assertEquals(0, Files.size(TESTDIR.resolve(PayloadDeleter.JOURNAL_FILE)));
+	}
+
+	@Test
+	void testRemoveBatch() throws Exception {
+		final File content1 = TestDataHelper.createTestFile(TESTDIR);
+		final File content2 = TestDataHelper.createTestFile(TESTDIR);
+		final File keep = TestDataHelper.createTestFile(TESTDIR);
+
+		final PayloadDeleter deleter = new PayloadDeleter(TESTDIR, 1);
+		deleter.enqueue(List.of(content1.getName(), content2.getName()));
+		deleter.enqueue(List.of());
+
+		waitUntilRemoved(deleter, content1.getName());
+		waitUntilRemoved(deleter, content2.getName());
+		assertFalse(content1.exists());
+		assertFalse(content2.exists());
+		assertTrue(keep.exists());
+
+		deleter.shutdown();
+		assertEquals(0, Files.size(TESTDIR.resolve(PayloadDeleter.JOURNAL_FILE)));
+	}
+
+	@Test
+	void testRecoverFromJournal() throws Exception {
+		final File content1 = TestDataHelper.createTestFile(TESTDIR);
+		final File content2 = TestDataHelper.createTestFile(TESTDIR);
+		final File keep = TestDataHelper.createTestFile(TESTDIR);
+		final Path orphanedDigests = PayloadContent.getDigestsFile(TESTDIR.resolve("removed-before-crash"));
+		Files.writeString(orphanedDigests, "SHA-256=AAAA");
+		final Path keepDigests = PayloadContent.getDigestsFile(keep.toPath());
+		Files.writeString(keepDigests, "SHA-256=AAAA");
+		Files.write(TESTDIR.resolve(PayloadDeleter.JOURNAL_FILE), List.of(content1.getName(), content2.getName()),
+					StandardCharsets.UTF_8);
+
+		final PayloadDeleter deleter = assertDoesNotThrow(() -> new PayloadDeleter(TESTDIR, 2));
+
+		assertFalse(Files.exists(orphanedDigests));
+		assertTrue(Files.exists(keepDigests));
+
+		waitUntilRemoved(deleter, content1.getName());
+		waitUntilRemoved(deleter, content2.getName());
+		assertFalse(content1.exists());
+		assertFalse(content2.exists());
+		assertTrue(keep.exists());
+
+		deleter.shutdown();
+		assertEquals(0, Files.size(TESTDIR.resolve(PayloadDeleter.JOURNAL_FILE)));
+	}
+
+	@Test
+	void testQueueOrphanedContent() throws Exception {
+		final File orphan = TestDataHelper.createTestFile(TESTDIR);
+		final Path orphanDigests = PayloadContent.getDigestsFile(orphan.toPath());
+		Files.writeString(orphanDigests, "SHA-256=AAAA");
+		final File keep = TestDataHelper.createTestFile(TESTDIR);
+
+		final PayloadDeleter deleter = new PayloadDeleter(TESTDIR, 1);
+		assertEquals(1, deleter.queueOrphanedContent(id -> !id.equals(orphan.getName())));
+
+		waitUntilRemoved(deleter, orphan.getName());
+		assertFalse(orphan.exists());
+		assertFalse(Files.exists(orphanDigests));
+		assertTrue(keep.exists());
+
+		deleter.shutdown();
+		assertEquals(0, Files.size(TESTDIR.resolve(PayloadDeleter.JOURNAL_FILE)));
+	}
+
+	private void waitUntilRemoved(PayloadDeleter deleter, String payloadId) throws InterruptedException {
+		for (int i = 0; i < 50 && deleter.isPending(payloadId); i++)
+			Thread.sleep(100);
+		assertFalse(deleter.isPending(payloadId));
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2024 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.storage.payloads;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import org.holodeckb2b.commons.testing.TestUtils;
+import org.holodeckb2b.commons.util.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class PayloadStagingAreaTest {
+	private static final Path TESTDIR = TestUtils.getTestResource("staging");
+
+	@BeforeAll
+	static void setupTest() throws IOException {
+		if (!Files.exists(TESTDIR))
+			Files.createDirectories(TESTDIR);
+	}
+
+	@AfterAll
+	static void cleanup() throws IOException {
+		FileUtils.cleanDirectory(TESTDIR);
+		Files.delete(TESTDIR);
+	}
+
+	@Test
+	void testWriteThrough() throws IOException {
+		final PayloadStagingArea staging = new PayloadStagingArea(1024, 4096);
+		final String payloadId = UUID.randomUUID().toString();
+		final byte[] data = new byte[500];
+		data[10] = 42;
+
+		staging.stage(payloadId, TESTDIR.resolve(payloadId), data, data.length, Collections.emptyMap());
+
+		assertTrue(staging.contains(payloadId));
+		assertArrayEquals(data, Files.readAllBytes(TESTDIR.resolve(payloadId)));
+		try (InputStream is = staging.read(payloadId)) {
+			assertNotNull(is);
+			assertArrayEquals(data, is.readAllBytes());
+		}
+		assertNull(staging.read(UUID.randomUUID().toString()));
+
+		final StagingStatistics stats = staging.getStatistics();
+		assertEquals(1, stats.getStaged());
+		assertEquals(1, stats.getMemoryReads());
+		assertEquals(1, stats.getDiskReads());
+		assertEquals(500, stats.getCurrentSize());
+
+		staging.remove(payloadId);
+		assertFalse(staging.contains(payloadId));
+		assertEquals(0, staging.getStatistics().getCurrentSize());
+		staging.shutdown();
+	}
+
+	@Test
+	void testPersistedWhenStaged() throws IOException {
+		final PayloadStagingArea staging = new PayloadStagingArea(1024, 4096);
+		final String payloadId = UUID.randomUUID().toString();
+		final byte[] data = TestDataHelper.createRandomData();
+		final int length = Math.min(data.length, 1000);
+		final Map<String, byte[]> digests = Map.of("SHA-256", new byte[32]);
+
+		staging.stage(payloadId, TESTDIR.resolve(payloadId), data, length, digests);
+
+		assertTrue(staging.contains(payloadId));
+		assertEquals(length, Files.size(TESTDIR.resolve(payloadId)));
+		assertTrue(Files.exists(PayloadContent.getDigestsFile(TESTDIR.resolve(payloadId))));
+
+		// Removing the payload from the staging area does not remove the content from disk
+		staging.remove(payloadId);
+		staging.shutdown();
+		assertTrue(Files.exists(TESTDIR.resolve(payloadId)));
+	}
+
+	@Test
+	void testMemoryCap() throws IOException {
+		// Content of 50 bytes uses a buffer of 64 bytes, so there is room for two
+		final PayloadStagingArea staging = new PayloadStagingArea(60, 128);
+		final String first = UUID.randomUUID().toString();
+		final String second = UUID.randomUUID().toString();
+		final String tooLarge = UUID.randomUUID().toString();
+
+		staging.stage(first, TESTDIR.resolve(first), new byte[50], 50, Collections.emptyMap());
+		staging.stage(second, TESTDIR.resolve(second), new byte[50], 50, Collections.emptyMap());
+		assertTrue(staging.contains(first));
+		assertTrue(staging.contains(second));
+
+		staging.stage(tooLarge, TESTDIR.resolve(tooLarge), new byte[70], 70, Collections.emptyMap());
+		assertFalse(staging.contains(tooLarge));
+		assertTrue(Files.exists(TESTDIR.resolve(tooLarge)));
+
+		// Reading the first makes the second the least recently used one
+		staging.read(first).close();
+		final String third = UUID.randomUUID().toString();
+		staging.stage(third, TESTDIR.resolve(third), new byte[50], 50, Collections.emptyMap());
+		assertTrue(staging.contains(first));
+		assertFalse(staging.contains(second));
+		assertTrue(staging.contains(third));
+
+		final StagingStatistics stats = staging.getStatistics();
+		assertEquals(3, stats.getStaged());
+		assertEquals(1, stats.getRejected());
+		assertEquals(1, stats.getEvicted());
+		assertEquals(100, stats.getCurrentSize());
+		staging.shutdown();
+	}
+
+	@Test
+	void testBufferReuse() throws IOException {
+		final PayloadStagingArea staging = new PayloadStagingArea(1024, 4096);
+		final String first = UUID.randomUUID().toString();
+		final byte[] data = new byte[1000];
+		data[0] = 1;
+		staging.stage(first, TESTDIR.resolve(first), data, data.length, Collections.emptyMap());
+		staging.remove(first);
+		assertEquals(1024, staging.getStatistics().getBufferMemory());
+
+		final String second = UUID.randomUUID().toString();
+		data[0] = 2;
+		staging.stage(second, TESTDIR.resolve(second), data, data.length, Collections.emptyMap());
+		assertEquals(1, staging.getStatistics().getBuffersReused());
+		assertEquals(1024, staging.getStatistics().getBufferMemory());
+
+		// The buffer must not be reused while the content is being read
+		final InputStream reader = staging.read(second);
+		staging.remove(second);
+		final String third = UUID.randomUUID().toString();
+		data[0] = 3;
+		staging.stage(third, TESTDIR.resolve(third), data, data.length, Collections.emptyMap());
+		assertEquals(1, staging.getStatistics().getBuffersReused());
+		assertEquals(2, reader.read());
+		reader.close();
+		assertThrows(IOException.class, () -> reader.read());
+
+		final String fourth = UUID.randomUUID().toString();
+		staging.remove(third);
+		staging.stage(fourth, TESTDIR.resolve(fourth), data, data.length, Collections.emptyMap());
+		assertEquals(2, staging.getStatistics().getBuffersReused());
+		staging.shutdown();
+	}
+
+	@Test
+	void testFreeBuffersReleased() throws IOException {
+		final PayloadStagingArea staging = new PayloadStagingArea(1024, 2048);
+		final String small = UUID.randomUUID().toString();
+		staging.stage(small, TESTDIR.resolve(small), new byte[100], 100, Collections.emptyMap());
+		staging.remove(small);
+		final String large = UUID.randomUUID().toString();
+		staging.stage(large, TESTDIR.resolve(large), new byte[1000], 1000, Collections.emptyMap());
+		final String other = UUID.randomUUID().toString();
+		staging.stage(other, TESTDIR.resolve(other), new byte[1000], 1000, Collections.emptyMap());
+
+		// The free small buffer is released to make room for the second large one
+		assertTrue(staging.contains(large));
+		assertTrue(staging.contains(other));
+		assertEquals(2048, staging.getStatistics().getBufferMemory());
+		assertEquals(0, staging.getStatistics().getEvicted());
+		staging.shutdown();
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.as4.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Determines whether it is worthwhile to compress a payload. This is used when adaptive compression is enabled in the
+ * P-Mode to skip the compression of payloads that already contain compressed data. First the MIME type of the payload
+ * is checked against a list of known compressed formats. When the type is not a compressed format, the first block of
+ * the payload is compressed to estimate the compression ratio that can be achieved.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+final class CompressibilityCheck {
+
+	/**
+	 * The size of the sample used to estimate the compression ratio
+	 */
+	static final int SAMPLE_SIZE = 64 * 1024;
+	/**
+	 * The maximum ratio between the compressed and original size of the sample for which the payload is compressed
+	 */
+	static final double MAX_RATIO = 0.9;
+
+	/**
+	 * MIME types of formats that already contain compressed data
+	 */
+	private static final Set<String> COMPRESSED_TYPES = Set.of(
+			"application/gzip", "application/x-gzip", "application/zip", "application/x-zip-compressed",
+			"application/x-7z-compressed", "application/x-rar-compressed", "application/vnd.rar",
+			"application/x-bzip2", "application/x-xz", "application/zstd", "application/x-compress",
+			"application/java-archive", "application/pdf", "application/epub+zip");
+	/**
+	 * Prefixes of MIME types of formats that already contain compressed data
+	 */
+	private static final String[] COMPRESSED_TYPE_PREFIXES = { "image/jpeg", "image/png", "image/gif", "image/webp",
+			"image/heic", "image/heif", "image/avif", "image/jp2", "video/", "audio/",
+			"application/vnd.openxmlformats-officedocument.", "application/vnd.oasis.opendocument." };
+
+	private CompressibilityCheck() {}
+
+	/**
+	 * Checks whether the given MIME type is a format that already contains compressed data.
+	 *
+	 * @param mimeType	the MIME type of the payload, may include parameters
+	 * @return	<code>true</code> if the format is compressed, <code>false</code> if not or unknown
+	 */
+	static boolean isCompressedType(final String mimeType) {
+		if (mimeType == null)
+			return false;
+		final int paramStart = mimeType.indexOf(';');
+		final String type = (paramStart > 0 ? mimeType.substring(0, paramStart) : mimeType).trim()
+																							.toLowerCase(Locale.ROOT);
+		if (COMPRESSED_TYPES.contains(type))
+			return true;
+		for (String prefix : COMPRESSED_TYPE_PREFIXES)
+			if (type.startsWith(prefix))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Estimates whether the data can be compressed by compressing its first block.
+	 *
+	 * @param data		the payload data
+	 * @param level		the compression level
+	 * @return	<code>true</code> if the compressed sample is smaller than {@link #MAX_RATIO} of the original,
+	 * 			<code>false</code> otherwise
+	 * @throws IOException	when the sample cannot be read
+	 */
+	static boolean isCompressible(final InputStream data, final int level) throws IOException {
+		final byte[] sample = data.readNBytes(SAMPLE_SIZE);
+		if (sample.length == 0)
+			return false;
+		final Deflater deflater = new Deflater(level, true);
+		try {
+			deflater.setInput(sample);
+			deflater.finish();
+			final byte[] buffer = new byte[SAMPLE_SIZE];
+			long compressed = 0;
+			while (!deflater.finished())
+				compressed += deflater.deflate(buffer);
+			return compressed <= MAX_RATIO * sample.length;
+		} finally {
+			deflater.end();
+		}
+	}
+}
@@ -19,8 +19,8 @@ package org.holodeckb2b.as4.compression;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipException;
 
 import javax.activation.DataHandler;
@@ -34,6 +34,8 @@ import javax.activation.DataHandler;
  * decompressed.
  * <p>For decompression of the data the {@link DataHandler#getInputStream()} is used, so the source <code>DataHandler
  * </code> MUST implement this method to ensure correct decompression.
+ * <p>When compressing the data it is written using a {@link ParallelGZIPOutputStream}, so large payloads are
+ * compressed using multiple threads.
  *
  * @author Sander Fieten (sander at holodeck-b2b.org)
  */
@@ -56,6 +58,11 @@ public class CompressionDataHandler extends DataHandler {
      */
     private boolean     compressing;
 
+    /**
+     * The compression level to use when compressing the data
+     */
+    private int         level = Deflater.DEFAULT_COMPRESSION;
+
     /**
      * This constructor should be used to create a facade to a {@link DataHandler} for decompressing the contained data.
      * The specified MIME type is not used by this class itself but only to inform using classes about the expected
@@ -77,10 +84,23 @@ public class CompressionDataHandler extends DataHandler {
      * @param source    The {@link DataHandler} that contains the uncompressed data
      */
     public CompressionDataHandler(final DataHandler source) {
+        this(source, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * This constructor should be used to create a facade to a {@link DataHandler} for compressing the contained data
+     * using a specific compression level.
+     *
+     * @param source    The {@link DataHandler} that contains the uncompressed data
+     * @param level     The compression level, from 0 to 9 or -1 for the default level
+     * @since 8.2.0
+     */
+    public CompressionDataHandler(final DataHandler source, final int level) {
         super(source.getDataSource());
         this.source = source;
         this.resultContentType = CompressionFeature.COMPRESSED_CONTENT_TYPE;
         this.compressing = true;
+        this.level = level;
     }
 
     /**
@@ -143,7 +163,7 @@ public class CompressionDataHandler extends DataHandler {
     @Override
     public InputStream getInputStream() throws IOException, ZipException {
         if (compressing)
-            return new GZIPCompressingInputStream(super.getInputStream());
+            return new GZIPCompressingInputStream(super.getInputStream(), level);
         else
             return new GZIPInputStream(super.getInputStream());
     }
@@ -156,9 +176,9 @@ public class CompressionDataHandler extends DataHandler {
      * @throws IOException  When an error occurs while writing the data to the stream
      */
     private void compress(final OutputStream out) throws IOException {
-        // Writing compressed data is easy, we only need to wrap the given output stream in a GZIPOutputStream to get
+        // Writing compressed data is easy, we only need to wrap the given output stream in a GZip stream to get
         // compression.
-        final GZIPOutputStream gzOutputStream = new GZIPOutputStream(out);
+        final ParallelGZIPOutputStream gzOutputStream = new ParallelGZIPOutputStream(out, level);
         source.writeTo(gzOutputStream);
         gzOutputStream.finish();
     }
@@ -16,6 +16,8 @@
  */
 package org.holodeckb2b.as4.compression;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -49,7 +51,9 @@ import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
  * original <code>DataHandler</code> that contains the payload data. This way the compression is only executed at the
  * moment the payload data is sent to the receiving MSH and an extra operation is prevented.
  * <p>NOTE: Although the AS4 profiles states that payloads containing already compressed data do not need to be
- * compressed Holodeck B2B will compress all payloads regardless of their content.
+ * compressed Holodeck B2B will by default compress all payloads regardless of their content. When <i>adaptive
+ * compression</i> is enabled in the P-Mode (see {@link IAS4PayloadProfile#useAdaptiveCompression()}), payloads that
+ * use a compressed format or of which a sample does not shrink when compressed, are sent uncompressed.
  *
  * @author Sander Fieten (sander at holodeck-b2b.org)
  */
@@ -70,25 +74,59 @@ public class CompressionHandler extends AbstractUserMessageHandler {
              CompressionFeature.COMPRESSED_CONTENT_TYPE.equalsIgnoreCase(
                                                                ((IAS4PayloadProfile) plProfile).getCompressionType())) {
             log.debug("AS4 Compression feature is used");
+            final IAS4PayloadProfile as4Profile = (IAS4PayloadProfile) plProfile;
+            final int level = as4Profile.getCompressionLevel();
+            final boolean adaptive = as4Profile.useAdaptiveCompression();
             // enable compression by decorating DataHandler and setting payload properties
             for (final IPayload p : um.getPayloads())
                 // Only payloads contained in attachment can use compression
-                if (p.getContainment() == IPayload.Containment.ATTACHMENT)
-                    enableCompression(p, procCtx.getParentContext());
+                if (p.getContainment() == IPayload.Containment.ATTACHMENT
+                	&& (!adaptive || isCompressible(p, procCtx.getParentContext(), level, log)))
+                    enableCompression(p, procCtx.getParentContext(), level);
 
-            log.trace("Enabled compression for all attached payloads");
+            log.trace("Enabled compression for {} attached payloads", adaptive ? "compressible" : "all");
         } else
             log.debug("AS4 Compression feature is not used");
 
         return InvocationResponse.CONTINUE;
     }
 
-    private void enableCompression(final IPayload p, final MessageContext mc) {
+    /**
+     * Checks whether it is worthwhile to compress the payload. This is not the case when the payload uses a MIME type
+     * of a compressed format or when a sample of the payload data does not shrink when compressed.
+     *
+     * @param p		the payload
+     * @param mc	the message context containing the attachment
+     * @param level	the compression level
+     * @param log	the log to use
+     * @return	<code>true</code> if the payload should be compressed, <code>false</code> otherwise
+     */
+    private boolean isCompressible(final IPayload p, final MessageContext mc, final int level, final Logger log) {
+    	final String mimeType = mc.getAttachment(p.getPayloadURI()).getContentType();
+    	if (CompressibilityCheck.isCompressedType(mimeType)) {
+    		log.debug("Payload [{}] is not compressed as its type ({}) is a compressed format", p.getPayloadURI(),
+    				  mimeType);
+    		return false;
+    	}
+    	// The sample is read from a new stream as the content of the attachment can only be read once
+    	try (InputStream content = p.getContent()) {
+    		if (content == null || CompressibilityCheck.isCompressible(content, level))
+    			return true;
+    		log.debug("Payload [{}] is not compressed as its sample does not shrink", p.getPayloadURI());
+    		return false;
+    	} catch (IOException sampleFailure) {
+    		log.warn("Could not read sample of payload [{}], payload will be compressed : {}", p.getPayloadURI(),
+    				 sampleFailure.getMessage());
+    		return true;
+    	}
+    }
+
+    private void enableCompression(final IPayload p, final MessageContext mc, final int level) {
 
         // Replace current data handler of attachment with CompressionDataHandler to facilitate compression
         final String cid = p.getPayloadURI();
         final DataHandler source = mc.getAttachment(cid);
-        mc.addAttachment(cid, new CompressionDataHandler(source));
+        mc.addAttachment(cid, new CompressionDataHandler(source, level));
 
         // Set the part properties to indicate AS4 Compression feature was used and original MIME Type
         // First ensure that there do not exists properties with this name
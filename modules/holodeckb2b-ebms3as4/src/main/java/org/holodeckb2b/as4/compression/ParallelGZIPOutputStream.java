@@ -0,0 +1,290 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.as4.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Is an {@link OutputStream} implementation that writes the data GZip compressed, using multiple threads to compress
+ * large amounts of data.
+ * <p>The data is split into blocks of 1 MiB which are deflated independently, using the last 32 KiB of the previous
+ * block as dictionary so the compression ratio is hardly affected. All blocks but the last are ended with a <i>sync
+ * flush</i> so the compressed blocks can be concatenated into one deflate stream and the result is a standard GZip
+ * stream that can be decompressed by any GZip implementation. Until the configured threshold is reached the blocks
+ * are compressed by the writing thread, so for smaller payloads there is no overhead of handing over the data to
+ * other threads. After that the blocks are compressed by the threads of the common fork join pool, with a limited
+ * number of blocks waiting to be written to the underlying stream.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+	/**
+	 * The size of the blocks that are compressed independently
+	 */
+	static final int BLOCK_SIZE = 1024 * 1024;
+	/**
+	 * The default amount of data after which blocks are compressed in parallel
+	 */
+	public static final long DEFAULT_PARALLEL_THRESHOLD = 4 * BLOCK_SIZE;
+	/**
+	 * The size of the dictionary used for a block, which is the maximum distance of the deflate algorithm
+	 */
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    // The GZIP header
+    private final static byte[] GZIP_HEADER = {
+        (byte) 0x1f, (byte) 0x8b, 	// Magic number
+        Deflater.DEFLATED, 			// Compression method (CM)
+        0, 							// Flags (FLG)
+        0, 0, 0, 0, 				// Modification time MTIME (int)
+        0, 							// Extra flags (XFLG)
+        0 							// Operating system (OS)
+    };
+
+	/**
+	 * The compression level
+	 */
+	private final int	level;
+	/**
+	 * The amount of data after which blocks are compressed in parallel
+	 */
+	private final long	parallelThreshold;
+	/**
+	 * The executor used to compress blocks in parallel
+	 */
+	private final Executor executor;
+	/**
+	 * The maximum number of compressed blocks waiting to be written
+	 */
+	private final int	maxPending;
+	/**
+	 * The checksum of the uncompressed data
+	 */
+	private final CRC32	crc = new CRC32();
+	/**
+	 * The total number of uncompressed bytes
+	 */
+	private long		totalIn;
+	/**
+	 * The number of uncompressed bytes submitted for compression
+	 */
+	private long		submitted;
+	/**
+	 * The block currently being filled
+	 */
+	private byte[]		block = new byte[8192];
+	private int			blockLength;
+	/**
+	 * The dictionary for the next block, i.e. the end of the previous block
+	 */
+	private byte[]		dictionary;
+	/**
+	 * The blocks being compressed, in the order they must be written
+	 */
+	private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+	/**
+	 * Indicates whether all data has been written
+	 */
+	private boolean		finished;
+
+	/**
+	 * Creates a new stream that compresses the data using the given compression level and starts compressing in
+	 * parallel after {@link #DEFAULT_PARALLEL_THRESHOLD} bytes.
+	 *
+	 * @param out		the stream to write the compressed data to
+	 * @param level		the compression level, from 0 to 9 or -1 for the default level
+	 * @throws IOException	when the GZip header cannot be written
+	 */
+	public ParallelGZIPOutputStream(final OutputStream out, final int level) throws IOException {
+		this(out, level, DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Creates a new stream that compresses the data using the given compression level and starts compressing in
+	 * parallel after the given number of bytes.
+	 *
+	 * @param out				the stream to write the compressed data to
+	 * @param level				the compression level, from 0 to 9 or -1 for the default level
+	 * @param parallelThreshold	number of bytes after which blocks are compressed in parallel
+	 * @throws IOException	when the GZip header cannot be written
+	 */
+	public ParallelGZIPOutputStream(final OutputStream out, final int level, final long parallelThreshold)
+																								throws IOException {
+		super(out);
+		this.level = level;
+		this.parallelThreshold = parallelThreshold;
+		this.executor = ForkJoinPool.commonPool();
+		this.maxPending = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+		out.write(GZIP_HEADER);
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(final byte[] b, int off, int len) throws IOException {
+		if (finished)
+			throw new IOException("Stream already finished");
+		crc.update(b, off, len);
+		totalIn += len;
+		while (len > 0) {
+			if (blockLength == BLOCK_SIZE)
+				submitBlock(false);
+			if (blockLength == block.length)
+				block = Arrays.copyOf(block, Math.min(BLOCK_SIZE, 2 * block.length));
+			final int n = Math.min(len, block.length - blockLength);
+			System.arraycopy(b, off, block, blockLength, n);
+			blockLength += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Finishes writing the compressed data to the underlying stream without closing it.
+	 *
+	 * @throws IOException	when the compressed data cannot be written
+	 */
+	public void finish() throws IOException {
+		if (finished)
+			return;
+		finished = true;
+		submitBlock(true);
+		while (!pending.isEmpty())
+			writeNextBlock();
+		final byte[] trailer = new byte[8];
+		writeInt((int) crc.getValue(), trailer, 0);
+		writeInt((int) totalIn, trailer, 4);
+		out.write(trailer);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Submits the current block for compression. The block is compressed by the current thread until the parallel
+	 * threshold is reached.
+	 *
+	 * @param last	indicates whether this is the last block
+	 * @throws IOException	when compressed data cannot be written
+	 */
+	private void submitBlock(final boolean last) throws IOException {
+		final byte[] data = block;
+		final int length = blockLength;
+		final byte[] dict = dictionary;
+		if (!last) {
+			dictionary = Arrays.copyOfRange(data, length - DICTIONARY_SIZE, length);
+			block = new byte[BLOCK_SIZE];
+			blockLength = 0;
+		}
+		final boolean inline = submitted < parallelThreshold && pending.isEmpty();
+		submitted += length;
+		if (inline)
+			out.write(deflate(data, length, dict, last, level));
+		else {
+			while (pending.size() >= maxPending)
+				writeNextBlock();
+			pending.add(CompletableFuture.supplyAsync(() -> deflate(data, length, dict, last, level), executor));
+		}
+	}
+
+	/**
+	 * Writes the first pending block to the underlying stream, waiting for its compression to complete.
+	 *
+	 * @throws IOException	when the block could not be compressed or written
+	 */
+	private void writeNextBlock() throws IOException {
+		final byte[] compressed;
+		try {
+			compressed = pending.removeFirst().join();
+		} catch (CompletionException compressionFailure) {
+			pending.forEach(f -> f.cancel(false));
+			pending.clear();
+			throw new IOException("Could not compress data", compressionFailure.getCause());
+		}
+		out.write(compressed);
+	}
+
+	/**
+	 * Deflates a block of data.
+	 *
+	 * @param data			the data to compress
+	 * @param length		the length of the data
+	 * @param dictionary	the dictionary to use, <code>null</code> for the first block
+	 * @param last			indicates whether this is the last block and the deflate stream should be ended
+	 * @param level			the compression level
+	 * @return	the compressed data
+	 */
+	static byte[] deflate(final byte[] data, final int length, final byte[] dictionary, final boolean last,
+						  final int level) {
+		final Deflater deflater = new Deflater(level, true);
+		try {
+			if (dictionary != null)
+				deflater.setDictionary(dictionary);
+			deflater.setInput(data, 0, length);
+			final ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+			final byte[] buffer = new byte[64 * 1024];
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished())
+					compressed.write(buffer, 0, deflater.deflate(buffer));
+			} else {
+				// Sync flush to end the block on a byte boundary without marking it as last
+				int n;
+				do {
+					n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					compressed.write(buffer, 0, n);
+				} while (n == buffer.length);
+			}
+			return compressed.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+    /**
+     * Writes an integer in Intel byte order to a byte array, starting at a given offset.
+     */
+    private static void writeInt(final int i, final byte[] buf, final int offset) {
+        buf[offset] = (byte) (i & 0xff);
+        buf[offset + 1] = (byte) ((i >> 8) & 0xff);
+        buf[offset + 2] = (byte) ((i >> 16) & 0xff);
+        buf[offset + 3] = (byte) ((i >> 24) & 0xff);
+    }
+}
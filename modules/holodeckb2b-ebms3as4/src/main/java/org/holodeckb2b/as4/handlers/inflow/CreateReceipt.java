@@ -145,7 +145,7 @@ public class CreateReceipt extends AbstractUserMessageHandler {
                     log.trace("The Receipt should be sent separately");
                     HolodeckB2BCore.getStorageManager().setProcessingState(receipt, ProcessingState.READY_TO_PUSH);
                 }
-                log.debug("Receipt for message [msgId=" + um.getMessageId() + "] created successfully");
+                log.debug("Receipt for message [msgId={}] created successfully", um.getMessageId());
                 // Trigger event to signal that the event was created
                 HolodeckB2BCore.getEventProcessor()
                 			   .raiseEvent(new ReceiptCreatedEvent(um, receipt,
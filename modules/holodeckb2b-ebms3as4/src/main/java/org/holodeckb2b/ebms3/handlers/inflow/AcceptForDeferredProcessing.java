@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.handlers.inflow;
+
+import java.util.Collection;
+
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.common.handlers.AbstractBaseHandler;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.core.axis2.InboundQueue;
+import org.holodeckb2b.core.pmode.PModeUtils;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader.MessageUnits;
+import org.holodeckb2b.ebms3.pmode.PModeFinder;
+import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
+import org.holodeckb2b.interfaces.general.EbMSConstants;
+import org.holodeckb2b.interfaces.general.ReplyPattern;
+import org.holodeckb2b.interfaces.pmode.IErrorHandling;
+import org.holodeckb2b.interfaces.pmode.ILeg;
+import org.holodeckb2b.interfaces.pmode.IPMode;
+import org.holodeckb2b.interfaces.pmode.IReceiptConfiguration;
+
+/**
+ * Is the <i>IN_FLOW</i> handler that decides whether the processing of a received message can be deferred when the
+ * HTTP listener is configured to accept messages for later processing (see {@link InboundQueue}). This is only possible
+ * when no synchronous response is needed, i.e. when the message contains just a User Message that is pushed to
+ * Holodeck B2B and both the Receipt and Errors are sent asynchronously according to the P-Mode. If so, the message is
+ * persisted in the queue and the processing of the request stops here, so the sender directly gets a <i>202 Accepted
+ * </i> response. The message will then go through the complete processing again from the queue.
+ * <p>As this handler runs before the User Message is stored in the database, the P-Mode is found using only the
+ * meta-data from the header. If the handler cannot determine that the message can be deferred, for example because
+ * the header is invalid or no P-Mode is found, the message is processed directly so the normal error handling applies.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public class AcceptForDeferredProcessing extends AbstractBaseHandler {
+
+	@Override
+	protected InvocationResponse doProcessing(final IMessageProcessingContext procCtx, final Logger log)
+																								throws Exception {
+		final InboundQueue.Spool spool = (InboundQueue.Spool) procCtx.getParentContext()
+																	 .getProperty(InboundQueue.MC_SPOOL);
+		if (spool == null)
+			return InvocationResponse.CONTINUE;
+
+		final String msgId;
+		try {
+			final IPMode pmode;
+			final MessageUnits msgUnits = MessagingHeaderReader.getMessageUnits(procCtx.getParentContext());
+			if (msgUnits == null || msgUnits.getUserMessages().isEmpty() || msgUnits.getSignalCount() > 0) {
+				log.trace("Message does not contain only a User Message, process now");
+				spool.discard();
+				return InvocationResponse.CONTINUE;
+			}
+			final UserMessage userMessage = msgUnits.getUserMessages().get(0);
+			msgId = userMessage.getMessageId();
+			@SuppressWarnings("unchecked")
+			final Collection<IPMode> pmodeSet = (Collection<IPMode>) procCtx.getProperty(
+																					FindPModes.CTX_APPL_PMODESET);
+			pmode = pmodeSet != null ? PModeFinder.forReceivedUserMessage(pmodeSet, userMessage)
+									 : PModeFinder.forReceivedUserMessage(userMessage);
+			if (!isAsynchronous(pmode)) {
+				log.debug("User Message [{}] needs synchronous processing", msgId);
+				spool.discard();
+				return InvocationResponse.CONTINUE;
+			}
+		} catch (Exception headerError) {
+			log.debug("Could not determine if message can be deferred, process now. Error: {}",
+					  headerError.getMessage());
+			spool.discard();
+			return InvocationResponse.CONTINUE;
+		}
+
+		if (spool.defer()) {
+			log.info("User Message [{}] accepted for later processing", msgId);
+			return InvocationResponse.ABORT;
+		} else {
+			log.debug("Queue is full, processing User Message [{}] now", msgId);
+			return InvocationResponse.CONTINUE;
+		}
+	}
+
+	/**
+	 * Checks whether the given P-Mode specifies that received User Messages are pushed and that both Receipts and
+	 * Errors must be sent asynchronously.
+	 *
+	 * @param pmode		the P-Mode of the received User Message
+	 * @return	<code>true</code> if no synchronous response is needed for the User Message, <code>false</code>
+	 * 			otherwise
+	 */
+	private boolean isAsynchronous(final IPMode pmode) {
+		if (pmode == null || !EbMSConstants.ONE_WAY_PUSH.equals(pmode.getMepBinding()))
+			return false;
+		final ILeg leg = PModeUtils.getReceiveLeg(pmode);
+		if (leg == null)
+			return false;
+		final IReceiptConfiguration rcptConfig = leg.getReceiptConfiguration();
+		// When not configured Errors are sent as response
+		final IErrorHandling errorHandling = leg.getUserMessageFlow() != null ?
+											leg.getUserMessageFlow().getErrorHandlingConfiguration() : null;
+		return (rcptConfig == null || rcptConfig.getPattern() == ReplyPattern.CALLBACK)
+				&& errorHandling != null && errorHandling.getPattern() == ReplyPattern.CALLBACK;
+	}
+}
@@ -74,12 +74,12 @@ public class AuthorizeMessage extends AbstractBaseHandler {
                 // Authorization of Pull Request is handled separately
                 continue;
 
-            log.trace("Get P-Mode for message unit [" + mu.getMessageId() + "] and check if authorization is used");
+            log.trace("Get P-Mode for message unit [{}] and check if authorization is used", mu.getMessageId());
             final IPMode pmode = pmodes.get(mu.getPModeId());
             if (pmode == null) {
                 // This can happen for general Error signals that do not have a RefToMessageId and can not be linked to
                 // a sent message unit
-                log.debug("No P-Mode found for message unit [" + mu.getMessageId() + "], nothing to check!");
+                log.debug("No P-Mode found for message unit [{}], nothing to check!", mu.getMessageId());
                 continue;
             }
 
@@ -100,7 +100,7 @@ public class AuthorizeMessage extends AbstractBaseHandler {
             final IUsernameTokenConfiguration utConfig = tpSecConfig == null ? null :
                                                    tpSecConfig.getUsernameTokenConfiguration(SecurityHeaderTarget.EBMS);
             if (utConfig == null) {
-                log.debug("No authorization of message unit [" + mu.getMessageId() + "] required");
+                log.debug("No authorization of message unit [{}] required", mu.getMessageId());
                 continue;
             }
 
@@ -116,12 +116,12 @@ public class AuthorizeMessage extends AbstractBaseHandler {
             if (!VerificationUtils.verifyUsernameToken(utConfig, 
             										   utToken.isPresent() ? (IUsernameTokenProcessingResult) utToken.get()
             												   			   : null)) {
-                log.info("Message unit [" + mu.getMessageId() + "] could not be authorized!");
+                log.info("Message unit [{}] could not be authorized!", mu.getMessageId());
                 procCtx.addGeneratedError(new FailedAuthentication("Authentication of message unit failed!",
                 												   mu.getMessageId()));
                 HolodeckB2BCore.getStorageManager().setProcessingState(mu, ProcessingState.FAILURE);                
             } else {
-                log.info("Message unit [" + mu.getMessageId() + "] successfully authorized");
+                log.info("Message unit [{}] successfully authorized", mu.getMessageId());
             }
         }
 
@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.handlers.inflow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.activation.DataHandler;
+
+import org.apache.axiom.attachments.Attachments;
+import org.apache.axiom.attachments.ByteArrayDataSource;
+import org.apache.axiom.attachments.CachedFileDataSource;
+import org.apache.axiom.mime.MultipartBody;
+import org.apache.axiom.mime.Part;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.common.handlers.AbstractUserMessageHandler;
+import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.core.pmode.PModeUtils;
+import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
+import org.holodeckb2b.interfaces.pmode.ILeg;
+import org.holodeckb2b.interfaces.pmode.IPayloadProfile;
+import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
+
+/**
+ * Is the <i>IN_FLOW</i> handler that applies the P-Mode specific settings for buffering the attachments of a received
+ * User Message as specified in its payload profile (see {@link IPayloadProfile#getAttachmentMemoryThreshold()} and
+ * {@link IPayloadProfile#getAttachmentTempDirectory()}).
+ * <p>As the MIME package is already being parsed before the P-Mode of the message is known, Axiom buffers the
+ * attachments according to the settings of the listener. But because the attachments are only read when they are
+ * accessed and this handler runs directly after the P-Mode has been found, the content of the attachments is still
+ * unread and can be streamed directly to memory or to a file in the configured directory. Attachments stored in a
+ * file are handed over to the payload storage by the {@link SaveUserMsgAttachments} handler, which can then move the
+ * file instead of copying its content when the directory is on the same file system as the storage. Files that are
+ * not taken over by the storage, for example because the message could not be processed, are removed when the
+ * processing of the message is completed.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public class BufferReceivedAttachments extends AbstractUserMessageHandler {
+	/**
+	 * Name of the message context property that holds the list of files used to buffer the attachments
+	 */
+	static final String MC_BUFFER_FILES = "hb2b:attachment-buffers";
+	/**
+	 * Name of the sub directory of the temp directory used when no directory for attachments is configured
+	 */
+	static final String ATTACHMENT_DIR = "attachments";
+
+	@Override
+	protected InvocationResponse doProcessing(final IUserMessageEntity um, final IMessageProcessingContext procCtx,
+											  final Logger log) throws Exception {
+		final ILeg leg = PModeUtils.getLeg(um);
+		final IPayloadProfile plProfile = leg != null && leg.getUserMessageFlow() != null ?
+														leg.getUserMessageFlow().getPayloadProfile() : null;
+		if (plProfile == null
+			|| (plProfile.getAttachmentMemoryThreshold() < 0 && plProfile.getAttachmentTempDirectory() == null)) {
+			log.trace("Attachments are buffered according to listener settings");
+			return InvocationResponse.CONTINUE;
+		}
+
+		final MessageContext mc = procCtx.getParentContext();
+		MultipartBody mimePackage;
+		try {
+			mimePackage = mc.getAttachmentMap().getMultipartBody();
+		} catch (IllegalStateException notMIME) {
+			mimePackage = null;
+		}
+		if (mimePackage == null) {
+			log.trace("Message does not contain attachments");
+			return InvocationResponse.CONTINUE;
+		}
+
+		final long threshold = plProfile.getAttachmentMemoryThreshold() >= 0 ? plProfile.getAttachmentMemoryThreshold()
+																		: getListenerThreshold(mc);
+		if (threshold < 0) {
+			log.trace("No memory threshold configured, attachments are kept in memory");
+			return InvocationResponse.CONTINUE;
+		}
+		final Path directory = getDirectory(plProfile, mc);
+		log.debug("Buffer attachments of User Message [{}] using threshold of {} bytes and directory {}",
+				  um.getMessageId(), threshold, directory);
+
+		// The parts must all be read before the new data handlers can be registered, as registering a data handler
+		// causes Axiom to fetch all remaining parts
+		final List<Path> bufferFiles = new ArrayList<>();
+		mc.setProperty(MC_BUFFER_FILES, bufferFiles);
+		final Map<String, DataHandler> buffered = new LinkedHashMap<>();
+		final Part rootPart = mimePackage.getRootPart();
+		for (Part p : mimePackage) {
+			if (p == rootPart)
+				continue;
+			final String contentId = p.getContentID();
+			try (InputStream content = p.getInputStream(false)) {
+				buffered.put(contentId, buffer(content, p.getHeader("Content-Type"), threshold, directory,
+											   bufferFiles));
+				log.trace("Buffered attachment [{}] {}", contentId, buffered.get(contentId).getDataSource()
+														instanceof CachedFileDataSource ? "in file" : "in memory");
+			} catch (IllegalStateException alreadyRead) {
+				log.debug("Content of attachment [{}] was already read, keeping buffered content", contentId);
+			}
+		}
+		final Attachments attachments = mc.getAttachmentMap();
+		buffered.forEach(attachments::addDataHandler);
+		log.debug("Buffered {} attachment(s) of User Message [{}], {} in file(s)", buffered.size(),
+				  um.getMessageId(), bufferFiles.size());
+
+		return InvocationResponse.CONTINUE;
+	}
+
+	/**
+	 * Reads the given content into memory when its size does not exceed the threshold and otherwise into a new file
+	 * in the given directory.
+	 *
+	 * @param content		the content of the attachment
+	 * @param contentType	the content type of the attachment
+	 * @param threshold		maximum size of the attachment to keep in memory
+	 * @param directory		the directory to create the file in
+	 * @param bufferFiles	list of buffer files to which the new file is added
+	 * @return	the data handler for the buffered content
+	 * @throws IOException	when the content cannot be read or written to the file
+	 */
+	private DataHandler buffer(final InputStream content, final String contentType, final long threshold,
+							   final Path directory, final List<Path> bufferFiles) throws IOException {
+		final String type = !Utils.isNullOrEmpty(contentType) ? contentType : "application/octet-stream";
+		final ByteArrayOutputStream memory = new ByteArrayOutputStream();
+		final byte[] buf = new byte[8192];
+		int r = 0;
+		while (memory.size() <= threshold && (r = content.read(buf)) >= 0)
+			memory.write(buf, 0, r);
+		if (r < 0)
+			return new DataHandler(new ByteArrayDataSource(memory.toByteArray(), type));
+
+		final Path file = Files.createTempFile(directory, "att", ".tmp");
+		bufferFiles.add(file);
+		try (OutputStream os = Files.newOutputStream(file)) {
+			memory.writeTo(os);
+			content.transferTo(os);
+		}
+		final CachedFileDataSource ds = new CachedFileDataSource(file.toFile());
+		ds.setContentType(type);
+		return new DataHandler(ds);
+	}
+
+	/**
+	 * Gets the memory threshold that applies to the listener on which the message was received, which is either the
+	 * listener specific or the global Axis2 setting.
+	 *
+	 * @param mc	the message context of the received message
+	 * @return	the memory threshold, or -1 if attachments are not cached on disk
+	 */
+	private long getListenerThreshold(final MessageContext mc) {
+		final Object caching = getSetting(mc, Constants.Configuration.CACHE_ATTACHMENTS);
+		final Object threshold = getSetting(mc, Constants.Configuration.FILE_SIZE_THRESHOLD);
+		return Utils.isTrue(caching != null ? caching.toString() : null) && threshold != null ?
+															Long.parseLong(threshold.toString().trim()) : -1;
+	}
+
+	/**
+	 * Gets the directory in which attachments exceeding the memory threshold are buffered. This is the directory
+	 * specified in the P-Mode, or if not specified the directory configured for the listener or in the global Axis2
+	 * settings, and otherwise the "attachments" sub directory of the Holodeck B2B temp directory.
+	 *
+	 * @param plProfile	the payload profile of the P-Mode
+	 * @param mc		the message context of the received message
+	 * @return	the directory to use
+	 * @throws IOException	when the directory does not exist and cannot be created
+	 */
+	private Path getDirectory(final IPayloadProfile plProfile, final MessageContext mc) throws IOException {
+		final Object configured = plProfile.getAttachmentTempDirectory() != null ?
+													plProfile.getAttachmentTempDirectory() :
+													getSetting(mc, Constants.Configuration.ATTACHMENT_TEMP_DIR);
+		final Path directory = configured != null && !Utils.isNullOrEmpty(configured.toString()) ?
+									Paths.get(configured.toString().trim()) :
+									HolodeckB2BCore.getConfiguration().getTempDirectory().resolve(ATTACHMENT_DIR);
+		return Files.createDirectories(directory);
+	}
+
+	/**
+	 * Gets the value of a setting for caching attachments in the same way as Axis2 does, i.e. first checking the
+	 * message context property and then the parameter.
+	 */
+	private static Object getSetting(final MessageContext mc, final String name) {
+		final Object value = mc.getProperty(name);
+		if (value != null)
+			return value;
+		final Parameter p = mc.getParameter(name);
+		return p != null ? p.getValue() : null;
+	}
+
+	@Override
+	protected void doFlowComplete(final IMessageProcessingContext procCtx, final Logger log) {
+		@SuppressWarnings("unchecked")
+		final List<Path> bufferFiles = (List<Path>) procCtx.getParentContext().getProperty(MC_BUFFER_FILES);
+		if (Utils.isNullOrEmpty(bufferFiles))
+			return;
+		for (Path f : bufferFiles)
+			try {
+				if (Files.deleteIfExists(f))
+					log.trace("Removed buffer file {}", f);
+			} catch (IOException e) {
+				log.warn("Could not remove attachment buffer file {} : {}", f, e.getMessage());
+			}
+	}
+}
@@ -64,7 +64,7 @@ public class DetermineErrorReporting extends AbstractBaseHandler {
         }
 
         StorageManager storageManager = HolodeckB2BCore.getStorageManager();
-        log.debug(errors.size() + " error signal(s) were generated during processing");
+        log.debug("{} error signal(s) were generated during processing", errors.size());
         final boolean isResponseFlow = procCtx.getParentContext().isServerSide();
         final Collection<IErrorMessageEntity> nonResponseErrors = new ArrayList<>();
         for(final IErrorMessageEntity error : errors) {
@@ -83,7 +83,7 @@ public class DetermineErrorReporting extends AbstractBaseHandler {
                 					  											  		  .getState()
                 					  											  		  == ProcessingState.FAILURE)
                 					  									  		    )) {
-                    log.debug("Error Signal [msgId=" + error.getMessageId() + "] should be send as response");
+                    log.debug("Error Signal [msgId={}] should be send as response", error.getMessageId());
                     procCtx.setNeedsResponse(true);
                 } else {
                     log.warn("Error Signal [msgId=" + error.getMessageId()
@@ -146,8 +146,8 @@ public class DetermineErrorReporting extends AbstractBaseHandler {
                     }
 
                     if (sendError) {
-                        log.debug("Error Signal [msgId=" + error.getMessageId() + "] should be sent"
-                                    + (asResponse ?  " as a response" : " a using callback"));
+                        log.debug("Error Signal [msgId={}] should be sent{}",
+                                  error.getMessageId(), (asResponse ?  " as a response" : " a using callback"));
                         if (asResponse)
                             procCtx.setNeedsResponse(true);
                         else {
@@ -78,7 +78,7 @@ public class FindPModes extends AbstractBaseHandler {
         StorageManager updateManager = HolodeckB2BCore.getStorageManager();
         final IUserMessageEntity userMsg = procCtx.getReceivedUserMessage();
         if (userMsg != null) {
-            log.debug("Finding P-Mode for User Message [" + userMsg.getMessageId() + "]");
+            log.debug("Finding P-Mode for User Message [{}]", userMsg.getMessageId());
             @SuppressWarnings("unchecked")
 			Collection<IPMode> pmodeSet = (Collection<IPMode>) procCtx.getProperty(CTX_APPL_PMODESET);
             IPMode pmode;
@@ -103,14 +103,14 @@ public class FindPModes extends AbstractBaseHandler {
                 log.trace("Set the processing state of this User Message to failure");
                 updateManager.setProcessingState(userMsg, ProcessingState.FAILURE);
             } else {
-                log.info("Found P-Mode [" + pmode.getId() + "] for User Message [" + userMsg.getMessageId() + "]");
+                log.info("Found P-Mode [{}] for User Message [{}]", pmode.getId(), userMsg.getMessageId());
                 updateManager.setPModeId(userMsg, pmode.getId());
             }
         }
 
         final Collection<IErrorMessageEntity>  errorSignals = procCtx.getReceivedErrors();
         if (!Utils.isNullOrEmpty(errorSignals)) {
-            log.debug("Message contains " + errorSignals.size() + " Error Signals, finding P-Modes");
+            log.debug("Message contains {} Error Signals, finding P-Modes", errorSignals.size());
             for (final IErrorMessageEntity e : errorSignals) {
                 final Pair<IPMode, ILeg.Label> pl = findForReceivedErrorSignal(e, procCtx);
                 if (pl == null) {
@@ -121,7 +121,7 @@ public class FindPModes extends AbstractBaseHandler {
                     log.trace("Set the processing state of this Error Signal to failure");
                     updateManager.setProcessingState(e, ProcessingState.FAILURE);
                 } else {
-                    log.info("Found P-Mode [" + pl.value1().getId() + "] for Error Signal [" + e.getMessageId() + "]");
+                    log.info("Found P-Mode [{}] for Error Signal [{}]", pl.value1().getId(), e.getMessageId());
                     updateManager.setPModeAndLeg(e, pl);
                 }
             }
@@ -129,7 +129,7 @@ public class FindPModes extends AbstractBaseHandler {
 
         final Collection<IReceiptEntity>  rcptSignals = procCtx.getReceivedReceipts();
         if (!Utils.isNullOrEmpty(rcptSignals)) {
-            log.debug("Message contains " + rcptSignals.size() + " Receipt Signals, finding P-Modes");
+            log.debug("Message contains {} Receipt Signals, finding P-Modes", rcptSignals.size());
             for (final IReceiptEntity r : rcptSignals) {
                 final Pair<IPMode, ILeg.Label> pl = getPModeAndLegFromRefdMessage(r.getRefToMessageId());
                 if (pl == null) {
@@ -141,7 +141,7 @@ public class FindPModes extends AbstractBaseHandler {
                     updateManager.setProcessingState(r, ProcessingState.FAILURE);
                 } else {
                 	IPMode pmode = pl.value1();
-                    log.info("Found P-Mode [" + pmode.getId() + "] for message [" + r.getMessageId() + "]");
+                    log.info("Found P-Mode [{}] for message [{}]", pmode.getId(), r.getMessageId());
                     updateManager.setPModeId(r, pmode.getId());
                 }
             }
@@ -70,7 +70,7 @@ public class FindPModesForPullRequest extends AbstractBaseHandler {
 
             if (Utils.isNullOrEmpty(pullPModes)) {
                 // No P-Modes found for the MPC and authentication info provided in pull request
-                log.info("No P-Mode found for PullRequest [" + pullRequest.getMessageId() + "]");
+                log.info("No P-Mode found for PullRequest [{}]", pullRequest.getMessageId());
 
                 procCtx.addGeneratedError(new ProcessingModeMismatch(
                 										"Can not process pull request because no P-Mode was found!",
@@ -78,8 +78,8 @@ public class FindPModesForPullRequest extends AbstractBaseHandler {
                 log.trace("Set the processing state of this PullRequest to failure");
                 HolodeckB2BCore.getStorageManager().setProcessingState(pullRequest, ProcessingState.FAILURE);
             } else {
-                log.debug("Store the list of " + pullPModes.size()
-                            + " authorized PModes so next handler can retrieve message unit to return");
+                log.debug("Store the list of {} authorized PModes so next handler can retrieve message unit to return",
+                          pullPModes.size());
                 procCtx.setProperty(FOUND_PULL_PMODES, pullPModes);
             }
         }
@@ -69,7 +69,7 @@ public class GetMessageUnitForPulling extends AbstractBaseHandler {
             log.trace("Set processing state of Pull Request to indicate processing has completed");
             HolodeckB2BCore.getStorageManager().setProcessingState(pullRequest, ProcessingState.WARNING, "Empty");            
         } else {
-            log.debug("Message selected for pulling, msgId=" + pulledUserMsg.getMessageId());
+            log.debug("Message selected for pulling, msgId={}", pulledUserMsg.getMessageId());
             procCtx.setResponseUserMessage(pulledUserMsg);
             log.trace("Set processing state of Pull Request to indicate processing has completed");
             HolodeckB2BCore.getStorageManager().setProcessingState(pullRequest, ProcessingState.DONE);
@@ -115,7 +115,7 @@ public class GetMessageUnitForPulling extends AbstractBaseHandler {
             IUserMessageEntity userMsgToPull = null;
             do {
                 userMsgToPull = waitingUserMessages.get(i);
-                log.trace("Check if User Message [" + userMsgToPull.getMessageId() + "] can be pulled.");
+                log.trace("Check if User Message [{}] can be pulled.", userMsgToPull.getMessageId());
                 // The usermessage should be on assigned to the requested MPC or a parent MPC. But take care of possible
                 // empty MPC values                
                 final String rMPC = Utils.isNullOrEmpty(reqMPC) ? EbMSConstants.DEFAULT_MPC : reqMPC;
@@ -125,7 +125,7 @@ public class GetMessageUnitForPulling extends AbstractBaseHandler {
                     log.trace("User Message can be pulled, set processing state to Processing");
                     r = HolodeckB2BCore.getStorageManager().setProcessingState(userMsgToPull,
                                                                               ProcessingState.PROCESSING);
-                    log.trace("Processing state was " + (r ? "" : "not ")  + "changed");
+                    log.trace("Processing state was {}changed", (r ? "" : "not "));
                 } else
                     log.trace("MPC value of selected message is different from requested MPC!");
                 i++;
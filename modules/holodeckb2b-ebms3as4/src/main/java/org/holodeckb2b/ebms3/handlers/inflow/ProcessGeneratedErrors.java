@@ -80,8 +80,9 @@ public class ProcessGeneratedErrors extends AbstractBaseHandler {
         // Create Error signal for each bundle, i.e. each referenced message
         for(final String refToMsgId : errors.keySet()) {
         	final boolean noRef = MessageProcessingContext.UNREFD_ERRORS.equals(refToMsgId);
-            log.debug("Creating new Error Signal for errors " + (noRef ? "without reference" :
-            													"referencing messsage unit with msgId=" + refToMsgId));
+            if (log.isDebugEnabled())
+            	log.debug("Creating new Error Signal for errors {}", noRef ? "without reference" :
+            													"referencing messsage unit with msgId=" + refToMsgId);
             final IMessageUnitEntity muInError = noRef ? null
 	            									 : procCtx.getReceivedMessageUnits()
 	                										  .parallelStream()
@@ -95,7 +95,7 @@ public class ProcessSecurityHeaders extends AbstractBaseHandler {
         if (pmode == null && !(primaryMU instanceof IPullRequest))
             log.warn("No P-Mode available for security setting.");
         else if (!(primaryMU instanceof IPullRequest)) {
-            log.trace("PMode to use for security processing : " + pmode.getId());
+            log.trace("PMode to use for security processing : {}", pmode.getId());
             /* Now get the security configs that apply to the message, may be used by the security provider to check on
             /  security policies. To get correct settings we need to determine whether HB2B is the initiator of the MEP
             /  or the responder to get the correct settings */
@@ -108,8 +108,8 @@ public class ProcessSecurityHeaders extends AbstractBaseHandler {
             // Get the security configuration for encryption of the message
             final ITradingPartnerConfiguration hb2bPartner = initiator ? pmode.getInitiator() : pmode.getResponder();
             receiverConfig = hb2bPartner != null ? hb2bPartner.getSecurityConfiguration() : null;
-            log.debug("Prepared security configuration based on P-Mode [" + pmode.getId()
-                        + "] of the primary message unit [" + primaryMU.getMessageId() + "]");
+            log.debug("Prepared security configuration based on P-Mode [{}] of the primary message unit [{}]",
+                      pmode.getId(), primaryMU.getMessageId());
         }
         // Get the User Message message unit from the message
         IUserMessage userMessage = procCtx.getReceivedUserMessage();
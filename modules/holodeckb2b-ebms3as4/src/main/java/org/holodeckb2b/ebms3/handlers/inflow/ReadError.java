@@ -16,17 +16,12 @@
  */
 package org.holodeckb2b.ebms3.handlers.inflow;
 
-import java.util.Iterator;
-
-import org.apache.axiom.om.OMElement;
-import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.handlers.AbstractBaseHandler;
 import org.holodeckb2b.common.messagemodel.ErrorMessage;
-import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.core.HolodeckB2BCore;
-import org.holodeckb2b.ebms3.packaging.ErrorSignalElement;
-import org.holodeckb2b.ebms3.packaging.Messaging;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader.MessageUnits;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
 import org.holodeckb2b.interfaces.storage.StorageException;
@@ -47,27 +42,22 @@ public class ReadError extends AbstractBaseHandler {
     @Override
     protected InvocationResponse doProcessing(final IMessageProcessingContext procCtx, final Logger log)
     																					throws StorageException {
-        // First get the ebMS header block, that is the eb:Messaging element
-        final SOAPHeaderBlock messaging = Messaging.getElement(procCtx.getParentContext().getEnvelope());
+        // Get the message units from the ebMS header, i.e. the eb:Messaging element
+        final MessageUnits msgUnits = MessagingHeaderReader.getMessageUnits(procCtx.getParentContext());
 
-        if (messaging != null) {
+        if (msgUnits != null) {
             // Check if there are Error signals
             log.trace("Check for Error elements to determine if message contains one or more errors");
-            final Iterator<OMElement> errorSigs = ErrorSignalElement.getElements(messaging);
-
-            if (!Utils.isNullOrEmpty(errorSigs)) {
+            if (!msgUnits.getErrors().isEmpty()) {
                 log.debug("Error Signal(s) found, read information from message");
 
-                while (errorSigs.hasNext()) {
-                    final OMElement errElem = errorSigs.next();
-                    // Read information into ErrorMessage object
-                    ErrorMessage errorSignal = ErrorSignalElement.readElement(errElem);
-                    log.debug("Succesfully read Error message meta data from header. Msg-id="
-                            + errorSignal.getMessageId());
+                for (final ErrorMessage errorSignal : msgUnits.getErrors()) {
+                    log.debug("Succesfully read Error message meta data from header. Msg-id={}",
+                              errorSignal.getMessageId());
                     // And store in database and message context for further processing
                     log.trace("Store Error Signal in database and message context");
                     procCtx.addReceivedError(HolodeckB2BCore.getStorageManager().storeReceivedMessageUnit(errorSignal));
-                    log.info("Error signal with msgId " + errorSignal.getMessageId() + " succesfully read");
+                    log.info("Error signal with msgId {} succesfully read", errorSignal.getMessageId());
                 }
             }
         }
@@ -16,13 +16,11 @@
  */
 package org.holodeckb2b.ebms3.handlers.inflow;
 
-import org.apache.axiom.om.OMElement;
-import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.handlers.AbstractBaseHandler;
 import org.holodeckb2b.core.HolodeckB2BCore;
-import org.holodeckb2b.ebms3.packaging.Messaging;
-import org.holodeckb2b.ebms3.packaging.PullRequestElement;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader.MessageUnits;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
 import org.holodeckb2b.interfaces.storage.StorageException;
@@ -44,22 +42,20 @@ public class ReadPullRequest extends AbstractBaseHandler {
     @Override
     protected InvocationResponse doProcessing(final IMessageProcessingContext procCtx, final Logger log)
     																					throws StorageException {
-        // First get the ebMS header block, that is the eb:Messaging element
-        final SOAPHeaderBlock messaging = Messaging.getElement(procCtx.getParentContext().getEnvelope());
+        // Get the message units from the ebMS header, i.e. the eb:Messaging element
+        final MessageUnits msgUnits = MessagingHeaderReader.getMessageUnits(procCtx.getParentContext());
 
-        if (messaging != null) {
+        if (msgUnits != null) {
             // Check if there is a Pull Request signal
             log.trace("Check for PullRequest element to determine if message contains pull request");
-            final OMElement prElement = PullRequestElement.getElement(messaging);
-            if (prElement != null) {
+            final org.holodeckb2b.common.messagemodel.PullRequest pullRequest = msgUnits.getPullRequest();
+            if (pullRequest != null) {
                 log.debug("PullRequest found, read information from message");
-                // Read information into PullRequest object
-                org.holodeckb2b.common.messagemodel.PullRequest pullRequest = PullRequestElement.readElement(prElement);
                 // And store in database and message context for further processing
                 log.trace("Store PullRequest in database and message context");
                 procCtx.setPullRequest(HolodeckB2BCore.getStorageManager().storeReceivedMessageUnit(pullRequest));
-                log.info("PullRequest [msgId=" + pullRequest.getMessageId() + "] for MPC " + pullRequest.getMPC()
-                        + " received.");
+                log.info("PullRequest [msgId={}] for MPC {} received.",
+                         pullRequest.getMessageId(), pullRequest.getMPC());
             }
         }
 
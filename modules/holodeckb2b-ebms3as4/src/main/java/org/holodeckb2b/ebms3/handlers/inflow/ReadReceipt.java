@@ -16,17 +16,12 @@
  */
 package org.holodeckb2b.ebms3.handlers.inflow;
 
-import java.util.Iterator;
-
-import org.apache.axiom.om.OMElement;
-import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.handlers.AbstractBaseHandler;
 import org.holodeckb2b.common.messagemodel.Receipt;
-import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.core.HolodeckB2BCore;
-import org.holodeckb2b.ebms3.packaging.Messaging;
-import org.holodeckb2b.ebms3.packaging.ReceiptElement;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader.MessageUnits;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
 import org.holodeckb2b.interfaces.storage.StorageException;
@@ -34,7 +29,7 @@ import org.holodeckb2b.interfaces.storage.StorageException;
 /**
  * Is the handler that checks if this message contains one or more Receipt signals, i.e. contains one or more
  * <code>eb:Receipt</code> elements in the ebMS header. When such signal message units are found the information is read
- * from the message into a array of {@link ReceiptElement} objects and stored in both database and message processing
+ * from the message into a array of {@link Receipt} objects and stored in both database and message processing
  * context. The processing state of the new receipts will be set to {@link ProcessingState#RECEIVED}.
  * <p><b>NOTE: </b>This handler will process all receipt signals that are in the message although the ebMS V3 Core
  * Specification does not allow more than one.
@@ -46,26 +41,20 @@ public class ReadReceipt extends AbstractBaseHandler {
     @Override
     protected InvocationResponse doProcessing(final IMessageProcessingContext procCtx, final Logger log)
     																					throws StorageException {
-        // First get the ebMS header block, that is the eb:Messaging element
-        final SOAPHeaderBlock messaging = Messaging.getElement(procCtx.getParentContext().getEnvelope());
+        // Get the message units from the ebMS header, i.e. the eb:Messaging element
+        final MessageUnits msgUnits = MessagingHeaderReader.getMessageUnits(procCtx.getParentContext());
 
-        if (messaging != null) {
+        if (msgUnits != null) {
             // Check if there are Receipt signals
             log.trace("Check for Receipt elements to determine if message contains one or more receipts");
-            final Iterator<OMElement> rcpts = ReceiptElement.getElements(messaging);
-
-            if (!Utils.isNullOrEmpty(rcpts)) {
+            if (!msgUnits.getReceipts().isEmpty()) {
                 log.debug("Receipt(s) found, read information from message");
-                while (rcpts.hasNext()) {
-                    final OMElement rcptElem = rcpts.next();
-                    // Read information into Receipt object
-                    Receipt receipt = ReceiptElement.readElement(rcptElem);
-
+                for (final Receipt receipt : msgUnits.getReceipts()) {
                     // And store in database and message context for further processing
                     log.trace("Store Receipt in database");
                     procCtx.addReceivedReceipt(HolodeckB2BCore.getStorageManager().storeReceivedMessageUnit(receipt));
-                    log.info("Receipt [msgId=" + receipt.getMessageId() + "] received for message with id:"
-                             + receipt.getRefToMessageId());
+                    log.info("Receipt [msgId={}] received for message with id:{}",
+                             receipt.getMessageId(), receipt.getRefToMessageId());
                 }
             }
         }
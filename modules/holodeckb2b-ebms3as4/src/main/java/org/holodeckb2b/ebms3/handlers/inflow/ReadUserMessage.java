@@ -16,17 +16,13 @@
  */
 package org.holodeckb2b.ebms3.handlers.inflow;
 
-import java.util.Iterator;
-
-import org.apache.axiom.om.OMElement;
-import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.handlers.AbstractBaseHandler;
 import org.holodeckb2b.common.messagemodel.UserMessage;
 import org.holodeckb2b.core.HolodeckB2BCore;
 import org.holodeckb2b.core.validation.header.HeaderValidationHandler;
-import org.holodeckb2b.ebms3.packaging.Messaging;
-import org.holodeckb2b.ebms3.packaging.UserMessageElement;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderReader.MessageUnits;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
 import org.holodeckb2b.interfaces.storage.StorageException;
@@ -51,25 +47,21 @@ public class ReadUserMessage extends AbstractBaseHandler {
     @Override
     protected InvocationResponse doProcessing(final IMessageProcessingContext procContext, final Logger log)
     																					throws StorageException {
-        // First get the ebMS header block, that is the eb:Messaging element
-        final SOAPHeaderBlock messaging = Messaging.getElement(procContext.getParentContext().getEnvelope());
+        // Get the message units from the ebMS header, i.e. the eb:Messaging element
+        final MessageUnits msgUnits = MessagingHeaderReader.getMessageUnits(procContext.getParentContext());
 
-        if (messaging != null) {
+        if (msgUnits != null) {
             // Check if there is a user message unit
             log.trace("Check for UserMessage element");
-            final Iterator<?> it = UserMessageElement.getElements(messaging);
-            if (it.hasNext()) {
+            if (!msgUnits.getUserMessages().isEmpty()) {
                 log.debug("UserMessage found, read information from message");
-                final OMElement umElement = (OMElement) it.next();
-                // Read information into UserMessage entity object
-                UserMessage userMessage = UserMessageElement.readElement(umElement);
-                log.debug("Succesfully read user message meta data from header. Msg-id="
-                        	+ userMessage.getMessageId());
+                UserMessage userMessage = msgUnits.getUserMessages().get(0);
+                log.debug("Succesfully read user message meta data from header. Msg-id={}", userMessage.getMessageId());
 
                 // Store it in both database and message context for further processing
                 log.trace("Saving user message meta data to database and message context");
                 procContext.setUserMessage(HolodeckB2BCore.getStorageManager().storeReceivedMessageUnit(userMessage));
-                log.info("User message with msgId " + userMessage.getMessageId() + " succesfully read");
+                log.info("User message with msgId {} succesfully read", userMessage.getMessageId());
             }
         }
 
@@ -23,13 +23,16 @@ import java.util.Iterator;
 import java.util.zip.ZipException;
 
 import javax.activation.DataHandler;
+import javax.activation.DataSource;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.apache.axiom.attachments.CachedFileDataSource;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.soap.SOAPBody;
 import org.apache.logging.log4j.Logger;
+import org.holodeckb2b.as4.compression.CompressionDataHandler;
 import org.holodeckb2b.as4.compression.DeCompressionFailure;
 import org.holodeckb2b.common.errors.FailedDecryption;
 import org.holodeckb2b.common.errors.MimeInconsistency;
@@ -79,7 +82,7 @@ public class SaveUserMsgAttachments extends AbstractUserMessageHandler {
             return InvocationResponse.CONTINUE;
         }
 
-        log.debug("UserMessage contains " + payloads.size() + " payloads.");
+        log.debug("UserMessage contains {} payloads.", payloads.size());
         try {
             // Save each payload to storage
         	IPMode pmode = HolodeckB2BCoreInterface.getPModeSet().get(um.getPModeId());
@@ -116,7 +119,7 @@ public class SaveUserMsgAttachments extends AbstractUserMessageHandler {
                                 log.trace("Payload metadata references SOAP body element");
                                 plElement = body.getFirstElement();
                             } else {
-                                log.trace("Payload is element with id " + plRef + " of SOAP body");
+                                log.trace("Payload is element with id {} of SOAP body", plRef);
                                 plElement = getPayloadFromBody(body, plRef);
                             }
                         }
@@ -138,7 +141,7 @@ public class SaveUserMsgAttachments extends AbstractUserMessageHandler {
                         }
                         break;
                     case ATTACHMENT:
-                        log.trace("Payload is contained in attachment with MIME Content-id= " + plRef);
+                        log.trace("Payload is contained in attachment with MIME Content-id= {}", plRef);
                         // Get access to the actual content
                         log.debug("Get DataHandler for attachment");
                         final DataHandler dh = procCtx.getParentContext().getAttachment(plRef);
@@ -147,6 +150,18 @@ public class SaveUserMsgAttachments extends AbstractUserMessageHandler {
                         	// Create an ValueInconsistent error and store it in the MessageContext
                             createInconsistentError(procCtx, um, plRef, log);
                             return InvocationResponse.CONTINUE;
+                        }
+                        final DataSource ds = dh.getDataSource();
+                        // A compressed attachment is wrapped in a CompressionDataHandler that uses the data source of
+                        // the compressed content and decompresses it when written. Decrypted attachments are replaced
+                        // by a new DataHandler with the decrypted stream, so these are never file-cached.
+                        if (ds instanceof CachedFileDataSource && !(dh instanceof CompressionDataHandler)) {
+                        	// The attachment was already cached to disk by Axiom and is not transformed, so let the
+                        	// storage take over the temp file instead of writing the content a second time
+                        	log.trace("Attachment is cached in file, hand over to payload storage");
+                        	storage.adoptContent(((CachedFileDataSource) ds).getFile().toPath());
+                        	log.debug("Payload saved to storage, set Mime type in meta data");
+                        	p.setMimeType(dh.getContentType());
                         } else {
                             try (final OutputStream aOS = storage.openStorage())
                             {
@@ -175,8 +190,8 @@ public class SaveUserMsgAttachments extends AbstractUserMessageHandler {
                                     writeFailure = new OtherContentError("Unexpected error in payload processing!",
                                                                         um.getMessageId());
                                 }
-                                log.info("Payload [" + plRef + "] in message [" + um.getMessageId() + "] could not be "
-                                          + errMessage + "!\n\tDetails: " + rootCause.getMessage());
+                                log.info("Payload [{}] in message [{}] could not be {}!\n\tDetails: {}",
+                                         plRef, um.getMessageId(), errMessage, rootCause.getMessage());
                                 procCtx.addGeneratedError( writeFailure);
                                 log.trace("Error generated and stored in MC, change processing state of user message");
                                 updateManager.setProcessingState(um, ProcessingState.FAILURE);
@@ -187,7 +202,7 @@ public class SaveUserMsgAttachments extends AbstractUserMessageHandler {
                         }
                         break;
                     default:
-                        log.debug("Payload is not contained in message but located at " + plRef);
+                        log.debug("Payload is not contained in message but located at {}", plRef);
                         // External payload are not processed by Holodeck B2B, the URI is just passed to business app
                 }
                 // Update payload meta-data in database
@@ -236,8 +251,8 @@ public class SaveUserMsgAttachments extends AbstractUserMessageHandler {
      */
     private void createInconsistentError(final IMessageProcessingContext procCtx, final IUserMessageEntity um,
     									 final String invalidRef, final Logger log) throws StorageException {
-        log.info("UserMessage with id " + um.getMessageId() + " can not be processed because payload"
-                 + (invalidRef != null ? " with href=" + invalidRef  : "") + " is not included in message");
+        log.info("UserMessage with id {} can not be processed because payload{} is not included in message",
+                 um.getMessageId(), (invalidRef != null ? " with href=" + invalidRef  : ""));
         EbmsError error = null;
         if(invalidRef == null || invalidRef.startsWith("#"))
             error = new ValueInconsistent();
@@ -71,7 +71,7 @@ public class AddPayloads extends AbstractUserMessageHandler {
             log.debug("User message has no payloads");
         } else {
             // Add each payload to the message as described by the containment attribute
-            log.trace("User message contains " + payloads.size() + " payload(s)");
+            log.trace("User message contains {} payload(s)", payloads.size());
             for (final IPayloadEntity pl : payloads) {
                 // First ensure that the payload is assigned a MIME Content-Id when it added as an attachment
                 if (pl.getContainment() == ATTACHMENT && Utils.isNullOrEmpty(pl.getPayloadURI())) {
@@ -92,7 +92,7 @@ public class AddPayloads extends AbstractUserMessageHandler {
                     return InvocationResponse.ABORT;
                 }
             }
-            log.debug("Payloads successfully added to User Message [msgId=" + um.getMessageId() + "]");
+            log.debug("Payloads successfully added to User Message [msgId={}]", um.getMessageId());
         }
         return InvocationResponse.CONTINUE;
     }
@@ -135,7 +135,7 @@ public class AddPayloads extends AbstractUserMessageHandler {
 					}
                 }
 
-                log.trace("Payload mime type is " + mimeType);
+                log.trace("Payload mime type is {}", mimeType);
                 // Use Axiom ConfigurableDataHandler to enable setting of mime type
                 ConfigurableDataHandler dh = new ConfigurableDataHandler(new InputStreamDataSource(p.getContent()));
                 dh.setContentType(mimeType);
@@ -160,7 +160,7 @@ public class AddPayloads extends AbstractUserMessageHandler {
                         throw new Exception("Payload reference [" + href + "] and id of payload element [" + xmlId +
                                     "] are not equal! Can not create consistent message.");
                     } else if (href != null && Utils.isNullOrEmpty(xmlId)) {
-                        log.debug("Set specified reference in meta data [" + href + "] as xml:id on root element");
+                        log.debug("Set specified reference in meta data [{}] as xml:id on root element", href);
                         final OMNamespace xmlIdNS =
                                 documentElement.declareNamespace(EbMSConstants.QNAME_XMLID.getNamespaceURI(), "xml");
                         documentElement.addAttribute(EbMSConstants.QNAME_XMLID.getLocalPart(), href, xmlIdNS);
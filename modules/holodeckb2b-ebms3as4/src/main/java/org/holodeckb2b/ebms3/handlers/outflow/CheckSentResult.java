@@ -66,8 +66,7 @@ public class CheckSentResult extends AbstractBaseHandler {
         // And change their processing state
         for (final IMessageUnitEntity mu : msgUnits) {
             updateManager.setProcessingState(mu, ProcessingState.SENDING);
-            log.info(MessageUnitUtils.getMessageUnitName(mu) + " with msg-id ["
-                                                                    + mu.getMessageId() + "] is being sent");
+            log.info("{} with msg-id [{}] is being sent", MessageUnitUtils.getMessageUnitName(mu), mu.getMessageId());
         }
 
         return InvocationResponse.CONTINUE;
@@ -93,7 +92,7 @@ public class CheckSentResult extends AbstractBaseHandler {
         if (!Utils.isNullOrEmpty(msgUnits)) {
             log.trace("Check result of sent operation");
             final boolean   success = isSuccessful(procCtx);
-            log.debug("The sent operation was " + (success ? "" : "not ") + "successful");
+            log.debug("The sent operation was {}successful", (success ? "" : "not "));
 
             //Change processing state of all message units in the message accordingly
             final StorageManager updateManager = HolodeckB2BCore.getStorageManager();
@@ -118,8 +117,8 @@ public class CheckSentResult extends AbstractBaseHandler {
                         }
                         transferEvent = new MessageTransfered(mu);
                     }
-                    log.info("Processing state for message unit [" + mu.getMessageId() + "] changed to "
-                                + mu.getCurrentProcessingState().getState());
+                    log.info("Processing state for message unit [{}] changed to {}",
+                             mu.getMessageId(), mu.getCurrentProcessingState().getState());
                     // Raise a message processing event about the transfer
                     HolodeckB2BCore.getEventProcessor().raiseEvent(transferEvent);
                 } catch (final StorageException databaseException) {
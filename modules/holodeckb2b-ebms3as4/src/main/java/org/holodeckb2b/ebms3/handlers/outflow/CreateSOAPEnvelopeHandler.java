@@ -73,7 +73,7 @@ public class CreateSOAPEnvelopeHandler extends AbstractBaseHandler {
                 version = (reqMsgContext.isSOAP11() ? SOAPEnv.SOAPVersion.SOAP_11 : SOAPEnv.SOAPVersion.SOAP_12);
             }
 
-            log.debug("Create SOAP " + (version == SOAPEnv.SOAPVersion.SOAP_11 ? "1.1" : "1.2") + " envelope");
+            log.debug("Create SOAP {} envelope", (version == SOAPEnv.SOAPVersion.SOAP_11 ? "1.1" : "1.2"));
             env = SOAPEnv.createEnvelope(version);
 
             try {
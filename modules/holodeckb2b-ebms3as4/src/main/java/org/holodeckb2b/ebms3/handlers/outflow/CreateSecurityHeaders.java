@@ -92,8 +92,8 @@ public class CreateSecurityHeaders extends AbstractBaseHandler {
 
         IPMode pmode = HolodeckB2BCore.getPModeSet().get(primaryMU.getPModeId());
         if (pmode != null)
-            log.debug("Using P-Mode [" + pmode.getId() + "] of primary message unit [" + primaryMU.getMessageId()
-                      + "] to create security headers");
+            log.debug("Using P-Mode [{}] of primary message unit [{}] to create security headers",
+                      pmode.getId(), primaryMU.getMessageId());
         else {
             if (primaryMU instanceof IErrorMessage) {
                 log.warn("No P-Mode available for Error Message [" + primaryMU.getMessageId()
@@ -130,8 +130,8 @@ public class CreateSecurityHeaders extends AbstractBaseHandler {
         final ITradingPartnerConfiguration tradingPartner = initiator ? pmode.getResponder() : pmode.getInitiator();
         receiverConfig = tradingPartner != null ? tradingPartner.getSecurityConfiguration() : null;
 
-        log.trace("Prepared security configuration based on P-Mode [" + pmode.getId()
-                    + "] of the primary message unit [" + primaryMU.getMessageId() + "]");
+        log.trace("Prepared security configuration based on P-Mode [{}] of the primary message unit [{}]",
+                  pmode.getId(), primaryMU.getMessageId());
 
         // Create security headers using the installed security provider
         log.trace("Get security header creator from security provider");
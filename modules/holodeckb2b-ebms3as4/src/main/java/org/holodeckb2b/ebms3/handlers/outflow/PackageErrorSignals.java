@@ -32,8 +32,8 @@ import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.handlers.AbstractBaseHandler;
 import org.holodeckb2b.commons.util.Utils;
-import org.holodeckb2b.ebms3.packaging.ErrorSignalElement;
 import org.holodeckb2b.ebms3.packaging.Messaging;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderWriter;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.messagemodel.IErrorMessage;
 import org.holodeckb2b.interfaces.pmode.IErrorHandling;
@@ -79,7 +79,7 @@ public class PackageErrorSignals extends AbstractBaseHandler {
             return InvocationResponse.CONTINUE;
 
         // There are error signals to be sent, add them to the message
-        log.debug("Adding " + errors.size() + " error signal(s) to the message");
+        log.debug("Adding {} error signal(s) to the message", errors.size());
 
         log.trace("Get the eb:Messaging header from the message");
         final SOAPHeaderBlock messaging = Messaging.getElement(procCtx.getParentContext().getEnvelope());
@@ -88,9 +88,9 @@ public class PackageErrorSignals extends AbstractBaseHandler {
         boolean addSOAPFault = false;
         for(final IErrorMessageEntity e : errors) {
             log.trace("Add eb:SignalMessage element to the existing eb:Messaging header");
-            ErrorSignalElement.createElement(messaging, e);
-            log.debug("eb:SignalMessage element for Error Signal [msgId=" + e.getMessageId()
-            			+ "] succesfully added to header");
+            MessagingHeaderWriter.addErrorSignal(messaging, e);
+            log.debug("eb:SignalMessage element for Error Signal [msgId={}] succesfully added to header",
+                      e.getMessageId());
             // Check if a SOAPFault should be added
             addSOAPFault |= e.shouldHaveSOAPFault();
         }
@@ -21,7 +21,7 @@ import org.apache.axis2.AxisFault;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.handlers.AbstractBaseHandler;
 import org.holodeckb2b.ebms3.packaging.Messaging;
-import org.holodeckb2b.ebms3.packaging.PullRequestElement;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderWriter;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.storage.IPullRequestEntity;
 
@@ -48,7 +48,7 @@ public class PackagePullRequestSignal extends AbstractBaseHandler {
         final SOAPHeaderBlock messaging = Messaging.getElement(procCtx.getParentContext().getEnvelope());
 
         log.trace("Add eb:SignalMessage element to the existing eb:Messaging header");
-        PullRequestElement.createElement(messaging, pullReq);
+        MessagingHeaderWriter.addPullRequest(messaging, pullReq);
         log.trace("eb:SignalMessage element for Pull Request succesfully added to header");
 
         return InvocationResponse.CONTINUE;
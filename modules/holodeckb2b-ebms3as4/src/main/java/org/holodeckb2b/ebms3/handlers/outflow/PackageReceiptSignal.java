@@ -23,7 +23,7 @@ import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.handlers.AbstractBaseHandler;
 import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.ebms3.packaging.Messaging;
-import org.holodeckb2b.ebms3.packaging.ReceiptElement;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderWriter;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.storage.IReceiptEntity;
 import org.holodeckb2b.interfaces.storage.StorageException;
@@ -57,9 +57,8 @@ public class PackageReceiptSignal extends AbstractBaseHandler {
 
         for(final IReceiptEntity r : receipts) {
             log.trace("Add eb:SignalMessage element to the existing eb:Messaging header");
-            ReceiptElement.createElement(messaging, r);
-            log.debug("eb:SignalMessage element for Receipt [msgId=" + r.getMessageId()
-            			+ "] succesfully added to header");
+            MessagingHeaderWriter.addReceipt(messaging, r);
+            log.debug("eb:SignalMessage element for Receipt [msgId={}] succesfully added to header", r.getMessageId());
         }
         return InvocationResponse.CONTINUE;
     }
@@ -20,7 +20,7 @@ import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.logging.log4j.Logger;
 import org.holodeckb2b.common.handlers.AbstractUserMessageHandler;
 import org.holodeckb2b.ebms3.packaging.Messaging;
-import org.holodeckb2b.ebms3.packaging.UserMessageElement;
+import org.holodeckb2b.ebms3.packaging.MessagingHeaderWriter;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
 
@@ -39,9 +39,8 @@ public class PackageUsermessageInfo extends AbstractUserMessageHandler {
         log.trace("Get the eb:Messaging header from the message");
         final SOAPHeaderBlock messaging = Messaging.getElement(procCtx.getParentContext().getEnvelope());
         log.trace("Add eb:UserMessage element to the existing eb:Messaging header");
-        UserMessageElement.createElement(messaging, um);
-        log.debug("eb:UserMessage element for User Message [msgId=" + um.getMessageId() 
-        			+ "] succesfully added to header");
+        MessagingHeaderWriter.addUserMessage(messaging, um);
+        log.debug("eb:UserMessage element for User Message [msgId={}] succesfully added to header", um.getMessageId());
 
         return InvocationResponse.CONTINUE;
     }
@@ -53,8 +53,8 @@ public class PrepareResponseMessage extends AbstractBaseHandler {
             // Bundling not allowed, select one error signal to include
             log.trace("Bundling is not allowed, select one error to report");
             final IErrorMessageEntity include = selectError(errors, procCtx);
-            log.debug("Include the selected error [msgID/refTo" + include.getMessageId() + "/"
-            		 + include.getRefToMessageId() + "] for processing");
+            log.debug("Include the selected error [msgID/refTo{}/{}] for processing",
+                      include.getMessageId(), include.getRefToMessageId());
             procCtx.setSendingErrors(Collections.singletonList(include));
             // The other errors can not be further processed, so change their state to failed
             errors.remove(include);
@@ -0,0 +1,479 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.packaging;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axis2.context.MessageContext;
+import org.holodeckb2b.common.messagemodel.AgreementReference;
+import org.holodeckb2b.common.messagemodel.CollaborationInfo;
+import org.holodeckb2b.common.messagemodel.Description;
+import org.holodeckb2b.common.messagemodel.EbmsError;
+import org.holodeckb2b.common.messagemodel.ErrorMessage;
+import org.holodeckb2b.common.messagemodel.MessageUnit;
+import org.holodeckb2b.common.messagemodel.PartyId;
+import org.holodeckb2b.common.messagemodel.Payload;
+import org.holodeckb2b.common.messagemodel.Property;
+import org.holodeckb2b.common.messagemodel.PullRequest;
+import org.holodeckb2b.common.messagemodel.Receipt;
+import org.holodeckb2b.common.messagemodel.SchemaReference;
+import org.holodeckb2b.common.messagemodel.SelectivePullRequest;
+import org.holodeckb2b.common.messagemodel.Service;
+import org.holodeckb2b.common.messagemodel.TradingPartner;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.interfaces.general.EbMSConstants;
+import org.holodeckb2b.interfaces.general.IProperty;
+import org.holodeckb2b.interfaces.messagemodel.IEbmsError;
+import org.holodeckb2b.interfaces.messagemodel.IPayload;
+
+/**
+ * Reads all message units contained in the ebMS header, i.e. the <code>eb:Messaging</code> element, in a single pass
+ * over its child elements instead of looking up the elements for each message unit type and each of their children
+ * by name as is done by the <code>readElement</code> methods of the other classes in this package. The result is the
+ * same as when the message units are read using these methods.
+ * <p>Only the <code>eb:Messaging</code> element is built by the reader, as its object model is also needed for the
+ * processing of the WS-Security header, the remainder of the envelope, most notably the SOAP body, is not. As the
+ * message units are needed by multiple handlers, the result of reading the header of a received message is kept in
+ * the message context (see {@link #getMessageUnits(MessageContext)}).
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public final class MessagingHeaderReader {
+
+	/**
+	 * Name of the message context property that holds the message units read from the ebMS header
+	 */
+	public static final String MC_MESSAGE_UNITS = "hb2b:ebms-header-msgunits";
+
+	private static final QName Q_XML_LANG = new QName(XMLConstants.XML_NS_URI, DescriptionElement.LN_ATTR_LANG);
+
+	/**
+	 * Contains the message units read from the ebMS header.
+	 */
+	public static class MessageUnits {
+		private final List<UserMessage>		userMessages = new ArrayList<>();
+		private PullRequest					pullRequest;
+		private final List<Receipt>			receipts = new ArrayList<>();
+		private final List<ErrorMessage>	errors = new ArrayList<>();
+		private int							signalCount;
+
+		/**
+		 * @return the User Messages contained in the header, in the order they occur
+		 */
+		public List<UserMessage> getUserMessages() {
+			return Collections.unmodifiableList(userMessages);
+		}
+
+		/**
+		 * @return the first Pull Request contained in the header, <code>null</code> if there is none
+		 */
+		public PullRequest getPullRequest() {
+			return pullRequest;
+		}
+
+		/**
+		 * @return the Receipts contained in the header, in the order they occur
+		 */
+		public List<Receipt> getReceipts() {
+			return Collections.unmodifiableList(receipts);
+		}
+
+		/**
+		 * @return the Error Signals contained in the header, in the order they occur
+		 */
+		public List<ErrorMessage> getErrors() {
+			return Collections.unmodifiableList(errors);
+		}
+
+		/**
+		 * @return the number of <code>eb:SignalMessage</code> elements contained in the header
+		 */
+		public int getSignalCount() {
+			return signalCount;
+		}
+	}
+
+	private MessagingHeaderReader() {}
+
+	/**
+	 * Gets the message units contained in the ebMS header of the message in the given message context. The header is
+	 * only read once, the result is stored in the message context and returned on subsequent calls.
+	 *
+	 * @param mc	the message context of the received message
+	 * @return		the message units read from the header, or <code>null</code> if the message does not contain an
+	 * 				ebMS header
+	 * @throws OMException	when the header cannot be parsed
+	 */
+	public static MessageUnits getMessageUnits(final MessageContext mc) {
+		MessageUnits units = (MessageUnits) mc.getProperty(MC_MESSAGE_UNITS);
+		if (units == null) {
+			final SOAPHeaderBlock messaging = Messaging.getElement(mc.getEnvelope());
+			if (messaging == null)
+				return null;
+			units = read(messaging);
+			mc.setProperty(MC_MESSAGE_UNITS, units);
+		}
+		return units;
+	}
+
+	/**
+	 * Reads all message units contained in the given ebMS header.
+	 *
+	 * @param messaging	the <code>eb:Messaging</code> element
+	 * @return			the message units contained in the header
+	 * @throws OMException	when the header cannot be parsed
+	 */
+	public static MessageUnits read(final SOAPHeaderBlock messaging) {
+		final MessageUnits units = new MessageUnits();
+		for (OMElement c = messaging.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (isEbMS(c, "UserMessage"))
+				units.userMessages.add(readUserMessage(c));
+			else if (isEbMS(c, "SignalMessage"))
+				readSignalMessage(c, units);
+		}
+		return units;
+	}
+
+	private static UserMessage readUserMessage(final OMElement e) {
+		final UserMessage um = new UserMessage();
+		final String mpc = getAttribute(e, UserMessageElement.LN_MPC_ATTR);
+		um.setMPC(Utils.isNullOrEmpty(mpc) ? EbMSConstants.DEFAULT_MPC : mpc);
+		MessageInfo msgInfo = null;
+		boolean piRead = false, ciRead = false, mpRead = false, plRead = false;
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (msgInfo == null && isEbMS(c, "MessageInfo"))
+				msgInfo = readMessageInfo(c);
+			else if (!piRead && isEbMS(c, "PartyInfo")) {
+				readPartyInfo(c, um);
+				piRead = true;
+			} else if (!ciRead && isEbMS(c, "CollaborationInfo")) {
+				um.setCollaborationInfo(readCollaborationInfo(c));
+				ciRead = true;
+			} else if (!mpRead && isEbMS(c, "MessageProperties")) {
+				um.setMessageProperties(readProperties(c));
+				mpRead = true;
+			} else if (!plRead && isEbMS(c, "PayloadInfo")) {
+				um.setPayloads(readPayloadInfo(c));
+				plRead = true;
+			}
+		}
+		if (msgInfo != null)
+			msgInfo.applyTo(um);
+		return um;
+	}
+
+	/**
+	 * Holds the content of the <code>eb:MessageInfo</code> element. As for signals the type of message unit is only
+	 * known after the <code>eb:MessageInfo</code> element has been read, it is applied to the message unit later.
+	 */
+	private static class MessageInfo {
+		String	timestamp;
+		String	messageId;
+		String	refToMessageId;
+
+		void applyTo(final MessageUnit msgUnit) {
+			try {
+				msgUnit.setTimestamp(timestamp != null ? Utils.fromXMLDateTime(timestamp) : null);
+			} catch (final ParseException invalidTimestamp) {
+				msgUnit.setTimestamp(null);
+			}
+			msgUnit.setMessageId(!Utils.isNullOrEmpty(messageId) ? messageId : null);
+			if (!Utils.isNullOrEmpty(refToMessageId))
+				msgUnit.setRefToMessageId(refToMessageId);
+		}
+	}
+
+	private static MessageInfo readMessageInfo(final OMElement e) {
+		final MessageInfo mi = new MessageInfo();
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (mi.timestamp == null && isEbMS(c, "Timestamp"))
+				mi.timestamp = readText(c);
+			else if (mi.messageId == null && isEbMS(c, "MessageId"))
+				mi.messageId = readText(c);
+			else if (mi.refToMessageId == null && isEbMS(c, "RefToMessageId"))
+				mi.refToMessageId = readText(c);
+		}
+		return mi;
+	}
+
+	private static void readPartyInfo(final OMElement e, final UserMessage um) {
+		boolean fromRead = false, toRead = false;
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (!fromRead && isEbMS(c, "From")) {
+				um.setSender(readTradingPartner(c));
+				fromRead = true;
+			} else if (!toRead && isEbMS(c, "To")) {
+				um.setReceiver(readTradingPartner(c));
+				toRead = true;
+			}
+		}
+	}
+
+	private static TradingPartner readTradingPartner(final OMElement e) {
+		final TradingPartner tp = new TradingPartner();
+		boolean roleRead = false;
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (isEbMS(c, "PartyId")) {
+				final String type = getAttribute(c, PartyInfoElement.TradingPartner.LN_PARTYID_TYPE);
+				tp.addPartyId(new PartyId(readText(c), type));
+			} else if (!roleRead && isEbMS(c, "Role")) {
+				final String role = readText(c);
+				if (!Utils.isNullOrEmpty(role))
+					tp.setRole(role);
+				roleRead = true;
+			}
+		}
+		return tp;
+	}
+
+	private static CollaborationInfo readCollaborationInfo(final OMElement e) {
+		final CollaborationInfo ci = new CollaborationInfo();
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (ci.getService() == null && isEbMS(c, "Service"))
+				ci.setService(readService(c));
+			else if (ci.getAction() == null && isEbMS(c, "Action"))
+				ci.setAction(readText(c));
+			else if (ci.getConversationId() == null && isEbMS(c, "ConversationId"))
+				ci.setConversationId(readText(c));
+			else if (ci.getAgreement() == null && isEbMS(c, "AgreementRef"))
+				ci.setAgreement(readAgreementRef(c));
+		}
+		return ci;
+	}
+
+	private static Service readService(final OMElement e) {
+		final String type = getAttribute(e, ServiceElement.LN_ATTR_TYPE);
+		return new Service(readText(e), type);
+	}
+
+	private static AgreementReference readAgreementRef(final OMElement e) {
+		final String type = getAttribute(e, AgreementRefElement.LN_ATTR_TYPE);
+		final String pmode = getAttribute(e, AgreementRefElement.LN_ATTR_PMODE);
+		return new AgreementReference(readText(e), type, pmode);
+	}
+
+	/**
+	 * Reads the <code>eb:Property</code> children of either the <code>eb:MessageProperties</code> or <code>
+	 * eb:PartProperties</code> element.
+	 */
+	private static Collection<IProperty> readProperties(final OMElement e) {
+		final List<IProperty> props = new ArrayList<>();
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (isEbMS(c, "Property")) {
+				final String name = getAttribute(c, PropertyElement.LN_ATTR_NAME);
+				final String type = getAttribute(c, PropertyElement.LN_ATTR_TYPE);
+				props.add(new Property(name, readText(c), type));
+			}
+		}
+		return props;
+	}
+
+	private static Collection<IPayload> readPayloadInfo(final OMElement e) {
+		final List<IPayload> payloads = new ArrayList<>();
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (isEbMS(c, "PartInfo"))
+				payloads.add(readPartInfo(c));
+		}
+		return payloads;
+	}
+
+	private static Payload readPartInfo(final OMElement e) {
+		final Payload pl = new Payload();
+		String href = getAttribute(e, "href");
+		if (Utils.isNullOrEmpty(href))
+			pl.setContainment(IPayload.Containment.BODY);
+		else {
+			if (href.startsWith("#")) {
+				pl.setContainment(IPayload.Containment.BODY);
+				href = href.substring(1);
+			} else if (href.startsWith("cid:")) {
+				pl.setContainment(IPayload.Containment.ATTACHMENT);
+				href = href.substring(4);
+			} else
+				pl.setContainment(IPayload.Containment.EXTERNAL);
+			pl.setPayloadURI(href);
+		}
+		boolean propsRead = false;
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (pl.getSchemaReference() == null && isEbMS(c, "Schema")) {
+				final SchemaReference schema = new SchemaReference();
+				schema.setLocation(getAttribute(c, SchemaElement.LN_ATTR_LOCATION));
+				schema.setNamespace(getAttribute(c, SchemaElement.LN_ATTR_NAMESPACE));
+				schema.setVersion(getAttribute(c, SchemaElement.LN_ATTR_VERSION));
+				pl.setSchemaReference(schema);
+			} else if (pl.getDescription() == null && isEbMS(c, "Description"))
+				pl.setDescription(readDescription(c));
+			else if (!propsRead && isEbMS(c, "PartProperties")) {
+				pl.setProperties(readProperties(c));
+				propsRead = true;
+			}
+		}
+		return pl;
+	}
+
+	private static Description readDescription(final OMElement e) {
+		final String lang = e.getAttributeValue(Q_XML_LANG);
+		return new Description(readText(e), lang);
+	}
+
+	/**
+	 * Reads a <code>eb:SignalMessage</code> element and adds the signal message unit(s) it contains to the result.
+	 * Like the <code>getElement(s)</code> methods of the signal specific classes a signal is classified by its child
+	 * elements, so a signal containing both a Receipt and Errors results in both a Receipt and an Error Signal.
+	 */
+	private static void readSignalMessage(final OMElement e, final MessageUnits units) {
+		units.signalCount++;
+		MessageInfo msgInfo = null;
+		PullRequest pullRequest = null;
+		List<OMElement> receiptContent = null;
+		final List<EbmsError> errors = new ArrayList<>();
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (msgInfo == null && isEbMS(c, "MessageInfo"))
+				msgInfo = readMessageInfo(c);
+			else if (pullRequest == null && isEbMS(c, "PullRequest"))
+				pullRequest = readPullRequest(c);
+			else if (receiptContent == null && isEbMS(c, "Receipt"))
+				receiptContent = readReceiptContent(c);
+			else if (isEbMS(c, "Error"))
+				errors.add(readError(c));
+		}
+		if (msgInfo == null)
+			msgInfo = new MessageInfo();
+		if (pullRequest != null && units.pullRequest == null) {
+			msgInfo.applyTo(pullRequest);
+			units.pullRequest = pullRequest;
+		}
+		if (receiptContent != null) {
+			final Receipt receipt = new Receipt();
+			msgInfo.applyTo(receipt);
+			receipt.setContent(receiptContent);
+			units.receipts.add(receipt);
+		}
+		if (!errors.isEmpty()) {
+			final ErrorMessage errorSignal = new ErrorMessage();
+			msgInfo.applyTo(errorSignal);
+			errors.forEach(errorSignal::addError);
+			units.errors.add(errorSignal);
+		}
+	}
+
+	private static PullRequest readPullRequest(final OMElement e) {
+		final PullRequest pr = new PullRequest();
+		final String mpc = getAttribute(e, "mpc");
+		pr.setMPC(Utils.isNullOrEmpty(mpc) ? EbMSConstants.DEFAULT_MPC : mpc);
+		SelectivePullRequest selectivePR = null;
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (!EbMSConstants.EBMS3_NS_URI.equals(c.getNamespaceURI()))
+				continue;
+			// A PullRequest with child elements in the ebMS3 namespace is a selective PullRequest
+			if (selectivePR == null)
+				selectivePR = new SelectivePullRequest(pr);
+			switch (c.getLocalName()) {
+			case "RefToMessageId" :
+				selectivePR.setReferencedMessageId(readText(c)); break;
+			case "ConversationId" :
+				selectivePR.setConversationId(readText(c)); break;
+			case "AgreementRef" :
+				selectivePR.setAgreementRef(readAgreementRef(c)); break;
+			case "Service" :
+				selectivePR.setService(readService(c)); break;
+			case "Action" :
+				selectivePR.setAction(readText(c)); break;
+			}
+		}
+		return selectivePR != null ? selectivePR : pr;
+	}
+
+	/**
+	 * Gets the child elements of the <code>eb:Receipt</code> element. As the content of the Receipt is not
+	 * predefined, the child elements are included as is.
+	 */
+	private static List<OMElement> readReceiptContent(final OMElement e) {
+		final List<OMElement> content = new ArrayList<>();
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c))
+			content.add(c);
+		return content;
+	}
+
+	private static EbmsError readError(final OMElement e) {
+		final EbmsError error = new EbmsError();
+		error.setCategory(getAttribute(e, "category"));
+		error.setErrorCode(getAttribute(e, "errorCode"));
+		error.setOrigin(getAttribute(e, "origin"));
+		error.setMessage(getAttribute(e, "shortDescription"));
+		error.setRefToMessageInError(getAttribute(e, "refToMessageInError"));
+		final String severity = getAttribute(e, "severity");
+		if (!Utils.isNullOrEmpty(severity))
+			try {
+				error.setSeverity(IEbmsError.Severity.valueOf(severity.toLowerCase()));
+			} catch (IllegalArgumentException unknownSeverity) {
+				// Ignore unknown value and don't use this attribute
+			}
+		boolean detailRead = false;
+		for (OMElement c = e.getFirstElement(); c != null; c = nextSibling(c)) {
+			if (!detailRead && isEbMS(c, "ErrorDetail")) {
+				error.setErrorDetail(readText(c));
+				detailRead = true;
+			} else if (error.getDescription() == null && isEbMS(c, "Description"))
+				error.setDescription(readDescription(c));
+		}
+		return error;
+	}
+
+	/**
+	 * Gets the next sibling element of the given element.
+	 *
+	 * @return	the next sibling element, or <code>null</code> if there are no more sibling elements
+	 */
+	private static OMElement nextSibling(final OMElement e) {
+		OMNode n = e.getNextOMSibling();
+		while (n != null && n.getType() != OMNode.ELEMENT_NODE)
+			n = n.getNextOMSibling();
+		return (OMElement) n;
+	}
+
+	/**
+	 * Gets the text content of the given element, i.e. the concatenation of its text children.
+	 */
+	private static String readText(final OMElement e) {
+		return e.getText();
+	}
+
+	/**
+	 * Gets the value of the unqualified attribute with the given name of the given element.
+	 */
+	private static String getAttribute(final OMElement e, final String localName) {
+		return e.getAttributeValue(new QName(localName));
+	}
+
+	private static boolean isEbMS(final OMElement e, final String localName) {
+		return localName.equals(e.getLocalName()) && EbMSConstants.EBMS3_NS_URI.equals(e.getNamespaceURI());
+	}
+}
@@ -0,0 +1,397 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.packaging;
+
+import java.util.Collection;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.ds.AbstractPushOMDataSource;
+import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.interfaces.general.EbMSConstants;
+import org.holodeckb2b.interfaces.general.IDescription;
+import org.holodeckb2b.interfaces.general.IPartyId;
+import org.holodeckb2b.interfaces.general.IProperty;
+import org.holodeckb2b.interfaces.general.ISchemaReference;
+import org.holodeckb2b.interfaces.general.IService;
+import org.holodeckb2b.interfaces.general.ITradingPartner;
+import org.holodeckb2b.interfaces.messagemodel.IAgreementReference;
+import org.holodeckb2b.interfaces.messagemodel.ICollaborationInfo;
+import org.holodeckb2b.interfaces.messagemodel.IEbmsError;
+import org.holodeckb2b.interfaces.messagemodel.IErrorMessage;
+import org.holodeckb2b.interfaces.messagemodel.IMessageUnit;
+import org.holodeckb2b.interfaces.messagemodel.IPayload;
+import org.holodeckb2b.interfaces.messagemodel.IPullRequest;
+import org.holodeckb2b.interfaces.messagemodel.IReceipt;
+import org.holodeckb2b.interfaces.messagemodel.ISelectivePullRequest;
+import org.holodeckb2b.interfaces.messagemodel.IUserMessage;
+
+/**
+ * Adds the elements for the message units to the ebMS header, i.e. the <code>eb:Messaging</code> element, of a message
+ * to be sent without creating the object model for their content. Instead of creating the elements one by one as is
+ * done by the <code>createElement</code> methods of the other classes in this package, the element for the message
+ * unit is added as an Axiom <i>sourced element</i> that is written directly from the message unit's meta-data using a
+ * StAX writer when the message is serialized. The resulting XML is the same as when the element is created by the
+ * other classes.
+ * <p>The object model of the element is only created when it is accessed, for example when a handler needs to read or
+ * change the header. The conversion of the envelope for the WS-Security processing serializes the envelope and will
+ * therefore not create it.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ * @since 8.2.0
+ */
+public final class MessagingHeaderWriter {
+
+	private MessagingHeaderWriter() {}
+
+	/**
+	 * Adds the <code>eb:UserMessage</code> element for the given User Message to the given <code>eb:Messaging</code>
+	 * element.
+	 *
+	 * @param messaging	the <code>eb:Messaging</code> element
+	 * @param um		the User Message to add
+	 * @return			the new, not yet expanded, <code>eb:UserMessage</code> element
+	 */
+	public static OMElement addUserMessage(final OMElement messaging, final IUserMessage um) {
+		return add(messaging, UserMessageElement.Q_ELEMENT_NAME, um);
+	}
+
+	/**
+	 * Adds the <code>eb:SignalMessage</code> element for the given Pull Request to the given <code>eb:Messaging</code>
+	 * element.
+	 *
+	 * @param messaging	the <code>eb:Messaging</code> element
+	 * @param pr		the Pull Request to add
+	 * @return			the new, not yet expanded, <code>eb:SignalMessage</code> element
+	 */
+	public static OMElement addPullRequest(final OMElement messaging, final IPullRequest pr) {
+		return add(messaging, SignalMessageElement.Q_ELEMENT_NAME, pr);
+	}
+
+	/**
+	 * Adds the <code>eb:SignalMessage</code> element for the given Receipt to the given <code>eb:Messaging</code>
+	 * element.
+	 *
+	 * @param messaging	the <code>eb:Messaging</code> element
+	 * @param receipt	the Receipt to add
+	 * @return			the new, not yet expanded, <code>eb:SignalMessage</code> element
+	 */
+	public static OMElement addReceipt(final OMElement messaging, final IReceipt receipt) {
+		return add(messaging, SignalMessageElement.Q_ELEMENT_NAME, receipt);
+	}
+
+	/**
+	 * Adds the <code>eb:SignalMessage</code> element for the given Error Signal to the given <code>eb:Messaging</code>
+	 * element.
+	 *
+	 * @param messaging	the <code>eb:Messaging</code> element
+	 * @param error		the Error Signal to add
+	 * @return			the new, not yet expanded, <code>eb:SignalMessage</code> element
+	 */
+	public static OMElement addErrorSignal(final OMElement messaging, final IErrorMessage error) {
+		return add(messaging, SignalMessageElement.Q_ELEMENT_NAME, error);
+	}
+
+	private static OMElement add(final OMElement messaging, final QName name, final IMessageUnit msgUnit) {
+		// Use the prefix already declared for the ebMS namespace, so the element's name is known without expanding it
+		final OMNamespace declared = messaging.findNamespace(EbMSConstants.EBMS3_NS_URI, null);
+		final String prefix = declared != null ? declared.getPrefix() : EbMSConstants.EBMS3_NS_PREFIX;
+		final OMFactory f = messaging.getOMFactory();
+		final OMElement element = f.createOMElement(new MessageUnitDataSource(msgUnit, prefix), name.getLocalPart(),
+													f.createOMNamespace(EbMSConstants.EBMS3_NS_URI, prefix));
+		messaging.addChild(element);
+		return element;
+	}
+
+	/**
+	 * Writes the <code>eb:UserMessage</code> or <code>eb:SignalMessage</code> element for the given message unit to the
+	 * given writer. The ebMS namespace is only declared when it is not already bound in the writer's context.
+	 *
+	 * @param w			the writer to write the element to
+	 * @param msgUnit	the message unit to write
+	 * @throws XMLStreamException	when the element cannot be written
+	 */
+	public static void write(final XMLStreamWriter w, final IMessageUnit msgUnit) throws XMLStreamException {
+		final String prefix = w.getNamespaceContext().getPrefix(EbMSConstants.EBMS3_NS_URI);
+		write(w, msgUnit, prefix != null ? prefix : EbMSConstants.EBMS3_NS_PREFIX);
+	}
+
+	/**
+	 * Writes the element for the given message unit using the given prefix for the ebMS namespace, which is declared
+	 * when it is not already bound to the ebMS namespace in the writer's context.
+	 */
+	private static void write(final XMLStreamWriter w, final IMessageUnit msgUnit, final String prefix)
+																								throws XMLStreamException {
+		final boolean declare = !EbMSConstants.EBMS3_NS_URI.equals(w.getNamespaceContext().getNamespaceURI(prefix));
+		final Writer eb = new Writer(w, prefix);
+
+		if (msgUnit instanceof IUserMessage) {
+			final IUserMessage um = (IUserMessage) msgUnit;
+			eb.start("UserMessage");
+			if (declare)
+				w.writeNamespace(prefix, EbMSConstants.EBMS3_NS_URI);
+			final String mpc = um.getMPC();
+			if (mpc != null && !mpc.equals(EbMSConstants.DEFAULT_MPC))
+				w.writeAttribute(UserMessageElement.LN_MPC_ATTR, mpc);
+			writeUserMessage(eb, um);
+		} else {
+			eb.start("SignalMessage");
+			if (declare)
+				w.writeNamespace(prefix, EbMSConstants.EBMS3_NS_URI);
+			writeMessageInfo(eb, msgUnit);
+			if (msgUnit instanceof IPullRequest)
+				writePullRequest(eb, (IPullRequest) msgUnit);
+			else if (msgUnit instanceof IReceipt) {
+				eb.start("Receipt");
+				for (final OMElement c : ((IReceipt) msgUnit).getContent())
+					c.serialize(w);
+				w.writeEndElement();
+			} else if (msgUnit instanceof IErrorMessage)
+				for (final IEbmsError error : ((IErrorMessage) msgUnit).getErrors())
+					writeError(eb, error);
+		}
+		w.writeEndElement();
+	}
+
+	private static void writeUserMessage(final Writer eb, final IUserMessage um) throws XMLStreamException {
+		writeMessageInfo(eb, um);
+
+		eb.start("PartyInfo");
+		writeTradingPartner(eb, "From", um.getSender());
+		writeTradingPartner(eb, "To", um.getReceiver());
+		eb.w.writeEndElement();
+
+		final ICollaborationInfo ci = um.getCollaborationInfo();
+		eb.start("CollaborationInfo");
+		if (ci.getAgreement() != null)
+			writeAgreementRef(eb, ci.getAgreement());
+		writeService(eb, ci.getService());
+		eb.element("Action", ci.getAction());
+		eb.element("ConversationId", ci.getConversationId());
+		eb.w.writeEndElement();
+
+		final Collection<IProperty> msgProps = um.getMessageProperties();
+		if (!Utils.isNullOrEmpty(msgProps))
+			writeProperties(eb, "MessageProperties", msgProps);
+
+		final Collection<? extends IPayload> payloads = um.getPayloads();
+		if (!Utils.isNullOrEmpty(payloads)) {
+			eb.start("PayloadInfo");
+			for (final IPayload p : payloads)
+				writePartInfo(eb, p);
+			eb.w.writeEndElement();
+		}
+	}
+
+	private static void writeMessageInfo(final Writer eb, final IMessageUnit msgUnit) throws XMLStreamException {
+		eb.start("MessageInfo");
+		eb.element("Timestamp", Utils.toXMLDateTime(msgUnit.getTimestamp()));
+		eb.element("MessageId", msgUnit.getMessageId());
+		if (!Utils.isNullOrEmpty(msgUnit.getRefToMessageId()))
+			eb.element("RefToMessageId", msgUnit.getRefToMessageId());
+		eb.w.writeEndElement();
+	}
+
+	private static void writeTradingPartner(final Writer eb, final String name, final ITradingPartner tp)
+																								throws XMLStreamException {
+		eb.start(name);
+		for (final IPartyId pi : tp.getPartyIds()) {
+			eb.start("PartyId");
+			if (!Utils.isNullOrEmpty(pi.getType()))
+				eb.w.writeAttribute(PartyInfoElement.TradingPartner.LN_PARTYID_TYPE, pi.getType());
+			eb.text(pi.getId());
+			eb.w.writeEndElement();
+		}
+		final String role = tp.getRole();
+		eb.element("Role", !Utils.isNullOrEmpty(role) ? role : EbMSConstants.DEFAULT_ROLE);
+		eb.w.writeEndElement();
+	}
+
+	private static void writeAgreementRef(final Writer eb, final IAgreementReference agreement)
+																								throws XMLStreamException {
+		eb.start("AgreementRef");
+		if (!Utils.isNullOrEmpty(agreement.getType()))
+			eb.w.writeAttribute(AgreementRefElement.LN_ATTR_TYPE, agreement.getType());
+		if (!Utils.isNullOrEmpty(agreement.getPModeId()))
+			eb.w.writeAttribute(AgreementRefElement.LN_ATTR_PMODE, agreement.getPModeId());
+		eb.text(agreement.getName());
+		eb.w.writeEndElement();
+	}
+
+	private static void writeService(final Writer eb, final IService service) throws XMLStreamException {
+		eb.start("Service");
+		if (!Utils.isNullOrEmpty(service.getType()))
+			eb.w.writeAttribute(ServiceElement.LN_ATTR_TYPE, service.getType());
+		eb.text(service.getName());
+		eb.w.writeEndElement();
+	}
+
+	private static void writeProperties(final Writer eb, final String name, final Collection<IProperty> properties)
+																								throws XMLStreamException {
+		eb.start(name);
+		for (final IProperty p : properties) {
+			eb.start("Property");
+			eb.w.writeAttribute(PropertyElement.LN_ATTR_NAME, p.getName());
+			if (!Utils.isNullOrEmpty(p.getType()))
+				eb.w.writeAttribute(PropertyElement.LN_ATTR_TYPE, p.getType());
+			eb.text(p.getValue());
+			eb.w.writeEndElement();
+		}
+		eb.w.writeEndElement();
+	}
+
+	private static void writePartInfo(final Writer eb, final IPayload p) throws XMLStreamException {
+		eb.start("PartInfo");
+		String href = p.getPayloadURI();
+		if (!Utils.isNullOrEmpty(href)) {
+			if (IPayload.Containment.ATTACHMENT == p.getContainment())
+				href = "cid:" + href;
+			else if (IPayload.Containment.EXTERNAL != p.getContainment())
+				href = "#" + href;
+			eb.w.writeAttribute("href", href);
+		}
+		final ISchemaReference schema = p.getSchemaReference();
+		if (schema != null) {
+			eb.start("Schema");
+			eb.w.writeAttribute(SchemaElement.LN_ATTR_LOCATION, schema.getLocation());
+			if (!Utils.isNullOrEmpty(schema.getVersion()))
+				eb.w.writeAttribute(SchemaElement.LN_ATTR_VERSION, schema.getVersion());
+			if (!Utils.isNullOrEmpty(schema.getNamespace()))
+				eb.w.writeAttribute(SchemaElement.LN_ATTR_NAMESPACE, schema.getNamespace());
+			eb.w.writeEndElement();
+		}
+		writeDescription(eb, p.getDescription());
+		if (!Utils.isNullOrEmpty(p.getProperties()))
+			writeProperties(eb, "PartProperties", p.getProperties());
+		eb.w.writeEndElement();
+	}
+
+	private static void writeDescription(final Writer eb, final IDescription descr) throws XMLStreamException {
+		if (descr == null || Utils.isNullOrEmpty(descr.getText()))
+			return;
+		eb.start("Description");
+		if (!Utils.isNullOrEmpty(descr.getLanguage()))
+			eb.w.writeAttribute(XMLConstants.XML_NS_PREFIX, XMLConstants.XML_NS_URI, DescriptionElement.LN_ATTR_LANG,
+								descr.getLanguage());
+		eb.text(descr.getText());
+		eb.w.writeEndElement();
+	}
+
+	private static void writePullRequest(final Writer eb, final IPullRequest pr) throws XMLStreamException {
+		eb.start("PullRequest");
+		final String mpc = pr.getMPC();
+		if (!Utils.isNullOrEmpty(mpc) && !EbMSConstants.DEFAULT_MPC.equals(mpc))
+			eb.w.writeAttribute("mpc", mpc);
+		if (pr instanceof ISelectivePullRequest) {
+			final ISelectivePullRequest selectivePull = (ISelectivePullRequest) pr;
+			if (!Utils.isNullOrEmpty(selectivePull.getReferencedMessageId()))
+				eb.element("RefToMessageId", selectivePull.getReferencedMessageId());
+			if (!Utils.isNullOrEmpty(selectivePull.getConversationId()))
+				eb.element("ConversationId", selectivePull.getConversationId());
+			final IAgreementReference agreementRef = selectivePull.getAgreementRef();
+			if (agreementRef != null && !Utils.isNullOrEmpty(agreementRef.getName()))
+				writeAgreementRef(eb, agreementRef);
+			final IService service = selectivePull.getService();
+			if (service != null && !Utils.isNullOrEmpty(service.getName()))
+				writeService(eb, service);
+			if (!Utils.isNullOrEmpty(selectivePull.getAction()))
+				eb.element("Action", selectivePull.getAction());
+		}
+		eb.w.writeEndElement();
+	}
+
+	private static void writeError(final Writer eb, final IEbmsError error) throws XMLStreamException {
+		eb.start("Error");
+		eb.w.writeAttribute("errorCode", error.getErrorCode());
+		eb.w.writeAttribute("severity", error.getSeverity().toString());
+		if (!Utils.isNullOrEmpty(error.getOrigin()))
+			eb.w.writeAttribute("origin", error.getOrigin());
+		if (!Utils.isNullOrEmpty(error.getCategory()))
+			eb.w.writeAttribute("category", error.getCategory());
+		if (!Utils.isNullOrEmpty(error.getRefToMessageInError()))
+			eb.w.writeAttribute("refToMessageInError", error.getRefToMessageInError());
+		if (!Utils.isNullOrEmpty(error.getMessage()))
+			eb.w.writeAttribute("shortDescription", error.getMessage());
+		if (!Utils.isNullOrEmpty(error.getErrorDetail()))
+			eb.element("ErrorDetail", error.getErrorDetail());
+		writeDescription(eb, error.getDescription());
+		eb.w.writeEndElement();
+	}
+
+	/**
+	 * Wraps the StAX writer to simplify writing of the elements in the ebMS namespace.
+	 */
+	private static class Writer {
+		final XMLStreamWriter	w;
+		final String			prefix;
+
+		Writer(final XMLStreamWriter w, final String prefix) {
+			this.w = w;
+			this.prefix = prefix;
+		}
+
+		void start(final String localName) throws XMLStreamException {
+			w.writeStartElement(prefix, localName, EbMSConstants.EBMS3_NS_URI);
+		}
+
+		void text(final String text) throws XMLStreamException {
+			if (text != null)
+				w.writeCharacters(text);
+		}
+
+		void element(final String localName, final String text) throws XMLStreamException {
+			start(localName);
+			text(text);
+			w.writeEndElement();
+		}
+	}
+
+	/**
+	 * The Axiom data source of the element for a message unit that writes the element using the prefix of the ebMS
+	 * namespace that was in scope when the element was added to the header.
+	 */
+	private static class MessageUnitDataSource extends AbstractPushOMDataSource {
+		private final IMessageUnit	msgUnit;
+		private final String		prefix;
+
+		MessageUnitDataSource(final IMessageUnit msgUnit, final String prefix) {
+			this.msgUnit = msgUnit;
+			this.prefix = prefix;
+		}
+
+		@Override
+		public void serialize(final XMLStreamWriter w) throws XMLStreamException {
+			write(w, msgUnit, prefix);
+		}
+
+		@Override
+		public boolean isDestructiveWrite() {
+			return false;
+		}
+
+		@Override
+		public Object getObject() {
+			return msgUnit;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.as4.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.holodeckb2b.common.testhelpers.Benchmark;
+import org.holodeckb2b.commons.testing.TestUtils;
+
+/**
+ * Benchmark of the CPU time used and resulting size when compressing a mixed set of payloads, comparing compression of
+ * all payloads using a single threaded {@link GZIPOutputStream} with the adaptive compression that skips payloads that
+ * are already compressed and uses the {@link ParallelGZIPOutputStream}.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of rounds as argument.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class CompressionBenchmark {
+
+	/**
+	 * Output stream that only counts the written bytes
+	 */
+	static class CountingOutputStream extends OutputStream {
+		long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		final int rounds = Benchmark.getArgument(args, 0, 5);
+		final int level = Integer.getInteger("level", Deflater.DEFAULT_COMPRESSION);
+
+		final Map<String, byte[]> corpus = new LinkedHashMap<>();
+		final byte[] jpeg = Files.readAllBytes(TestUtils.getTestResource("compression/uncompressed.jpg"));
+		corpus.put("image/jpeg", jpeg);
+		corpus.put("application/xml", ParallelGZIPOutputStreamTest.createData(2 * 1024 * 1024));
+		final byte[] random = new byte[4 * 1024 * 1024];
+		new Random(42).nextBytes(random);
+		corpus.put("application/octet-stream", random);
+		corpus.put("text/csv", ParallelGZIPOutputStreamTest.createData(64 * 1024 * 1024));
+		long total = 0;
+		for (byte[] p : corpus.values())
+			total += p.length;
+		System.out.printf("Corpus of %d payloads, %.1f MiB, compression level %d%n", corpus.size(),
+						  total / 1048576.0, level);
+
+		Benchmark.warmUp(2, () -> run(corpus, level, false), () -> run(corpus, level, true));
+		for (boolean adaptive : new boolean[] { false, true }) {
+			// The parallel compression uses other threads, so the CPU time of the whole process is measured
+			final Benchmark.Measurement m = Benchmark.Measurement.ofProcess();
+			long size = 0;
+			for (int i = 0; i < rounds; i++) {
+				m.start();
+				size = run(corpus, level, adaptive);
+				m.stop();
+			}
+			System.out.printf("%-9s: size %.1f MiB, CPU %.0f ms, wall %.0f ms per round%n",
+							  adaptive ? "adaptive" : "baseline", size / 1048576.0, m.getCpuTime() / 1e6,
+							  m.getWallTime() / 1e6);
+		}
+	}
+
+	private static long run(final Map<String, byte[]> corpus, final int level, final boolean adaptive)
+																								throws IOException {
+		final CountingOutputStream out = new CountingOutputStream();
+		for (Map.Entry<String, byte[]> p : corpus.entrySet()) {
+			if (!adaptive) {
+				final GZIPOutputStream gz = new GZIPOutputStream(out) {
+					{ def.setLevel(level); }
+				};
+				gz.write(p.getValue());
+				gz.finish();
+			} else if (CompressibilityCheck.isCompressedType(p.getKey())
+					|| !CompressibilityCheck.isCompressible(new ByteArrayInputStream(p.getValue()), level))
+				out.write(p.getValue());
+			else {
+				final ParallelGZIPOutputStream gz = new ParallelGZIPOutputStream(out, level);
+				gz.write(p.getValue());
+				gz.finish();
+			}
+		}
+		return out.count;
+	}
+}
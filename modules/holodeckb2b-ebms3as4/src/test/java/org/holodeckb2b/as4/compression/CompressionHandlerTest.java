@@ -19,6 +19,7 @@ package org.holodeckb2b.as4.compression;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Collection;
@@ -40,6 +41,7 @@ import org.holodeckb2b.common.pmode.UserMessageFlow;
 import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
 import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
 import org.holodeckb2b.commons.testing.TestUtils;
+import org.holodeckb2b.commons.util.Utils;
 import org.holodeckb2b.core.MessageProcessingContext;
 import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
 import org.holodeckb2b.interfaces.general.IProperty;
@@ -119,4 +121,44 @@ public class CompressionHandlerTest {
         }
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAdaptiveSkipsCompressedType() throws Exception {
+
+        PMode pmode = HB2BTestUtils.create1WaySendPushPMode();
+        Leg leg = pmode.getLeg(Label.REQUEST);
+        UserMessageFlow umFlow = new UserMessageFlow();
+        PayloadProfile plProfile = new PayloadProfile();
+        plProfile.setCompressionType(CompressionFeature.COMPRESSED_CONTENT_TYPE);
+        plProfile.setAdaptiveCompression(true);
+        umFlow.setPayloadProfile(plProfile);
+        leg.setUserMessageFlow(umFlow);
+        HolodeckB2BCoreInterface.getPModeSet().add(pmode);
+
+        UserMessage userMessage = new UserMessage();
+        userMessage.setPModeId(pmode.getId());
+        userMessage.setProcessingState(ProcessingState.PROCESSING);
+        Payload payload = new Payload();
+        payload.setContainment(IPayload.Containment.ATTACHMENT);
+        payload.setPayloadURI(UUID.randomUUID().toString());
+        userMessage.addPayload(payload);
+        IUserMessageEntity userMessageEntity = testCore.getMetadataStorageProvider().storeMessageUnit(userMessage);
+
+        MessageContext mc = new MessageContext();
+        mc.setFLOW(MessageContext.OUT_FLOW);
+        Attachments attachments = new Attachments();
+        DataHandler attDataHandler = new DataHandler(new FileDataSource(
+        											TestUtils.getTestResource("compression/uncompressed.jpg").toFile()));
+        attachments.addDataHandler(payload.getPayloadURI(), attDataHandler);
+        mc.setAttachmentMap(attachments);
+
+        MessageProcessingContext.getFromMessageContext(mc).setUserMessage(userMessageEntity);
+
+        assertEquals(Handler.InvocationResponse.CONTINUE, assertDoesNotThrow(() -> new CompressionHandler().invoke(mc)));
+
+        // The JPEG image is already compressed and should be sent as is
+        final IPayload p = userMessageEntity.getPayloads().iterator().next();
+        assertTrue(Utils.isNullOrEmpty(p.getProperties()));
+        assertSame(attDataHandler, mc.getAttachment(p.getPayloadURI()));
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.as4.compression;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class ParallelGZIPOutputStreamTest {
+
+	/**
+	 * Creates test data that consists of compressible text mixed with random data
+	 */
+	static byte[] createData(final int size) {
+		final Random r = new Random(size);
+		final ByteArrayOutputStream data = new ByteArrayOutputStream(size);
+		int i = 0;
+		while (data.size() < size) {
+			if (i++ % 50 == 0) {
+				final byte[] random = new byte[1000];
+				r.nextBytes(random);
+				data.writeBytes(random);
+			} else
+				data.writeBytes(("<Line number=\"" + i + "\">Some repeating content " + r.nextInt(100) + "</Line>\n")
+																				.getBytes(StandardCharsets.UTF_8));
+		}
+		return Arrays.copyOf(data.toByteArray(), size);
+	}
+
+	private static byte[] compress(final byte[] data, final long threshold) throws IOException {
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (ParallelGZIPOutputStream gz = new ParallelGZIPOutputStream(compressed, Deflater.DEFAULT_COMPRESSION,
+																			 threshold)) {
+			// Write in chunks that do not align with the block size
+			for (int off = 0; off < data.length; off += 7777)
+				gz.write(data, off, Math.min(7777, data.length - off));
+		}
+		return compressed.toByteArray();
+	}
+
+	private static byte[] decompress(final byte[] compressed) throws IOException {
+		try (GZIPInputStream gz = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			return gz.readAllBytes();
+		}
+	}
+
+	@Test
+	void testEmpty() throws IOException {
+		assertArrayEquals(new byte[0], decompress(compress(new byte[0], 0)));
+	}
+
+	@Test
+	void testSingleBlock() throws IOException {
+		final byte[] data = createData(100000);
+		assertArrayEquals(data, decompress(compress(data, ParallelGZIPOutputStream.DEFAULT_PARALLEL_THRESHOLD)));
+	}
+
+	@Test
+	void testBlocksInline() throws IOException {
+		final byte[] data = createData(3 * ParallelGZIPOutputStream.BLOCK_SIZE + 12345);
+		assertArrayEquals(data, decompress(compress(data, Long.MAX_VALUE)));
+	}
+
+	@Test
+	void testBlocksParallel() throws IOException {
+		final byte[] data = createData(10 * ParallelGZIPOutputStream.BLOCK_SIZE);
+		final byte[] compressed = compress(data, 0);
+		assertArrayEquals(data, decompress(compressed));
+
+		// Using the previous block as dictionary should keep the size close to the one of a single deflate stream
+		final ByteArrayOutputStream reference = new ByteArrayOutputStream();
+		try (GZIPOutputStream gz = new GZIPOutputStream(reference)) {
+			gz.write(data);
+		}
+		assertTrue(compressed.length < reference.size() * 1.01);
+	}
+
+	@Test
+	void testCompressibility() throws IOException {
+		assertTrue(CompressibilityCheck.isCompressible(new ByteArrayInputStream(createData(100000)), -1));
+		final byte[] random = new byte[100000];
+		new Random().nextBytes(random);
+		assertFalse(CompressibilityCheck.isCompressible(new ByteArrayInputStream(random), -1));
+
+		assertTrue(CompressibilityCheck.isCompressedType("image/jpeg"));
+		assertTrue(CompressibilityCheck.isCompressedType("Application/ZIP; name=a.zip"));
+		assertTrue(CompressibilityCheck.isCompressedType(
+									"application/vnd.openxmlformats-officedocument.wordprocessingml.document"));
+		assertFalse(CompressibilityCheck.isCompressedType("application/xml"));
+		assertFalse(CompressibilityCheck.isCompressedType(null));
+	}
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.handlers.inflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.engine.Handler.InvocationResponse;
+import org.holodeckb2b.common.pmode.ErrorHandlingConfig;
+import org.holodeckb2b.common.pmode.Leg;
+import org.holodeckb2b.common.pmode.PMode;
+import org.holodeckb2b.common.pmode.PartnerConfig;
+import org.holodeckb2b.common.pmode.PartyId;
+import org.holodeckb2b.common.pmode.ReceiptConfiguration;
+import org.holodeckb2b.common.pmode.UserMessageFlow;
+import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.core.MessageProcessingContext;
+import org.holodeckb2b.core.axis2.InboundQueue;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.holodeckb2b.interfaces.general.ReplyPattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link AcceptForDeferredProcessing} handler
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class AcceptForDeferredProcessingTest {
+
+	private static final String SOAP_XML =
+			"<soapenv:Envelope xmlns:soapenv=\"http://www.w3.org/2003/05/soap-envelope\"\n" +
+			"    xmlns:eb3=\"http://docs.oasis-open.org/ebxml-msg/ebms/v3.0/ns/core/200704/\">\n" +
+			"    <soapenv:Header>\n" +
+			"        <eb3:Messaging soapenv:mustUnderstand=\"true\">\n" +
+			"            <eb3:UserMessage>\n" +
+			"                <eb3:MessageInfo>\n" +
+			"                    <eb3:Timestamp>2025-02-08T09:20:06.101Z</eb3:Timestamp>\n" +
+			"                    <eb3:MessageId>deferred-msg-id@test.holodeck-b2b.org</eb3:MessageId>\n" +
+			"                </eb3:MessageInfo>\n" +
+			"                <eb3:PartyInfo>\n" +
+			"                    <eb3:From>\n" +
+			"                        <eb3:PartyId>org:holodeckb2b:example:company:A</eb3:PartyId>\n" +
+			"                        <eb3:Role>Sender</eb3:Role>\n" +
+			"                    </eb3:From>\n" +
+			"                    <eb3:To>\n" +
+			"                        <eb3:PartyId>org:holodeckb2b:example:company:B</eb3:PartyId>\n" +
+			"                        <eb3:Role>Receiver</eb3:Role>\n" +
+			"                    </eb3:To>\n" +
+			"                </eb3:PartyInfo>\n" +
+			"                <eb3:CollaborationInfo>\n" +
+			"                    <eb3:Service>Test</eb3:Service>\n" +
+			"                    <eb3:Action>StoreMessage</eb3:Action>\n" +
+			"                    <eb3:ConversationId>org:holodeckb2b:test:conversation</eb3:ConversationId>\n" +
+			"                </eb3:CollaborationInfo>\n" +
+			"            </eb3:UserMessage>\n" +
+			"        </eb3:Messaging>\n" +
+			"    </soapenv:Header>\n" +
+			"    <soapenv:Body/>\n" +
+			"</soapenv:Envelope>\n";
+
+	@BeforeAll
+	static void setUpClass() throws Exception {
+		HolodeckB2BCoreInterface.setImplementation(new HolodeckB2BTestCore());
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		HolodeckB2BCore.getPModeSet().removeAll();
+	}
+
+	@Test
+	void testNoSpool() throws Exception {
+		addPMode(ReplyPattern.CALLBACK, ReplyPattern.CALLBACK);
+		final MessageContext mc = createMessageContext(null);
+
+		assertEquals(InvocationResponse.CONTINUE, new AcceptForDeferredProcessing().invoke(mc));
+		assertNull(MessageProcessingContext.getFromMessageContext(mc).getReceivedUserMessage());
+	}
+
+	@Test
+	void testAsyncReceiptAndErrors() throws Exception {
+		addPMode(ReplyPattern.CALLBACK, ReplyPattern.CALLBACK);
+		final InboundQueue.Spool spool = mock(InboundQueue.Spool.class);
+		when(spool.defer()).thenReturn(true);
+
+		assertEquals(InvocationResponse.ABORT, new AcceptForDeferredProcessing().invoke(createMessageContext(spool)));
+		verify(spool).defer();
+	}
+
+	@Test
+	void testNoReceipt() throws Exception {
+		addPMode(null, ReplyPattern.CALLBACK);
+		final InboundQueue.Spool spool = mock(InboundQueue.Spool.class);
+		when(spool.defer()).thenReturn(true);
+
+		assertEquals(InvocationResponse.ABORT, new AcceptForDeferredProcessing().invoke(createMessageContext(spool)));
+		verify(spool).defer();
+	}
+
+	@Test
+	void testQueueFull() throws Exception {
+		addPMode(ReplyPattern.CALLBACK, ReplyPattern.CALLBACK);
+		final InboundQueue.Spool spool = mock(InboundQueue.Spool.class);
+		when(spool.defer()).thenReturn(false);
+
+		assertEquals(InvocationResponse.CONTINUE,
+					 new AcceptForDeferredProcessing().invoke(createMessageContext(spool)));
+	}
+
+	@Test
+	void testSyncReceipt() throws Exception {
+		addPMode(ReplyPattern.RESPONSE, ReplyPattern.CALLBACK);
+		final InboundQueue.Spool spool = mock(InboundQueue.Spool.class);
+
+		assertEquals(InvocationResponse.CONTINUE,
+					 new AcceptForDeferredProcessing().invoke(createMessageContext(spool)));
+		verify(spool, never()).defer();
+		verify(spool).discard();
+	}
+
+	@Test
+	void testDefaultErrorHandling() throws Exception {
+		addPMode(ReplyPattern.CALLBACK, null);
+		final InboundQueue.Spool spool = mock(InboundQueue.Spool.class);
+
+		assertEquals(InvocationResponse.CONTINUE,
+					 new AcceptForDeferredProcessing().invoke(createMessageContext(spool)));
+		verify(spool, never()).defer();
+		verify(spool).discard();
+	}
+
+	@Test
+	void testNoPMode() throws Exception {
+		final InboundQueue.Spool spool = mock(InboundQueue.Spool.class);
+
+		assertEquals(InvocationResponse.CONTINUE,
+					 new AcceptForDeferredProcessing().invoke(createMessageContext(spool)));
+		verify(spool, never()).defer();
+		verify(spool).discard();
+	}
+
+	private MessageContext createMessageContext(final InboundQueue.Spool spool) throws Exception {
+		final MessageContext mc = new MessageContext();
+		mc.setFLOW(MessageContext.IN_FLOW);
+		mc.setServerSide(true);
+		mc.setEnvelope(OMXMLBuilderFactory.createSOAPModelBuilder(new StringReader(SOAP_XML)).getSOAPEnvelope());
+		if (spool != null)
+			mc.setProperty(InboundQueue.MC_SPOOL, spool);
+		return mc;
+	}
+
+	/**
+	 * Adds a P-Mode matching the test message with the given reply patterns for the Receipt and Errors, where <code>
+	 * null</code> indicates no configuration.
+	 */
+	private void addPMode(final ReplyPattern receipts, final ReplyPattern errors) throws Exception {
+		final PMode pmode = HB2BTestUtils.create1WayReceivePMode();
+		final PartnerConfig initiator = new PartnerConfig();
+		initiator.setRole("Sender");
+		initiator.addPartyId(new PartyId("org:holodeckb2b:example:company:A", null));
+		pmode.setInitiator(initiator);
+		final PartnerConfig responder = new PartnerConfig();
+		responder.setRole("Receiver");
+		responder.addPartyId(new PartyId("org:holodeckb2b:example:company:B", null));
+		pmode.setResponder(responder);
+
+		final Leg leg = pmode.getLeg(Leg.Label.REQUEST);
+		if (receipts != null) {
+			final ReceiptConfiguration rcptConfig = new ReceiptConfiguration();
+			rcptConfig.setPattern(receipts);
+			leg.setReceiptConfiguration(rcptConfig);
+		}
+		if (errors != null) {
+			final ErrorHandlingConfig errorHandling = new ErrorHandlingConfig();
+			errorHandling.setPattern(errors);
+			final UserMessageFlow flow = new UserMessageFlow();
+			flow.setErrorHandlingConfiguration(errorHandling);
+			leg.setUserMessageFlow(flow);
+		}
+		HolodeckB2BCore.getPModeSet().add(pmode);
+	}
+}
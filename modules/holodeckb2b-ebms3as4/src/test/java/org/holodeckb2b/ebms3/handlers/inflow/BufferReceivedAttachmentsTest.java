@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.handlers.inflow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import javax.activation.DataHandler;
+
+import org.apache.axiom.attachments.Attachments;
+import org.apache.axiom.attachments.CachedFileDataSource;
+import org.apache.axiom.mime.PartDataHandler;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.engine.Handler.InvocationResponse;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.common.pmode.Leg;
+import org.holodeckb2b.common.pmode.PMode;
+import org.holodeckb2b.common.pmode.PayloadProfile;
+import org.holodeckb2b.common.pmode.UserMessageFlow;
+import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
+import org.holodeckb2b.common.testhelpers.HolodeckB2BTestCore;
+import org.holodeckb2b.core.HolodeckB2BCore;
+import org.holodeckb2b.core.MessageProcessingContext;
+import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link BufferReceivedAttachments} handler
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class BufferReceivedAttachmentsTest {
+
+	private static final String BOUNDARY = "MIMEBoundary_test";
+
+	private static final byte[] SMALL = randomContent(500);
+	private static final byte[] LARGE = randomContent(100 * 1024);
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeAll
+	static void setUpClass() throws Exception {
+		HolodeckB2BCoreInterface.setImplementation(new HolodeckB2BTestCore());
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		HolodeckB2BCore.getPModeSet().removeAll();
+	}
+
+	@Test
+	void testPModeSettings() throws Exception {
+		final PayloadProfile profile = new PayloadProfile();
+		profile.setAttachmentMemoryThreshold(1024);
+		profile.setAttachmentTempDirectory(tempDir.toString());
+		final MessageContext mc = createMessageContext(profile);
+
+		final BufferReceivedAttachments handler = new BufferReceivedAttachments();
+		assertEquals(InvocationResponse.CONTINUE, handler.invoke(mc));
+
+		final DataHandler small = mc.getAttachment("small");
+		assertFalse(small.getDataSource() instanceof CachedFileDataSource);
+		assertEquals("text/plain", small.getContentType());
+		assertArrayEquals(SMALL, readContent(small));
+
+		final DataHandler large = mc.getAttachment("large");
+		assertTrue(large.getDataSource() instanceof CachedFileDataSource);
+		final Path file = ((CachedFileDataSource) large.getDataSource()).getFile().toPath();
+		assertEquals(tempDir, file.getParent());
+		assertEquals("application/octet-stream", large.getContentType());
+		assertArrayEquals(LARGE, readContent(large));
+
+		handler.flowComplete(mc);
+		assertFalse(Files.exists(file));
+	}
+
+	@Test
+	void testListenerThreshold() throws Exception {
+		final PayloadProfile profile = new PayloadProfile();
+		profile.setAttachmentTempDirectory(tempDir.toString());
+		final MessageContext mc = createMessageContext(profile);
+		mc.setProperty(Constants.Configuration.CACHE_ATTACHMENTS, "true");
+		mc.setProperty(Constants.Configuration.FILE_SIZE_THRESHOLD, "200000");
+
+		assertEquals(InvocationResponse.CONTINUE, new BufferReceivedAttachments().invoke(mc));
+
+		assertFalse(mc.getAttachment("small").getDataSource() instanceof CachedFileDataSource);
+		assertFalse(mc.getAttachment("large").getDataSource() instanceof CachedFileDataSource);
+		assertArrayEquals(LARGE, readContent(mc.getAttachment("large")));
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	void testNoPModeSettings() throws Exception {
+		final MessageContext mc = createMessageContext(new PayloadProfile());
+
+		assertEquals(InvocationResponse.CONTINUE, new BufferReceivedAttachments().invoke(mc));
+
+		assertTrue(mc.getAttachment("large") instanceof PartDataHandler);
+		assertArrayEquals(LARGE, readContent(mc.getAttachment("large")));
+	}
+
+	/**
+	 * Creates the message context of a received User Message with two attachments, one of 500 bytes and one of
+	 * 100 KiB, which is processed under a P-Mode with the given payload profile.
+	 */
+	private MessageContext createMessageContext(final PayloadProfile profile) throws Exception {
+		final PMode pmode = HB2BTestUtils.create1WayReceivePMode();
+		final UserMessageFlow flow = new UserMessageFlow();
+		flow.setPayloadProfile(profile);
+		pmode.getLeg(Leg.Label.REQUEST).setUserMessageFlow(flow);
+		HolodeckB2BCore.getPModeSet().add(pmode);
+
+		final UserMessage userMessage = new UserMessage();
+		userMessage.setPModeId(pmode.getId());
+
+		final MessageContext mc = new MessageContext();
+		mc.setFLOW(MessageContext.IN_FLOW);
+		mc.setServerSide(true);
+		MessageProcessingContext.getFromMessageContext(mc).setUserMessage(
+							HolodeckB2BCore.getStorageManager().storeReceivedMessageUnit(userMessage));
+
+		final ByteArrayOutputStream mime = new ByteArrayOutputStream();
+		writePart(mime, "root", "application/soap+xml",
+				  ("<soapenv:Envelope xmlns:soapenv=\"http://www.w3.org/2003/05/soap-envelope\"><soapenv:Body/>"
+				   + "</soapenv:Envelope>").getBytes(StandardCharsets.UTF_8));
+		writePart(mime, "small", "text/plain", SMALL);
+		writePart(mime, "large", "application/octet-stream", LARGE);
+		mime.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+		final Attachments attachments = new Attachments(new ByteArrayInputStream(mime.toByteArray()),
+								"multipart/related; boundary=" + BOUNDARY + "; type=\"application/soap+xml\"; "
+								+ "start=\"<root>\"");
+		// Like the message builder has done, read the root part
+		attachments.getRootPartInputStream().readAllBytes();
+		mc.setAttachmentMap(attachments);
+		return mc;
+	}
+
+	private static void writePart(final ByteArrayOutputStream mime, final String cid, final String contentType,
+								  final byte[] content) throws Exception {
+		mime.write(("--" + BOUNDARY + "\r\nContent-Type: " + contentType + "\r\nContent-ID: <" + cid + ">\r\n"
+					+ "Content-Transfer-Encoding: binary\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		mime.write(content);
+		mime.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static byte[] readContent(final DataHandler dh) throws Exception {
+		try (InputStream is = dh.getInputStream()) {
+			return is.readAllBytes();
+		}
+	}
+
+	private static byte[] randomContent(final int size) {
+		final byte[] content = new byte[size];
+		new Random(size).nextBytes(content);
+		return content;
+	}
+}
@@ -18,20 +18,29 @@ package org.holodeckb2b.ebms3.handlers.inflow;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
 
 import javax.activation.DataHandler;
 import javax.activation.FileDataSource;
 
 import org.apache.axiom.attachments.Attachments;
+import org.apache.axiom.attachments.CachedFileDataSource;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.engine.Handler;
+import org.holodeckb2b.as4.compression.CompressionDataHandler;
 import org.holodeckb2b.common.messagemodel.Payload;
 import org.holodeckb2b.common.messagemodel.UserMessage;
 import org.holodeckb2b.common.testhelpers.HB2BTestUtils;
@@ -43,6 +52,7 @@ import org.holodeckb2b.core.MessageProcessingContext;
 import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
 import org.holodeckb2b.interfaces.core.IMessageProcessingContext;
 import org.holodeckb2b.interfaces.messagemodel.IPayload.Containment;
+import org.holodeckb2b.interfaces.processingmodel.ProcessingState;
 import org.holodeckb2b.interfaces.storage.IPayloadContent;
 import org.holodeckb2b.interfaces.storage.IPayloadEntity;
 import org.holodeckb2b.interfaces.storage.IUserMessageEntity;
@@ -150,4 +160,115 @@ public class SaveUserMsgAttachmentsTest {
         assertNotNull(userMsgEntity.getPayloads().iterator().next().getContent());
 		assertEquals(1, ((InMemoryPSProvider) testCore.getPayloadStorageProvider()).getPayloadCount());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCachedAttachment() throws Exception {
+    	final byte[] data = new byte[64 * 1024];
+    	new Random().nextBytes(data);
+    	final Path cacheFile = Files.createTempFile(TestUtils.getTestClassBasePath(), "att", ".tmp");
+    	Files.write(cacheFile, data);
+
+    	MessageContext mc = new MessageContext();
+    	mc.setFLOW(MessageContext.IN_FLOW);
+
+    	UserMessage userMessage = new UserMessage();
+    	Payload payload = new Payload();
+    	payload.setContainment(Containment.ATTACHMENT);
+    	payload.setPayloadURI("cached-att-cid");
+    	userMessage.addPayload(payload);
+
+    	IMessageProcessingContext procCtx = MessageProcessingContext.getFromMessageContext(mc);
+    	IUserMessageEntity userMsgEntity = HolodeckB2BCore.getStorageManager().storeReceivedMessageUnit(userMessage);
+    	procCtx.setUserMessage(userMsgEntity);
+
+    	// Attachment as it is provided by Axiom when cached to disk
+    	CachedFileDataSource ds = new CachedFileDataSource(cacheFile.toFile());
+    	ds.setContentType("application/octet-stream");
+    	Attachments attachments = new Attachments();
+    	attachments.addDataHandler(payload.getPayloadURI(), new DataHandler(ds));
+    	mc.setAttachmentMap(attachments);
+
+    	assertEquals(Handler.InvocationResponse.CONTINUE,
+    					assertDoesNotThrow(() -> new SaveUserMsgAttachments().invoke(mc)));
+
+    	IPayloadEntity storedPayload = userMsgEntity.getPayloads().iterator().next();
+    	assertEquals("application/octet-stream", storedPayload.getMimeType());
+    	try (InputStream org = new ByteArrayInputStream(data); InputStream stored = storedPayload.getContent()) {
+    		HB2BTestUtils.assertEqual(org, stored);
+    	}
+    	Files.deleteIfExists(cacheFile);
+    }
+
+    @Test
+    public void testCachedCompressedAttachment() throws Exception {
+    	final byte[] data = new byte[1024 * 1024];
+    	new Random().nextBytes(data);
+    	final Path cacheFile = Files.createTempFile(TestUtils.getTestClassBasePath(), "att", ".tmp");
+    	try (OutputStream gz = new GZIPOutputStream(Files.newOutputStream(cacheFile))) {
+    		gz.write(data);
+    	}
+
+    	final IUserMessageEntity userMsgEntity = receiveCompressedAttachment(cacheFile);
+
+    	assertTrue(Utils.isNullOrEmpty(MessageProcessingContext.getFromMessageContext(lastMC).getGeneratedErrors()));
+    	IPayloadEntity storedPayload = userMsgEntity.getPayloads().iterator().next();
+    	assertEquals("application/octet-stream", storedPayload.getMimeType());
+    	// The stored content must be decompressed
+    	try (InputStream org = new ByteArrayInputStream(data); InputStream stored = storedPayload.getContent()) {
+    		HB2BTestUtils.assertEqual(org, stored);
+    	}
+    	// and the cached file should not have been taken over
+    	assertTrue(Files.exists(cacheFile));
+    	Files.deleteIfExists(cacheFile);
+    }
+
+    @Test
+    public void testCachedCorruptCompressedAttachment() throws Exception {
+    	final byte[] data = new byte[64 * 1024];
+    	new Random().nextBytes(data);
+    	final Path cacheFile = Files.createTempFile(TestUtils.getTestClassBasePath(), "att", ".tmp");
+    	Files.write(cacheFile, data);
+
+    	final IUserMessageEntity userMsgEntity = receiveCompressedAttachment(cacheFile);
+
+    	final IMessageProcessingContext procCtx = MessageProcessingContext.getFromMessageContext(lastMC);
+    	assertFalse(Utils.isNullOrEmpty(procCtx.getGeneratedErrors()));
+    	assertEquals("EBMS:0303", procCtx.getGeneratedErrors().get(userMsgEntity.getMessageId()).iterator().next()
+    																					.getErrorCode());
+    	assertEquals(ProcessingState.FAILURE, userMsgEntity.getCurrentProcessingState().getState());
+    	Files.deleteIfExists(cacheFile);
+    }
+
+    private MessageContext lastMC;
+
+    /**
+     * Runs the handler for a User Message with one attachment that is cached in the given file by Axiom and is
+     * decompressed as is done by the DecompressionHandler.
+     */
+    private IUserMessageEntity receiveCompressedAttachment(final Path cacheFile) throws Exception {
+    	lastMC = new MessageContext();
+    	lastMC.setFLOW(MessageContext.IN_FLOW);
+
+    	UserMessage userMessage = new UserMessage();
+    	userMessage.setMessageId("compressed-" + System.nanoTime() + "@test");
+    	Payload payload = new Payload();
+    	payload.setContainment(Containment.ATTACHMENT);
+    	payload.setPayloadURI("compressed-att-cid-" + System.nanoTime());
+    	userMessage.addPayload(payload);
+
+    	IMessageProcessingContext procCtx = MessageProcessingContext.getFromMessageContext(lastMC);
+    	IUserMessageEntity userMsgEntity = HolodeckB2BCore.getStorageManager().storeReceivedMessageUnit(userMessage);
+    	procCtx.setUserMessage(userMsgEntity);
+
+    	CachedFileDataSource ds = new CachedFileDataSource(cacheFile.toFile());
+    	ds.setContentType("application/gzip");
+    	Attachments attachments = new Attachments();
+    	attachments.addDataHandler(payload.getPayloadURI(),
+    							   new CompressionDataHandler(new DataHandler(ds), "application/octet-stream"));
+    	lastMC.setAttachmentMap(attachments);
+
+    	assertEquals(Handler.InvocationResponse.CONTINUE,
+    					assertDoesNotThrow(() -> new SaveUserMsgAttachments().invoke(lastMC)));
+    	return userMsgEntity;
+    }
+}
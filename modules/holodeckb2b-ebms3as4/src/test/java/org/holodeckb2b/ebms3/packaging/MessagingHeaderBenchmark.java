@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.packaging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.holodeckb2b.common.messagemodel.CollaborationInfo;
+import org.holodeckb2b.common.messagemodel.PartyId;
+import org.holodeckb2b.common.messagemodel.Payload;
+import org.holodeckb2b.common.messagemodel.Property;
+import org.holodeckb2b.common.messagemodel.Service;
+import org.holodeckb2b.common.messagemodel.TradingPartner;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.common.testhelpers.Benchmark;
+import org.holodeckb2b.commons.util.MessageIdUtils;
+import org.holodeckb2b.interfaces.messagemodel.IPayload;
+
+/**
+ * Benchmark of the time and memory used to read the message units from the ebMS header of a received message,
+ * comparing the lookup of the elements by the <code>readElement</code> methods of the packaging classes with the
+ * single pass reading by the {@link MessagingHeaderReader}. The header contains a User Message with many message
+ * properties and payloads, both numbers can be set using the system properties <i>properties</i> and <i>parts</i>.
+ * <p>As JMH is not available in the build, this is a plain class that is not executed as part of the build. It can be
+ * run using its <code>main</code> method, optionally with the number of rounds as argument.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class MessagingHeaderBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		final int rounds = Benchmark.getArgument(args, 0, 10000);
+		final int properties = Integer.getInteger("properties", 50);
+		final int parts = Integer.getInteger("parts", 50);
+
+		final byte[] message = createMessage(properties, parts);
+		System.out.printf("User Message with %d properties and %d parts, message size %d bytes%n", properties, parts,
+						  message.length);
+		// As reading the header does not change the object model, the same envelope can be used for all rounds. The
+		// header is built before the measurement, so only the reading of the message units is measured.
+		final SOAPEnvelope env = OMXMLBuilderFactory.createSOAPModelBuilder(new ByteArrayInputStream(message), "UTF-8")
+													.getSOAPEnvelope();
+		Messaging.getElement(env).build();
+
+		Benchmark.warmUp(rounds, () -> run(env, false), () -> run(env, true));
+		for (boolean streaming : new boolean[] { false, true })
+			System.out.printf("%-11s: %s per message%n", streaming ? "single pass" : "OM lookup",
+							  Benchmark.measure(rounds, () -> run(env, streaming)));
+	}
+
+	/**
+	 * Reads the message units from the envelope in the same way as the <i>Read...</i> handlers in the in flow do, i.e.
+	 * when using the OM based reading each handler looks up the ebMS header and its message unit elements.
+	 */
+	private static UserMessage run(final SOAPEnvelope env, final boolean streaming) {
+		if (streaming) {
+			final MessagingHeaderReader.MessageUnits units = MessagingHeaderReader.read(Messaging.getElement(env));
+			units.getPullRequest();
+			units.getReceipts();
+			units.getErrors();
+			return units.getUserMessages().get(0);
+		} else {
+			final UserMessage um = UserMessageElement.readElement(
+										UserMessageElement.getElements(Messaging.getElement(env)).next());
+			PullRequestElement.getElement(Messaging.getElement(env));
+			ReceiptElement.getElements(Messaging.getElement(env)).hasNext();
+			ErrorSignalElement.getElements(Messaging.getElement(env)).hasNext();
+			return um;
+		}
+	}
+
+	private static byte[] createMessage(final int properties, final int parts) throws Exception {
+		final UserMessage um = new UserMessage();
+		um.setMessageId(MessageIdUtils.createMessageId());
+		um.setTimestamp(new Date());
+		final TradingPartner sender = new TradingPartner();
+		sender.addPartyId(new PartyId("company:A", "org:holodeckb2b:test"));
+		sender.setRole("Sender");
+		um.setSender(sender);
+		final TradingPartner receiver = new TradingPartner();
+		receiver.addPartyId(new PartyId("company:B", "org:holodeckb2b:test"));
+		receiver.setRole("Receiver");
+		um.setReceiver(receiver);
+		final CollaborationInfo ci = new CollaborationInfo();
+		ci.setService(new Service("Benchmark"));
+		ci.setAction("Read");
+		ci.setConversationId("benchmark-conversation");
+		um.setCollaborationInfo(ci);
+		for (int i = 0; i < properties; i++)
+			um.addMessageProperty(new Property("property-" + i, "value-" + i));
+		for (int i = 0; i < parts; i++) {
+			final Payload p = new Payload();
+			p.setContainment(IPayload.Containment.ATTACHMENT);
+			p.setPayloadURI("part-" + i + "@benchmark.holodeck-b2b.org");
+			p.setMimeType("application/xml");
+			p.addProperty(new Property("CompressionType", "application/gzip"));
+			um.addPayload(p);
+		}
+
+		final SOAPEnvelope env = SOAPEnv.createEnvelope(SOAPEnv.SOAPVersion.SOAP_12);
+		UserMessageElement.createElement(Messaging.createElement(env), um);
+		env.getBody().addChild(env.getOMFactory().createOMElement("content", null));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		env.serialize(out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,316 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.packaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axis2.context.MessageContext;
+import org.holodeckb2b.common.messagemodel.ErrorMessage;
+import org.holodeckb2b.common.messagemodel.PullRequest;
+import org.holodeckb2b.common.messagemodel.Receipt;
+import org.holodeckb2b.common.messagemodel.SelectivePullRequest;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.common.util.CompareUtils;
+import org.holodeckb2b.interfaces.general.IDescription;
+import org.holodeckb2b.interfaces.general.IProperty;
+import org.holodeckb2b.interfaces.messagemodel.IEbmsError;
+import org.holodeckb2b.interfaces.messagemodel.IMessageUnit;
+import org.holodeckb2b.interfaces.messagemodel.IPayload;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link MessagingHeaderReader} by comparing its results with the information read by the OM based
+ * packaging classes.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class MessagingHeaderReaderTest {
+
+	private static final String USER_MESSAGE =
+			"        <eb3:UserMessage mpc=\"http://test.holodeck-b2b.org/mpc\">\n" +
+			"            <eb3:MessageInfo>\n" +
+			"                <eb3:Timestamp>2025-02-08T09:20:06.101Z</eb3:Timestamp>\n" +
+			"                <eb3:MessageId>um-msg-id@test.holodeck-b2b.org</eb3:MessageId>\n" +
+			"                <eb3:RefToMessageId>ref-msg-id@test.holodeck-b2b.org</eb3:RefToMessageId>\n" +
+			"            </eb3:MessageInfo>\n" +
+			"            <eb3:PartyInfo>\n" +
+			"                <eb3:From>\n" +
+			"                    <eb3:PartyId type=\"org:holodeckb2b:test\">company:A</eb3:PartyId>\n" +
+			"                    <eb3:PartyId>company:A:alias</eb3:PartyId>\n" +
+			"                    <eb3:Role>Sender</eb3:Role>\n" +
+			"                </eb3:From>\n" +
+			"                <eb3:To>\n" +
+			"                    <eb3:PartyId>company:B</eb3:PartyId>\n" +
+			"                    <eb3:Role>Receiver</eb3:Role>\n" +
+			"                </eb3:To>\n" +
+			"            </eb3:PartyInfo>\n" +
+			"            <eb3:CollaborationInfo>\n" +
+			"                <eb3:AgreementRef type=\"agreements\" pmode=\"pm-test\">agreement-1</eb3:AgreementRef>\n" +
+			"                <eb3:Service type=\"services\">Test</eb3:Service>\n" +
+			"                <eb3:Action>StoreMessage</eb3:Action>\n" +
+			"                <eb3:ConversationId>conversation-1</eb3:ConversationId>\n" +
+			"            </eb3:CollaborationInfo>\n" +
+			"            <eb3:MessageProperties>\n" +
+			"                <eb3:Property name=\"originalSender\">company:C</eb3:Property>\n" +
+			"                <eb3:Property name=\"finalRecipient\" type=\"typed\">company:D</eb3:Property>\n" +
+			"            </eb3:MessageProperties>\n" +
+			"            <eb3:PayloadInfo>\n" +
+			"                <eb3:PartInfo href=\"cid:attachment-1@test.holodeck-b2b.org\">\n" +
+			"                    <eb3:Schema location=\"http://test.holodeck-b2b.org/schema.xsd\" version=\"1.0\"/>\n" +
+			"                    <eb3:Description xml:lang=\"en\">The first attachment</eb3:Description>\n" +
+			"                    <eb3:PartProperties>\n" +
+			"                        <eb3:Property name=\"MimeType\">application/xml</eb3:Property>\n" +
+			"                        <eb3:Property name=\"CompressionType\">application/gzip</eb3:Property>\n" +
+			"                    </eb3:PartProperties>\n" +
+			"                </eb3:PartInfo>\n" +
+			"                <eb3:PartInfo href=\"#body-content\"/>\n" +
+			"                <eb3:PartInfo href=\"http://test.holodeck-b2b.org/external\"/>\n" +
+			"            </eb3:PayloadInfo>\n" +
+			"        </eb3:UserMessage>\n";
+
+	private static final String PULL_REQUEST =
+			"        <eb3:SignalMessage>\n" +
+			"            <eb3:MessageInfo>\n" +
+			"                <eb3:Timestamp>2025-02-08T09:21:00.000Z</eb3:Timestamp>\n" +
+			"                <eb3:MessageId>pr-msg-id@test.holodeck-b2b.org</eb3:MessageId>\n" +
+			"            </eb3:MessageInfo>\n" +
+			"            <eb3:PullRequest mpc=\"http://test.holodeck-b2b.org/mpc\">\n" +
+			"                <eb3:RefToMessageId>um-msg-id@test.holodeck-b2b.org</eb3:RefToMessageId>\n" +
+			"                <eb3:ConversationId>conversation-1</eb3:ConversationId>\n" +
+			"                <eb3:AgreementRef>agreement-1</eb3:AgreementRef>\n" +
+			"                <eb3:Service>Test</eb3:Service>\n" +
+			"                <eb3:Action>StoreMessage</eb3:Action>\n" +
+			"            </eb3:PullRequest>\n" +
+			"        </eb3:SignalMessage>\n";
+
+	private static final String RECEIPT =
+			"        <eb3:SignalMessage>\n" +
+			"            <eb3:MessageInfo>\n" +
+			"                <eb3:Timestamp>2025-02-08T09:22:00.000Z</eb3:Timestamp>\n" +
+			"                <eb3:MessageId>rcpt-msg-id@test.holodeck-b2b.org</eb3:MessageId>\n" +
+			"                <eb3:RefToMessageId>um-msg-id@test.holodeck-b2b.org</eb3:RefToMessageId>\n" +
+			"            </eb3:MessageInfo>\n" +
+			"            <eb3:Receipt>\n" +
+			"                <ebbp:NonRepudiationInformation \n" +
+			"                     xmlns:ebbp=\"http://docs.oasis-open.org/ebxml-bp/ebbp-signals-2.0\">\n" +
+			"                    <ebbp:MessagePartNRInformation>part-1</ebbp:MessagePartNRInformation>\n" +
+			"                </ebbp:NonRepudiationInformation>\n" +
+			"                <custom>content</custom>\n" +
+			"            </eb3:Receipt>\n" +
+			"        </eb3:SignalMessage>\n";
+
+	private static final String ERROR =
+			"        <eb3:SignalMessage>\n" +
+			"            <eb3:MessageInfo>\n" +
+			"                <eb3:Timestamp>2025-02-08T09:23:00.000Z</eb3:Timestamp>\n" +
+			"                <eb3:MessageId>err-msg-id@test.holodeck-b2b.org</eb3:MessageId>\n" +
+			"            </eb3:MessageInfo>\n" +
+			"            <eb3:Error errorCode=\"EBMS:0004\" severity=\"failure\" category=\"Content\"\n" +
+			"                       origin=\"ebMS\" shortDescription=\"Other\"\n" +
+			"                       refToMessageInError=\"um-msg-id@test.holodeck-b2b.org\">\n" +
+			"                <eb3:Description xml:lang=\"en\">Something went wrong</eb3:Description>\n" +
+			"                <eb3:ErrorDetail>Some details</eb3:ErrorDetail>\n" +
+			"            </eb3:Error>\n" +
+			"            <eb3:Error errorCode=\"EBMS:0301\" severity=\"warning\"/>\n" +
+			"        </eb3:SignalMessage>\n";
+
+	@Test
+	void testUserMessage() {
+		final SOAPHeaderBlock messaging = createHeader(USER_MESSAGE);
+
+		final MessagingHeaderReader.MessageUnits units = MessagingHeaderReader.read(messaging);
+
+		assertEquals(1, units.getUserMessages().size());
+		assertNull(units.getPullRequest());
+		assertTrue(units.getReceipts().isEmpty());
+		assertTrue(units.getErrors().isEmpty());
+		assertEquals(0, units.getSignalCount());
+
+		final UserMessage expected = UserMessageElement.readElement(UserMessageElement.getElements(messaging).next());
+		final UserMessage actual = units.getUserMessages().get(0);
+		assertMessageInfo(expected, actual);
+		assertEquals(expected.getMPC(), actual.getMPC());
+		assertTrue(CompareUtils.areEqual(expected.getSender(), actual.getSender()));
+		assertTrue(CompareUtils.areEqual(expected.getReceiver(), actual.getReceiver()));
+		assertTrue(CompareUtils.areEqual(expected.getCollaborationInfo().getAgreement(),
+										 actual.getCollaborationInfo().getAgreement()));
+		assertTrue(CompareUtils.areEqual(expected.getCollaborationInfo().getService(),
+										 actual.getCollaborationInfo().getService()));
+		assertEquals(expected.getCollaborationInfo().getAction(), actual.getCollaborationInfo().getAction());
+		assertEquals(expected.getCollaborationInfo().getConversationId(),
+					 actual.getCollaborationInfo().getConversationId());
+		assertProperties(expected.getMessageProperties(), actual.getMessageProperties());
+
+		final List<IPayload> expPayloads = new ArrayList<>(expected.getPayloads());
+		final List<IPayload> actPayloads = new ArrayList<>(actual.getPayloads());
+		assertEquals(3, actPayloads.size());
+		for (int i = 0; i < expPayloads.size(); i++) {
+			final IPayload e = expPayloads.get(i), a = actPayloads.get(i);
+			assertEquals(e.getContainment(), a.getContainment());
+			assertEquals(e.getPayloadURI(), a.getPayloadURI());
+			assertDescription(e.getDescription(), a.getDescription());
+			assertProperties(e.getProperties(), a.getProperties());
+			if (e.getSchemaReference() == null)
+				assertNull(a.getSchemaReference());
+			else {
+				assertEquals(e.getSchemaReference().getLocation(), a.getSchemaReference().getLocation());
+				assertEquals(e.getSchemaReference().getVersion(), a.getSchemaReference().getVersion());
+				assertEquals(e.getSchemaReference().getNamespace(), a.getSchemaReference().getNamespace());
+			}
+		}
+	}
+
+	@Test
+	void testSignals() {
+		final SOAPHeaderBlock messaging = createHeader(PULL_REQUEST + RECEIPT + ERROR);
+
+		final MessagingHeaderReader.MessageUnits units = MessagingHeaderReader.read(messaging);
+
+		assertTrue(units.getUserMessages().isEmpty());
+		assertEquals(3, units.getSignalCount());
+
+		final PullRequest expPR = PullRequestElement.readElement(PullRequestElement.getElement(messaging));
+		final PullRequest actPR = units.getPullRequest();
+		assertTrue(actPR instanceof SelectivePullRequest);
+		assertMessageInfo(expPR, actPR);
+		assertEquals(expPR.getMPC(), actPR.getMPC());
+		final SelectivePullRequest expSPR = (SelectivePullRequest) expPR, actSPR = (SelectivePullRequest) actPR;
+		assertEquals(expSPR.getReferencedMessageId(), actSPR.getReferencedMessageId());
+		assertEquals(expSPR.getConversationId(), actSPR.getConversationId());
+		assertTrue(CompareUtils.areEqual(expSPR.getAgreementRef(), actSPR.getAgreementRef()));
+		assertTrue(CompareUtils.areEqual(expSPR.getService(), actSPR.getService()));
+		assertEquals(expSPR.getAction(), actSPR.getAction());
+
+		assertEquals(1, units.getReceipts().size());
+		final Receipt expRcpt = ReceiptElement.readElement(ReceiptElement.getElements(messaging).next());
+		final Receipt actRcpt = units.getReceipts().get(0);
+		assertMessageInfo(expRcpt, actRcpt);
+		assertEquals(expRcpt.getContent().size(), actRcpt.getContent().size());
+		final Iterator<OMElement> expContent = expRcpt.getContent().iterator();
+		for (OMElement c : actRcpt.getContent()) {
+			final OMElement e = expContent.next();
+			assertEquals(e.getQName(), c.getQName());
+			assertEquals(e.toString(), c.toString());
+		}
+
+		assertEquals(1, units.getErrors().size());
+		final ErrorMessage expErr = ErrorSignalElement.readElement(ErrorSignalElement.getElements(messaging).next());
+		final ErrorMessage actErr = units.getErrors().get(0);
+		assertMessageInfo(expErr, actErr);
+		assertEquals(2, actErr.getErrors().size());
+		final Iterator<IEbmsError> expErrors = expErr.getErrors().iterator();
+		for (IEbmsError a : actErr.getErrors()) {
+			final IEbmsError e = expErrors.next();
+			assertEquals(e.getErrorCode(), a.getErrorCode());
+			assertEquals(e.getSeverity(), a.getSeverity());
+			assertEquals(e.getCategory(), a.getCategory());
+			assertEquals(e.getOrigin(), a.getOrigin());
+			assertEquals(e.getMessage(), a.getMessage());
+			assertEquals(e.getRefToMessageInError(), a.getRefToMessageInError());
+			assertEquals(e.getErrorDetail(), a.getErrorDetail());
+			assertDescription(e.getDescription(), a.getDescription());
+		}
+	}
+
+	@Test
+	void testHeaderRemainsAvailable() {
+		final SOAPHeaderBlock messaging = createHeader(USER_MESSAGE);
+
+		MessagingHeaderReader.read(messaging);
+
+		// The header must still be available as OM tree, e.g. for the processing of the WS-Security header
+		assertEquals("um-msg-id@test.holodeck-b2b.org", UserMessageElement.readElement(
+											UserMessageElement.getElements(messaging).next()).getMessageId());
+		assertFalse(((SOAPEnvelope) ((OMElement) messaging.getParent()).getParent()).getBody().isComplete());
+	}
+
+	@Test
+	void testMessageContext() throws Exception {
+		final MessageContext mc = new MessageContext();
+		mc.setEnvelope(OMXMLBuilderFactory.createSOAPModelBuilder(new StringReader(
+						"<soapenv:Envelope xmlns:soapenv=\"http://www.w3.org/2003/05/soap-envelope\">"
+						+ "<soapenv:Header/><soapenv:Body/></soapenv:Envelope>")).getSOAPEnvelope());
+		assertNull(MessagingHeaderReader.getMessageUnits(mc));
+
+		mc.setEnvelope((SOAPEnvelope) ((OMElement) createHeader(USER_MESSAGE).getParent()).getParent());
+		final MessagingHeaderReader.MessageUnits units = MessagingHeaderReader.getMessageUnits(mc);
+		assertNotNull(units);
+		assertEquals(1, units.getUserMessages().size());
+		assertSame(units, MessagingHeaderReader.getMessageUnits(mc));
+	}
+
+	/**
+	 * Creates a SOAP envelope, not yet completely built, with an ebMS header containing the given message units
+	 */
+	private static SOAPHeaderBlock createHeader(final String msgUnits) {
+		final String xml =
+				"<soapenv:Envelope xmlns:soapenv=\"http://www.w3.org/2003/05/soap-envelope\"\n" +
+				"    xmlns:eb3=\"http://docs.oasis-open.org/ebxml-msg/ebms/v3.0/ns/core/200704/\">\n" +
+				"    <soapenv:Header>\n" +
+				"    <eb3:Messaging soapenv:mustUnderstand=\"true\">\n" +
+				msgUnits +
+				"    </eb3:Messaging>\n" +
+				"    </soapenv:Header>\n" +
+				"    <soapenv:Body><content>body</content></soapenv:Body>\n" +
+				"</soapenv:Envelope>\n";
+		return Messaging.getElement(OMXMLBuilderFactory.createSOAPModelBuilder(new StringReader(xml))
+																							.getSOAPEnvelope());
+	}
+
+	private static void assertMessageInfo(final IMessageUnit expected, final IMessageUnit actual) {
+		assertNotNull(actual.getMessageId());
+		assertEquals(expected.getMessageId(), actual.getMessageId());
+		assertEquals(expected.getRefToMessageId(), actual.getRefToMessageId());
+		assertEquals(expected.getTimestamp(), actual.getTimestamp());
+	}
+
+	private static void assertProperties(final Collection<IProperty> expected,
+										 final Collection<IProperty> actual) {
+		if (expected == null || expected.isEmpty()) {
+			assertTrue(actual == null || actual.isEmpty());
+			return;
+		}
+		assertEquals(expected.size(), actual.size());
+		final Iterator<IProperty> it = actual.iterator();
+		for (IProperty p : expected)
+			assertTrue(CompareUtils.areEqual(p, it.next()));
+	}
+
+	private static void assertDescription(final IDescription expected, final IDescription actual) {
+		if (expected == null)
+			assertNull(actual);
+		else {
+			assertEquals(expected.getText(), actual.getText());
+			assertEquals(expected.getLanguage(), actual.getLanguage());
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.packaging;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.holodeckb2b.common.messagemodel.CollaborationInfo;
+import org.holodeckb2b.common.messagemodel.PartyId;
+import org.holodeckb2b.common.messagemodel.Payload;
+import org.holodeckb2b.common.messagemodel.Property;
+import org.holodeckb2b.common.messagemodel.Service;
+import org.holodeckb2b.common.messagemodel.TradingPartner;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.common.testhelpers.Benchmark;
+import org.holodeckb2b.commons.util.MessageIdUtils;
+import org.holodeckb2b.interfaces.messagemodel.IPayload;
+
+/**
+ * Benchmark of the time and memory used to add a User Message to the ebMS header of a message to be sent and
+ * serialize the envelope, comparing the object model created by the {@link UserMessageElement} packaging class with
+ * the element written by the {@link MessagingHeaderWriter}. The User Message contains many message properties and
+ * payloads, both numbers can be set using the system properties <i>properties</i> and <i>parts</i>.
+ * <p>This is not a unit test and therefore not executed as part of the build. It can be run using its <code>main
+ * </code> method, optionally with the number of rounds as argument.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+public class MessagingHeaderWriterBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		final int rounds = Benchmark.getArgument(args, 0, 10000);
+		final int properties = Integer.getInteger("properties", 50);
+		final int parts = Integer.getInteger("parts", 50);
+
+		final UserMessage um = createUserMessage(properties, parts);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+		run(um, false, out);
+		System.out.printf("User Message with %d properties and %d parts, message size %d bytes%n", properties, parts,
+						  out.size());
+
+		Benchmark.warmUp(rounds, () -> run(um, false, out), () -> run(um, true, out));
+		for (boolean streaming : new boolean[] { false, true })
+			System.out.printf("%-9s: %s per message%n", streaming ? "StAX" : "OM",
+							  Benchmark.measure(rounds, () -> run(um, streaming, out)));
+	}
+
+	/**
+	 * Creates a new envelope with the ebMS header containing the User Message and serializes it, as is done when the
+	 * message is sent.
+	 */
+	private static void run(final UserMessage um, final boolean streaming, final ByteArrayOutputStream out)
+																									throws Exception {
+		final SOAPEnvelope env = SOAPEnv.createEnvelope(SOAPEnv.SOAPVersion.SOAP_12);
+		if (streaming)
+			MessagingHeaderWriter.addUserMessage(Messaging.createElement(env), um);
+		else
+			UserMessageElement.createElement(Messaging.createElement(env), um);
+		out.reset();
+		env.serialize(out);
+	}
+
+	private static UserMessage createUserMessage(final int properties, final int parts) {
+		final UserMessage um = new UserMessage();
+		um.setMessageId(MessageIdUtils.createMessageId());
+		um.setTimestamp(new Date());
+		final TradingPartner sender = new TradingPartner();
+		sender.addPartyId(new PartyId("company:A", "org:holodeckb2b:test"));
+		sender.setRole("Sender");
+		um.setSender(sender);
+		final TradingPartner receiver = new TradingPartner();
+		receiver.addPartyId(new PartyId("company:B", "org:holodeckb2b:test"));
+		receiver.setRole("Receiver");
+		um.setReceiver(receiver);
+		final CollaborationInfo ci = new CollaborationInfo();
+		ci.setService(new Service("Benchmark"));
+		ci.setAction("Write");
+		ci.setConversationId("benchmark-conversation");
+		um.setCollaborationInfo(ci);
+		for (int i = 0; i < properties; i++)
+			um.addMessageProperty(new Property("property-" + i, "value-" + i));
+		for (int i = 0; i < parts; i++) {
+			final Payload p = new Payload();
+			p.setContainment(IPayload.Containment.ATTACHMENT);
+			p.setPayloadURI("part-" + i + "@benchmark.holodeck-b2b.org");
+			p.setMimeType("application/xml");
+			p.addProperty(new Property("CompressionType", "application/gzip"));
+			um.addPayload(p);
+		}
+		return um;
+	}
+}
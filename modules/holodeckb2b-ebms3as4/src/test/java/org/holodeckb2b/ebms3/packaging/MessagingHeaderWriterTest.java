@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2025 The Holodeck B2B Team, Sander Fieten
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.holodeckb2b.ebms3.packaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Date;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.om.OMXMLBuilderFactory;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.holodeckb2b.common.messagemodel.AgreementReference;
+import org.holodeckb2b.common.messagemodel.CollaborationInfo;
+import org.holodeckb2b.common.messagemodel.Description;
+import org.holodeckb2b.common.messagemodel.EbmsError;
+import org.holodeckb2b.common.messagemodel.ErrorMessage;
+import org.holodeckb2b.common.messagemodel.MessageUnit;
+import org.holodeckb2b.common.messagemodel.PartyId;
+import org.holodeckb2b.common.messagemodel.Payload;
+import org.holodeckb2b.common.messagemodel.Property;
+import org.holodeckb2b.common.messagemodel.PullRequest;
+import org.holodeckb2b.common.messagemodel.Receipt;
+import org.holodeckb2b.common.messagemodel.SchemaReference;
+import org.holodeckb2b.common.messagemodel.SelectivePullRequest;
+import org.holodeckb2b.common.messagemodel.Service;
+import org.holodeckb2b.common.messagemodel.TradingPartner;
+import org.holodeckb2b.common.messagemodel.UserMessage;
+import org.holodeckb2b.interfaces.messagemodel.IEbmsError;
+import org.holodeckb2b.interfaces.messagemodel.IPayload;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link MessagingHeaderWriter} by comparing the XML it writes with the XML of the elements created by the
+ * OM based packaging classes.
+ *
+ * @author Sander Fieten (sander at holodeck-b2b.org)
+ */
+class MessagingHeaderWriterTest {
+
+	@Test
+	void testUserMessage() throws Exception {
+		final UserMessage um = createUserMessage();
+
+		final SOAPHeaderBlock expected = createHeader();
+		UserMessageElement.createElement(expected, um);
+		final SOAPHeaderBlock actual = createHeader();
+		final OMElement umElement = MessagingHeaderWriter.addUserMessage(actual, um);
+
+		assertEquals(serialize(expected), serialize(actual));
+		assertFalse(((OMSourcedElement) umElement).isExpanded());
+	}
+
+	@Test
+	void testSignals() throws Exception {
+		final SelectivePullRequest pr = new SelectivePullRequest();
+		setMessageInfo(pr, "pr-msg-id");
+		pr.setMPC("http://test.holodeck-b2b.org/mpc");
+		pr.setReferencedMessageId("ref-msg-id");
+		pr.setConversationId("conversation-1");
+		pr.setAgreementRef(new AgreementReference("agreement-1", null, null));
+		pr.setService(new Service("Test", "services"));
+		pr.setAction("StoreMessage");
+		final PullRequest simplePR = new PullRequest();
+		setMessageInfo(simplePR, "simple-pr-msg-id");
+
+		final Receipt receipt = new Receipt();
+		setMessageInfo(receipt, "rcpt-msg-id");
+		receipt.setRefToMessageId("um-msg-id");
+		final OMElement rcptContent = OMAbstractFactory.getOMFactory().createOMElement(
+											new QName("http://test.holodeck-b2b.org/receipt", "Content", "rc"));
+		rcptContent.setText("content");
+		receipt.addElementToContent(rcptContent);
+
+		final ErrorMessage errorSignal = new ErrorMessage();
+		setMessageInfo(errorSignal, "err-msg-id");
+		final EbmsError error = new EbmsError();
+		error.setErrorCode("EBMS:0004");
+		error.setSeverity(IEbmsError.Severity.failure);
+		error.setCategory("Content");
+		error.setOrigin("ebMS");
+		error.setMessage("Other");
+		error.setRefToMessageInError("um-msg-id");
+		error.setErrorDetail("Some details");
+		error.setDescription(new Description("Something went wrong", "en"));
+		errorSignal.addError(error);
+		final EbmsError warning = new EbmsError();
+		warning.setErrorCode("EBMS:0301");
+		warning.setSeverity(IEbmsError.Severity.warning);
+		errorSignal.addError(warning);
+
+		final SOAPHeaderBlock expected = createHeader();
+		PullRequestElement.createElement(expected, pr);
+		PullRequestElement.createElement(expected, simplePR);
+		ErrorSignalElement.createElement(expected, errorSignal);
+		final SOAPHeaderBlock actual = createHeader();
+		MessagingHeaderWriter.addPullRequest(actual, pr);
+		MessagingHeaderWriter.addPullRequest(actual, simplePR);
+		MessagingHeaderWriter.addErrorSignal(actual, errorSignal);
+		// The Receipt element created by the packaging class takes over the content elements, so write it first
+		MessagingHeaderWriter.addReceipt(actual, receipt);
+		final String actualXML = serialize(actual);
+		ReceiptElement.createElement(expected, receipt);
+
+		final String expectedXML = serialize(expected);
+		final int rcptStart = actualXML.lastIndexOf("<eb3:SignalMessage>");
+		assertEquals(expectedXML.substring(0, expectedXML.lastIndexOf("<eb3:SignalMessage>")),
+					 actualXML.substring(0, rcptStart));
+		assertTrue(expectedXML.endsWith(actualXML.substring(rcptStart)));
+	}
+
+	@Test
+	void testExpansion() throws Exception {
+		final UserMessage um = createUserMessage();
+		final SOAPHeaderBlock messaging = createHeader();
+		final OMElement umElement = MessagingHeaderWriter.addUserMessage(messaging, um);
+
+		// Accessing the content of the element creates the object model
+		final UserMessage read = UserMessageElement.readElement(UserMessageElement.getElements(messaging).next());
+		assertTrue(((OMSourcedElement) umElement).isExpanded());
+		assertEquals(um.getMessageId(), read.getMessageId());
+		assertEquals(um.getMPC(), read.getMPC());
+		assertEquals(um.getPayloads().size(), read.getPayloads().size());
+		assertEquals(um.getMessageProperties().size(), read.getMessageProperties().size());
+
+		final SOAPHeaderBlock expected = createHeader();
+		UserMessageElement.createElement(expected, um);
+		assertEquals(serialize(expected), serialize(messaging));
+	}
+
+	@Test
+	void testWithoutDeclaredNamespace() throws Exception {
+		final UserMessage um = createUserMessage();
+		final OMElement container = OMAbstractFactory.getOMFactory().createOMElement("container", null);
+		MessagingHeaderWriter.addUserMessage(container, um);
+
+		final String xml = serialize(container);
+		assertTrue(xml.contains("xmlns:eb3="));
+		final OMElement umElement = OMXMLBuilderFactory.createOMBuilder(new StringReader(xml)).getDocumentElement()
+																							  .getFirstElement();
+		assertEquals(um.getMessageId(), UserMessageElement.readElement(umElement).getMessageId());
+	}
+
+	private static SOAPHeaderBlock createHeader() {
+		final SOAPEnvelope env = SOAPEnv.createEnvelope(SOAPEnv.SOAPVersion.SOAP_12);
+		return Messaging.createElement(env);
+	}
+
+	private static String serialize(final OMElement e) throws Exception {
+		final StringWriter w = new StringWriter();
+		e.serialize(w);
+		return w.toString();
+	}
+
+	private static void setMessageInfo(final MessageUnit mu, final String msgId) {
+		mu.setMessageId(msgId);
+		mu.setTimestamp(new Date());
+	}
+
+	private static UserMessage createUserMessage() {
+		final UserMessage um = new UserMessage();
+		setMessageInfo(um, "um-msg-id");
+		um.setRefToMessageId("ref-msg-id");
+		um.setMPC("http://test.holodeck-b2b.org/mpc");
+		final TradingPartner sender = new TradingPartner();
+		sender.addPartyId(new PartyId("company:A", "org:holodeckb2b:test"));
+		sender.addPartyId(new PartyId("company:A:alias", null));
+		sender.setRole("Sender");
+		um.setSender(sender);
+		final TradingPartner receiver = new TradingPartner();
+		receiver.addPartyId(new PartyId("company:B", null));
+		um.setReceiver(receiver);
+		final CollaborationInfo ci = new CollaborationInfo();
+		ci.setAgreement(new AgreementReference("agreement-1", "agreements", "pm-test"));
+		ci.setService(new Service("Test", "services"));
+		ci.setAction("StoreMessage");
+		ci.setConversationId("conversation-1");
+		um.setCollaborationInfo(ci);
+		um.addMessageProperty(new Property("originalSender", "company:C"));
+		um.addMessageProperty(new Property("finalRecipient", "company:D", "typed"));
+		final Payload attachment = new Payload();
+		attachment.setContainment(IPayload.Containment.ATTACHMENT);
+		attachment.setPayloadURI("attachment-1@test.holodeck-b2b.org");
+		final SchemaReference schema = new SchemaReference();
+		schema.setLocation("http://test.holodeck-b2b.org/schema.xsd");
+		schema.setVersion("1.0");
+		attachment.setSchemaReference(schema);
+		attachment.setDescription(new Description("The first attachment", "en"));
+		attachment.addProperty(new Property("MimeType", "application/xml"));
+		um.addPayload(attachment);
+		final Payload body = new Payload();
+		body.setContainment(IPayload.Containment.BODY);
+		body.setPayloadURI("body-content");
+		um.addPayload(body);
+		final Payload external = new Payload();
+		external.setContainment(IPayload.Containment.EXTERNAL);
+		external.setPayloadURI("http://test.holodeck-b2b.org/external");
+		um.addPayload(external);
+		return um;
+	}
+}
@@ -35,7 +35,8 @@ public interface IAS4PayloadProfile extends IPayloadProfile {
      * described in section 3.1 of the AS4 profile. Represents the <code>PMode[1].PayloadService.CompressionType</code>
      * P-Mode parameter.
      * <p>NOTE 1: Although the AS4 profiles states that payloads containing already compressed data do not need to be
-     * compressed Holodeck B2B will compress all payloads regardless of their content if indicated by this method.
+     * compressed Holodeck B2B will compress all payloads regardless of their content if indicated by this method,
+     * unless adaptive compression is enabled (see {@link #useAdaptiveCompression()}).
      * <p>NOTE 2: Currently the only allowed compression type is GZip and the returned value of the method must therefor
      * be either <i>"application/gzip"</i> or <code>null</code>.
      *
@@ -43,4 +44,30 @@ public interface IAS4PayloadProfile extends IPayloadProfile {
      *          <code>null</code> if compression is not used
      */
     public String getCompressionType();
+
+    /**
+     * Gets the level of compression to use when payloads are compressed. The level is the compression level of the
+     * deflate algorithm used by GZip, ranging from 0 (no compression) to 9 (best compression) or -1 to use the default
+     * level.
+     *
+     * @return	the compression level to use, default -1
+     * @since 8.2.0
+     */
+    default int getCompressionLevel() {
+    	return -1;
+    }
+
+    /**
+     * Indicates whether the compression of payloads should be adapted to their content, i.e. whether payloads that
+     * already contain compressed data should be sent uncompressed. When enabled, payloads with a MIME type of a
+     * compressed format, like JPEG images or ZIP archives, are not compressed and for other payloads a sample of the
+     * data is compressed first to check whether compressing the payload is worthwhile.
+     *
+     * @return	<code>true</code> if only payloads that can be compressed should be compressed,<br>
+     * 			<code>false</code> if all payloads should be compressed (default)
+     * @since 8.2.0
+     */
+    default boolean useAdaptiveCompression() {
+    	return false;
+    }
 }
@@ -100,6 +100,19 @@ public interface IConfiguration {
 	 */
 	boolean useStrictHeaderValidation();
 
+	/**
+	 * Gets the global setting whether the thread pools used for processing requests and executing worker tasks should
+	 * use <i>virtual threads</i>. As virtual threads are only available from Java 21, this setting is ignored when
+	 * running on an older Java version.
+	 *
+	 * @return <code>true</code> if virtual threads should be used when available,<br>
+	 *         <code>false</code> if platform threads should be used (default)
+	 * @since 8.2.0
+	 */
+	default boolean useVirtualThreads() {
+		return false;
+	}
+
 	/**
 	 * Gets the <i>custom</i> parameter with the specified name.
 	 * <p>
@@ -53,6 +53,20 @@ import org.holodeckb2b.interfaces.pmode.ILeg.Label;
  */
 public interface IPMode {
 
+    /**
+     * Enumeration of the priority classes that can be assigned to the messages sent under a P-Mode.
+     *
+     * @since 8.2.0
+     */
+    public enum Priority {
+    	/** Indicates messages that should be sent before other messages, e.g. time critical notifications **/
+    	HIGH,
+    	/** Indicates the normal priority, used when no priority is specified **/
+    	NORMAL,
+    	/** Indicates messages that can wait while messages with a higher priority are sent, e.g. bulk transfers **/
+    	LOW
+    }
+
     /**
      * Gets the P-Mode id.
      * <p>Although <code>id</code> is defined as optional by the ebMS Core Specification in this model it is defined as
@@ -197,4 +211,18 @@ public interface IPMode {
      */
     List<IMessageProcessingEventConfiguration> getMessageProcessingEventConfiguration();
 
+    /**
+     * Gets the priority class of the messages sent under this P-Mode.
+     * <p>When multiple messages are waiting to be sent, the messages are sent in proportion to the priority of their
+     * class, so messages with a higher priority are sent earlier without fully blocking the messages with a lower
+     * priority. Within the same priority class the messages of different P-Modes are handled equally.
+     *
+     * @return The {@link Priority} of the messages of this P-Mode, <code>null</code> if not specified in which case
+     *         the messages are handled with {@link Priority#NORMAL} priority.
+     * @since 8.2.0
+     */
+    default Priority getPriority() {
+    	return null;
+    }
+
 }
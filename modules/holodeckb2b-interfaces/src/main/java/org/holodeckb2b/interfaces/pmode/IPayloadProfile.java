@@ -21,7 +21,8 @@ package org.holodeckb2b.interfaces.pmode;
  * Represents the P-Mode parameters that define what and how payloads should be included in the message.
  * <p>The <b>PayloadProfile</b> parameter is described in appendix D of the ebMS V3 Core Specification.
  * <p><b>NOTE: </b>Currently the payload profile is not used by Holodeck B2B to restrict the payloads that can be
- * included in a user message. Therefore this interface currently does not define any methods.
+ * included in a user message. Since version 8.2.0 it can however be used to configure how the attachments of received
+ * messages are buffered before they are saved.
  *
  * @author Bram Bakx (bram at holodeck-b2b.org)
  */
@@ -32,4 +33,29 @@ public interface IPayloadProfile {
      * public int getMaxSize();
     */
 
+    /**
+     * Gets the maximum size in bytes of an attachment of a received message that is kept in memory. Larger attachments
+     * are temporarily stored on disk in the directory given by {@link #getAttachmentTempDirectory()}. When not
+     * specified the threshold configured for the listener on which the message was received applies.
+     *
+     * @return	the maximum size of attachments kept in memory, or -1 to use the listener setting (default)
+     * @since 8.2.0
+     */
+    default long getAttachmentMemoryThreshold() {
+    	return -1;
+    }
+
+    /**
+     * Gets the path of the directory where attachments of received messages that exceed the memory threshold are
+     * temporarily stored. When this directory is on the same file system as the payload storage, the attachments
+     * can be moved into the storage without copying their content. When not specified the directory configured for
+     * the listener on which the message was received applies.
+     *
+     * @return	the path of the directory for temporarily storing attachments, or <code>null</code> to use the listener
+     * 			setting (default)
+     * @since 8.2.0
+     */
+    default String getAttachmentTempDirectory() {
+    	return null;
+    }
 }
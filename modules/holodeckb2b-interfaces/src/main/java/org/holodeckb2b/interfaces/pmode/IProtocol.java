@@ -101,4 +101,36 @@ public interface IProtocol {
 	 * @since 8.0.0
 	 */
 	Integer getReadTimeout();
+
+	/**
+	 * Gets the maximum number of connections that can be open to the trading partner's MSH at the same time. This can
+	 * be used to allow more concurrent connections to MSHs that receive many messages. If not specified the default
+	 * maximum number of connections per destination as specified in the Holodeck B2B configuration will be used.
+	 *
+	 * @return	the maximum number of connections or <code>null</code> if the default maximum should be used
+	 * @since 8.2.0
+	 */
+	default Integer getMaxConnections() { return null; }
+
+	/**
+	 * Gets the maximum time in milliseconds a connection to the trading partner's MSH is kept open for reuse after a
+	 * request has been completed. When the other MSH indicates a shorter time in its response, that time is used. If
+	 * not specified the default keep-alive timeout as specified in the Holodeck B2B configuration will be used.
+	 *
+	 * @return	the keep-alive timeout in milliseconds or <code>null</code> if the default timeout should be used
+	 * @since 8.2.0
+	 */
+	default Integer getKeepAliveTimeout() { return null; }
+
+	/**
+	 * Indicates whether HTTP/2 should be used for sending messages to the trading partner's MSH. When HTTP/2 is used
+	 * concurrent messages to the same MSH are multiplexed over one connection. If the trading partner's MSH does not
+	 * support HTTP/2, HTTP/1.1 is used. If not specified the default setting as specified in the Holodeck B2B
+	 * configuration will be used.
+	 *
+	 * @return	<code>Boolean.TRUE</code> if HTTP/2 should be used, <code>Boolean.FALSE</code> if HTTP/1.1 should be used
+	 * 			or <code>null</code> if the default setting should be used
+	 * @since 8.2.0
+	 */
+	default Boolean useHTTP2() { return null; }
 }
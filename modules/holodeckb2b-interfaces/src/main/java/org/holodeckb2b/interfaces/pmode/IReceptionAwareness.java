@@ -71,4 +71,20 @@ public interface IReceptionAwareness {
      *          <code>false</code> if messages should always be delivered even when duplicate
      */
     public boolean useDuplicateDetection();
+
+    /**
+     * Indicates whether a retransmission of the <i>User Message</i> can be exactly the same as the first transmission,
+     * i.e. the packaged and secured message can be cached after the first transmission and resent as is. This saves
+     * the packaging and security processing of the message for each retry.
+     * <p>NOTE: As the security header is not recreated, a retransmission contains the same WS-Security timestamp as the
+     * first transmission. This should only be enabled when the trading partner accepts such messages, e.g. when it
+     * does not reject messages because of an expired timestamp or as replay.
+     *
+     * @return  <code>true</code> if the first transmission can be resent as is,<br>
+     *          <code>false</code> if the message should be packaged again for each retransmission (default)
+     * @since 8.2.0
+     */
+    default boolean resendIdenticalMessage() {
+    	return false;
+    }
 }
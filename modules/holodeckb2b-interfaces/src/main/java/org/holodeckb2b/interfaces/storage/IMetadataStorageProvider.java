@@ -293,4 +293,20 @@ public interface IMetadataStorageProvider {
 	 * @since 8.0.0
 	 */
 	Collection<IPayloadEntity> getUnboundPayloads() throws StorageException;
+
+	/**
+	 * Checks whether meta-data is stored for the payload with the given identifier. Used at startup to find payload
+	 * content that was left behind because the instance was stopped after the meta-data of a payload was removed but
+	 * before its content was removed.
+	 * <p>
+	 * The default implementation always returns <code>true</code> so payload content is never considered orphaned.
+	 *
+	 * @param payloadId	the identifier of the payload
+	 * @return <code>true</code> if meta-data is stored for the payload, <code>false</code> otherwise
+	 * @throws StorageException If an error occurs when executing this query
+	 * @since 8.2.0
+	 */
+	default boolean hasPayloadMetadata(final String payloadId) throws StorageException {
+		return true;
+	}
 }
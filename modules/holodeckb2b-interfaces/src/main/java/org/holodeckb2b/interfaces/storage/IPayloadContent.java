@@ -16,8 +16,11 @@
  */
 package org.holodeckb2b.interfaces.storage;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Defines the interface of the object that is used by the Holodeck B2B Core to store the payload meta-data.
@@ -66,4 +69,46 @@ public interface IPayloadContent {
 	 * 							to this method has been closed.
 	 */
 	OutputStream openStorage() throws StorageException;
+
+	/**
+	 * Stores the content of the given file as the payload content. This method is used by the Holodeck B2B Core when
+	 * the payload content is already available in a temporary file, for example when an attachment of a received
+	 * message has been cached to disk by Axis2. Providers that store the content on the file system can take over the
+	 * given file, by moving or linking it, instead of copying the content and therefore avoid writing the content to
+	 * disk a second time.
+	 * <p>
+	 * NOTE: As the provider may take ownership of the given file, the caller MUST NOT use the file anymore after this
+	 * method has completed successfully. The default implementation just copies the file's content to the stream
+	 * returned by {@link #openStorage()}.
+	 *
+	 * @param source	path of the file that contains the payload content
+	 * @throws StorageException when an error occurs storing the content or if the payload content has already been
+	 * 							written to storage
+	 * @since 8.2.0
+	 */
+	default void adoptContent(final Path source) throws StorageException {
+		try (InputStream is = Files.newInputStream(source); OutputStream os = openStorage()) {
+			is.transferTo(os);
+		} catch (IOException copyFailure) {
+			throw new StorageException("Could not copy content from " + source.toString(), copyFailure);
+		}
+	}
+
+	/**
+	 * Gets the digest of the payload content calculated using the given algorithm. Providers can calculate the digest
+	 * while the content is written to storage so it is available when the payload needs to be signed, which prevents
+	 * that the content must be read again only to calculate its digest.
+	 * <p>
+	 * As a provider is not required to support this, the default implementation returns <code>null</code>, which
+	 * indicates to the caller that it needs to calculate the digest itself.
+	 *
+	 * @param algorithm	the name of the digest algorithm, as used by {@link java.security.MessageDigest}, e.g.
+	 * 					"SHA-256"
+	 * @return	the digest value of the content, or <code>null</code> if no digest is available for the given algorithm
+	 * @throws StorageException when an error occurs retrieving the digest value
+	 * @since 8.2.0
+	 */
+	default byte[] getDigest(final String algorithm) throws StorageException {
+		return null;
+	}
 }
@@ -105,4 +105,20 @@ public interface IPayloadEntity extends IPayload {
 	default InputStream getContent() throws IOException {
 		return null;
 	}
+
+	/**
+	 * Gets the digest of the payload content calculated using the given algorithm, if it is already available from
+	 * the payload storage. See {@link IPayloadContent#getDigest(String)}.
+	 * <p>
+	 * As this method does not need to be implemented by the <i>Metadata Storage Provider</i> a default implementation
+	 * is provided.
+	 *
+	 * @param algorithm	the name of the digest algorithm, as used by {@link java.security.MessageDigest}
+	 * @return	the digest value of the content, or <code>null</code> if not available
+	 * @throws IOException when an error occurs retrieving the digest value
+	 * @since 8.2.0
+	 */
+	default byte[] getContentDigest(final String algorithm) throws IOException {
+		return null;
+	}
 }
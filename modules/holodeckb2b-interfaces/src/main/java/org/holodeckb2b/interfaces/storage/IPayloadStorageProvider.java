@@ -16,6 +16,9 @@
  */
 package org.holodeckb2b.interfaces.storage;
 
+import java.util.Collection;
+import java.util.function.Predicate;
+
 import org.holodeckb2b.interfaces.config.IConfiguration;
 
 /**
@@ -84,10 +87,49 @@ public interface IPayloadStorageProvider {
 
 	/**
 	 * Removes the stored content of a payload.
+	 * <p>
+	 * The provider may perform the actual removal asynchronously, for example to prevent that the purge process is
+	 * held back by slow storage. In that case it must however ensure that the content is not available anymore after
+	 * this method returns and that the removal is completed after a restart if the instance is stopped before the
+	 * content is actually removed.
 	 *
 	 * @param payloadInfo	meta-data of the payload which content should be removed
 	 * @throws StorageException	when an error occurs that prevents the <i>Payload Storage Provider</i> to remove
 	 * 							the payload content.
 	 */
 	void removePayloadContent(final IPayloadEntity payloadInfo) throws StorageException;
+
+	/**
+	 * Removes the stored content of a set of payloads. This method is used by the purge process so the provider can
+	 * handle the removal of the payloads as one batch, for example to write its administration only once. The same
+	 * requirements as for {@link #removePayloadContent(IPayloadEntity)} apply. When the content of one of the payloads
+	 * cannot be removed an exception is thrown and the Core will consider the removal of all payloads as failed.
+	 * <p>
+	 * The default implementation removes the payloads one by one using {@link #removePayloadContent(IPayloadEntity)}.
+	 *
+	 * @param payloadInfos	meta-data of the payloads which content should be removed
+	 * @throws StorageException	when an error occurs that prevents the <i>Payload Storage Provider</i> to remove
+	 * 							the content of one or more payloads.
+	 * @since 8.2.0
+	 */
+	default void removePayloadContent(final Collection<? extends IPayloadEntity> payloadInfos)
+																						throws StorageException {
+		for (IPayloadEntity p : payloadInfos)
+			removePayloadContent(p);
+	}
+
+	/**
+	 * Removes the stored payload content for which no meta-data exists anymore. This content can be left behind when
+	 * the instance was stopped after the meta-data of a payload was removed but before the removal of its content was
+	 * started. This method is called by the Holodeck B2B Core at startup after both storage providers are initialised
+	 * and before any message is processed.
+	 * <p>
+	 * The default implementation does nothing.
+	 *
+	 * @param hasMetadata	predicate to check whether meta-data exists for the payload with the given identifier
+	 * @throws StorageException	when an error occurs that prevents the provider to check the stored content
+	 * @since 8.2.0
+	 */
+	default void removeOrphanedContent(final Predicate<String> hasMetadata) throws StorageException {
+	}
 }
@@ -56,4 +56,14 @@ public interface IWorkerTask extends Runnable {
      * @throws TaskConfigurationException  When the task can not be configured based on the supplied parameters
      */
     public void setParameters(Map<String, ?> parameters) throws TaskConfigurationException;
+
+    /**
+     * Is called by the worker pool when this task is removed from the pool or the pool is stopped, so the task can
+     * release the resources it holds. The task will not be executed again after this method has been called.
+     * <p>The default implementation does nothing.
+     *
+     * @since 8.2.0
+     */
+    default void shutdown() {
+    }
 }
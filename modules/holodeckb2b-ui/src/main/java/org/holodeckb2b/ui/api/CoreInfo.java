@@ -24,6 +24,8 @@ import java.util.Map;
 
 import org.holodeckb2b.common.messagemodel.MessageUnit;
 import org.holodeckb2b.common.pmode.PMode;
+import org.holodeckb2b.core.axis2.EndpointCircuitBreaker;
+import org.holodeckb2b.core.metrics.LatencyStatistics;
 import org.holodeckb2b.interfaces.messagemodel.IMessageUnit;
 
 /**
@@ -96,4 +98,24 @@ public interface CoreInfo extends Remote {
 	 * @throws RemoteException When an error occurs in retrieving the meta-data of the message units
 	 */
 	MessageUnit[] getMessageUnitLog(final Date upto, final int max) throws RemoteException;
+
+	/**
+	 * Gets the status of the destinations to which messages are currently deferred or to which the last send attempts
+	 * failed.
+	 *
+	 * @return	Array with the status of the destinations that have problems. Empty if all destinations are available
+	 * @throws RemoteException When an error occurs in retrieving the status of the destinations
+	 * @since 8.2.0
+	 */
+	EndpointCircuitBreaker.Status[] getDestinationStatus() throws RemoteException;
+
+	/**
+	 * Gets the statistics of the processing times of the handlers in each flow and of the message exchanges in which
+	 * the gateway responded to a received request.
+	 *
+	 * @return	Array with the processing time statistics. Empty if no messages have been processed yet
+	 * @throws RemoteException When an error occurs in retrieving the statistics
+	 * @since 8.2.0
+	 */
+	LatencyStatistics[] getProcessingMetrics() throws RemoteException;
 }
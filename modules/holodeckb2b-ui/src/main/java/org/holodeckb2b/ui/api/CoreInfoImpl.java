@@ -17,6 +17,10 @@ import org.holodeckb2b.common.messagemodel.Receipt;
 import org.holodeckb2b.common.messagemodel.UserMessage;
 import org.holodeckb2b.common.pmode.PMode;
 import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.core.axis2.Axis2Sender;
+import org.holodeckb2b.core.axis2.EndpointCircuitBreaker;
+import org.holodeckb2b.core.metrics.LatencyStatistics;
+import org.holodeckb2b.core.metrics.ProcessingMetrics;
 import org.holodeckb2b.interfaces.core.HolodeckB2BCoreInterface;
 import org.holodeckb2b.interfaces.messagemodel.IPayload;
 import org.holodeckb2b.interfaces.messagemodel.IReceipt;
@@ -86,6 +90,18 @@ public class CoreInfoImpl implements CoreInfo {
 		return getMessageUnits(mdsp -> mdsp.getMessageHistory(before, max));
 	}
 
+	@Override
+	public EndpointCircuitBreaker.Status[] getDestinationStatus() throws RemoteException {
+		final EndpointCircuitBreaker cb = Axis2Sender.getCircuitBreaker();
+		return cb != null ? cb.getStatus().toArray(new EndpointCircuitBreaker.Status[0])
+						  : new EndpointCircuitBreaker.Status[0];
+	}
+
+	@Override
+	public LatencyStatistics[] getProcessingMetrics() throws RemoteException {
+		return ProcessingMetrics.getStatistics().toArray(new LatencyStatistics[0]);
+	}
+
 	interface QueryExecutor {
 		Collection<IMessageUnitEntity> executeQuery(DefaultMetadataStorageProvider mdsProvider) throws StorageException;
 	}
@@ -69,7 +69,9 @@ public class CommandLineArguments {
 		PRINT_CERT("printCert", new Option[] { PORT_OPTION, CERT_ALIAS, CERT_TYPE } , "Prints the details of  a certificate"),
 		MSG_STATUS("msgStatus", new Option[] { PORT_OPTION, MESSAGE_ID } , "Gets the current processing state of a message unit"),
 		STATUS_LIST("statusList", new Option[] { PORT_OPTION, MESSAGE_ID } , "Lists of processing states a message unit was and is in"),
-		HISTORY("history", new Option[] { PORT_OPTION, FROM, MAX } , "Provides overview of message units in descending order of latest proc state's start time");
+		HISTORY("history", new Option[] { PORT_OPTION, FROM, MAX } , "Provides overview of message units in descending order of latest proc state's start time"),
+		DESTINATIONS("destinations", new Option[] { PORT_OPTION } , "Lists the destinations to which messages are deferred or sending recently failed"),
+		METRICS("metrics", new Option[] { PORT_OPTION } , "Lists the processing times of the handlers and message exchanges");
 
 		String   name;
 		Option[] options;
@@ -35,6 +35,8 @@ import org.holodeckb2b.common.messagemodel.MessageUnit;
 import org.holodeckb2b.common.pmode.PMode;
 import org.holodeckb2b.common.util.MessageUnitUtils;
 import org.holodeckb2b.commons.util.Utils;
+import org.holodeckb2b.core.axis2.EndpointCircuitBreaker;
+import org.holodeckb2b.core.metrics.LatencyStatistics;
 import org.holodeckb2b.interfaces.general.IAgreement;
 import org.holodeckb2b.interfaces.general.IPartyId;
 import org.holodeckb2b.interfaces.messagemodel.Direction;
@@ -95,6 +97,10 @@ public class HB2BInfoTool {
 		case HISTORY :
 			getHistory(clArgs.getParameter(CommandLineArguments.FROM),
 					   clArgs.getParameter(CommandLineArguments.MAX)); break;
+		case DESTINATIONS :
+			listDestinations(); break;
+		case METRICS :
+			listMetrics(); break;
 		}
 	}
 
@@ -465,6 +471,87 @@ public class HB2BInfoTool {
 		System.out.println(line);
 	}	
 	
+	/**
+	 * Gets the status of the destinations to which sending is suspended or recently failed and prints a list with the
+	 * URL, state, number of failed attempts and time until which messages are deferred.
+	 */
+	private static void listDestinations() {
+		EndpointCircuitBreaker.Status[] destinations = null;
+		try {
+			destinations = coreAPI.getDestinationStatus();
+		} catch (RemoteException e) {
+			System.err.println(
+			"An error occurred while getting the destination status from the Holodeck B2B instance. See error details below:");
+			e.printStackTrace(System.err);
+			System.exit(-3);
+		}
+		if (destinations == null || destinations.length == 0) {
+			System.out.println("All destinations are available.");
+			return;
+		}
+
+		int mxDest = 11;
+		for(EndpointCircuitBreaker.Status d : destinations)
+			mxDest = Math.max(mxDest, d.getDestination().length());
+
+		final String template = "| %-" + mxDest + "s | %-9s | %8s | %-24s |";
+		final String line = String.format(template, "", "", "", "").replace(" ", "-").replace("|", "+");
+
+		System.out.println(line);
+		System.out.println(String.format(template, "Destination", "State", "Failures", "Deferred until"));
+		System.out.println(line);
+		for(EndpointCircuitBreaker.Status d : destinations)
+			System.out.println(String.format(template, d.getDestination(), d.getState().name(),
+											 d.getConsecutiveFailures(),
+											 d.getOpenUntil() != null ? Utils.toXMLDateTime(d.getOpenUntil()) : ""));
+		System.out.println(line);
+	}
+
+	/**
+	 * Gets the statistics of the processing times and prints a list with for each handler and message exchange the
+	 * number of invocations and failures and the mean, median, 90th and 99th percentile and maximum time in
+	 * microseconds.
+	 */
+	private static void listMetrics() {
+		LatencyStatistics[] metrics = null;
+		try {
+			metrics = coreAPI.getProcessingMetrics();
+		} catch (RemoteException e) {
+			System.err.println(
+			"An error occurred while getting the processing metrics from the Holodeck B2B instance. See error details below:");
+			e.printStackTrace(System.err);
+			System.exit(-3);
+		}
+		if (metrics == null || metrics.length == 0) {
+			System.out.println("No messages have been processed yet.");
+			return;
+		}
+
+		final String[] names = new String[metrics.length];
+		int mxName = 7;
+		for(int i = 0; i < metrics.length; i++) {
+			final LatencyStatistics m = metrics[i];
+			names[i] = m.getCategory() + (m.getFlow() != null ? "." + m.getFlow() : "") + "." + m.getName();
+			mxName = Math.max(mxName, names[i].length());
+		}
+
+		final String template = "| %-" + mxName + "s | %11s | %8s | %10s | %10s | %10s | %10s | %10s |";
+		final String line = String.format(template, "", "", "", "", "", "", "", "").replace(" ", "-")
+																				.replace("|", "+");
+
+		System.out.println(line);
+		System.out.println(String.format(template, "Handler", "Invocations", "Failures", "Mean (us)", "Median",
+										 "90%", "99%", "Max"));
+		System.out.println(line);
+		for(int i = 0; i < metrics.length; i++) {
+			final LatencyStatistics m = metrics[i];
+			System.out.println(String.format(template, names[i], m.getInvocations(), m.getFailures(),
+											 String.format("%.1f", m.getMeanTime()), m.getPercentile(50),
+											 m.getPercentile(90), m.getPercentile(99), m.getMaxTime()));
+		}
+		System.out.println(line);
+	}
+
     /**
      * Gets the finger print of the certificate using the specified hash algorithm.
      * 